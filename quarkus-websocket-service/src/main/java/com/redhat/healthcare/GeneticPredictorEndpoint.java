@@ -1,6 +1,7 @@
 package com.redhat.healthcare;
 
 import java.net.URI;
+import java.util.List;
 import java.util.UUID;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -14,6 +15,7 @@ import jakarta.websocket.server.ServerEndpoint;
 
 import org.eclipse.microprofile.reactive.messaging.Channel;
 import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,9 +25,6 @@ import com.fasterxml.jackson.databind.JsonNode;
 
 import io.cloudevents.CloudEvent;
 import io.cloudevents.core.builder.CloudEventBuilder;
-import io.cloudevents.jackson.JsonFormat;
-import io.cloudevents.core.format.EventFormat;
-import io.cloudevents.core.provider.EventFormatProvider;
 
 // Separation of Concerns Validation Annotations
 // These annotations ensure the mapping between UI buttons and Kafka topics is maintained
@@ -47,16 +46,22 @@ public class GeneticPredictorEndpoint {
     @Inject
     // Multi-topic emitters for different scaling modes
     @Channel("genetic-data-raw-out")
-    Emitter<String> geneticDataRawOutEmitter;
+    Emitter<byte[]> geneticDataRawOutEmitter;
 
     @Channel("genetic-bigdata-raw-out")
-    Emitter<String> geneticBigdataRawOutEmitter;
+    Emitter<byte[]> geneticBigdataRawOutEmitter;
 
     @Channel("genetic-nodescale-raw-out")
-    Emitter<String> geneticNodescaleRawOutEmitter;
+    Emitter<byte[]> geneticNodescaleRawOutEmitter;
 
     @Channel("genetic-lag-demo-raw-out")
-    Emitter<String> geneticLagDemoRawOutEmitter;
+    Emitter<byte[]> geneticLagDemoRawOutEmitter;
+
+    @Inject
+    KafkaCloudEventCodec cloudEventCodec;
+
+    @Inject
+    SequenceChunker sequenceChunker;
 
     @Inject
     ObjectMapper objectMapper;
@@ -131,10 +136,10 @@ public class GeneticPredictorEndpoint {
             // Create enhanced data payload with mode information
             // Use the API session ID for consistency with result delivery
             String apiSessionId = (String) session.getUserProperties().get("apiSessionId");
+            String recordSessionId = apiSessionId != null ? apiSessionId : session.getId();
             ObjectNode data = objectMapper.createObjectNode();
-            data.put("sessionId", apiSessionId != null ? apiSessionId : session.getId());
+            data.put("sessionId", recordSessionId);
             data.put("userId", "demo-user-" + session.getId().substring(0, 8));
-            data.put("genetic_sequence", geneticSequence);
             data.put("processing_mode", mode);
             data.put("resource_profile", resourceProfile);
             data.put("sequence_length", geneticSequence.length());
@@ -175,45 +180,54 @@ public class GeneticPredictorEndpoint {
                     break;
             }
 
-            // Build the CloudEvent with enhanced metadata
-            // Note: CloudEvent extension names must be lowercase and use only letters, numbers, and hyphens
-            CloudEvent event = CloudEventBuilder.v1()
-                    .withId(UUID.randomUUID().toString())
-                    .withSource(URI.create("/healthcare-ml/frontend"))
-                    .withType(eventType)
-                    .withSubject("Genetic Sequence Analysis - " + mode.toUpperCase() + " Mode")
-                    .withExtension("processingmode", mode)
-                    .withExtension("resourceprofile", resourceProfile)
-                    .withExtension("sequencelength", String.valueOf(geneticSequence.length()))
-                    .withData("application/json", objectMapper.writeValueAsBytes(data))
-                    .build();
-
-            // Serialize CloudEvent to JSON and send to appropriate Kafka topic
-            EventFormat format = EventFormatProvider.getInstance().resolveFormat(JsonFormat.CONTENT_TYPE);
-            byte[] cloudEventBytes = format.serialize(event);
-            String cloudEventJson = new String(cloudEventBytes);
-
-            // Send to appropriate topic based on mode
-            switch (mode) {
-                case "big-data":
-                    geneticBigdataRawOutEmitter.send(cloudEventJson);
-                    break;
-                case "node-scale":
-                    geneticNodescaleRawOutEmitter.send(cloudEventJson);
-                    break;
-                case "kafka-lag":
-                    geneticLagDemoRawOutEmitter.send(cloudEventJson);
-                    break;
-                case "normal":
-                    geneticDataRawOutEmitter.send(cloudEventJson);
-                    break;
-                default:
-                    // Default to normal mode for backward compatibility
-                    geneticDataRawOutEmitter.send(cloudEventJson);
-                    break;
+            // Very large sequences become ordered chunk records annotated one by one (SequenceChunker)
+            List<ObjectNode> payloads = sequenceChunker.split(data, geneticSequence);
+
+            for (ObjectNode payload : payloads) {
+                // Build the CloudEvent with enhanced metadata
+                // Note: CloudEvent extension names must be lowercase and use only letters, numbers, and hyphens
+                CloudEvent event = CloudEventBuilder.v1()
+                        .withId(UUID.randomUUID().toString())
+                        .withSource(URI.create("/healthcare-ml/frontend"))
+                        .withType(eventType)
+                        .withSubject("Genetic Sequence Analysis - " + mode.toUpperCase() + " Mode")
+                        .withExtension("processingmode", mode)
+                        .withExtension("resourceprofile", resourceProfile)
+                        .withExtension("sequencelength", String.valueOf(geneticSequence.length()))
+                        .withData("application/json", objectMapper.writeValueAsBytes(payload))
+                        .build();
+
+                // Binary-mode CloudEvent (attributes in Kafka headers) unless kafka-mode=structured,
+                // keyed by session so the chunks of a sequence stay in one partition and in order
+                Message<byte[]> cloudEventMessage = cloudEventCodec.toMessage(event, recordSessionId);
+
+                // Send to appropriate topic based on mode
+                switch (mode) {
+                    case "big-data":
+                        geneticBigdataRawOutEmitter.send(cloudEventMessage);
+                        break;
+                    case "node-scale":
+                        geneticNodescaleRawOutEmitter.send(cloudEventMessage);
+                        break;
+                    case "kafka-lag":
+                        geneticLagDemoRawOutEmitter.send(cloudEventMessage);
+                        break;
+                    case "normal":
+                        geneticDataRawOutEmitter.send(cloudEventMessage);
+                        break;
+                    default:
+                        // Default to normal mode for backward compatibility
+                        geneticDataRawOutEmitter.send(cloudEventMessage);
+                        break;
+                }
             }
 
-            LOGGER.info("Sent {} CloudEvent to {} topic for {} mode processing", eventType, kafkaTopic, mode);
+            LOGGER.info("Sent {} {} CloudEvent(s) to {} topic for {} mode processing", payloads.size(), eventType, kafkaTopic, mode);
+            if (payloads.size() > 1) {
+                session.getAsyncRemote().sendText(
+                    String.format("🧩 Large sequence split into %d chunks - variants will be shown as each chunk is annotated",
+                                payloads.size()));
+            }
 
             // Send appropriate acknowledgment based on mode
             switch (mode) {
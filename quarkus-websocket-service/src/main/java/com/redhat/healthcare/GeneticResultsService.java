@@ -1,9 +1,5 @@
 package com.redhat.healthcare;
 
-import io.cloudevents.CloudEvent;
-import io.cloudevents.core.format.EventFormat;
-import io.cloudevents.core.provider.EventFormatProvider;
-import io.cloudevents.jackson.JsonFormat;
 import io.smallrye.mutiny.Uni;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 import org.slf4j.Logger;
@@ -15,6 +11,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.websocket.Session;
+import java.io.IOException;
+import java.util.BitSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.Map;
 
@@ -29,21 +27,43 @@ import java.util.Map;
  * 
  * The service maintains a registry of active WebSocket sessions to enable
  * real-time delivery of genetic analysis results to connected clients.
+ *
+ * Chunked sequences (SequenceChunker) produce one partial result per chunk: the variants of
+ * each chunk are sent as soon as it is annotated. The chunk indexes received are tracked per
+ * session, and the analysis completes with the variant total of the whole sequence only once
+ * every chunk has arrived, whatever their order; until then each partial result lists the
+ * chunks still pending and those annotated in degraded mode (VEP unavailable).
+ *
+ * The sequence is never written out in full: messages show its length, a short preview and
+ * its SHA-256 prefix (the summary projection of the VEP service), so a 10 MB sequence does not
+ * come back as a 10 MB chat message.
  */
 @ApplicationScoped
 public class GeneticResultsService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GeneticResultsService.class);
 
+    // Bases of the sequence shown in result messages
+    static final int PREVIEW_BASES = 32;
+
     @Inject
     ObjectMapper objectMapper;
 
     @Inject
     ProcessingProgressService progressService;
 
+    @Inject
+    KafkaCloudEventCodec cloudEventCodec;
+
+    @Inject
+    SequenceClaimCheck sequenceClaimCheck;
+
     // Registry to track active WebSocket sessions
     private static final Map<String, Session> activeSessions = new ConcurrentHashMap<>();
 
+    // Chunks received so far per session for chunked sequences
+    private final Map<String, ChunkProgress> chunkProgress = new ConcurrentHashMap<>();
+
     /**
      * Register a WebSocket session for receiving results.
      * Called by the WebSocket endpoint when a client connects.
@@ -75,7 +95,8 @@ public class GeneticResultsService {
      * formats the annotations for frontend display, and sends the results
      * back to the appropriate WebSocket client based on session ID.
      * 
-     * @param cloudEventJson CloudEvent JSON containing VEP-annotated genetic data
+     * @param cloudEventJson VEP-annotated genetic data: the data of a binary-mode CloudEvent
+     *                       (attributes in the record headers) or a structured CloudEvent
      * @return Uni<Void> for reactive processing completion
      */
     @Incoming("genetic-data-annotated-in")
@@ -84,12 +105,8 @@ public class GeneticResultsService {
         LOGGER.info("📥 WEBSOCKET CONSUMER: Message size: {} chars", cloudEventJson.length());
         LOGGER.debug("📄 WEBSOCKET CONSUMER: Full message content: {}", cloudEventJson);
 
-        return parseCloudEvent(cloudEventJson)
-            .onItem().invoke(cloudEvent -> {
-                LOGGER.info("✅ WEBSOCKET CONSUMER: Successfully parsed CloudEvent");
-                LOGGER.info("📋 WEBSOCKET CONSUMER: CloudEvent type: {}", cloudEvent.getType());
-                LOGGER.info("📋 WEBSOCKET CONSUMER: CloudEvent source: {}", cloudEvent.getSource());
-            })
+        return parseCloudEventData(cloudEventJson)
+            .onItem().invoke(dataNode -> LOGGER.info("✅ WEBSOCKET CONSUMER: Successfully parsed CloudEvent data"))
             .onFailure().invoke(throwable -> {
                 LOGGER.error("❌ WEBSOCKET CONSUMER: Failed to parse CloudEvent: {}", throwable.getMessage());
                 LOGGER.error("📄 WEBSOCKET CONSUMER: Problematic content: {}", cloudEventJson);
@@ -116,13 +133,16 @@ public class GeneticResultsService {
     }
 
     /**
-     * Parse CloudEvent JSON string into CloudEvent object.
+     * Parse the CloudEvent data of a record value (binary or structured mode) in a single pass.
      */
-    private Uni<CloudEvent> parseCloudEvent(String cloudEventJson) {
+    private Uni<JsonNode> parseCloudEventData(String cloudEventJson) {
         return Uni.createFrom().item(() -> {
             try {
-                EventFormat format = EventFormatProvider.getInstance().resolveFormat(JsonFormat.CONTENT_TYPE);
-                return format.deserialize(cloudEventJson.getBytes());
+                JsonNode dataNode = cloudEventCodec.readData(cloudEventJson);
+                if (dataNode == null || !dataNode.isObject()) {
+                    throw new IllegalArgumentException("CloudEvent data is not a JSON object");
+                }
+                return dataNode;
             } catch (Exception e) {
                 LOGGER.error("Failed to parse CloudEvent: {}", e.getMessage());
                 throw new RuntimeException("Invalid CloudEvent format", e);
@@ -131,16 +151,13 @@ public class GeneticResultsService {
     }
 
     /**
-     * Extract session ID and VEP results from CloudEvent.
+     * Extract session ID and VEP results from CloudEvent data.
      */
-    private Uni<AnnotatedResults> extractSessionAndResults(CloudEvent cloudEvent) {
+    private Uni<AnnotatedResults> extractSessionAndResults(JsonNode dataNode) {
         return Uni.createFrom().item(() -> {
             try {
-                byte[] data = cloudEvent.getData().toBytes();
-                JsonNode dataNode = objectMapper.readTree(data);
-                
                 String sessionId = dataNode.get("sessionId").asText();
-                String geneticSequence = dataNode.get("genetic_sequence").asText();
+                String sequenceSummary = describeSequence(dataNode);
                 JsonNode vepAnnotations = dataNode.get("vep_annotations");
                 long annotationTimestamp = dataNode.get("annotation_timestamp").asLong();
                 String annotationSource = dataNode.get("annotation_source").asText();
@@ -148,8 +165,18 @@ public class GeneticResultsService {
                 LOGGER.debug("Extracted results for session: {} with {} annotations", 
                     sessionId, vepAnnotations.size());
                 
-                return new AnnotatedResults(sessionId, geneticSequence, vepAnnotations, 
+                AnnotatedResults annotated = new AnnotatedResults(sessionId, sequenceSummary, vepAnnotations,
                     annotationTimestamp, annotationSource);
+                if (dataNode.path("chunk_count").asInt(1) > 1) {
+                    annotated.chunkIndex = dataNode.get("chunk_index").asInt();
+                    annotated.chunkCount = dataNode.get("chunk_count").asInt();
+                    annotated.chunkStart = dataNode.path("chunk_start").asLong();
+                    annotated.chunkEnd = dataNode.path("chunk_end").asLong();
+                    annotated.totalSequenceLength = dataNode.path("total_sequence_length").asLong();
+                    annotated.degraded = dataNode.path("degraded").asBoolean(false)
+                        || !"success".equals(dataNode.path("status").asText("success"));
+                }
+                return annotated;
                     
             } catch (Exception e) {
                 LOGGER.error("Failed to extract session and results from CloudEvent: {}", e.getMessage());
@@ -158,42 +185,52 @@ public class GeneticResultsService {
         });
     }
 
+    /**
+     * One-line description of the annotated sequence: length, preview and SHA-256 prefix.
+     * Results in the full projection carry the sequence inline (only its head is kept) or as a
+     * claim-check reference, which is not fetched just to be summarized.
+     */
+    String describeSequence(JsonNode data) throws IOException {
+        long length = data.path("sequence_length").asLong(-1);
+        String preview = data.hasNonNull("sequence_preview") ? data.get("sequence_preview").asText() : null;
+        String sha256 = data.hasNonNull("sequence_sha256") ? data.get("sequence_sha256").asText() : null;
+        if (preview == null && sha256 == null && !sequenceClaimCheck.hasReference(data)) {
+            String sequence = sequenceClaimCheck.readSequence(data);
+            if (sequence != null) {
+                length = sequence.length();
+                preview = sequence.substring(0, Math.min(PREVIEW_BASES, sequence.length()));
+            }
+        }
+
+        StringBuilder description = new StringBuilder();
+        description.append(length >= 0 ? String.format("%,d bases", length) : "unknown length");
+        if (preview != null && !preview.isEmpty()) {
+            description.append(" (").append(preview).append(length > preview.length() ? "…" : "").append(")");
+        }
+        if (sha256 != null && sha256.length() >= 12) {
+            description.append(", SHA-256 ").append(sha256, 0, 12);
+        }
+        return description.toString();
+    }
+
     /**
      * Format VEP annotation results for frontend display.
      */
     private Uni<FormattedResults> formatResultsForFrontend(AnnotatedResults results) {
+        if (results.isChunk()) {
+            return Uni.createFrom().item(() -> formatChunkResults(results));
+        }
         return Uni.createFrom().item(() -> {
             try {
                 StringBuilder formattedMessage = new StringBuilder();
                 formattedMessage.append("🧬 **Genetic Analysis Complete**\n\n");
-                formattedMessage.append("**Sequence:** ").append(results.geneticSequence).append("\n");
+                formattedMessage.append("**Sequence:** ").append(results.sequenceSummary).append("\n");
                 formattedMessage.append("**Analysis Source:** ").append(results.annotationSource).append("\n\n");
                 
                 if (results.vepAnnotations.isArray() && results.vepAnnotations.size() > 0) {
                     formattedMessage.append("**🔬 VEP Annotations Found:**\n");
                     
-                    for (JsonNode annotation : results.vepAnnotations) {
-                        formattedMessage.append("• **Variant:** ").append(annotation.get("input").asText("N/A")).append("\n");
-                        formattedMessage.append("  - **Consequence:** ").append(annotation.get("most_severe_consequence").asText("Unknown")).append("\n");
-                        
-                        JsonNode transcripts = annotation.get("transcript_consequences");
-                        if (transcripts != null && transcripts.isArray() && transcripts.size() > 0) {
-                            JsonNode firstTranscript = transcripts.get(0);
-                            if (firstTranscript.has("gene_symbol")) {
-                                formattedMessage.append("  - **Gene:** ").append(firstTranscript.get("gene_symbol").asText()).append("\n");
-                            }
-                            if (firstTranscript.has("impact")) {
-                                formattedMessage.append("  - **Impact:** ").append(firstTranscript.get("impact").asText()).append("\n");
-                            }
-                            if (firstTranscript.has("sift_prediction")) {
-                                formattedMessage.append("  - **SIFT:** ").append(firstTranscript.get("sift_prediction").asText()).append("\n");
-                            }
-                            if (firstTranscript.has("polyphen_prediction")) {
-                                formattedMessage.append("  - **PolyPhen:** ").append(firstTranscript.get("polyphen_prediction").asText()).append("\n");
-                            }
-                        }
-                        formattedMessage.append("\n");
-                    }
+                    appendAnnotations(formattedMessage, results.vepAnnotations);
                 } else {
                     formattedMessage.append("**ℹ️ No VEP annotations available**\n");
                     formattedMessage.append("This may indicate:\n");
@@ -212,13 +249,94 @@ public class GeneticResultsService {
             } catch (Exception e) {
                 LOGGER.error("Failed to format results: {}", e.getMessage());
                 // Fallback formatting
-                String fallbackMessage = "🧬 Genetic analysis completed for sequence: " + results.geneticSequence + 
+                String fallbackMessage = "🧬 Genetic analysis completed for sequence: " + results.sequenceSummary + 
                     "\n⚠️ Detailed results formatting failed. Raw data available in logs.";
                 return new FormattedResults(results.sessionId, fallbackMessage);
             }
         });
     }
 
+    /**
+     * Format the partial result of one chunk; the chunk that completes the set of chunk indexes
+     * also completes the analysis. A redelivered chunk is shown again but not counted twice.
+     */
+    private FormattedResults formatChunkResults(AnnotatedResults results) {
+        ChunkProgress progress = chunkProgress.computeIfAbsent(results.sessionId,
+            sessionId -> new ChunkProgress(results.chunkCount));
+        ChunkProgress.Snapshot snapshot = progress.record(results.chunkIndex, results.vepAnnotations.size(), results.degraded);
+
+        StringBuilder formattedMessage = new StringBuilder();
+        formattedMessage.append(String.format("🧩 **Partial Results - chunk %d/%d** (bases %,d-%,d of %,d)%n%n",
+            results.chunkIndex + 1, results.chunkCount, results.chunkStart + 1, results.chunkEnd, results.totalSequenceLength));
+        if (results.vepAnnotations.isArray() && results.vepAnnotations.size() > 0) {
+            appendAnnotations(formattedMessage, results.vepAnnotations);
+        } else {
+            formattedMessage.append("**ℹ️ No variants in this chunk**\n\n");
+        }
+
+        if (!snapshot.failed().isEmpty()) {
+            formattedMessage.append("⚠️ Chunks ").append(describeChunks(snapshot.failed()))
+                .append(" annotated in degraded mode (VEP unavailable)\n");
+        }
+        if (snapshot.complete()) {
+            chunkProgress.remove(results.sessionId, progress);
+            formattedMessage.append("🧬 **Genetic Analysis Complete** - ").append(snapshot.variants())
+                .append(" variants in ").append(results.chunkCount).append(" chunks\n");
+            formattedMessage.append("**⏱️ Analysis completed at:** ")
+                .append(new java.util.Date(results.annotationTimestamp).toString()).append("\n");
+            formattedMessage.append("**✅ Ready for next analysis**");
+        } else {
+            formattedMessage.append("⏳ ").append(snapshot.variants()).append(" variants so far - ")
+                .append(snapshot.received()).append("/").append(results.chunkCount)
+                .append(" chunks annotated, pending: ").append(describeChunks(snapshot.pending()));
+        }
+        return new FormattedResults(results.sessionId, formattedMessage.toString(), snapshot.complete());
+    }
+
+    /**
+     * 1-based chunk numbers as ranges, e.g. "2-5, 8"
+     */
+    static String describeChunks(BitSet chunks) {
+        StringBuilder description = new StringBuilder();
+        for (int start = chunks.nextSetBit(0); start >= 0; start = chunks.nextSetBit(start)) {
+            int end = chunks.nextClearBit(start);
+            if (description.length() > 0) {
+                description.append(", ");
+            }
+            description.append(start + 1);
+            if (end - start > 1) {
+                description.append("-").append(end);
+            }
+            start = end;
+        }
+        return description.toString();
+    }
+
+    private static void appendAnnotations(StringBuilder formattedMessage, JsonNode vepAnnotations) {
+        for (JsonNode annotation : vepAnnotations) {
+            formattedMessage.append("• **Variant:** ").append(annotation.get("input").asText("N/A")).append("\n");
+            formattedMessage.append("  - **Consequence:** ").append(annotation.get("most_severe_consequence").asText("Unknown")).append("\n");
+            
+            JsonNode transcripts = annotation.get("transcript_consequences");
+            if (transcripts != null && transcripts.isArray() && transcripts.size() > 0) {
+                JsonNode firstTranscript = transcripts.get(0);
+                if (firstTranscript.has("gene_symbol")) {
+                    formattedMessage.append("  - **Gene:** ").append(firstTranscript.get("gene_symbol").asText()).append("\n");
+                }
+                if (firstTranscript.has("impact")) {
+                    formattedMessage.append("  - **Impact:** ").append(firstTranscript.get("impact").asText()).append("\n");
+                }
+                if (firstTranscript.has("sift_prediction")) {
+                    formattedMessage.append("  - **SIFT:** ").append(firstTranscript.get("sift_prediction").asText()).append("\n");
+                }
+                if (firstTranscript.has("polyphen_prediction")) {
+                    formattedMessage.append("  - **PolyPhen:** ").append(firstTranscript.get("polyphen_prediction").asText()).append("\n");
+                }
+            }
+            formattedMessage.append("\n");
+        }
+    }
+
     /**
      * Send formatted results to the appropriate WebSocket client.
      */
@@ -234,8 +352,10 @@ public class GeneticResultsService {
                 try {
                     LOGGER.info("✅ WEBSOCKET DELIVERY: Found active session for: {}", formattedResults.sessionId);
 
-                    // Stop progress updates before sending final results
-                    progressService.stopProcessingUpdates(formattedResults.sessionId);
+                    // Stop progress updates before sending final results (partial chunk results keep them running)
+                    if (formattedResults.complete) {
+                        progressService.stopProcessingUpdates(formattedResults.sessionId);
+                    }
 
                     // Send final results
                     session.getAsyncRemote().sendText(formattedResults.message);
@@ -249,10 +369,12 @@ public class GeneticResultsService {
             } else if (session != null) {
                 LOGGER.warn("🔌 WEBSOCKET DELIVERY: Session {} found but closed, cannot send results", formattedResults.sessionId);
                 progressService.stopProcessingUpdates(formattedResults.sessionId);
+                chunkProgress.remove(formattedResults.sessionId);
             } else {
                 LOGGER.warn("❌ WEBSOCKET DELIVERY: Session {} not found in registry, cannot send results", formattedResults.sessionId);
                 LOGGER.warn("🕐 WEBSOCKET DELIVERY: Session may have timed out or disconnected before results arrived");
                 progressService.stopProcessingUpdates(formattedResults.sessionId);
+                chunkProgress.remove(formattedResults.sessionId);
             }
 
             return null;
@@ -300,28 +422,80 @@ public class GeneticResultsService {
     // Helper classes for data transfer
     private static class AnnotatedResults {
         final String sessionId;
-        final String geneticSequence;
+        final String sequenceSummary;
         final JsonNode vepAnnotations;
         final long annotationTimestamp;
         final String annotationSource;
 
-        AnnotatedResults(String sessionId, String geneticSequence, JsonNode vepAnnotations, 
+        // Set for the partial result of a chunked sequence
+        int chunkIndex;
+        int chunkCount = 1;
+        long chunkStart;
+        long chunkEnd;
+        long totalSequenceLength;
+        boolean degraded;
+
+        AnnotatedResults(String sessionId, String sequenceSummary, JsonNode vepAnnotations,
                         long annotationTimestamp, String annotationSource) {
             this.sessionId = sessionId;
-            this.geneticSequence = geneticSequence;
+            this.sequenceSummary = sequenceSummary;
             this.vepAnnotations = vepAnnotations;
             this.annotationTimestamp = annotationTimestamp;
             this.annotationSource = annotationSource;
         }
+
+        boolean isChunk() {
+            return chunkCount > 1;
+        }
+    }
+
+    /**
+     * Chunk indexes received for one chunked sequence, and the variants they carried
+     */
+    static final class ChunkProgress {
+        private final int chunkCount;
+        private final BitSet received = new BitSet();
+        private final BitSet failed = new BitSet();
+        private int variants;
+
+        ChunkProgress(int chunkCount) {
+            this.chunkCount = chunkCount;
+        }
+
+        synchronized Snapshot record(int chunkIndex, int chunkVariants, boolean degraded) {
+            if (chunkIndex >= 0 && chunkIndex < chunkCount && !received.get(chunkIndex)) {
+                received.set(chunkIndex);
+                variants += chunkVariants;
+                if (degraded) {
+                    failed.set(chunkIndex);
+                }
+            }
+            BitSet pending = new BitSet();
+            pending.set(0, chunkCount);
+            pending.andNot(received);
+            return new Snapshot(received.cardinality(), pending, (BitSet) failed.clone(), variants);
+        }
+
+        record Snapshot(int received, BitSet pending, BitSet failed, int variants) {
+            boolean complete() {
+                return pending.isEmpty();
+            }
+        }
     }
 
     private static class FormattedResults {
         final String sessionId;
         final String message;
+        final boolean complete;
 
         FormattedResults(String sessionId, String message) {
+            this(sessionId, message, true);
+        }
+
+        FormattedResults(String sessionId, String message, boolean complete) {
             this.sessionId = sessionId;
             this.message = message;
+            this.complete = complete;
         }
     }
 }
@@ -0,0 +1,104 @@
+package com.redhat.healthcare;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.format.EventFormat;
+import io.cloudevents.core.provider.EventFormatProvider;
+import io.cloudevents.jackson.JsonFormat;
+import io.smallrye.reactive.messaging.ce.OutgoingCloudEventMetadata;
+import io.smallrye.reactive.messaging.ce.OutgoingCloudEventMetadataBuilder;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * CloudEvents encoding of the Kafka records exchanged with the VEP service.
+ *
+ * In binary content mode (default) the event attributes travel as ce_* Kafka headers and the
+ * event data is the raw record value, so sequences are no longer wrapped in a JSON envelope
+ * that every consumer has to parse twice. healthcare.ml.cloudevents.kafka-mode=structured
+ * keeps the previous envelope format while consumers are being upgraded; records are read
+ * in either mode.
+ */
+@ApplicationScoped
+public class KafkaCloudEventCodec {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaCloudEventCodec.class);
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "healthcare.ml.cloudevents.kafka-mode", defaultValue = "binary")
+    String kafkaMode;
+
+    private boolean binaryMode;
+
+    @PostConstruct
+    void init() {
+        binaryMode = !"structured".equalsIgnoreCase(kafkaMode.trim());
+        LOGGER.info("CloudEvents Kafka encoding: {}", binaryMode ? "binary" : "structured");
+    }
+
+    /**
+     * Wraps the event as an outgoing Kafka record in the configured content mode.
+     */
+    public Message<byte[]> toMessage(CloudEvent event) {
+        if (!binaryMode) {
+            EventFormat format = EventFormatProvider.getInstance().resolveFormat(JsonFormat.CONTENT_TYPE);
+            return Message.of(format.serialize(event));
+        }
+
+        OutgoingCloudEventMetadataBuilder<Object> metadata = OutgoingCloudEventMetadata.builder()
+            .withId(event.getId())
+            .withSource(event.getSource())
+            .withType(event.getType())
+            .withSubject(event.getSubject())
+            .withDataContentType(event.getDataContentType() != null ? event.getDataContentType() : "application/json");
+        if (event.getTime() != null) {
+            metadata.withTimestamp(event.getTime().toZonedDateTime());
+        }
+        for (String extension : event.getExtensionNames()) {
+            metadata.withExtension(extension, event.getExtension(extension));
+        }
+        byte[] data = event.getData() != null ? event.getData().toBytes() : new byte[0];
+        return Message.of(data).addMetadata(metadata.build());
+    }
+
+    /**
+     * Same as {@link #toMessage(CloudEvent)} with a Kafka record key: records with the same key
+     * (session ID) go to the same partition and are consumed in the order they were sent.
+     */
+    public Message<byte[]> toMessage(CloudEvent event, String key) {
+        Message<byte[]> message = toMessage(event);
+        return key != null
+            ? message.addMetadata(OutgoingKafkaRecordMetadata.<String>builder().withKey(key).build())
+            : message;
+    }
+
+    /**
+     * Parses the event data of a record value in either content mode with a single JSON parse:
+     * a value with a top-level specversion is a structured event, anything else is binary-mode data.
+     */
+    public JsonNode readData(String recordValue) throws IOException {
+        JsonNode root = objectMapper.readTree(recordValue);
+        if (root == null || !root.has("specversion")) {
+            return root;
+        }
+        if (root.has("data")) {
+            return root.get("data");
+        }
+        if (root.has("data_base64")) {
+            return objectMapper.readTree(Base64.getDecoder().decode(root.get("data_base64").asText()));
+        }
+        throw new IOException("Structured CloudEvent without data");
+    }
+}
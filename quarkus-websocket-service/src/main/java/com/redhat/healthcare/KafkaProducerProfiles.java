@@ -0,0 +1,68 @@
+package com.redhat.healthcare;
+
+import io.smallrye.common.annotation.Identifier;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Named Kafka producer profiles selected per outgoing channel.
+ *
+ * The producer properties of each profile (compression, linger, batch size) live under
+ * healthcare.ml.kafka.producer-profile.<name>.* and are exposed as an @Identifier("<name>-producer")
+ * configuration map, which a channel selects with
+ * mp.messaging.outgoing.<channel>.kafka-configuration=<name>-producer. Properties set on the
+ * channel itself still override the profile. Raw sequences compress very well, so every
+ * profile compresses: latency (lz4, no linger), throughput (zstd, short linger, 256 KB batches)
+ * and big-data (zstd, 1 MB batches and 50 MB requests).
+ *
+ * Same profiles as KafkaProducerProfiles in the VEP service.
+ */
+@ApplicationScoped
+public class KafkaProducerProfiles {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaProducerProfiles.class);
+
+    static final String PREFIX = "healthcare.ml.kafka.producer-profile.";
+
+    @Produces
+    @Identifier("latency-producer")
+    Map<String, Object> latencyProducer() {
+        return fromConfig("latency");
+    }
+
+    @Produces
+    @Identifier("throughput-producer")
+    Map<String, Object> throughputProducer() {
+        return fromConfig("throughput");
+    }
+
+    @Produces
+    @Identifier("big-data-producer")
+    Map<String, Object> bigDataProducer() {
+        return fromConfig("big-data");
+    }
+
+    private static Map<String, Object> fromConfig(String profile) {
+        Config config = ConfigProvider.getConfig();
+        String prefix = PREFIX + profile + ".";
+        Map<String, Object> producerConfig = new TreeMap<>();
+        for (String name : config.getPropertyNames()) {
+            if (name.startsWith(prefix)) {
+                config.getOptionalValue(name, String.class)
+                    .ifPresent(value -> producerConfig.put(name.substring(prefix.length()), value));
+            }
+        }
+        if (producerConfig.isEmpty()) {
+            throw new IllegalStateException("No Kafka producer profile '" + profile + "' under " + PREFIX);
+        }
+        LOGGER.info("Kafka producer profile {}: {}", profile, producerConfig);
+        return producerConfig;
+    }
+}
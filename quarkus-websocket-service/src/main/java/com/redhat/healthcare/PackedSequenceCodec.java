@@ -0,0 +1,248 @@
+package com.redhat.healthcare;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 2-bit packed encoding of genetic_sequence in Kafka payloads.
+ *
+ * Four bases (A, C, G, T) are stored per byte; any other symbol (N, IUPAC codes, lowercase)
+ * is kept in a run-length exception list. The packed bytes travel as genetic_sequence_packed
+ * (base64) with the version marker sequence_encoding=2bit-v1, about 3x smaller than text.
+ * Sequences that would not pack smaller, or with symbols above U+00FF, stay plain text.
+ * Both encodings are read; healthcare.ml.sequence.packed-encoding.enabled=false keeps producers
+ * on plain genetic_sequence text while consumers are being upgraded.
+ *
+ * Same format as PackedSequenceCodec in the VEP service.
+ */
+@ApplicationScoped
+public class PackedSequenceCodec {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackedSequenceCodec.class);
+
+    static final String TEXT_FIELD = "genetic_sequence";
+    static final String PACKED_FIELD = "genetic_sequence_packed";
+    static final String ENCODING_FIELD = "sequence_encoding";
+    static final String ENCODING = "2bit-v1";
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 1 + Integer.BYTES + Integer.BYTES;
+    private static final int RUN_BYTES = Integer.BYTES + Integer.BYTES + 1;
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+    private static final int UNPACK_CHUNK_BYTES = 64 * 1024;
+
+    @ConfigProperty(name = "healthcare.ml.sequence.packed-encoding.enabled", defaultValue = "true")
+    boolean packedEncodingEnabled;
+
+    @PostConstruct
+    void init() {
+        LOGGER.info("Genetic sequence encoding on Kafka: {}", packedEncodingEnabled ? ENCODING : "text");
+    }
+
+    public boolean isPackedEncodingEnabled() {
+        return packedEncodingEnabled;
+    }
+
+    /**
+     * Writes the sequence into the data payload, packed unless disabled or larger than the text
+     */
+    public void writeSequence(ObjectNode data, String sequence) {
+        if (packedEncodingEnabled && sequence != null && base64Length(packedSize(sequence)) < sequence.length()) {
+            data.put(ENCODING_FIELD, ENCODING);
+            data.put(PACKED_FIELD, pack(sequence));
+        } else {
+            data.put(TEXT_FIELD, sequence);
+        }
+    }
+
+    /**
+     * Reads the sequence of a data payload in either encoding
+     *
+     * @return the sequence, or null if the payload carries none
+     */
+    public String readSequence(JsonNode data) throws IOException {
+        JsonNode packed = data.get(PACKED_FIELD);
+        if (packed != null && !packed.isNull()) {
+            JsonNode encoding = data.get(ENCODING_FIELD);
+            if (encoding == null || !ENCODING.equals(encoding.asText())) {
+                throw new IOException("Unsupported sequence encoding: " + encoding);
+            }
+            return unpack(packed.binaryValue());
+        }
+        JsonNode text = data.get(TEXT_FIELD);
+        return text != null && !text.isNull() ? text.asText() : null;
+    }
+
+    /**
+     * Size of the packed form of a sequence, computed without packing it
+     *
+     * @return the packed size in bytes, or -1 if the sequence has a symbol above U+00FF
+     */
+    static long packedSize(CharSequence sequence) {
+        int length = sequence.length();
+        long runCount = 0;
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char symbol = sequence.charAt(i);
+            if (code(symbol) < 0) {
+                if (symbol > 0xFF) {
+                    return -1;
+                }
+                if (i == 0 || symbol != previous) {
+                    runCount++;
+                }
+            }
+            previous = symbol;
+        }
+        return HEADER_BYTES + runCount * RUN_BYTES + (length + 3L) / 4;
+    }
+
+    /**
+     * Packs a sequence four bases per byte
+     *
+     * @throws IllegalArgumentException if the sequence has a symbol above U+00FF (see packedSize)
+     */
+    static byte[] pack(CharSequence sequence) {
+        int length = sequence.length();
+        byte[] bases = new byte[(length + 3) / 4];
+
+        // Exception runs as (start, length, symbol) triples
+        int[] runs = new int[0];
+        int runCount = 0;
+
+        for (int i = 0; i < length; i++) {
+            char symbol = sequence.charAt(i);
+            int code = code(symbol);
+            if (code >= 0) {
+                bases[i >>> 2] |= (byte) (code << (6 - 2 * (i & 3)));
+                continue;
+            }
+            if (symbol > 0xFF) {
+                throw new IllegalArgumentException("Unsupported sequence symbol at " + i + ": " + symbol);
+            }
+            int last = (runCount - 1) * 3;
+            if (runCount > 0 && runs[last + 2] == symbol && runs[last] + runs[last + 1] == i) {
+                runs[last + 1]++;
+            } else {
+                if (runs.length == runCount * 3) {
+                    runs = Arrays.copyOf(runs, Math.max(12, runs.length * 2));
+                }
+                runs[runCount * 3] = i;
+                runs[runCount * 3 + 1] = 1;
+                runs[runCount * 3 + 2] = symbol;
+                runCount++;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + runCount * RUN_BYTES + bases.length);
+        buffer.put(FORMAT_VERSION).putInt(length).putInt(runCount);
+        for (int r = 0; r < runCount; r++) {
+            buffer.putInt(runs[r * 3]).putInt(runs[r * 3 + 1]).put((byte) runs[r * 3 + 2]);
+        }
+        buffer.put(bases);
+        return buffer.array();
+    }
+
+    /**
+     * Restores the sequence text of packed bytes
+     */
+    static String unpack(byte[] packed) {
+        ByteBuffer buffer = ByteBuffer.wrap(packed);
+        if (packed.length < HEADER_BYTES || buffer.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Not a version " + FORMAT_VERSION + " packed sequence");
+        }
+        int length = buffer.getInt();
+        int runCount = buffer.getInt();
+        if (length < 0 || runCount < 0
+                || buffer.remaining() != (long) runCount * RUN_BYTES + (length + 3L) / 4) {
+            throw new IllegalArgumentException("Truncated or corrupt packed sequence");
+        }
+
+        int basesOffset = HEADER_BYTES + runCount * RUN_BYTES;
+        // Latin-1 bytes become a compact String without an intermediate char[]
+        byte[] text = new byte[length];
+        for (int i = 0; i < length; i++) {
+            text[i] = BASES[(packed[basesOffset + (i >>> 2)] >>> (6 - 2 * (i & 3))) & 3];
+        }
+        for (int r = 0; r < runCount; r++) {
+            int start = buffer.getInt();
+            int runLength = buffer.getInt();
+            byte symbol = buffer.get();
+            if (start < 0 || runLength < 0 || start + runLength > length) {
+                throw new IllegalArgumentException("Exception run outside the sequence");
+            }
+            Arrays.fill(text, start, start + runLength, symbol);
+        }
+        return new String(text, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Restores the sequence text of a packed stream, reading the bases in chunks
+     * (claim-check blobs are never loaded whole before decoding)
+     */
+    static String unpack(InputStream packed) throws IOException {
+        DataInputStream in = new DataInputStream(packed);
+        if (in.readByte() != FORMAT_VERSION) {
+            throw new IOException("Not a version " + FORMAT_VERSION + " packed sequence");
+        }
+        int length = in.readInt();
+        int runCount = in.readInt();
+        if (length < 0 || runCount < 0 || runCount > length) {
+            throw new IOException("Corrupt packed sequence header");
+        }
+        int[] runs = new int[runCount * 3];
+        for (int r = 0; r < runCount; r++) {
+            runs[r * 3] = in.readInt();
+            runs[r * 3 + 1] = in.readInt();
+            runs[r * 3 + 2] = in.readByte();
+        }
+
+        byte[] text = new byte[length];
+        byte[] chunk = new byte[UNPACK_CHUNK_BYTES];
+        int base = 0;
+        while (base < length) {
+            int chunkBytes = Math.min(chunk.length, (length - base + 3) / 4);
+            in.readFully(chunk, 0, chunkBytes);
+            for (int b = 0; b < chunkBytes; b++) {
+                for (int shift = 6; shift >= 0 && base < length; shift -= 2) {
+                    text[base++] = BASES[(chunk[b] >>> shift) & 3];
+                }
+            }
+        }
+        for (int r = 0; r < runCount; r++) {
+            int start = runs[r * 3];
+            int runLength = runs[r * 3 + 1];
+            if (start < 0 || runLength < 0 || start + runLength > length) {
+                throw new IOException("Exception run outside the sequence");
+            }
+            Arrays.fill(text, start, start + runLength, (byte) runs[r * 3 + 2]);
+        }
+        return new String(text, StandardCharsets.ISO_8859_1);
+    }
+
+    private static long base64Length(long bytes) {
+        return bytes < 0 ? Long.MAX_VALUE : (bytes + 2) / 3 * 4;
+    }
+
+    private static int code(char base) {
+        switch (base) {
+            case 'A': return 0;
+            case 'C': return 1;
+            case 'G': return 2;
+            case 'T': return 3;
+            default: return -1;
+        }
+    }
+}
@@ -6,9 +6,6 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.redhat.healthcare.model.*;
 import io.cloudevents.CloudEvent;
 import io.cloudevents.core.builder.CloudEventBuilder;
-import io.cloudevents.core.format.EventFormat;
-import io.cloudevents.core.provider.EventFormatProvider;
-import io.cloudevents.jackson.JsonFormat;
 import io.smallrye.common.annotation.Blocking;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -18,6 +15,7 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.reactive.messaging.Channel;
 import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Message;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +23,7 @@ import org.slf4j.LoggerFactory;
 import java.net.URI;
 import java.time.OffsetDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
@@ -56,16 +55,22 @@ public class ScalingTestController {
     @Inject
     // Multi-topic emitters for different scaling modes (same as WebSocket implementation)
     @Channel("genetic-data-raw-out")
-    Emitter<String> geneticDataRawOutEmitter;
+    Emitter<byte[]> geneticDataRawOutEmitter;
 
     @Channel("genetic-bigdata-raw-out")
-    Emitter<String> geneticBigdataRawOutEmitter;
+    Emitter<byte[]> geneticBigdataRawOutEmitter;
 
     @Channel("genetic-nodescale-raw-out")
-    Emitter<String> geneticNodescaleRawOutEmitter;
+    Emitter<byte[]> geneticNodescaleRawOutEmitter;
 
     @Channel("genetic-lag-demo-raw-out")
-    Emitter<String> geneticLagDemoRawOutEmitter;
+    Emitter<byte[]> geneticLagDemoRawOutEmitter;
+
+    @Inject
+    KafkaCloudEventCodec cloudEventCodec;
+
+    @Inject
+    SequenceChunker sequenceChunker;
     
     @Inject
     ObjectMapper objectMapper;
@@ -176,7 +181,6 @@ public class ScalingTestController {
             ObjectNode data = objectMapper.createObjectNode();
             data.put("sessionId", request.getSessionId());
             data.put("userId", "api-user-" + request.getSessionId().substring(0, 8));
-            data.put("genetic_sequence", request.getSequence());
             data.put("processing_mode", processingMode);
             data.put("resource_profile", request.getResourceProfile());
             data.put("sequence_length", request.getSequence().length());
@@ -208,42 +212,33 @@ public class ScalingTestController {
                     break;
             }
 
-            CloudEvent event = CloudEventBuilder.v1()
-                .withId(UUID.randomUUID().toString())
-                .withSource(URI.create("https://healthcare-ml-demo/api/genetic/analyze"))
-                .withType(eventType)
-                .withSubject("Genetic Sequence Analysis - " + processingMode.toUpperCase() + " Mode")
-                .withExtension("processingmode", processingMode)
-                .withExtension("resourceprofile", request.getResourceProfile())
-                .withExtension("sequencelength", String.valueOf(request.getSequence().length()))
-                .withData("application/json", data.toString().getBytes())
-                .withTime(OffsetDateTime.now())
-                .build();
-
-            // Serialize CloudEvent to JSON
-            EventFormat format = EventFormatProvider.getInstance().resolveFormat(JsonFormat.CONTENT_TYPE);
-            byte[] cloudEventBytes = format.serialize(event);
-            String cloudEventJson = new String(cloudEventBytes);
+            // Very large sequences become ordered chunk records annotated one by one (SequenceChunker),
+            // like the WebSocket endpoint, so no single record holds a VEP permit for minutes
+            List<ObjectNode> payloads = sequenceChunker.split(data, request.getSequence());
+            String trackingId = null;
+
+            for (ObjectNode payload : payloads) {
+                CloudEvent event = CloudEventBuilder.v1()
+                    .withId(UUID.randomUUID().toString())
+                    .withSource(URI.create("https://healthcare-ml-demo/api/genetic/analyze"))
+                    .withType(eventType)
+                    .withSubject("Genetic Sequence Analysis - " + processingMode.toUpperCase() + " Mode")
+                    .withExtension("processingmode", processingMode)
+                    .withExtension("resourceprofile", request.getResourceProfile())
+                    .withExtension("sequencelength", String.valueOf(request.getSequence().length()))
+                    .withData("application/json", payload.toString().getBytes())
+                    .withTime(OffsetDateTime.now())
+                    .build();
+                if (trackingId == null) {
+                    trackingId = event.getId();
+                }
 
-            // Send to appropriate topic based on mode (same logic as WebSocket)
-            switch (processingMode) {
-                case "bigdata":
-                case "big-data":
-                    geneticBigdataRawOutEmitter.send(cloudEventJson);
-                    break;
-                case "node-scale":
-                case "nodescale":
-                    geneticNodescaleRawOutEmitter.send(cloudEventJson);
-                    break;
-                case "kafka-lag":
-                    geneticLagDemoRawOutEmitter.send(cloudEventJson);
-                    break;
-                default: // "normal"
-                    geneticDataRawOutEmitter.send(cloudEventJson);
-                    break;
+                // Binary-mode CloudEvent (attributes in Kafka headers) unless kafka-mode=structured,
+                // keyed by session so the chunks of a sequence stay in one partition and in order
+                sendToModeTopic(processingMode, cloudEventCodec.toMessage(event, request.getSessionId()));
             }
 
-            LOGGER.info("Sent {} CloudEvent to {} topic for {} mode processing", eventType, kafkaTopic, processingMode);
+            LOGGER.info("Sent {} {} CloudEvent(s) to {} topic for {} mode processing", payloads.size(), eventType, kafkaTopic, processingMode);
             
             // Prepare response
             Map<String, Object> responseData = new HashMap<>();
@@ -251,7 +246,8 @@ public class ScalingTestController {
             responseData.put("processingMode", processingMode);
             responseData.put("sequenceLength", request.getSequence().length());
             responseData.put("sessionId", request.getSessionId());
-            responseData.put("trackingId", event.getId());
+            responseData.put("chunks", payloads.size());
+            responseData.put("trackingId", trackingId);
             
             String expectedScaling = "bigdata".equals(processingMode) ?
                 "1→10+ pods, 6→7+ nodes" : "1→2+ pods";
@@ -510,6 +506,29 @@ public class ScalingTestController {
         return sequence.toString();
     }
 
+    /**
+     * Send a record to the raw topic of its processing mode (same logic as WebSocket).
+     */
+    private void sendToModeTopic(String mode, Message<byte[]> cloudEventMessage) {
+        switch (mode) {
+            case "bigdata":
+            case "big-data":
+                geneticBigdataRawOutEmitter.send(cloudEventMessage);
+                break;
+            case "node-scale":
+            case "nodescale":
+                geneticNodescaleRawOutEmitter.send(cloudEventMessage);
+                break;
+            case "kafka-lag":
+                // Send to kafka-lag topic for consumer lag demonstration
+                geneticLagDemoRawOutEmitter.send(cloudEventMessage);
+                break;
+            default: // "normal"
+                geneticDataRawOutEmitter.send(cloudEventMessage);
+                break;
+        }
+    }
+
     /**
      * Process sequence for demo with logging.
      *
@@ -523,7 +542,6 @@ public class ScalingTestController {
             ObjectNode data = objectMapper.createObjectNode();
             data.put("sessionId", request.getSessionId());
             data.put("userId", "demo-api-user");
-            data.put("genetic_sequence", request.getSequence());
             data.put("processing_mode", request.getMode());
             data.put("resource_profile", request.getResourceProfile());
             data.put("sequence_length", request.getSequence().length());
@@ -532,37 +550,20 @@ public class ScalingTestController {
             data.put("sequence_number", sequenceNumber);
             data.put("total_sequences", totalSequences);
 
-            CloudEvent event = CloudEventBuilder.v1()
-                .withId(UUID.randomUUID().toString())
-                .withSource(URI.create("https://healthcare-ml-demo/api/scaling/trigger-demo"))
-                .withType("com.redhat.healthcare.genetic.sequence.bigdata")
-                .withDataContentType("application/json")
-                .withData(data.toString().getBytes())
-                .withTime(OffsetDateTime.now())
-                .build();
-
-            // Serialize CloudEvent to JSON
-            EventFormat format = EventFormatProvider.getInstance().resolveFormat(JsonFormat.CONTENT_TYPE);
-            byte[] cloudEventBytes = format.serialize(event);
-            String cloudEventJson = new String(cloudEventBytes);
-
-            // Send to appropriate topic based on mode
-            switch (request.getMode()) {
-                case "bigdata":
-                case "big-data":
-                    geneticBigdataRawOutEmitter.send(cloudEventJson);
-                    break;
-                case "node-scale":
-                case "nodescale":
-                    geneticNodescaleRawOutEmitter.send(cloudEventJson);
-                    break;
-                case "kafka-lag":
-                    // Send to kafka-lag topic for consumer lag demonstration
-                    geneticLagDemoRawOutEmitter.send(cloudEventJson);
-                    break;
-                default: // "normal"
-                    geneticDataRawOutEmitter.send(cloudEventJson);
-                    break;
+            // Demo sequences are chunked too: an unchunked sequence over a chunk would hold a VEP
+            // permit and a dispatch slot through minutes of simulated processing
+            for (ObjectNode payload : sequenceChunker.split(data, request.getSequence())) {
+                CloudEvent event = CloudEventBuilder.v1()
+                    .withId(UUID.randomUUID().toString())
+                    .withSource(URI.create("https://healthcare-ml-demo/api/scaling/trigger-demo"))
+                    .withType("com.redhat.healthcare.genetic.sequence.bigdata")
+                    .withDataContentType("application/json")
+                    .withData(payload.toString().getBytes())
+                    .withTime(OffsetDateTime.now())
+                    .build();
+
+                // Binary-mode CloudEvent (attributes in Kafka headers) unless kafka-mode=structured
+                sendToModeTopic(request.getMode(), cloudEventCodec.toMessage(event, request.getSessionId()));
             }
 
             LOGGER.info("Sent demo sequence {}/{} to Kafka: {} bytes",
@@ -0,0 +1,90 @@
+package com.redhat.healthcare;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits very large sequences into ordered chunk records.
+ *
+ * A sequence longer than healthcare.ml.chunking.chunk-bases is sent as consecutive chunk
+ * payloads that share the session ID, so the VEP service annotates each chunk as it arrives
+ * and this service shows its variants progressively instead of waiting for the whole job.
+ * Each chunk repeats the last overlap-bases of the previous chunk: those bases give context
+ * to variants starting right after the boundary but are owned by the previous chunk, so no
+ * variant is called twice. Chunk records are keyed by session ID, which keeps them in one
+ * partition and in order.
+ *
+ * Chunk fields: chunk_index (0-based), chunk_count, chunk_offset (position of the chunk's
+ * first base, overlap included), chunk_overlap and total_sequence_length.
+ */
+@ApplicationScoped
+public class SequenceChunker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SequenceChunker.class);
+
+    @Inject
+    SequenceClaimCheck sequenceClaimCheck;
+
+    @ConfigProperty(name = "healthcare.ml.chunking.enabled", defaultValue = "true")
+    boolean chunkingEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.chunking.chunk-bases", defaultValue = "50000")
+    int chunkBases;
+
+    @ConfigProperty(name = "healthcare.ml.chunking.overlap-bases", defaultValue = "100")
+    int overlapBases;
+
+    @PostConstruct
+    void init() {
+        if (chunkBases < 1) {
+            throw new IllegalStateException("healthcare.ml.chunking.chunk-bases must be positive");
+        }
+        if (overlapBases < 0 || overlapBases >= chunkBases) {
+            throw new IllegalStateException("healthcare.ml.chunking.overlap-bases must be between 0 and chunk-bases");
+        }
+        LOGGER.info("Sequence chunking {} (chunk: {} bases, overlap: {} bases)",
+            chunkingEnabled ? "enabled" : "disabled", chunkBases, overlapBases);
+    }
+
+    /**
+     * Builds the data payloads for a sequence: the template with the whole sequence, or one
+     * copy of the template per chunk when the sequence is longer than a chunk.
+     *
+     * @param template payload fields shared by every record (sessionId, mode, ...)
+     */
+    public List<ObjectNode> split(ObjectNode template, String sequence) {
+        if (!chunkingEnabled || sequence.length() <= chunkBases) {
+            sequenceClaimCheck.writeSequence(template, sequence);
+            return List.of(template);
+        }
+
+        int chunkCount = (sequence.length() + chunkBases - 1) / chunkBases;
+        List<ObjectNode> chunks = new ArrayList<>(chunkCount);
+        for (int index = 0; index < chunkCount; index++) {
+            int start = index * chunkBases;
+            int end = Math.min(start + chunkBases, sequence.length());
+            int offset = Math.max(0, start - overlapBases);
+            String chunk = sequence.substring(offset, end);
+
+            ObjectNode data = template.deepCopy();
+            sequenceClaimCheck.writeSequence(data, chunk);
+            data.put("sequence_length", chunk.length());
+            data.put("total_sequence_length", sequence.length());
+            data.put("chunk_index", index);
+            data.put("chunk_count", chunkCount);
+            data.put("chunk_offset", offset);
+            data.put("chunk_overlap", start - offset);
+            chunks.add(data);
+        }
+        LOGGER.info("Split {}-base sequence into {} chunks of up to {} bases", sequence.length(), chunkCount, chunkBases);
+        return chunks;
+    }
+}
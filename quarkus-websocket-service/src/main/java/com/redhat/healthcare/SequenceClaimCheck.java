@@ -0,0 +1,218 @@
+package com.redhat.healthcare;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+/**
+ * Claim-check storage for big-data sequences.
+ *
+ * Sequences longer than healthcare.ml.claim-check.threshold-bytes are written to a
+ * content-addressed blob store (SHA-256 named files on a volume shared with the VEP service)
+ * and only a genetic_sequence_ref with the hash travels through Kafka, so the raw and annotated
+ * topics no longer need 50 MB message limits. Blobs hold the 2bit-v1 packed sequence, are
+ * written atomically and are verified against their hash when read. Blobs older than the
+ * retention are purged by this service, which writes them in the first place.
+ *
+ * Same blob layout and reference format as SequenceClaimCheck in the VEP service.
+ */
+@ApplicationScoped
+public class SequenceClaimCheck {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SequenceClaimCheck.class);
+
+    static final String REF_FIELD = "genetic_sequence_ref";
+    private static final String TEXT_ENCODING = "text";
+
+    @Inject
+    PackedSequenceCodec sequenceCodec;
+
+    @ConfigProperty(name = "healthcare.ml.claim-check.enabled", defaultValue = "false")
+    boolean claimCheckEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.claim-check.threshold-bytes", defaultValue = "1048576")
+    int thresholdBytes;
+
+    @ConfigProperty(name = "healthcare.ml.claim-check.directory", defaultValue = "/var/lib/genetic-sequences")
+    String directory;
+
+    @ConfigProperty(name = "healthcare.ml.claim-check.retention-hours", defaultValue = "24")
+    long retentionHours;
+
+    private Path root;
+
+    @PostConstruct
+    void init() {
+        root = Paths.get(directory);
+        LOGGER.info("Sequence claim check {} (threshold: {} bytes, directory: {}, retention: {}h)",
+            claimCheckEnabled ? "enabled" : "disabled", thresholdBytes, root, retentionHours);
+    }
+
+    /**
+     * Writes the sequence into the data payload: as a blob reference above the threshold,
+     * inline (PackedSequenceCodec) otherwise or when the blob cannot be written.
+     */
+    public void writeSequence(ObjectNode data, String sequence) {
+        if (claimCheckEnabled && sequence != null && sequence.length() > thresholdBytes) {
+            try {
+                data.set(REF_FIELD, store(data, sequence));
+                LOGGER.info("Claim-checked {}-base sequence as {}", sequence.length(), data.get(REF_FIELD).get("sha256").asText());
+                return;
+            } catch (IOException e) {
+                LOGGER.warn("Claim-check write failed - sending the {}-base sequence inline: {}", sequence.length(), e.getMessage());
+            }
+        }
+        sequenceCodec.writeSequence(data, sequence);
+    }
+
+    /**
+     * Whether the data payload only references its sequence (the read is blocking file IO).
+     */
+    public boolean hasReference(JsonNode data) {
+        JsonNode ref = data.get(REF_FIELD);
+        return ref != null && !ref.isNull();
+    }
+
+    /**
+     * Reads the sequence of a data payload from the blob store or inline in either encoding.
+     *
+     * @return the sequence, or null if the payload carries none
+     */
+    public String readSequence(JsonNode data) throws IOException {
+        if (!hasReference(data)) {
+            return sequenceCodec.readSequence(data);
+        }
+        JsonNode ref = data.get(REF_FIELD);
+        return fetch(ref.path("sha256").asText(), ref.path("encoding").asText(), ref.path("length").asInt(-1));
+    }
+
+    /**
+     * Deletes blobs older than the retention; results are delivered long before that.
+     */
+    @Scheduled(every = "1h")
+    void purgeExpiredBlobs() {
+        if (!claimCheckEnabled || !Files.isDirectory(root)) {
+            return;
+        }
+        FileTime cutoff = FileTime.from(Instant.now().minus(Duration.ofHours(retentionHours)));
+        try (Stream<Path> blobs = Files.walk(root, 2)) {
+            long purged = blobs.filter(Files::isRegularFile)
+                .filter(blob -> {
+                    try {
+                        return Files.getLastModifiedTime(blob).compareTo(cutoff) < 0 && Files.deleteIfExists(blob);
+                    } catch (IOException e) {
+                        LOGGER.debug("Could not purge blob {}: {}", blob, e.getMessage());
+                        return false;
+                    }
+                })
+                .count();
+            if (purged > 0) {
+                LOGGER.info("Purged {} claim-check blobs older than {}h", purged, retentionHours);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Claim-check purge failed: {}", e.getMessage());
+        }
+    }
+
+    private JsonNode store(ObjectNode data, String sequence) throws IOException {
+        long packedSize = PackedSequenceCodec.packedSize(sequence);
+        if (packedSize < 0) {
+            throw new IOException("Sequence has symbols outside ISO-8859-1");
+        }
+        boolean packed = sequenceCodec.isPackedEncodingEnabled() && packedSize < sequence.length();
+        byte[] blob = packed
+            ? PackedSequenceCodec.pack(sequence)
+            : sequence.getBytes(StandardCharsets.ISO_8859_1);
+        String sha256 = HexFormat.of().formatHex(sha256().digest(blob));
+
+        Path path = blobPath(sha256);
+        if (Files.exists(path)) {
+            // Same content already stored: refresh it so the purge keeps it for this request
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        } else {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), sha256, ".tmp");
+            try {
+                Files.write(temp, blob);
+                try {
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        ObjectNode ref = data.objectNode();
+        ref.put("sha256", sha256);
+        ref.put("length", sequence.length());
+        ref.put("bytes", blob.length);
+        ref.put("encoding", packed ? PackedSequenceCodec.ENCODING : TEXT_ENCODING);
+        return ref;
+    }
+
+    private String fetch(String sha256, String encoding, int length) throws IOException {
+        if (!sha256.matches("[0-9a-f]{64}")) {
+            throw new IOException("Invalid claim-check reference: " + sha256);
+        }
+        MessageDigest digest = sha256();
+        String sequence;
+        try (InputStream in = new DigestInputStream(
+                new BufferedInputStream(Files.newInputStream(blobPath(sha256)), 64 * 1024), digest)) {
+            if (PackedSequenceCodec.ENCODING.equals(encoding)) {
+                sequence = PackedSequenceCodec.unpack(in);
+            } else if (TEXT_ENCODING.equals(encoding) && length >= 0) {
+                sequence = new String(in.readNBytes(length), StandardCharsets.ISO_8859_1);
+            } else {
+                throw new IOException("Unsupported claim-check encoding: " + encoding);
+            }
+            if (in.read() != -1) {
+                throw new IOException("Claim-check blob " + sha256 + " is longer than its sequence");
+            }
+        }
+        if (!sha256.equals(HexFormat.of().formatHex(digest.digest()))) {
+            throw new IOException("Claim-check blob " + sha256 + " does not match its hash");
+        }
+        if (length >= 0 && sequence.length() != length) {
+            throw new IOException("Claim-check blob " + sha256 + " has " + sequence.length() + " bases, expected " + length);
+        }
+        return sequence;
+    }
+
+    private Path blobPath(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
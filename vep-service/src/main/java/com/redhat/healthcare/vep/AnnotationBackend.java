@@ -0,0 +1,33 @@
+package com.redhat.healthcare.vep;
+
+import io.smallrye.mutiny.Uni;
+
+import java.util.List;
+
+/**
+ * Pluggable source of variant annotations for VepAnnotationService
+ *
+ * IMPLEMENTATIONS:
+ * - remote: Ensembl VEP REST API (batched and rate limited)
+ * - local: offline consequence engine backed by a gene/transcript table (GTF subset)
+ * - hybrid: local engine first, remote API for notations the local engine cannot annotate
+ *
+ * Selected with healthcare.ml.vep.backend. Every backend produces the same
+ * VepApiResponse/TranscriptConsequence model so downstream mapping is unchanged.
+ */
+public interface AnnotationBackend {
+
+    /**
+     * Backend name used by the healthcare.ml.vep.backend setting
+     */
+    String name();
+
+    /**
+     * Annotates HGVS notations without blocking the calling thread
+     *
+     * @param notations HGVS notations to annotate
+     * @param species Species (default: human)
+     * @return one response per notation the backend could annotate, each with its input field set
+     */
+    Uni<List<VepApiResponse>> annotate(List<String> notations, String species);
+}
@@ -0,0 +1,215 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+
+/**
+ * Single-pass streaming reader for incoming genetic records (the raw topics)
+ *
+ * WHY THIS READER:
+ * - Parsing a record into a JsonNode tree (and, before binary mode, into a CloudEvent first)
+ *   copied and tokenized a multi-megabyte sequence several times per message
+ * - Only a handful of fields of the record are used for annotation
+ *
+ * HOW IT WORKS:
+ * One pass over the record value, in either CloudEvents encoding: a binary-mode value is the
+ * data object itself; a structured envelope (top-level specversion) is walked into its data or
+ * data_base64. Kept fields:
+ * - sessionId, processing_mode
+ * - genetic_sequence (text) or sequence_encoding + genetic_sequence_packed, base64-decoded
+ *   straight from the parser into bytes and unpacked (PackedSequenceCodec)
+ * - genetic_sequence_ref, the only field read as a (small) tree, for SequenceClaimCheck
+ * - chunk_index, chunk_count, chunk_offset, chunk_overlap, total_sequence_length
+ * Everything else is skipped token by token, never materialized.
+ *
+ * Benchmark: GeneticRecordParsingBenchmark (mvn -Pbenchmark test)
+ */
+@ApplicationScoped
+public class GeneticRecordReader {
+
+    /**
+     * Largest string token accepted: above the 50 MB big-data request limit, where Jackson's
+     * default (20M chars) would reject a large plain-text sequence
+     */
+    static final int MAX_STRING_LENGTH = 64 * 1024 * 1024;
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+        .streamReadConstraints(StreamReadConstraints.builder().maxStringLength(MAX_STRING_LENGTH).build())
+        .build();
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    SequenceClaimCheck sequenceClaimCheck;
+
+    /**
+     * Reads the sequence data of a raw record value
+     *
+     * @throws IOException if the value is not a JSON object carrying a genetic sequence, or a
+     *                     claim-checked sequence cannot be read
+     */
+    public GeneticSequenceData read(String recordValue) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(recordValue)) {
+            return toSequenceData(readRecord(parser));
+        }
+    }
+
+    private Fields readRecord(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Record value is not a JSON object");
+        }
+        Fields top = new Fields();
+        Fields data = null;
+        boolean structured = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "specversion" -> structured = true;
+                case "data" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        data = readFields(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                case "data_base64" -> {
+                    if (value == JsonToken.VALUE_STRING) {
+                        try (JsonParser dataParser = JSON_FACTORY.createParser(parser.getBinaryValue())) {
+                            if (dataParser.nextToken() != JsonToken.START_OBJECT) {
+                                throw new IOException("CloudEvent data is not a JSON object");
+                            }
+                            data = readFields(dataParser);
+                        }
+                    }
+                }
+                default -> readField(parser, field, value, top);
+            }
+        }
+        if (!structured) {
+            // Binary mode: the value is the data, the attributes are in the headers
+            return top;
+        }
+        if (data == null) {
+            throw new IOException("Structured CloudEvent without data");
+        }
+        return data;
+    }
+
+    private Fields readFields(JsonParser parser) throws IOException {
+        Fields fields = new Fields();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            readField(parser, field, parser.nextToken(), fields);
+        }
+        return fields;
+    }
+
+    private void readField(JsonParser parser, String field, JsonToken value, Fields fields) throws IOException {
+        switch (field) {
+            case "sessionId" -> fields.sessionId = textOrNull(parser, value);
+            case "processing_mode" -> fields.processingMode = textOrNull(parser, value);
+            case PackedSequenceCodec.TEXT_FIELD -> fields.sequence = textOrNull(parser, value);
+            case PackedSequenceCodec.ENCODING_FIELD -> fields.encoding = textOrNull(parser, value);
+            case PackedSequenceCodec.PACKED_FIELD -> {
+                if (value == JsonToken.VALUE_STRING) {
+                    fields.packed = parser.getBinaryValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            case SequenceClaimCheck.REF_FIELD -> {
+                if (value == JsonToken.START_OBJECT) {
+                    fields.reference = objectMapper.readTree(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            case "chunk_index" -> fields.chunkIndex = (int) number(parser, value, 0);
+            case "chunk_count" -> fields.chunkCount = (int) number(parser, value, 1);
+            case "chunk_offset" -> fields.chunkOffset = number(parser, value, 0);
+            case "chunk_overlap" -> fields.chunkOverlap = (int) number(parser, value, 0);
+            case "total_sequence_length" -> fields.totalSequenceLength = number(parser, value, 0);
+            default -> parser.skipChildren();
+        }
+    }
+
+    private GeneticSequenceData toSequenceData(Fields fields) throws IOException {
+        String sequence;
+        if (fields.reference != null) {
+            ObjectNode referenceData = objectMapper.createObjectNode();
+            referenceData.set(SequenceClaimCheck.REF_FIELD, fields.reference);
+            sequence = sequenceClaimCheck.readSequence(referenceData);
+        } else if (fields.packed != null) {
+            if (!PackedSequenceCodec.ENCODING.equals(fields.encoding)) {
+                throw new IOException("Unsupported sequence encoding: " + fields.encoding);
+            }
+            sequence = PackedSequenceCodec.unpack(fields.packed);
+        } else {
+            sequence = fields.sequence;
+        }
+        if (sequence == null) {
+            throw new IOException("CloudEvent data has no genetic sequence");
+        }
+
+        GeneticSequenceData sequenceData = GeneticSequenceData.fromPlainSequence(sequence);
+        sequenceData.setSequenceId(fields.sessionId != null ? fields.sessionId : "unknown");
+        sequenceData.setProcessingMode(fields.processingMode != null ? fields.processingMode : "normal");
+        sequenceData.setSource("cloudevent");
+        if (fields.chunkCount > 1) {
+            // One ordered chunk of a very large sequence, annotated on its own
+            sequenceData.setChunkIndex(fields.chunkIndex);
+            sequenceData.setChunkCount(fields.chunkCount);
+            sequenceData.setChunkOffset(fields.chunkOffset);
+            sequenceData.setChunkOverlap(Math.max(0, Math.min(fields.chunkOverlap, sequence.length())));
+            sequenceData.setTotalSequenceLength(fields.totalSequenceLength);
+        }
+        return sequenceData;
+    }
+
+    private static String textOrNull(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static long number(JsonParser parser, JsonToken value, long defaultValue) throws IOException {
+        if (value.isScalarValue()) {
+            return parser.getValueAsLong(defaultValue);
+        }
+        parser.skipChildren();
+        return defaultValue;
+    }
+
+    /**
+     * The kept fields of one data object
+     */
+    private static final class Fields {
+        String sessionId;
+        String processingMode;
+        String sequence;
+        String encoding;
+        byte[] packed;
+        JsonNode reference;
+        int chunkIndex;
+        int chunkCount = 1;
+        long chunkOffset;
+        int chunkOverlap;
+        long totalSequenceLength;
+    }
+}
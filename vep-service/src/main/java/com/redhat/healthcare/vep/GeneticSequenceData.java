@@ -35,6 +35,23 @@ public class GeneticSequenceData {
     @JsonProperty("processingMode")
     private String processingMode = "normal";
 
+    // Chunk of a very large sequence (chunk_* fields of the record): the sequence starts at
+    // chunkOffset of the whole sequence and its first chunkOverlap bases belong to the previous chunk
+    @JsonProperty("chunkIndex")
+    private int chunkIndex;
+
+    @JsonProperty("chunkCount")
+    private int chunkCount = 1;
+
+    @JsonProperty("chunkOffset")
+    private long chunkOffset;
+
+    @JsonProperty("chunkOverlap")
+    private int chunkOverlap;
+
+    @JsonProperty("totalSequenceLength")
+    private long totalSequenceLength;
+
     // Constructors
     public GeneticSequenceData() {
         this.timestamp = Instant.now().toString();
@@ -76,6 +93,14 @@ public class GeneticSequenceData {
         return "big-data".equals(processingMode) || isLargeSequence();
     }
 
+    public boolean isChunk() {
+        return chunkCount > 1;
+    }
+
+    public boolean isLastChunk() {
+        return chunkIndex == chunkCount - 1;
+    }
+
     // Getters and Setters
     public String getSequenceId() {
         return sequenceId;
@@ -133,6 +158,46 @@ public class GeneticSequenceData {
         this.processingMode = processingMode;
     }
 
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public void setChunkIndex(int chunkIndex) {
+        this.chunkIndex = chunkIndex;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public long getChunkOffset() {
+        return chunkOffset;
+    }
+
+    public void setChunkOffset(long chunkOffset) {
+        this.chunkOffset = chunkOffset;
+    }
+
+    public int getChunkOverlap() {
+        return chunkOverlap;
+    }
+
+    public void setChunkOverlap(int chunkOverlap) {
+        this.chunkOverlap = chunkOverlap;
+    }
+
+    public long getTotalSequenceLength() {
+        return totalSequenceLength;
+    }
+
+    public void setTotalSequenceLength(long totalSequenceLength) {
+        this.totalSequenceLength = totalSequenceLength;
+    }
+
     @Override
     public String toString() {
         return String.format("GeneticSequenceData{id='%s', length=%d, mode='%s'}", 
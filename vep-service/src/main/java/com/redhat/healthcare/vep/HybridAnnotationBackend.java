@@ -0,0 +1,73 @@
+package com.redhat.healthcare.vep;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Annotation backend that tries the local consequence engine first
+ *
+ * Notations the local engine cannot place on a known transcript (unknown transcripts,
+ * unsupported HGVS forms, positions outside the local table) are sent to the Ensembl
+ * VEP API, so most traffic runs at CPU speed while coverage matches the remote backend.
+ * Locally annotated notations are flagged as local predictions and never cached, so they do not
+ * outlive a switch back to the remote backend (VepAnnotationCache).
+ * If the VEP API fails the lookup fails too: the local placeholders for unresolved notations
+ * are not annotations and must not reach the annotation cache. An open circuit breaker is
+ * passed on so VepAnnotationService answers in degraded mode (uncached, flagged); any other
+ * failure goes to VepRetryRouter like a remote backend failure.
+ */
+@ApplicationScoped
+public class HybridAnnotationBackend implements AnnotationBackend {
+
+    private static final Logger LOG = Logger.getLogger(HybridAnnotationBackend.class);
+
+    @Inject
+    LocalConsequenceBackend localBackend;
+
+    @Inject
+    RemoteAnnotationBackend remoteBackend;
+
+    @Override
+    public String name() {
+        return "hybrid";
+    }
+
+    @Override
+    public Uni<List<VepApiResponse>> annotate(List<String> notations, String species) {
+        return localBackend.annotate(notations, species)
+            .chain(localResponses -> {
+                // Intergenic only means "not in the local table", so those go to the VEP API too
+                List<VepApiResponse> resolved = localResponses.stream()
+                    .filter(response -> response.getTranscriptConsequences() != null
+                        && !response.getTranscriptConsequences().isEmpty())
+                    .toList();
+                Set<String> annotated = resolved.stream()
+                    .map(VepApiResponse::getInput)
+                    .collect(Collectors.toSet());
+                List<String> remaining = notations.stream()
+                    .filter(notation -> !annotated.contains(notation))
+                    .toList();
+
+                if (remaining.isEmpty()) {
+                    return Uni.createFrom().item(localResponses);
+                }
+
+                LOG.debugf("Local engine annotated %d of %d notations, sending %d to the VEP API",
+                          resolved.size(), notations.size(), remaining.size());
+
+                return remoteBackend.annotate(remaining, species)
+                    .map(remoteResponses -> {
+                        List<VepApiResponse> combined = new ArrayList<>(resolved);
+                        combined.addAll(remoteResponses);
+                        return combined;
+                    });
+            });
+    }
+}
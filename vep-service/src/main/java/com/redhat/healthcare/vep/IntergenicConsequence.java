@@ -1,12 +1,14 @@
 package com.redhat.healthcare.vep;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * Represents intergenic consequence from VEP API
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class IntergenicConsequence {
     
     @JsonProperty("consequence_terms")
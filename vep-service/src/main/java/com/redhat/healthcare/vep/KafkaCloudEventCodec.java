@@ -0,0 +1,176 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.format.EventFormat;
+import io.cloudevents.core.provider.EventFormatProvider;
+import io.cloudevents.jackson.JsonFormat;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.reactive.messaging.ce.OutgoingCloudEventMetadata;
+import io.smallrye.reactive.messaging.ce.OutgoingCloudEventMetadataBuilder;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CloudEvents encoding for Kafka records (binary or structured content mode)
+ *
+ * WHY BINARY MODE:
+ * - Structured mode wraps the JSON data in a JSON envelope, so every hop serialized the event
+ *   to a String, and every consumer parsed the envelope and then the data again
+ * - Binary mode puts the attributes in ce_* Kafka headers (written by the Kafka connector from
+ *   OutgoingCloudEventMetadata) and the data as the raw record value
+ *
+ * ROLLING MIGRATION (healthcare.ml.cloudevents.kafka-mode):
+ * - Consumers always accept both encodings: a value with a top-level specversion is a
+ *   structured event, anything else is the data of a binary event
+ * - Producers write binary by default; set structured while consumers that only understand
+ *   structured events are still running
+ *
+ * METRICS (exposed at /q/metrics):
+ * - cloudevent.encoded.bytes{mode}: size of the record values written
+ * - vep.result.bytes{processing_mode, projection}: bytes per result record on
+ *   genetic-data-annotated, value plus ce_* headers in binary mode, by sequence projection
+ *   (VepResultMapper), to measure what dropping the echoed sequence saves
+ */
+@ApplicationScoped
+public class KafkaCloudEventCodec {
+
+    private static final Logger LOG = Logger.getLogger(KafkaCloudEventCodec.class);
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.cloudevents.kafka-mode", defaultValue = "binary")
+    String kafkaMode;
+
+    @ConfigProperty(name = "healthcare.ml.vep.output.sequence-projection", defaultValue = "summary")
+    String sequenceProjection;
+
+    private boolean binaryMode;
+    private DistributionSummary encodedBytes;
+    private final Map<String, DistributionSummary> resultBytes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        binaryMode = !"structured".equalsIgnoreCase(kafkaMode.trim());
+        encodedBytes = DistributionSummary.builder("cloudevent.encoded.bytes")
+                .tag("mode", binaryMode ? "binary" : "structured")
+                .description("Size of CloudEvent Kafka record values written")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        LOG.infof("CloudEvents Kafka encoding: %s", binaryMode ? "binary" : "structured");
+    }
+
+    /**
+     * Builds the outgoing record for the event, keeping the base message's ack and nack.
+     * Records are keyed by the sessionid extension, so the results of one session (e.g. the
+     * partial results of a chunked sequence) stay in one partition and in order.
+     */
+    public Message<byte[]> encode(Message<?> base, CloudEvent event) {
+        Message<?> keyed = base;
+        Object sessionId = event.getExtension("sessionid");
+        if (sessionId != null) {
+            keyed = base.addMetadata(OutgoingKafkaRecordMetadata.<String>builder().withKey(sessionId.toString()).build());
+        }
+
+        if (!binaryMode) {
+            byte[] structured = structuredFormat().serialize(event);
+            encodedBytes.record(structured.length);
+            resultBytes(event).record(structured.length);
+            return keyed.withPayload(structured);
+        }
+
+        OutgoingCloudEventMetadataBuilder<Object> metadata = OutgoingCloudEventMetadata.builder()
+            .withId(event.getId())
+            .withSource(event.getSource())
+            .withType(event.getType())
+            .withSubject(event.getSubject())
+            .withDataContentType(event.getDataContentType());
+        if (event.getTime() != null) {
+            metadata.withTimestamp(event.getTime().toZonedDateTime());
+        }
+        for (String extension : event.getExtensionNames()) {
+            metadata.withExtension(extension, event.getExtension(extension));
+        }
+        byte[] data = event.getData() != null ? event.getData().toBytes() : new byte[0];
+        encodedBytes.record(data.length);
+        resultBytes(event).record(data.length + headerBytes(event));
+        return keyed.withPayload(data).addMetadata(metadata.build());
+    }
+
+    private DistributionSummary resultBytes(CloudEvent event) {
+        Object processingMode = event.getExtension("processingmode");
+        String mode = processingMode != null ? processingMode.toString() : "unknown";
+        return resultBytes.computeIfAbsent(mode, name -> DistributionSummary.builder("vep.result.bytes")
+                .tags("processing_mode", name, "projection", sequenceProjection)
+                .description("Bytes per annotated result record (value and CloudEvent headers)")
+                .baseUnit("bytes")
+                .register(meterRegistry));
+    }
+
+    /**
+     * Approximate size of the ce_* headers the connector writes for a binary-mode event
+     */
+    private static int headerBytes(CloudEvent event) {
+        int bytes = header("id", event.getId()) + header("source", event.getSource())
+            + header("type", event.getType()) + header("subject", event.getSubject())
+            + header("specversion", event.getSpecVersion()) + header("time", event.getTime());
+        if (event.getDataContentType() != null) {
+            bytes += "content-type".length() + event.getDataContentType().length();
+        }
+        for (String extension : event.getExtensionNames()) {
+            bytes += header(extension, event.getExtension(extension));
+        }
+        return bytes;
+    }
+
+    private static int header(String attribute, Object value) {
+        return value != null ? 3 + attribute.length() + value.toString().getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+
+    /**
+     * Structured-mode JSON of the event (the format of the public process* methods)
+     */
+    public String toStructuredJson(CloudEvent event) {
+        return new String(structuredFormat().serialize(event), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses the event data of a record value in either encoding with a single JSON parse
+     */
+    public JsonNode readData(String recordValue) throws IOException {
+        JsonNode root = objectMapper.readTree(recordValue);
+        if (root == null || !root.has("specversion")) {
+            // Binary mode: the value is the data, the attributes are in the headers
+            return root;
+        }
+        if (root.has("data")) {
+            return root.get("data");
+        }
+        if (root.has("data_base64")) {
+            return objectMapper.readTree(Base64.getDecoder().decode(root.get("data_base64").asText()));
+        }
+        throw new IOException("Structured CloudEvent without data");
+    }
+
+    private static EventFormat structuredFormat() {
+        return EventFormatProvider.getInstance().resolveFormat(JsonFormat.CONTENT_TYPE);
+    }
+}
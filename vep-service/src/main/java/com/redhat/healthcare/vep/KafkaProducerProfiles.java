@@ -0,0 +1,94 @@
+package com.redhat.healthcare.vep;
+
+import io.smallrye.common.annotation.Identifier;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.jboss.logging.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Named Kafka producer profiles (compression, linger, batch size) selected per outgoing channel
+ *
+ * WHY PROFILES:
+ * - Every outgoing channel used the default producer settings: no compression, no linger and
+ *   16 KB batches, so ACGT text and annotation JSON - both highly compressible - went over the
+ *   wire raw, one small request per record
+ * - The channels have different workloads: interactive results want the lowest latency, bursts
+ *   of results want full batches, and big-data sequences want large compressed requests
+ *
+ * HOW IT WORKS:
+ * Each profile is a set of producer properties under healthcare.ml.kafka.producer-profile.<name>.*
+ * in application.properties, exposed as an @Identifier("<name>-producer") configuration map. A
+ * channel selects one with mp.messaging.outgoing.<channel>.kafka-configuration=<name>-producer;
+ * properties set on the channel itself still override the profile.
+ *
+ * PROFILES (same names and defaults in the WebSocket service):
+ * - latency: lz4, no linger, 64 KB batches - one interactive record at a time
+ * - throughput: zstd, 20 ms linger, 256 KB batches - bursts of small and medium records
+ * - big-data: zstd, 50 ms linger, 1 MB batches, 50 MB requests - multi-megabyte sequences
+ *
+ * Measure a change with KafkaProducerProfileBenchmark (bytes/sec and p99 publish latency).
+ */
+@ApplicationScoped
+public class KafkaProducerProfiles {
+
+    private static final Logger LOG = Logger.getLogger(KafkaProducerProfiles.class);
+
+    static final String PREFIX = "healthcare.ml.kafka.producer-profile.";
+
+    @Produces
+    @Identifier("latency-producer")
+    Map<String, Object> latencyProducer() {
+        return fromConfig("latency");
+    }
+
+    @Produces
+    @Identifier("throughput-producer")
+    Map<String, Object> throughputProducer() {
+        return fromConfig("throughput");
+    }
+
+    @Produces
+    @Identifier("big-data-producer")
+    Map<String, Object> bigDataProducer() {
+        return fromConfig("big-data");
+    }
+
+    private static Map<String, Object> fromConfig(String profile) {
+        Config config = ConfigProvider.getConfig();
+        Map<String, String> properties = new HashMap<>();
+        for (String name : config.getPropertyNames()) {
+            if (name.startsWith(PREFIX)) {
+                config.getOptionalValue(name, String.class).ifPresent(value -> properties.put(name, value));
+            }
+        }
+        Map<String, Object> producerConfig = profile(profile, properties);
+        LOG.infof("Kafka producer profile %s: %s", profile, producerConfig);
+        return producerConfig;
+    }
+
+    /**
+     * Producer properties of one profile
+     *
+     * @param properties configuration properties; only those of the profile are used
+     * @return Kafka producer properties with the profile prefix removed
+     */
+    static Map<String, Object> profile(String profile, Map<String, String> properties) {
+        String prefix = PREFIX + profile + ".";
+        Map<String, Object> producerConfig = new TreeMap<>();
+        properties.forEach((name, value) -> {
+            if (name.startsWith(prefix)) {
+                producerConfig.put(name.substring(prefix.length()), value);
+            }
+        });
+        if (producerConfig.isEmpty()) {
+            throw new IllegalStateException("No Kafka producer profile '" + profile + "' under " + PREFIX);
+        }
+        return producerConfig;
+    }
+}
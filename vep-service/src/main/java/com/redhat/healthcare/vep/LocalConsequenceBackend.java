@@ -0,0 +1,546 @@
+package com.redhat.healthcare.vep;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Offline consequence engine that predicts VEP consequences from a local gene/transcript table
+ *
+ * WHY A LOCAL ENGINE:
+ * - The remote backend is capped by Ensembl's 15 req/s budget and needs network access
+ * - Load tests and air-gapped clusters still need realistic annotations
+ *
+ * HOW IT WORKS:
+ * 1. At startup a GTF file (gene/transcript/exon/CDS features) is indexed per chromosome
+ * 2. Genomic (chr:g.) and transcript (ENST:c.) HGVS notations are parsed into a genomic span
+ * 3. The span is classified against every overlapping or nearby transcript using the
+ *    Sequence Ontology terms and impact levels VEP uses
+ * 4. Results are emitted as VepApiResponse/TranscriptConsequence objects, so the rest of
+ *    the pipeline cannot tell them apart from Ensembl responses
+ *
+ * LIMITATIONS:
+ * - No reference sequence is loaded, so coding SNVs are reported as coding_sequence_variant
+ *   rather than missense/synonymous/stop_gained
+ * - Only GRCh38 human transcripts in the table are known; other notations are left unannotated
+ *
+ * The default table (annotation/genes-grch38-subset.gtf) is a simplified subset covering the
+ * genes and transcripts SequenceToHgvsConverter generates. Point healthcare.ml.vep.local.gtf-path
+ * at a full Ensembl GTF for genome-wide coverage.
+ */
+@ApplicationScoped
+public class LocalConsequenceBackend implements AnnotationBackend {
+
+    private static final Logger LOG = Logger.getLogger(LocalConsequenceBackend.class);
+
+    static final String DEFAULT_GTF_RESOURCE = "annotation/genes-grch38-subset.gtf";
+    static final String ASSEMBLY = "GRCh38";
+
+    /**
+     * VEP default distance for upstream_gene_variant / downstream_gene_variant
+     */
+    static final int UPSTREAM_DOWNSTREAM_DISTANCE = 5000;
+
+    private static final Pattern GENOMIC_HGVS = Pattern.compile(
+        "^(?:chr)?([0-9]{1,2}|X|Y|MT?):g\\.(\\d+)(?:_(\\d+))?(?:([ACGT])>([ACGT])|del[ACGT]*|ins([ACGT]+))$",
+        Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern TRANSCRIPT_HGVS = Pattern.compile(
+        "^(ENST\\d+)(?:\\.\\d+)?:c\\.(\\d+)(?:_(\\d+))?(?:([ACGT])>([ACGT])|del[ACGT]*|ins([ACGT]+))$",
+        Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern GTF_ATTRIBUTE = Pattern.compile("(\\w+) \"([^\"]*)\"");
+
+    /**
+     * Consequence terms in VEP severity order (most severe first) with their impact
+     */
+    private static final Map<String, String> CONSEQUENCE_IMPACTS = new LinkedHashMap<>();
+    static {
+        CONSEQUENCE_IMPACTS.put("splice_acceptor_variant", "HIGH");
+        CONSEQUENCE_IMPACTS.put("splice_donor_variant", "HIGH");
+        CONSEQUENCE_IMPACTS.put("frameshift_variant", "HIGH");
+        CONSEQUENCE_IMPACTS.put("inframe_insertion", "MODERATE");
+        CONSEQUENCE_IMPACTS.put("inframe_deletion", "MODERATE");
+        CONSEQUENCE_IMPACTS.put("splice_region_variant", "LOW");
+        CONSEQUENCE_IMPACTS.put("coding_sequence_variant", "MODIFIER");
+        CONSEQUENCE_IMPACTS.put("5_prime_UTR_variant", "MODIFIER");
+        CONSEQUENCE_IMPACTS.put("3_prime_UTR_variant", "MODIFIER");
+        CONSEQUENCE_IMPACTS.put("non_coding_transcript_exon_variant", "MODIFIER");
+        CONSEQUENCE_IMPACTS.put("intron_variant", "MODIFIER");
+        CONSEQUENCE_IMPACTS.put("upstream_gene_variant", "MODIFIER");
+        CONSEQUENCE_IMPACTS.put("downstream_gene_variant", "MODIFIER");
+        CONSEQUENCE_IMPACTS.put("intergenic_variant", "MODIFIER");
+    }
+    private static final List<String> SEVERITY_ORDER = List.copyOf(CONSEQUENCE_IMPACTS.keySet());
+
+    @ConfigProperty(name = "healthcare.ml.vep.local.gtf-path")
+    Optional<String> gtfPath;
+
+    // Transcripts per chromosome, sorted by start
+    private Map<String, List<Transcript>> transcriptsByChromosome = Map.of();
+    private Map<String, Transcript> transcriptsById = Map.of();
+
+    @PostConstruct
+    void init() {
+        try {
+            if (gtfPath.isPresent()) {
+                try (InputStream gtf = Files.newInputStream(Path.of(gtfPath.get()))) {
+                    loadTable(gtf);
+                }
+            } else {
+                try (InputStream gtf = Thread.currentThread().getContextClassLoader()
+                        .getResourceAsStream(DEFAULT_GTF_RESOURCE)) {
+                    if (gtf == null) {
+                        throw new IOException("Classpath resource not found: " + DEFAULT_GTF_RESOURCE);
+                    }
+                    loadTable(gtf);
+                }
+            }
+            LOG.infof("Local consequence engine initialized (%d transcripts from %s)",
+                     transcriptsById.size(), gtfPath.orElse("classpath:" + DEFAULT_GTF_RESOURCE));
+        } catch (Exception e) {
+            LOG.warnf(e, "Could not load gene/transcript table - local consequence engine will annotate nothing");
+        }
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public Uni<List<VepApiResponse>> annotate(List<String> notations, String species) {
+        return Uni.createFrom().item(() -> {
+            List<VepApiResponse> responses = new ArrayList<>();
+            if (!isHuman(species)) {
+                return responses;
+            }
+            for (String notation : notations) {
+                VepApiResponse response = predict(notation);
+                if (response != null) {
+                    response.setLocalPrediction(true);
+                    responses.add(response);
+                }
+            }
+            return responses;
+        });
+    }
+
+    /**
+     * Predicts consequences for one HGVS notation
+     *
+     * @return response with input set to the notation, or null if the notation cannot be
+     *         parsed or refers to a transcript that is not in the table
+     */
+    VepApiResponse predict(String notation) {
+        Variant variant = parse(notation);
+        if (variant == null) {
+            return null;
+        }
+
+        List<TranscriptConsequence> transcriptConsequences = new ArrayList<>();
+        for (Transcript transcript : transcriptsByChromosome.getOrDefault(variant.chromosome, List.of())) {
+            if (transcript.start - UPSTREAM_DOWNSTREAM_DISTANCE > variant.end) {
+                break;
+            }
+            List<String> terms = classify(variant, transcript);
+            if (!terms.isEmpty()) {
+                transcriptConsequences.add(toTranscriptConsequence(variant, transcript, terms));
+            }
+        }
+
+        VepApiResponse response = new VepApiResponse();
+        response.setInput(notation);
+        response.setAssemblyName(ASSEMBLY);
+        response.setSeqRegionName(variant.chromosome);
+        response.setStart(variant.start);
+        response.setEnd(variant.end);
+        response.setStrand(1);
+        response.setVariantClass(variant.variantClass());
+        response.setAlleleString(variant.alleleString());
+
+        if (transcriptConsequences.isEmpty()) {
+            IntergenicConsequence intergenic = new IntergenicConsequence();
+            intergenic.setConsequenceTerms(new String[] {"intergenic_variant"});
+            intergenic.setImpact(CONSEQUENCE_IMPACTS.get("intergenic_variant"));
+            intergenic.setVariantAllele(variant.variantAllele());
+            response.setIntergenicConsequences(List.of(intergenic));
+            response.setMostSevereConsequence("intergenic_variant");
+        } else {
+            response.setTranscriptConsequences(transcriptConsequences);
+            response.setMostSevereConsequence(transcriptConsequences.stream()
+                .flatMap(consequence -> consequence.getConsequenceTerms().stream())
+                .min(Comparator.comparingInt(SEVERITY_ORDER::indexOf))
+                .orElse("intergenic_variant"));
+        }
+        return response;
+    }
+
+    /**
+     * Indexes a GTF stream. transcript, exon and CDS features are used; everything else is ignored.
+     */
+    void loadTable(InputStream gtf) throws IOException {
+        Map<String, Transcript> byId = new HashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(gtf, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                if (columns.length < 9) {
+                    continue;
+                }
+                String feature = columns[2];
+                if (!feature.equals("transcript") && !feature.equals("exon") && !feature.equals("CDS")) {
+                    continue;
+                }
+
+                Map<String, String> attributes = new HashMap<>();
+                Matcher matcher = GTF_ATTRIBUTE.matcher(columns[8]);
+                while (matcher.find()) {
+                    attributes.putIfAbsent(matcher.group(1), matcher.group(2));
+                }
+                String transcriptId = attributes.get("transcript_id");
+                if (transcriptId == null) {
+                    continue;
+                }
+
+                Transcript transcript = byId.computeIfAbsent(transcriptId, id -> new Transcript(
+                    id,
+                    attributes.get("gene_id"),
+                    attributes.getOrDefault("gene_name", attributes.get("gene_id")),
+                    attributes.getOrDefault("transcript_biotype", attributes.getOrDefault("gene_biotype", "protein_coding")),
+                    normalizeChromosome(columns[0]),
+                    "-".equals(columns[6]) ? -1 : 1));
+
+                int start = Integer.parseInt(columns[3]);
+                int end = Integer.parseInt(columns[4]);
+                switch (feature) {
+                    case "transcript" -> {
+                        transcript.start = start;
+                        transcript.end = end;
+                    }
+                    case "exon" -> transcript.exons.add(new int[] {start, end});
+                    default -> transcript.cds.add(new int[] {start, end});
+                }
+            }
+        }
+
+        Map<String, List<Transcript>> byChromosome = new HashMap<>();
+        for (Transcript transcript : byId.values()) {
+            transcript.finish();
+            byChromosome.computeIfAbsent(transcript.chromosome, chromosome -> new ArrayList<>()).add(transcript);
+        }
+        byChromosome.values().forEach(list -> list.sort(Comparator.comparingInt(transcript -> transcript.start)));
+
+        transcriptsByChromosome = byChromosome;
+        transcriptsById = byId;
+    }
+
+    /**
+     * Parses a genomic or transcript HGVS notation into a genomic span
+     */
+    Variant parse(String notation) {
+        if (notation == null) {
+            return null;
+        }
+        String trimmed = notation.trim();
+
+        Matcher genomic = GENOMIC_HGVS.matcher(trimmed);
+        if (genomic.matches()) {
+            int start = Integer.parseInt(genomic.group(2));
+            int end = genomic.group(3) != null ? Integer.parseInt(genomic.group(3)) : start;
+            return Variant.of(normalizeChromosome(genomic.group(1)), start, end,
+                genomic.group(4), genomic.group(5), genomic.group(6));
+        }
+
+        Matcher coding = TRANSCRIPT_HGVS.matcher(trimmed);
+        if (coding.matches()) {
+            Transcript transcript = transcriptsById.get(coding.group(1).toUpperCase());
+            if (transcript == null) {
+                return null;
+            }
+            int cdsStart = Integer.parseInt(coding.group(2));
+            int cdsEnd = coding.group(3) != null ? Integer.parseInt(coding.group(3)) : cdsStart;
+            int first = transcript.cdsToGenomic(cdsStart);
+            int last = transcript.cdsToGenomic(cdsEnd);
+            if (first < 0 || last < 0) {
+                return null;
+            }
+            // Report alleles on the forward strand like VEP does for genomic coordinates
+            return Variant.of(transcript.chromosome, Math.min(first, last), Math.max(first, last),
+                transcript.strand < 0 ? complement(coding.group(4)) : coding.group(4),
+                transcript.strand < 0 ? complement(coding.group(5)) : coding.group(5),
+                transcript.strand < 0 ? reverseComplement(coding.group(6)) : coding.group(6));
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the consequence terms of a variant for one transcript (empty if too far away)
+     */
+    private List<String> classify(Variant variant, Transcript transcript) {
+        Set<String> terms = new LinkedHashSet<>();
+
+        if (variant.end < transcript.start || variant.start > transcript.end) {
+            int distance = variant.end < transcript.start
+                ? transcript.start - variant.end
+                : variant.start - transcript.end;
+            if (distance > UPSTREAM_DOWNSTREAM_DISTANCE) {
+                return List.of();
+            }
+            boolean before5Prime = (variant.end < transcript.start) == (transcript.strand > 0);
+            return List.of(before5Prime ? "upstream_gene_variant" : "downstream_gene_variant");
+        }
+
+        boolean exonic = false;
+        for (int[] exon : transcript.exons) {
+            if (variant.start <= exon[1] && variant.end >= exon[0]) {
+                exonic = true;
+                break;
+            }
+        }
+
+        if (exonic) {
+            if (transcript.isCoding() && variant.start <= transcript.cdsEnd && variant.end >= transcript.cdsStart) {
+                if (variant.isIndel()) {
+                    boolean inFrame = variant.indelLength() % 3 == 0;
+                    terms.add(inFrame
+                        ? (variant.isInsertion() ? "inframe_insertion" : "inframe_deletion")
+                        : "frameshift_variant");
+                } else {
+                    terms.add("coding_sequence_variant");
+                }
+            } else if (transcript.isCoding()) {
+                boolean beforeCds = variant.end < transcript.cdsStart;
+                terms.add(beforeCds == (transcript.strand > 0) ? "5_prime_UTR_variant" : "3_prime_UTR_variant");
+            } else {
+                terms.add("non_coding_transcript_exon_variant");
+            }
+        }
+
+        // Splice sites: 2 intronic bases next to each internal exon boundary, splice region up to 8 bases
+        for (int i = 0; i < transcript.exons.size(); i++) {
+            int[] exon = transcript.exons.get(i);
+            if (i > 0) {
+                addSpliceTerms(terms, variant, exon[0], -1, transcript.strand > 0);
+            }
+            if (i < transcript.exons.size() - 1) {
+                addSpliceTerms(terms, variant, exon[1], 1, transcript.strand < 0);
+            }
+        }
+
+        if (!exonic) {
+            terms.add("intron_variant");
+        }
+
+        List<String> ordered = new ArrayList<>(terms);
+        ordered.sort(Comparator.comparingInt(SEVERITY_ORDER::indexOf));
+        return ordered;
+    }
+
+    /**
+     * Adds splice terms for one exon boundary
+     *
+     * @param boundary first or last exonic base
+     * @param intronDirection +1 if the intron follows the boundary in genomic order, -1 if it precedes it
+     * @param acceptor whether the intron side of this boundary is a splice acceptor on the transcript strand
+     */
+    private static void addSpliceTerms(Set<String> terms, Variant variant, int boundary, int intronDirection,
+                                       boolean acceptor) {
+        int essentialFrom = Math.min(boundary + intronDirection, boundary + 2 * intronDirection);
+        int essentialTo = Math.max(boundary + intronDirection, boundary + 2 * intronDirection);
+        if (variant.start <= essentialTo && variant.end >= essentialFrom) {
+            terms.add(acceptor ? "splice_acceptor_variant" : "splice_donor_variant");
+            return;
+        }
+
+        // Splice region: 1-3 exonic bases and 3-8 intronic bases around the boundary
+        int regionFrom = Math.min(boundary - 2 * intronDirection, boundary + 8 * intronDirection);
+        int regionTo = Math.max(boundary - 2 * intronDirection, boundary + 8 * intronDirection);
+        if (variant.start <= regionTo && variant.end >= regionFrom) {
+            terms.add("splice_region_variant");
+        }
+    }
+
+    private static TranscriptConsequence toTranscriptConsequence(Variant variant, Transcript transcript,
+                                                                 List<String> terms) {
+        TranscriptConsequence consequence = new TranscriptConsequence();
+        consequence.setGeneId(transcript.geneId);
+        consequence.setGeneSymbol(transcript.geneSymbol);
+        consequence.setTranscriptId(transcript.transcriptId);
+        consequence.setBiotype(transcript.biotype);
+        consequence.setConsequenceTerms(terms);
+        consequence.setImpact(CONSEQUENCE_IMPACTS.get(terms.get(0)));
+        consequence.setVariantAllele(transcript.strand < 0
+            ? reverseComplement(variant.variantAllele())
+            : variant.variantAllele());
+        return consequence;
+    }
+
+    private static boolean isHuman(String species) {
+        return species == null || species.equalsIgnoreCase("human") || species.equalsIgnoreCase("homo_sapiens");
+    }
+
+    private static String normalizeChromosome(String chromosome) {
+        String normalized = chromosome.toUpperCase();
+        if (normalized.startsWith("CHR")) {
+            normalized = normalized.substring(3);
+        }
+        return normalized.equals("M") ? "MT" : normalized;
+    }
+
+    private static String complement(String bases) {
+        if (bases == null) {
+            return null;
+        }
+        StringBuilder result = new StringBuilder(bases.length());
+        for (char base : bases.toUpperCase().toCharArray()) {
+            result.append(switch (base) {
+                case 'A' -> 'T';
+                case 'T' -> 'A';
+                case 'C' -> 'G';
+                case 'G' -> 'C';
+                default -> base;
+            });
+        }
+        return result.toString();
+    }
+
+    private static String reverseComplement(String bases) {
+        return bases == null || bases.equals("-") ? bases : new StringBuilder(complement(bases)).reverse().toString();
+    }
+
+    /**
+     * Variant span in 1-based genomic coordinates on the forward strand
+     */
+    record Variant(String chromosome, int start, int end, String ref, String alt, String inserted) {
+
+        static Variant of(String chromosome, int start, int end, String ref, String alt, String inserted) {
+            return new Variant(chromosome, start, end,
+                ref != null ? ref.toUpperCase() : null,
+                alt != null ? alt.toUpperCase() : null,
+                inserted != null ? inserted.toUpperCase() : null);
+        }
+
+        boolean isInsertion() {
+            return inserted != null;
+        }
+
+        boolean isIndel() {
+            return alt == null;
+        }
+
+        int indelLength() {
+            return isInsertion() ? inserted.length() : end - start + 1;
+        }
+
+        String variantClass() {
+            return isInsertion() ? "insertion" : isIndel() ? "deletion" : "SNV";
+        }
+
+        String alleleString() {
+            if (isInsertion()) {
+                return "-/" + inserted;
+            }
+            return isIndel() ? null : ref + "/" + alt;
+        }
+
+        String variantAllele() {
+            if (isInsertion()) {
+                return inserted;
+            }
+            return isIndel() ? "-" : alt;
+        }
+    }
+
+    /**
+     * One transcript of the gene/transcript table
+     */
+    static final class Transcript {
+        final String transcriptId;
+        final String geneId;
+        final String geneSymbol;
+        final String biotype;
+        final String chromosome;
+        final int strand;
+        final List<int[]> exons = new ArrayList<>();
+        final List<int[]> cds = new ArrayList<>();
+        int start = Integer.MAX_VALUE;
+        int end = Integer.MIN_VALUE;
+        int cdsStart = -1;
+        int cdsEnd = -1;
+
+        Transcript(String transcriptId, String geneId, String geneSymbol, String biotype,
+                   String chromosome, int strand) {
+            this.transcriptId = transcriptId;
+            this.geneId = geneId;
+            this.geneSymbol = geneSymbol;
+            this.biotype = biotype;
+            this.chromosome = chromosome;
+            this.strand = strand;
+        }
+
+        boolean isCoding() {
+            return cdsStart > 0;
+        }
+
+        void finish() {
+            exons.sort(Comparator.comparingInt(exon -> exon[0]));
+            cds.sort(Comparator.comparingInt(segment -> segment[0]));
+            for (int[] exon : exons) {
+                start = Math.min(start, exon[0]);
+                end = Math.max(end, exon[1]);
+            }
+            if (!cds.isEmpty()) {
+                cdsStart = cds.get(0)[0];
+                cdsEnd = cds.get(cds.size() - 1)[1];
+            }
+        }
+
+        /**
+         * Maps a c. position (1 = first base of the start codon) to a genomic position
+         *
+         * @return genomic position, or -1 if the position is outside the coding sequence
+         */
+        int cdsToGenomic(int cdsPosition) {
+            if (cdsPosition < 1 || cds.isEmpty()) {
+                return -1;
+            }
+            int remaining = cdsPosition;
+            for (int i = 0; i < cds.size(); i++) {
+                int[] segment = strand > 0 ? cds.get(i) : cds.get(cds.size() - 1 - i);
+                int length = segment[1] - segment[0] + 1;
+                if (remaining <= length) {
+                    return strand > 0 ? segment[0] + remaining - 1 : segment[1] - remaining + 1;
+                }
+                remaining -= length;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.redhat.healthcare.vep;
+
+import org.jboss.logging.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Persistent memory-mapped tier of the VEP annotation cache
+ *
+ * WHY MEMORY-MAPPED:
+ * - Survives pod restarts when the file lives on a mounted volume
+ * - Reads and writes are plain memory accesses once pages are resident (no syscalls)
+ * - Bounded size: the file is allocated once and never grows
+ *
+ * FILE LAYOUT:
+ * Header (4096 bytes): magic, format version, slot count, slot size
+ * Slots (slotCount x slotSize bytes), each:
+ *   long writtenAtMillis (0 = empty slot)
+ *   int  keyLength
+ *   int  valueLength
+ *   byte[keyLength] key (UTF-8)
+ *   byte[valueLength] value (JSON)
+ *
+ * The store is direct-mapped: a key always lives in slot hash(key) % slotCount.
+ * Writing a different key into an occupied slot evicts the previous entry.
+ *
+ * Accesses may page-fault, so callers must never use this store on a Vert.x event loop.
+ */
+public final class MappedAnnotationStore implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(MappedAnnotationStore.class);
+
+    private static final int MAGIC = 0x56455043; // "VEPC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4096;
+    private static final int SLOT_HEADER_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int LOCK_STRIPES = 64;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private final int slotSize;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * Result of a put, so callers can count evictions
+     */
+    public enum PutResult { STORED, REPLACED, EVICTED, TOO_LARGE }
+
+    private MappedAnnotationStore(FileChannel channel, MappedByteBuffer buffer, int slotCount, int slotSize) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slotCount = slotCount;
+        this.slotSize = slotSize;
+        Arrays.setAll(locks, i -> new Object());
+    }
+
+    /**
+     * Opens (or creates) a store file. A file with a different layout is reinitialized.
+     */
+    public static MappedAnnotationStore open(Path file, int slotCount, int slotSize) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        long fileSize = HEADER_SIZE + (long) slotCount * slotSize;
+        if (slotCount <= 0 || slotSize <= SLOT_HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid VEP annotation store layout: %d slots x %d bytes", slotCount, slotSize));
+        }
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean compatible = channel.size() == fileSize;
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        compatible = compatible
+            && buffer.getInt(0) == MAGIC
+            && buffer.getInt(4) == FORMAT_VERSION
+            && buffer.getInt(8) == slotCount
+            && buffer.getInt(12) == slotSize;
+
+        if (!compatible) {
+            LOG.infof("Initializing VEP annotation store %s (%d slots x %d bytes)", file, slotCount, slotSize);
+            for (int slot = 0; slot < slotCount; slot++) {
+                buffer.putLong(HEADER_SIZE + slot * slotSize, 0L);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putInt(8, slotCount);
+            buffer.putInt(12, slotSize);
+        } else {
+            LOG.infof("Opened existing VEP annotation store %s (%d slots x %d bytes)", file, slotCount, slotSize);
+        }
+
+        return new MappedAnnotationStore(channel, buffer, slotCount, slotSize);
+    }
+
+    /**
+     * Reads the value stored for a key if it was written within the TTL
+     *
+     * @return value bytes, or null on miss or expiry
+     */
+    public byte[] get(String key, long ttlMillis) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int slot = slotFor(keyBytes);
+        int offset = offsetOf(slot);
+
+        synchronized (locks[slot % LOCK_STRIPES]) {
+            long writtenAt = buffer.getLong(offset);
+            if (writtenAt == 0 || System.currentTimeMillis() - writtenAt > ttlMillis) {
+                return null;
+            }
+
+            int keyLength = buffer.getInt(offset + Long.BYTES);
+            int valueLength = buffer.getInt(offset + Long.BYTES + Integer.BYTES);
+            if (keyLength != keyBytes.length || SLOT_HEADER_SIZE + keyLength + valueLength > slotSize) {
+                return null;
+            }
+
+            byte[] storedKey = new byte[keyLength];
+            buffer.get(offset + SLOT_HEADER_SIZE, storedKey);
+            if (!Arrays.equals(storedKey, keyBytes)) {
+                return null;
+            }
+
+            byte[] value = new byte[valueLength];
+            buffer.get(offset + SLOT_HEADER_SIZE + keyLength, value);
+            return value;
+        }
+    }
+
+    /**
+     * Stores a value for a key, evicting whatever occupied the slot
+     */
+    public PutResult put(String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (SLOT_HEADER_SIZE + keyBytes.length + value.length > slotSize) {
+            return PutResult.TOO_LARGE;
+        }
+
+        int slot = slotFor(keyBytes);
+        int offset = offsetOf(slot);
+
+        synchronized (locks[slot % LOCK_STRIPES]) {
+            PutResult result = PutResult.STORED;
+            if (buffer.getLong(offset) != 0) {
+                int keyLength = buffer.getInt(offset + Long.BYTES);
+                byte[] storedKey = new byte[Math.max(0, Math.min(keyLength, slotSize - SLOT_HEADER_SIZE))];
+                buffer.get(offset + SLOT_HEADER_SIZE, storedKey);
+                result = Arrays.equals(storedKey, keyBytes) ? PutResult.REPLACED : PutResult.EVICTED;
+            }
+
+            // Clear the timestamp first so a crash mid-write leaves an empty slot, not a torn entry
+            buffer.putLong(offset, 0L);
+            buffer.putInt(offset + Long.BYTES, keyBytes.length);
+            buffer.putInt(offset + Long.BYTES + Integer.BYTES, value.length);
+            buffer.put(offset + SLOT_HEADER_SIZE, keyBytes);
+            buffer.put(offset + SLOT_HEADER_SIZE + keyBytes.length, value);
+            buffer.putLong(offset, System.currentTimeMillis());
+            return result;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private int slotFor(byte[] keyBytes) {
+        return Math.floorMod(Arrays.hashCode(keyBytes), slotCount);
+    }
+
+    private int offsetOf(int slot) {
+        return HEADER_SIZE + slot * slotSize;
+    }
+}
@@ -1,12 +1,14 @@
 package com.redhat.healthcare.vep;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * Represents regulatory feature consequence from VEP API
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class RegulatoryFeatureConsequence {
     
     @JsonProperty("regulatory_feature_id")
@@ -0,0 +1,39 @@
+package com.redhat.healthcare.vep;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.List;
+
+/**
+ * Annotation backend for the Ensembl VEP REST API
+ *
+ * API: POST https://rest.ensembl.org/vep/{species}/hgvs
+ * Requests go through VepRequestBatcher, so notations from concurrent sessions
+ * share one POST and every POST respects the shared VepRateLimiter.
+ * While the VepCircuitBreaker is open, calls fail immediately with CircuitOpenException.
+ */
+@ApplicationScoped
+public class RemoteAnnotationBackend implements AnnotationBackend {
+
+    @Inject
+    VepRequestBatcher requestBatcher;
+
+    @Inject
+    VepCircuitBreaker circuitBreaker;
+
+    @Override
+    public String name() {
+        return "remote";
+    }
+
+    @Override
+    public Uni<List<VepApiResponse>> annotate(List<String> notations, String species) {
+        if (circuitBreaker.isOpen()) {
+            // Fail before queuing so the message is not held for a batching window
+            return Uni.createFrom().failure(new VepCircuitBreaker.CircuitOpenException());
+        }
+        return Uni.createFrom().completionStage(() -> requestBatcher.submit(notations, species));
+    }
+}
@@ -0,0 +1,218 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claim-check storage for big-data sequences
+ *
+ * WHY CLAIM CHECK:
+ * - Big-data sequences of up to 50 MB went through genetic-bigdata-raw and back through
+ *   genetic-data-annotated, forcing very large broker message limits and consumer fetches
+ * - Above a size threshold only a reference travels through Kafka; the sequence itself is
+ *   written once to a content-addressed blob store on a volume shared by both services
+ *
+ * HOW IT WORKS:
+ * Blobs are named by the SHA-256 of their content (directory/ab/abcdef...), hold the 2bit-v1
+ * packed sequence (or Latin-1 text when packing is disabled) and are written to a temporary
+ * file then atomically renamed, so a blob is either complete or absent. The same sequence is
+ * stored once: the annotated result of a claim-checked input references the input's blob.
+ * References are resolved lazily, when the record is annotated, with a streaming read that
+ * verifies the hash; blob reads are blocking and must not run on the event loop. Expired blobs
+ * are purged by the WebSocket service, which writes them in the first place.
+ *
+ * Reference (genetic_sequence_ref): {"sha256": ..., "length": bases, "bytes": blob size,
+ * "encoding": "2bit-v1" | "text"}
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.claimcheck.stored: sequences written to Kafka as a blob reference
+ * - vep.claimcheck.fetch: time to fetch and decode a referenced sequence
+ */
+@ApplicationScoped
+public class SequenceClaimCheck {
+
+    private static final Logger LOG = Logger.getLogger(SequenceClaimCheck.class);
+
+    static final String REF_FIELD = "genetic_sequence_ref";
+    private static final String TEXT_ENCODING = "text";
+
+    @Inject
+    PackedSequenceCodec sequenceCodec;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.claim-check.enabled", defaultValue = "false")
+    boolean claimCheckEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.claim-check.threshold-bytes", defaultValue = "1048576")
+    int thresholdBytes;
+
+    @ConfigProperty(name = "healthcare.ml.claim-check.directory", defaultValue = "/var/lib/genetic-sequences")
+    String directory;
+
+    private Path root;
+    private Counter storedCounter;
+    private Timer fetchTimer;
+
+    @PostConstruct
+    void init() {
+        root = Paths.get(directory);
+        storedCounter = Counter.builder("vep.claimcheck.stored")
+                .description("Sequences written to Kafka as a claim-check reference")
+                .register(meterRegistry);
+        fetchTimer = Timer.builder("vep.claimcheck.fetch")
+                .description("Time to fetch and decode a claim-checked sequence")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        LOG.infof("Sequence claim check %s (threshold: %d bytes, directory: %s)",
+                 claimCheckEnabled ? "enabled" : "disabled", thresholdBytes, root);
+    }
+
+    /**
+     * Writes the sequence into the data payload: as a blob reference above the threshold,
+     * inline (PackedSequenceCodec) otherwise or when the blob cannot be written
+     */
+    public void writeSequence(ObjectNode data, String sequence) {
+        if (claimCheckEnabled && sequence != null && sequence.length() > thresholdBytes) {
+            try {
+                data.set(REF_FIELD, store(data, sequence));
+                storedCounter.increment();
+                return;
+            } catch (IOException e) {
+                LOG.warnf(e, "Claim-check write failed - sending the %d-base sequence inline", sequence.length());
+            }
+        }
+        sequenceCodec.writeSequence(data, sequence);
+    }
+
+    /**
+     * Cheap check on the raw record value, used to move blob reads off the event loop
+     */
+    public boolean hasReference(String recordValue) {
+        return recordValue != null && recordValue.contains("\"" + REF_FIELD + "\"");
+    }
+
+    /**
+     * Reads the sequence of a data payload: from the blob store if it carries a reference,
+     * otherwise inline in either encoding
+     *
+     * @return the sequence, or null if the payload carries none
+     */
+    public String readSequence(JsonNode data) throws IOException {
+        JsonNode ref = data.get(REF_FIELD);
+        if (ref == null || ref.isNull()) {
+            return sequenceCodec.readSequence(data);
+        }
+        long start = System.nanoTime();
+        try {
+            return fetch(ref.path("sha256").asText(), ref.path("encoding").asText(), ref.path("length").asInt(-1));
+        } finally {
+            fetchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private JsonNode store(ObjectNode data, String sequence) throws IOException {
+        long packedSize = PackedSequenceCodec.packedSize(sequence);
+        if (packedSize < 0) {
+            throw new IOException("Sequence has symbols outside ISO-8859-1");
+        }
+        boolean packed = sequenceCodec.isPackedEncodingEnabled() && packedSize < sequence.length();
+        byte[] blob = packed
+            ? PackedSequenceCodec.pack(sequence)
+            : sequence.getBytes(StandardCharsets.ISO_8859_1);
+        String sha256 = HexFormat.of().formatHex(sha256().digest(blob));
+
+        Path path = blobPath(sha256);
+        if (Files.exists(path)) {
+            // Same content already stored (a result of a claim-checked input): refresh it for the purge
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        } else {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), sha256, ".tmp");
+            try {
+                Files.write(temp, blob);
+                try {
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        ObjectNode ref = data.objectNode();
+        ref.put("sha256", sha256);
+        ref.put("length", sequence.length());
+        ref.put("bytes", blob.length);
+        ref.put("encoding", packed ? PackedSequenceCodec.ENCODING : TEXT_ENCODING);
+        return ref;
+    }
+
+    private String fetch(String sha256, String encoding, int length) throws IOException {
+        if (!sha256.matches("[0-9a-f]{64}")) {
+            throw new IOException("Invalid claim-check reference: " + sha256);
+        }
+        MessageDigest digest = sha256();
+        String sequence;
+        try (InputStream in = new DigestInputStream(
+                new BufferedInputStream(Files.newInputStream(blobPath(sha256)), 64 * 1024), digest)) {
+            if (PackedSequenceCodec.ENCODING.equals(encoding)) {
+                sequence = PackedSequenceCodec.unpack(in);
+            } else if (TEXT_ENCODING.equals(encoding) && length >= 0) {
+                sequence = new String(in.readNBytes(length), StandardCharsets.ISO_8859_1);
+            } else {
+                throw new IOException("Unsupported claim-check encoding: " + encoding);
+            }
+            if (in.read() != -1) {
+                throw new IOException("Claim-check blob " + sha256 + " is longer than its sequence");
+            }
+        }
+        if (!sha256.equals(HexFormat.of().formatHex(digest.digest()))) {
+            throw new IOException("Claim-check blob " + sha256 + " does not match its hash");
+        }
+        if (length >= 0 && sequence.length() != length) {
+            throw new IOException("Claim-check blob " + sha256 + " has " + sequence.length() + " bases, expected " + length);
+        }
+        return sequence;
+    }
+
+    private Path blobPath(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -63,17 +63,35 @@ public class SequenceToHgvsConverter {
      * @return List of HGVS notations representing variants
      */
     public List<String> convertSequenceToHgvs(String sequence, String sessionId) {
-        LOG.infof("Converting sequence to HGVS notations for session %s (length: %d)", 
-                 sessionId, sequence.length());
+        return convertSequenceToHgvs(sequence, 0, sessionId);
+    }
+
+    /**
+     * Converts one chunk of a chunked sequence to HGVS notations
+     *
+     * The first overlapBases of a chunk repeat the end of the previous chunk: they are context
+     * for variants near the boundary, but variants are only called from the bases after them,
+     * so no variant is reported by two chunks and the density counts each base once.
+     *
+     * @param overlapBases Leading bases owned by the previous chunk (0 for a whole sequence)
+     * @return HGVS notations of the variants starting after the overlap
+     */
+    public List<String> convertSequenceToHgvs(String sequence, int overlapBases, String sessionId) {
+        LOG.infof("Converting sequence to HGVS notations for session %s (length: %d, overlap: %d)", 
+                 sessionId, sequence.length(), overlapBases);
         
         List<String> hgvsNotations = new ArrayList<>();
+        if (overlapBases > 0 && overlapBases >= sequence.length()) {
+            // Nothing after the overlap: every base was covered by the previous chunk
+            return hgvsNotations;
+        }
         
         try {
             // Generate variants based on sequence characteristics
-            int variantCount = calculateVariantCount(sequence);
+            int variantCount = calculateVariantCount(sequence.length() - overlapBases);
             
             for (int i = 0; i < variantCount; i++) {
-                String hgvsNotation = generateRealisticHgvsNotation(sequence, i);
+                String hgvsNotation = generateRealisticHgvsNotation(sequence, overlapBases, i);
                 hgvsNotations.add(hgvsNotation);
             }
             
@@ -90,9 +108,9 @@ public class SequenceToHgvsConverter {
     /**
      * Calculates the number of variants to generate based on sequence length
      */
-    private int calculateVariantCount(String sequence) {
+    private int calculateVariantCount(int length) {
         // Realistic variant density: ~1 variant per 1000 base pairs
-        int baseVariants = Math.max(1, sequence.length() / 1000);
+        int baseVariants = Math.max(1, length / 1000);
         
         // Add some randomness (±50%)
         int variation = (int) (baseVariants * 0.5);
@@ -106,13 +124,13 @@ public class SequenceToHgvsConverter {
     /**
      * Generates a realistic HGVS notation based on sequence analysis
      */
-    private String generateRealisticHgvsNotation(String sequence, int variantIndex) {
+    private String generateRealisticHgvsNotation(String sequence, int firstBase, int variantIndex) {
         // Choose variant type based on sequence characteristics
         double rand = random.nextDouble();
         
         if (rand < 0.6) {
             // 60% single nucleotide variants (SNVs)
-            return generateSnvHgvs(sequence, variantIndex);
+            return generateSnvHgvs(sequence, firstBase, variantIndex);
         } else if (rand < 0.8) {
             // 20% genomic variants
             return generateGenomicHgvs(variantIndex);
@@ -125,14 +143,14 @@ public class SequenceToHgvsConverter {
     /**
      * Generates SNV (Single Nucleotide Variant) HGVS notation
      */
-    private String generateSnvHgvs(String sequence, int variantIndex) {
+    private String generateSnvHgvs(String sequence, int firstBase, int variantIndex) {
         // Handle empty sequences
         if (sequence.length() == 0) {
             return generateGenomicHgvs(variantIndex);
         }
 
-        // Find a position in the sequence for the variant
-        int position = Math.min(variantIndex * 100 + random.nextInt(100), sequence.length() - 1);
+        // Find a position in the sequence for the variant (never in a chunk's overlap)
+        int position = firstBase + Math.min(variantIndex * 100 + random.nextInt(100), sequence.length() - 1 - firstBase);
         char originalBase = sequence.charAt(position);
         char newBase = getAlternativeBase(originalBase);
         
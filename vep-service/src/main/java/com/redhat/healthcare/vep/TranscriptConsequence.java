@@ -1,6 +1,7 @@
 package com.redhat.healthcare.vep;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
@@ -9,6 +10,7 @@ import java.util.List;
  * Represents transcript consequence from VEP API
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class TranscriptConsequence {
     
     @JsonProperty("gene_id")
@@ -32,6 +34,18 @@ public class TranscriptConsequence {
     @JsonProperty("biotype")
     private String biotype;
 
+    @JsonProperty("sift_prediction")
+    private String siftPrediction;
+
+    @JsonProperty("sift_score")
+    private Double siftScore;
+
+    @JsonProperty("polyphen_prediction")
+    private String polyphenPrediction;
+
+    @JsonProperty("polyphen_score")
+    private Double polyphenScore;
+
     // Constructors
     public TranscriptConsequence() {}
 
@@ -91,4 +105,36 @@ public class TranscriptConsequence {
     public void setBiotype(String biotype) {
         this.biotype = biotype;
     }
+
+    public String getSiftPrediction() {
+        return siftPrediction;
+    }
+
+    public void setSiftPrediction(String siftPrediction) {
+        this.siftPrediction = siftPrediction;
+    }
+
+    public Double getSiftScore() {
+        return siftScore;
+    }
+
+    public void setSiftScore(Double siftScore) {
+        this.siftScore = siftScore;
+    }
+
+    public String getPolyphenPrediction() {
+        return polyphenPrediction;
+    }
+
+    public void setPolyphenPrediction(String polyphenPrediction) {
+        this.polyphenPrediction = polyphenPrediction;
+    }
+
+    public Double getPolyphenScore() {
+        return polyphenScore;
+    }
+
+    public void setPolyphenScore(Double polyphenScore) {
+        this.polyphenScore = polyphenScore;
+    }
 }
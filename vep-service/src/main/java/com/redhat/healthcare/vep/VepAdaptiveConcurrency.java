@@ -0,0 +1,436 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * AIMD concurrency limit per processing channel, driven by VEP latency, errors and lag
+ *
+ * WHY ADAPTIVE:
+ * - The in-flight limit per channel (healthcare.ml.vep.concurrency.*) was a fixed number:
+ *   too low while Ensembl is fast and a backlog builds, too high when Ensembl slows down -
+ *   every extra in-flight message then only queues, until timeouts cascade into retries
+ *
+ * HOW IT WORKS:
+ * Each record takes a permit of its channel's limiter for the duration of its processing.
+ * Every interval-ms each limiter looks at the records completed in that interval:
+ * - error rate above max-error-rate: limit x decrease-factor (reason "errors"); permanent
+ *   failures (PermanentFailureException: bad input, not a VEP problem) are not counted
+ * - p90 latency of the channel's VEP calls (recordLatency: annotation backend call only, not
+ *   the wait for a permit or dispatch slot, cache hits or simulated processing) above
+ *   latency-tolerance x baseline: limit x decrease-factor (reason "latency");
+ *   the baseline is the lowest p90 seen, drifting up by baseline-drift per interval so it
+ *   follows lasting changes of the VEP latency
+ * - otherwise, with a backlog (consumer lag or records waiting for a permit) and all permits
+ *   in use: limit + increase-step (reason "lag")
+ * The limit starts at healthcare.ml.vep.concurrency.<channel> and stays between min-limit and
+ * that value x max-limit-factor, which also bounds the records buffered per channel.
+ * Channels not listed in healthcare.ml.vep.adaptive-concurrency.channels (by default the Kafka
+ * lag demo, which must build lag for KEDA) and all channels with adaptive concurrency disabled
+ * keep their initial limit.
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.concurrency.limit{channel}: current in-flight limit
+ * - vep.concurrency.inflight{channel}, vep.concurrency.waiting{channel}: permits in use / awaited
+ * - vep.concurrency.last.change{channel,reason}: 1 for the reason of the latest limit change
+ * - vep.concurrency.changes{channel,reason}: limit changes per reason
+ */
+@ApplicationScoped
+public class VepAdaptiveConcurrency {
+
+    private static final Logger LOG = Logger.getLogger(VepAdaptiveConcurrency.class);
+
+    static final String REASON_LAG = "lag";
+    static final String REASON_LATENCY = "latency";
+    static final String REASON_ERRORS = "errors";
+    static final List<String> REASONS = List.of(REASON_LAG, REASON_LATENCY, REASON_ERRORS);
+
+    // Consumer lag per Kafka client, from the Micrometer Kafka binder
+    private static final String RECORDS_LAG_METRIC = "kafka.consumer.fetch.manager.records.lag.max";
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-concurrency.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-concurrency.channels", defaultValue = "normal,big-data,node-scale")
+    List<String> adaptiveChannels;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-concurrency.interval-ms", defaultValue = "1000")
+    long intervalMs;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-concurrency.min-limit", defaultValue = "1")
+    int minLimit;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-concurrency.max-limit-factor", defaultValue = "4")
+    int maxLimitFactor;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-concurrency.increase-step", defaultValue = "1")
+    int increaseStep;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-concurrency.decrease-factor", defaultValue = "0.75")
+    double decreaseFactor;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-concurrency.latency-tolerance", defaultValue = "2.0")
+    double latencyTolerance;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-concurrency.baseline-drift", defaultValue = "0.02")
+    double baselineDrift;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-concurrency.max-error-rate", defaultValue = "0.1")
+    double maxErrorRate;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-concurrency.min-samples", defaultValue = "5")
+    int minSamples;
+
+    private final Map<String, ChannelLimiter> limiters = new ConcurrentHashMap<>();
+    private ScheduledExecutorService adjustScheduler;
+
+    @PostConstruct
+    void init() {
+        if (enabled) {
+            adjustScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "vep-adaptive-concurrency");
+                thread.setDaemon(true);
+                return thread;
+            });
+            adjustScheduler.scheduleWithFixedDelay(this::adjustAll, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        LOG.infof("VEP adaptive concurrency initialized (enabled: %s, interval: %dms, decrease: x%.2f, latency tolerance: x%.1f, max error rate: %.2f)",
+                 enabled, intervalMs, decreaseFactor, latencyTolerance, maxErrorRate);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (adjustScheduler != null) {
+            adjustScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates the limiter of a processing channel
+     *
+     * @param kafkaChannel incoming channel whose consumer lag counts as backlog
+     * @param initialLimit configured in-flight limit the limiter starts at
+     * @return the highest limit the channel can reach (the records it may buffer)
+     */
+    public int register(String channel, String kafkaChannel, int initialLimit) {
+        int initial = Math.max(minLimit, initialLimit);
+        boolean adaptive = enabled && adaptiveChannels.contains(channel);
+        int max = adaptive ? Math.max(initial, initial * maxLimitFactor) : initial;
+        ChannelLimiter limiter = limiters.computeIfAbsent(channel,
+            name -> new ChannelLimiter(name, kafkaChannel, initial, adaptive ? minLimit : initial, max));
+
+        Gauge.builder("vep.concurrency.limit", limiter, ChannelLimiter::limit)
+                .tag("channel", channel)
+                .description("Current in-flight limit of the channel")
+                .register(meterRegistry);
+        Gauge.builder("vep.concurrency.inflight", limiter, ChannelLimiter::inFlight)
+                .tag("channel", channel)
+                .description("Messages of the channel holding an in-flight permit")
+                .register(meterRegistry);
+        Gauge.builder("vep.concurrency.waiting", limiter, ChannelLimiter::waiting)
+                .tag("channel", channel)
+                .description("Messages of the channel waiting for an in-flight permit")
+                .register(meterRegistry);
+        for (String reason : REASONS) {
+            Gauge.builder("vep.concurrency.last.change", limiter, l -> reason.equals(l.lastReason()) ? 1 : 0)
+                    .tags("channel", channel, "reason", reason)
+                    .description("1 for the reason of the latest limit change of the channel")
+                    .register(meterRegistry);
+        }
+
+        LOG.infof("Adaptive concurrency for %s: limit %d (range %d-%d)", channel, initial, limiter.minLimit, max);
+        return limiter.maxLimit;
+    }
+
+    /**
+     * Runs the work once the channel has a free in-flight permit; the permit is released,
+     * and the outcome (success or failure) recorded, when the work terminates
+     */
+    public <T> Uni<T> withPermit(String channel, Supplier<Uni<T>> work) {
+        ChannelLimiter limiter = limiters.get(channel);
+        if (limiter == null) {
+            // Channels without a limiter of their own (unknown retry modes) share the normal one
+            limiter = limiters.get("normal");
+        }
+        if (limiter == null) {
+            return Uni.createFrom().deferred(work::get);
+        }
+
+        return limiter.withPermit(work);
+    }
+
+    /**
+     * Records the latency of a VEP call made for a record of the channel
+     */
+    public void recordLatency(String channel, long latencyNanos) {
+        ChannelLimiter limiter = channel != null ? limiters.get(channel) : null;
+        if (limiter == null) {
+            limiter = limiters.get("normal");
+        }
+        if (limiter != null) {
+            limiter.recordLatency(latencyNanos);
+        }
+    }
+
+    private void adjustAll() {
+        for (ChannelLimiter limiter : limiters.values()) {
+            try {
+                Adjustment adjustment = limiter.adjust(consumerLag(limiter.kafkaChannel), this);
+                if (adjustment != null) {
+                    Counter.builder("vep.concurrency.changes")
+                            .tags("channel", limiter.channel, "reason", adjustment.reason())
+                            .description("In-flight limit changes of the channel per reason")
+                            .register(meterRegistry)
+                            .increment();
+                    LOG.infof("⚖️ CONCURRENCY: %s limit %d → %d (%s: %s)", limiter.channel,
+                             adjustment.from(), adjustment.to(), adjustment.reason(), adjustment.detail());
+                }
+            } catch (RuntimeException e) {
+                LOG.warnf(e, "Could not adjust concurrency of %s", limiter.channel);
+            }
+        }
+    }
+
+    /**
+     * Highest records lag of the channel's Kafka consumer, 0 without the Kafka binder metrics
+     */
+    private long consumerLag(String kafkaChannel) {
+        double lag = 0;
+        for (Gauge gauge : meterRegistry.find(RECORDS_LAG_METRIC).gauges()) {
+            String clientId = gauge.getId().getTag("client.id");
+            double value = gauge.value();
+            if (clientId != null && clientId.endsWith(kafkaChannel) && !Double.isNaN(value)) {
+                lag = Math.max(lag, value);
+            }
+        }
+        return (long) lag;
+    }
+
+    record Adjustment(int from, int to, String reason, String detail) {
+    }
+
+    /**
+     * In-flight permits of one channel with the outcomes of the current interval
+     */
+    static final class ChannelLimiter {
+        private static final int MAX_SAMPLES = 4096;
+
+        final String channel;
+        final String kafkaChannel;
+        final int minLimit;
+        final int maxLimit;
+
+        private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private final long[] latencies = new long[MAX_SAMPLES];
+        private volatile int limit;
+        private volatile String lastReason = "none";
+        private int inFlight;
+        private int peakInFlight;
+        private int samples;
+        private int completed;
+        private int errors;
+        private double baselineNanos = Double.MAX_VALUE;
+
+        ChannelLimiter(String channel, String kafkaChannel, int initialLimit, int minLimit, int maxLimit) {
+            this.channel = channel;
+            this.kafkaChannel = kafkaChannel;
+            this.limit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+
+        /**
+         * Runs the work once a permit is free. A record cancelled while waiting leaves the queue,
+         * so it never takes (and leaks) a permit.
+         */
+        <T> Uni<T> withPermit(Supplier<Uni<T>> work) {
+            return Uni.createFrom().deferred(() -> {
+                CompletableFuture<Void> permit = acquire();
+                return Uni.createFrom().completionStage(permit)
+                    .chain(() -> Uni.createFrom().deferred(work::get))
+                    .onTermination().invoke((item, failure, cancelled) -> {
+                        // A record cancelled while waiting gives up its place instead of a permit
+                        if (permit.cancel(false) || permit.isCancelled()) {
+                            withdraw(permit);
+                            return;
+                        }
+                        release(failure);
+                    });
+            });
+        }
+
+        synchronized CompletableFuture<Void> acquire() {
+            if (inFlight < limit) {
+                take();
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        /**
+         * @param failure failure of the record, or null if it succeeded
+         */
+        void release(Throwable failure) {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                inFlight--;
+                if (!(failure instanceof VepRetryRouter.PermanentFailureException)) {
+                    completed++;
+                    if (failure != null) {
+                        errors++;
+                    }
+                }
+                next = nextWaiter();
+            }
+            grant(next);
+        }
+
+        synchronized boolean withdraw(CompletableFuture<Void> waiter) {
+            return waiters.remove(waiter);
+        }
+
+        /**
+         * Takes a permit for the first waiter that is still waiting, if a permit is free.
+         * Must be called with the lock held.
+         */
+        private CompletableFuture<Void> nextWaiter() {
+            while (inFlight < limit && !waiters.isEmpty()) {
+                CompletableFuture<Void> waiter = waiters.poll();
+                if (!waiter.isDone()) {
+                    take();
+                    return waiter;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Hands a taken permit to its waiter, or on to the next one if the waiter was cancelled meanwhile
+         */
+        private void grant(CompletableFuture<Void> waiter) {
+            // Complete outside the lock: the next record starts on this thread
+            while (waiter != null && !waiter.complete(null)) {
+                synchronized (this) {
+                    inFlight--;
+                    waiter = nextWaiter();
+                }
+            }
+        }
+
+        synchronized void recordLatency(long latencyNanos) {
+            if (samples < MAX_SAMPLES) {
+                latencies[samples++] = latencyNanos;
+            }
+        }
+
+        private void take() {
+            inFlight++;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+        }
+
+        /**
+         * Applies the AIMD rule to the outcomes since the last call and starts a new interval
+         *
+         * @param consumerLag records not yet fetched by the channel's consumer
+         * @return the limit change, or null if the limit stays
+         */
+        Adjustment adjust(long consumerLag, VepAdaptiveConcurrency settings) {
+            List<CompletableFuture<Void>> released = new ArrayList<>();
+            Adjustment adjustment;
+            synchronized (this) {
+                long backlog = consumerLag + waiters.size();
+                boolean saturated = peakInFlight >= limit || !waiters.isEmpty();
+                adjustment = decide(backlog, saturated, settings);
+
+                if (adjustment != null) {
+                    limit = adjustment.to();
+                    lastReason = adjustment.reason();
+                    CompletableFuture<Void> next;
+                    while ((next = nextWaiter()) != null) {
+                        released.add(next);
+                    }
+                }
+                samples = 0;
+                completed = 0;
+                errors = 0;
+                peakInFlight = inFlight;
+            }
+            released.forEach(this::grant);
+            return adjustment;
+        }
+
+        private Adjustment decide(long backlog, boolean saturated, VepAdaptiveConcurrency settings) {
+            if (completed >= settings.minSamples) {
+                double errorRate = (double) errors / completed;
+                if (errorRate > settings.maxErrorRate) {
+                    return decrease(REASON_ERRORS, String.format("error rate %.2f", errorRate), settings);
+                }
+            }
+
+            if (samples >= settings.minSamples) {
+                long[] window = Arrays.copyOf(latencies, samples);
+                Arrays.sort(window);
+                double p90Nanos = window[Math.max(0, (int) Math.ceil(0.9 * window.length) - 1)];
+                baselineNanos = Math.min(p90Nanos, baselineNanos * (1 + settings.baselineDrift));
+                if (p90Nanos > baselineNanos * settings.latencyTolerance) {
+                    return decrease(REASON_LATENCY, String.format("p90 %.0fms, baseline %.0fms",
+                                                                  p90Nanos / 1e6, baselineNanos / 1e6), settings);
+                }
+            }
+
+            if (backlog > 0 && saturated && limit < maxLimit) {
+                return new Adjustment(limit, Math.min(maxLimit, limit + settings.increaseStep),
+                                      REASON_LAG, "backlog " + backlog);
+            }
+            return null;
+        }
+
+        private Adjustment decrease(String reason, String detail, VepAdaptiveConcurrency settings) {
+            int decreased = Math.max(minLimit, (int) Math.floor(limit * settings.decreaseFactor));
+            return decreased < limit ? new Adjustment(limit, decreased, reason, detail) : null;
+        }
+
+        int limit() {
+            return limit;
+        }
+
+        synchronized int inFlight() {
+            return inFlight;
+        }
+
+        synchronized int waiting() {
+            return waiters.size();
+        }
+
+        String lastReason() {
+            return lastReason;
+        }
+    }
+}
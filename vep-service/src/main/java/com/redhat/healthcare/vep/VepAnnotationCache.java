@@ -0,0 +1,209 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Two-tier, event-loop safe cache of VEP annotations keyed by normalized HGVS notation
+ *
+ * WHY THIS CACHE:
+ * - @CacheResult on annotateWithVep was removed because it blocked event-loop threads
+ * - Without a cache every repeated variant (e.g. the BRCA1/BRCA2/BRAF fallbacks) goes
+ *   to rest.ensembl.org again and spends rate-limit budget
+ *
+ * TIERS:
+ * 1. On-heap: the Quarkus Caffeine cache "vep-annotations" (bounded, expire-after-write).
+ *    Only the programmatic, non-blocking getIfPresent/put API is used.
+ * 2. Disk: a MappedAnnotationStore file that survives pod restarts when mounted on a volume.
+ *    Disk lookups always run on the worker pool, never on the event loop.
+ *
+ * Only Ensembl VEP answers are stored: local consequence engine predictions (local and hybrid
+ * backends, degraded-mode fallback) are skipped, so after a switch back to the remote backend
+ * no local guess is ever served as a VEP annotation.
+ *
+ * METRICS (exposed at /q/metrics):
+ * - cache.gets{cache="vep-annotations",result=hit|miss}, cache.evictions (Quarkus cache metrics)
+ * - vep.cache.disk.gets{result=hit|miss}, vep.cache.disk.evictions
+ */
+@ApplicationScoped
+public class VepAnnotationCache {
+
+    private static final Logger LOG = Logger.getLogger(VepAnnotationCache.class);
+
+    @Inject
+    @CacheName("vep-annotations")
+    Cache heapCache;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.vep.cache.enabled", defaultValue = "true")
+    boolean cacheEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.cache.disk.enabled", defaultValue = "true")
+    boolean diskEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.cache.disk.path", defaultValue = "/tmp/vep-cache/vep-annotations.db")
+    String diskPath;
+
+    @ConfigProperty(name = "healthcare.ml.vep.cache.disk.slots", defaultValue = "16384")
+    int diskSlots;
+
+    @ConfigProperty(name = "healthcare.ml.vep.cache.disk.slot-size", defaultValue = "4096")
+    int diskSlotSize;
+
+    @ConfigProperty(name = "healthcare.ml.vep.cache.disk.ttl-hours", defaultValue = "24")
+    long diskTtlHours;
+
+    private MappedAnnotationStore diskStore;
+
+    private Counter diskHits;
+    private Counter diskMisses;
+    private Counter diskEvictions;
+
+    @PostConstruct
+    void init() {
+        diskHits = Counter.builder("vep.cache.disk.gets").tag("result", "hit")
+                .description("VEP annotation disk cache lookups").register(meterRegistry);
+        diskMisses = Counter.builder("vep.cache.disk.gets").tag("result", "miss")
+                .description("VEP annotation disk cache lookups").register(meterRegistry);
+        diskEvictions = Counter.builder("vep.cache.disk.evictions")
+                .description("VEP annotation disk cache entries overwritten by another notation")
+                .register(meterRegistry);
+
+        if (cacheEnabled && diskEnabled) {
+            try {
+                diskStore = MappedAnnotationStore.open(Path.of(diskPath), diskSlots, diskSlotSize);
+            } catch (Exception e) {
+                LOG.warnf(e, "Could not open VEP annotation disk cache at %s - continuing with heap cache only", diskPath);
+            }
+        }
+
+        LOG.infof("VEP annotation cache initialized (enabled: %s, disk tier: %s)",
+                 cacheEnabled, diskStore != null ? diskPath : "disabled");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (diskStore != null) {
+            try {
+                diskStore.close();
+            } catch (Exception e) {
+                LOG.warnf("Failed to close VEP annotation disk cache: %s", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Looks up cached annotations without blocking the calling thread
+     *
+     * @param notations HGVS notations to look up
+     * @param species Species the notations belong to
+     * @return cached responses keyed by the original notation (misses are absent)
+     */
+    public Uni<Map<String, VepApiResponse>> lookup(List<String> notations, String species) {
+        Map<String, VepApiResponse> found = new HashMap<>();
+        if (!cacheEnabled || notations.isEmpty()) {
+            return Uni.createFrom().item(found);
+        }
+
+        List<String> heapMisses = new ArrayList<>();
+        CaffeineCache caffeine = heapCache.as(CaffeineCache.class);
+        for (String notation : notations) {
+            CompletableFuture<VepApiResponse> cached = caffeine.getIfPresent(keyOf(notation, species));
+            // Only completed entries are used - an in-flight value would mean waiting
+            if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+                found.put(notation, cached.join());
+            } else {
+                heapMisses.add(notation);
+            }
+        }
+
+        if (heapMisses.isEmpty() || diskStore == null) {
+            return Uni.createFrom().item(found);
+        }
+
+        return Uni.createFrom().item(() -> {
+            long ttlMillis = diskTtlHours * 3600_000L;
+            for (String notation : heapMisses) {
+                String key = keyOf(notation, species);
+                byte[] value = diskStore.get(key, ttlMillis);
+                if (value == null) {
+                    diskMisses.increment();
+                    continue;
+                }
+                try {
+                    VepApiResponse response = objectMapper.readValue(value, VepApiResponse.class);
+                    caffeine.put(key, CompletableFuture.completedFuture(response));
+                    found.put(notation, response);
+                    diskHits.increment();
+                } catch (Exception e) {
+                    LOG.debugf("Discarding unreadable disk cache entry for %s: %s", notation, e.getMessage());
+                    diskMisses.increment();
+                }
+            }
+            return found;
+        }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    /**
+     * Stores annotations in both tiers, except local predictions. The disk write happens on the worker pool.
+     */
+    public void put(List<VepApiResponse> responses, String species) {
+        if (!cacheEnabled || responses.isEmpty()) {
+            return;
+        }
+
+        CaffeineCache caffeine = heapCache.as(CaffeineCache.class);
+        List<VepApiResponse> cacheable = new ArrayList<>();
+        for (VepApiResponse response : responses) {
+            if (response != null && response.getInput() != null && !response.isLocalPrediction()) {
+                caffeine.put(keyOf(response.getInput(), species), CompletableFuture.completedFuture(response));
+                cacheable.add(response);
+            }
+        }
+
+        if (diskStore == null || cacheable.isEmpty()) {
+            return;
+        }
+
+        Infrastructure.getDefaultWorkerPool().execute(() -> {
+            for (VepApiResponse response : cacheable) {
+                try {
+                    byte[] value = objectMapper.writeValueAsBytes(response);
+                    if (diskStore.put(keyOf(response.getInput(), species), value) == MappedAnnotationStore.PutResult.EVICTED) {
+                        diskEvictions.increment();
+                    }
+                } catch (Exception e) {
+                    LOG.debugf("Could not write disk cache entry for %s: %s", response.getInput(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static String keyOf(String notation, String species) {
+        return species + "|" + VepHgvsRequest.normalizeNotation(notation);
+    }
+}
@@ -34,6 +34,10 @@ public class VepAnnotationResult {
     @JsonProperty("status")
     private String status = "success";
 
+    // True when the VEP API was unavailable and results came from cache or the fallback backend
+    @JsonProperty("degraded")
+    private boolean degraded;
+
     // Constructors
     public VepAnnotationResult() {
         this.timestamp = Instant.now().toString();
@@ -158,4 +162,12 @@ public class VepAnnotationResult {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public void setDegraded(boolean degraded) {
+        this.degraded = degraded;
+    }
 }
@@ -2,15 +2,21 @@ package com.redhat.healthcare.vep;
 
 
 import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
 import org.eclipse.microprofile.reactive.messaging.Outgoing;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.infrastructure.Infrastructure;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import jakarta.inject.Inject;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
+import java.time.Duration;
 import java.time.Instant;
 
 import io.cloudevents.CloudEvent;
@@ -19,12 +25,14 @@ import io.cloudevents.core.format.EventFormat;
 import io.cloudevents.core.provider.EventFormatProvider;
 import io.cloudevents.jackson.JsonFormat;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * VEP (Variant Effect Predictor) Annotation Service
@@ -44,10 +52,6 @@ public class VepAnnotationService {
 
     private static final Logger LOG = Logger.getLogger(VepAnnotationService.class);
 
-    @Inject
-    @RestClient
-    VepApiClient vepApiClient;
-
     @Inject
     VepAnnotationProcessor annotationProcessor;
 
@@ -60,29 +64,298 @@ public class VepAnnotationService {
     @Inject
     VepResultMapper resultMapper;
 
+    @Inject
+    @Any
+    Instance<AnnotationBackend> annotationBackends;
+
+    @Inject
+    VepSingleFlight singleFlight;
+
+    @Inject
+    VepAnnotationCache annotationCache;
+
+    @Inject
+    VepReadinessMonitor readinessMonitor;
+
+    @Inject
+    VepPublishTracker publishTracker;
+
+    @Inject
+    VepKeyOrderedScheduler keyOrderedScheduler;
+
+    @Inject
+    KafkaCloudEventCodec cloudEventCodec;
+
+    @Inject
+    SequenceClaimCheck sequenceClaimCheck;
+
+    @Inject
+    GeneticRecordReader recordReader;
+
+    @Inject
+    VepRetryRouter retryRouter;
+
+    @Inject
+    VepAdaptiveConcurrency adaptiveConcurrency;
+
+    @Inject
+    VepFairScheduler fairScheduler;
+
+    @ConfigProperty(name = "healthcare.ml.vep.backend", defaultValue = "remote")
+    String backendName;
+
+    private AnnotationBackend annotationBackend;
+
+    @ConfigProperty(name = "healthcare.ml.vep.circuit-breaker.fallback-backend", defaultValue = "local")
+    String fallbackBackendName;
+
+    private AnnotationBackend fallbackBackend;
+
+    @ConfigProperty(name = "healthcare.ml.vep.concurrency.normal", defaultValue = "64")
+    int normalMaxInFlight;
+
+    @ConfigProperty(name = "healthcare.ml.vep.concurrency.big-data", defaultValue = "8")
+    int bigDataMaxInFlight;
+
+    @ConfigProperty(name = "healthcare.ml.vep.concurrency.node-scale", defaultValue = "16")
+    int nodeScaleMaxInFlight;
+
+    @ConfigProperty(name = "healthcare.ml.vep.concurrency.kafka-lag", defaultValue = "16")
+    int kafkaLagMaxInFlight;
+
+    @ConfigProperty(name = "healthcare.ml.vep.concurrency.retry", defaultValue = "8")
+    int retryMaxInFlight;
+
+    @ConfigProperty(name = "healthcare.ml.vep.kafka-lag.processing-delay-ms", defaultValue = "5000")
+    long kafkaLagProcessingDelayMs;
+
+    /**
+     * Selects the annotation backend (remote, local or hybrid) from healthcare.ml.vep.backend
+     */
+    @PostConstruct
+    void selectAnnotationBackend() {
+        for (AnnotationBackend backend : annotationBackends) {
+            if (backend.name().equalsIgnoreCase(backendName.trim())) {
+                annotationBackend = backend;
+            }
+            // The fallback must work without the VEP API, so only the local engine qualifies
+            if (backend.name().equalsIgnoreCase(fallbackBackendName.trim()) && backend instanceof LocalConsequenceBackend) {
+                fallbackBackend = backend;
+            }
+        }
+        if (annotationBackend == null) {
+            LOG.warnf("Unknown annotation backend '%s' - falling back to remote", backendName);
+            annotationBackend = annotationBackends.select(RemoteAnnotationBackend.class).get();
+        }
+        LOG.infof("🧬 VEP annotation backend: %s (circuit breaker fallback: %s)",
+                 annotationBackend.name(), fallbackBackend != null ? fallbackBackend.name() : "cache only");
+    }
+
+    /**
+     * Normal mode channel: genetic-data-raw → genetic-data-annotated
+     *
+     * Each channel is a Mutiny stream with a bounded number of messages in flight.
+     * Because the VEP call is non-blocking, in-flight messages do not hold worker threads.
+     *
+     * Records arrive in batches (batch=true, sized by max.poll.records / fetch.max.wait.ms per
+     * channel). The records of a batch are annotated concurrently, so their notations share
+     * VepRequestBatcher POSTs, and the batch offsets are committed once all results are acked.
+     *
+     * Results are written as byte[] record values in the CloudEvents content mode selected by
+     * healthcare.ml.cloudevents.kafka-mode (KafkaCloudEventCodec); input records are accepted
+     * in either mode.
+     *
+     * Very large sequences arrive as ordered chunk records of one session (chunk_index /
+     * chunk_count); each chunk is annotated as it arrives and published as a partial result.
+     *
+     * Only results are published: a record that fails goes to a retry tier or the DLQ
+     * (VepRetryRouter).
+     *
+     * Delivery is at-least-once; the exactly-once profile replaces this channel with the
+     * transactional genetic-data-raw-tx consumer (VepTransactionalPipeline).
+     */
+    @Incoming("genetic-data-raw")
+    @Outgoing("genetic-data-annotated")
+    public Multi<Message<byte[]>> annotateNormalStream(Multi<Message<List<String>>> batches) {
+        return boundedInFlight("normal", "genetic-data-raw", batches, this::annotateNormal, normalMaxInFlight);
+    }
+
+    /**
+     * Big data mode channel: genetic-bigdata-raw → genetic-data-annotated
+     */
+    @Incoming("genetic-bigdata-raw")
+    @Outgoing("genetic-data-annotated")
+    public Multi<Message<byte[]>> annotateBigDataStream(Multi<Message<List<String>>> batches) {
+        return boundedInFlight("big-data", "genetic-bigdata-raw", batches, this::annotateBigData, bigDataMaxInFlight);
+    }
+
+    /**
+     * Node scale mode channel: genetic-nodescale-raw → genetic-data-annotated
+     */
+    @Incoming("genetic-nodescale-raw")
+    @Outgoing("genetic-data-annotated")
+    public Multi<Message<byte[]>> annotateNodeScaleStream(Multi<Message<List<String>>> batches) {
+        return boundedInFlight("node-scale", "genetic-nodescale-raw", batches, this::annotateNodeScale, nodeScaleMaxInFlight);
+    }
+
+    /**
+     * Kafka lag mode channel: genetic-lag-demo-raw → genetic-data-annotated
+     */
+    @Incoming("genetic-lag-demo-raw")
+    @Outgoing("genetic-data-annotated")
+    public Multi<Message<byte[]>> annotateKafkaLagStream(Multi<Message<List<String>>> batches) {
+        return boundedInFlight("kafka-lag", "genetic-lag-demo-raw", batches, this::annotateKafkaLag, kafkaLagMaxInFlight);
+    }
+
+    /**
+     * Retry tier channels: genetic-data-retry-10s / -1m / -10m → genetic-data-annotated
+     *
+     * Records republished by VepRetryRouter wait until their retry-due-at header and are then
+     * processed again in their original mode; a failure sends them on to the next tier or the DLQ.
+     */
+    @Incoming("genetic-data-retry-10s")
+    @Outgoing("genetic-data-annotated")
+    public Multi<Message<byte[]>> retryFirstTierStream(Multi<Message<String>> records) {
+        return retryTier(records);
+    }
+
+    @Incoming("genetic-data-retry-1m")
+    @Outgoing("genetic-data-annotated")
+    public Multi<Message<byte[]>> retrySecondTierStream(Multi<Message<String>> records) {
+        return retryTier(records);
+    }
+
+    @Incoming("genetic-data-retry-10m")
+    @Outgoing("genetic-data-annotated")
+    public Multi<Message<byte[]>> retryThirdTierStream(Multi<Message<String>> records) {
+        return retryTier(records);
+    }
+
+    private Multi<Message<byte[]>> retryTier(Multi<Message<String>> records) {
+        return records
+            // A tier has one delay, so its records fall due in arrival order: wait for each in turn
+            .onItem().call(retryRouter::awaitDue)
+            .plug(due -> keyOrderedScheduler.process(due,
+                record -> orderingKey(record.getPayload()),
+                record -> {
+                    String mode = retryRouter.processingMode(record);
+                    return processRecord(mode, record, processorFor(mode));
+                },
+                retryMaxInFlight));
+    }
+
+    private Function<String, Uni<CloudEvent>> processorFor(String mode) {
+        switch (mode) {
+            case "big-data":
+                return this::annotateBigData;
+            case "node-scale":
+                return this::annotateNodeScale;
+            case "kafka-lag":
+                return this::annotateKafkaLag;
+            default:
+                return this::annotateNormal;
+        }
+    }
+
+    /**
+     * Processes the messages of one channel concurrently, up to the channel's in-flight limit.
+     * The limit starts at maxInFlight and is adjusted from VEP latency, errors and consumer lag
+     * (VepAdaptiveConcurrency); the stream buffers at most the highest limit the channel can reach.
+     * The result is published with the incoming record's ack, so the record is acknowledged
+     * when the broker acks the result (and its batch is committed once all its records are).
+     * A failed message is handed to VepRetryRouter, which acknowledges it once it is on a retry
+     * tier or the DLQ, instead of terminating the channel.
+     * Records of the same session are processed and published in order (VepKeyOrderedScheduler);
+     * records of different sessions run concurrently, also within one partition. Records waiting
+     * for an earlier record of their session are parked outside the in-flight window.
+     * Progress is reported to VepReadinessMonitor for the readiness probe.
+     */
+    private Multi<Message<byte[]>> boundedInFlight(String channel,
+                                                   String kafkaChannel,
+                                                   Multi<Message<List<String>>> batches,
+                                                   Function<String, Uni<CloudEvent>> processor,
+                                                   int maxInFlight) {
+        int maxLimit = adaptiveConcurrency.register(channel, kafkaChannel, maxInFlight);
+        return keyOrderedScheduler.process(
+            batches.onItem().transformToIterable(VepRecordBatch::split),
+            message -> orderingKey(message.getPayload()),
+            message -> processRecord(channel, message, processor),
+            maxLimit);
+    }
+
+    private Uni<Message<byte[]>> processRecord(String channel,
+                                               Message<String> message,
+                                               Function<String, Uni<CloudEvent>> processor) {
+        return annotate(channel, message.getPayload(), processor)
+            .call(event -> holdForLagDemo(channel, event))
+            .onItemOrFailure().transform((event, failure) -> {
+                if (failure != null) {
+                    retryRouter.reroute(channel, message, extractSessionIdSafely(message.getPayload()), failure);
+                    return null;
+                }
+                if (event == null) {
+                    message.ack();
+                    return null;
+                }
+                return publishTracker.track(channel, cloudEventCodec.encode(message, event));
+            });
+    }
+
+    /**
+     * Deliberately slows kafka-lag consumption so the lag demo builds consumer lag for KEDA.
+     * The result is held after annotate() returns, so the held record keeps its place in the
+     * channel's in-flight window but not an adaptive permit, a dispatch slot or the readiness count.
+     */
+    private Uni<Void> holdForLagDemo(String channel, CloudEvent result) {
+        if (!"kafka-lag".equals(channel) || result == null) {
+            return Uni.createFrom().voidItem();
+        }
+        return Uni.createFrom().voidItem()
+            .onItem().delayIt().by(Duration.ofMillis(kafkaLagProcessingDelayMs))
+            .onItem().invoke(() ->
+                LOG.infof("🔄 KAFKA LAG: Held result %dms for controlled lag demonstration", kafkaLagProcessingDelayMs));
+    }
+
+    /**
+     * Annotates one record of the given mode within the channel's in-flight permit and a shared
+     * dispatch slot; failures are propagated to the caller
+     */
+    Uni<CloudEvent> annotate(String channel, String payload) {
+        return annotate(channel, payload, processorFor(channel));
+    }
+
+    private Uni<CloudEvent> annotate(String channel, String payload, Function<String, Uni<CloudEvent>> processor) {
+        return adaptiveConcurrency.withPermit(channel, () -> fairScheduler.schedule(channel, () -> {
+            readinessMonitor.onMessageStarted(channel);
+            return processor.apply(payload)
+                .onTermination().invoke(() -> readinessMonitor.onMessageFinished(channel));
+        }));
+    }
+
+    private String toStructuredJson(CloudEvent event) {
+        return event != null ? cloudEventCodec.toStructuredJson(event) : null;
+    }
+
     /**
      * Processes genetic sequences from the normal mode topic (pod scaling only)
      *
      * @param cloudEventJson Raw genetic sequence data from Kafka
      * @return Annotated genetic data for downstream processing
      */
-    @Incoming("genetic-data-raw")
-    @Outgoing("genetic-data-annotated")
     public Uni<String> processGeneticSequence(String cloudEventJson) {
+        return annotateNormal(cloudEventJson).map(this::toStructuredJson);
+    }
+
+    private Uni<CloudEvent> annotateNormal(String cloudEventJson) {
         LOG.infof("🔥 KAFKA FLOW: Received message on genetic-data-raw, will publish to genetic-data-annotated");
         return processGeneticSequenceInternal(cloudEventJson, "normal")
             .onItem().invoke(result -> {
-                if (result != null && !result.isEmpty()) {
-                    LOG.infof("🎉 KAFKA FLOW: Successfully created result for genetic-data-annotated (size: %d chars)", result.length());
+                if (result != null) {
+                    LOG.infof("🎉 KAFKA FLOW: Successfully created result for genetic-data-annotated (%s)", result.getType());
                 } else {
                     LOG.errorf("❌ KAFKA FLOW: Result is null or empty - will not publish to genetic-data-annotated!");
                 }
             })
-            .onItem().delayIt().by(java.time.Duration.ofSeconds(30))
-            .onItem().invoke(result -> {
-                LOG.infof("🔄 KAFKA FLUSH: Allowing 30 seconds for Kafka producer to flush normal mode message");
-                LOG.infof("✅ KAFKA FLUSH: Extended delay ensures message delivery to genetic-data-annotated topic");
-            })
             .onFailure().invoke(throwable -> {
                 LOG.errorf(throwable, "💥 KAFKA FLOW: Failed to process normal sequence - no message will be published");
             });
@@ -94,23 +367,20 @@ public class VepAnnotationService {
      * @param cloudEventJson Big data genetic sequence data from Kafka
      * @return Annotated genetic data for downstream processing
      */
-    @Incoming("genetic-bigdata-raw")
-    @Outgoing("genetic-data-annotated")
     public Uni<String> processBigDataGeneticSequence(String cloudEventJson) {
+        return annotateBigData(cloudEventJson).map(this::toStructuredJson);
+    }
+
+    private Uni<CloudEvent> annotateBigData(String cloudEventJson) {
         LOG.infof("🔥 KAFKA FLOW: Received message on genetic-bigdata-raw, will publish to genetic-data-annotated");
         return processGeneticSequenceInternal(cloudEventJson, "big-data")
             .onItem().invoke(result -> {
-                if (result != null && !result.isEmpty()) {
-                    LOG.infof("🎉 KAFKA FLOW: Successfully created result for genetic-data-annotated (size: %d chars)", result.length());
+                if (result != null) {
+                    LOG.infof("🎉 KAFKA FLOW: Successfully created result for genetic-data-annotated (%s)", result.getType());
                 } else {
                     LOG.errorf("❌ KAFKA FLOW: Result is null or empty - will not publish to genetic-data-annotated!");
                 }
             })
-            .onItem().delayIt().by(java.time.Duration.ofSeconds(30))
-            .onItem().invoke(result -> {
-                LOG.infof("🔄 KAFKA FLUSH: Allowing 30 seconds for Kafka producer to flush big-data mode message");
-                LOG.infof("✅ KAFKA FLUSH: Extended delay ensures message delivery to genetic-data-annotated topic");
-            })
             .onFailure().invoke(throwable -> {
                 LOG.errorf(throwable, "💥 KAFKA FLOW: Failed to process big-data sequence - no message will be published");
             });
@@ -122,35 +392,24 @@ public class VepAnnotationService {
      * @param cloudEventJson Node scale genetic sequence data from Kafka
      * @return Annotated genetic data for downstream processing
      */
-    @Incoming("genetic-nodescale-raw")
-    @Outgoing("genetic-data-annotated")
     public Uni<String> processNodeScaleGeneticSequence(String cloudEventJson) {
+        return annotateNodeScale(cloudEventJson).map(this::toStructuredJson);
+    }
+
+    private Uni<CloudEvent> annotateNodeScale(String cloudEventJson) {
         LOG.infof("🔥 KAFKA FLOW: Received message on genetic-nodescale-raw, will publish to genetic-data-annotated");
         return processGeneticSequenceInternal(cloudEventJson, "node-scale")
             .onItem().invoke(result -> {
-                if (result != null && !result.isEmpty()) {
-                    LOG.infof("🎉 KAFKA PUBLISHER: Successfully created result for genetic-data-annotated (size: %d chars)", result.length());
+                if (result != null) {
+                    LOG.infof("🎉 KAFKA PUBLISHER: Successfully created result for genetic-data-annotated (%s)", result.getType());
                     LOG.infof("📤 KAFKA PUBLISHER: Publishing CloudEvent to genetic-data-annotated topic");
 
                     // Log key fields that WebSocket service expects
-                    try {
-                        if (result.contains("\"sessionId\"")) {
-                            String sessionId = extractSessionIdFromResult(result);
-                            LOG.infof("📋 WEBSOCKET COMPATIBILITY: Publishing result for session %s", sessionId);
-                        }
-                    } catch (Exception e) {
-                        LOG.warnf("Could not extract session ID for logging: %s", e.getMessage());
-                    }
+                    LOG.infof("📋 WEBSOCKET COMPATIBILITY: Publishing result for session %s", result.getExtension("sessionid"));
                 } else {
                     LOG.errorf("❌ KAFKA FLOW: Result is null or empty - will not publish to genetic-data-annotated!");
                 }
             })
-            .onItem().delayIt().by(java.time.Duration.ofSeconds(30))
-            .onItem().invoke(result -> {
-                LOG.infof("🔄 KAFKA FLUSH: Allowing 30 seconds for Kafka producer to flush node-scale message");
-                LOG.infof("✅ KAFKA FLUSH: Extended delay ensures message delivery to genetic-data-annotated topic");
-                LOG.infof("🎯 KAFKA FLUSH: Message should now be available for WebSocket service consumption");
-            })
             .onFailure().invoke(throwable -> {
                 LOG.errorf(throwable, "💥 KAFKA FLOW: Failed to process node-scale sequence - no message will be published");
             });
@@ -162,34 +421,25 @@ public class VepAnnotationService {
      * @param cloudEventJson Kafka lag demo genetic sequence data from Kafka
      * @return Annotated genetic data for downstream processing
      */
-    @Incoming("genetic-lag-demo-raw")
-    @Outgoing("genetic-data-annotated")
     public Uni<String> processKafkaLagGeneticSequence(String cloudEventJson) {
+        return annotateKafkaLag(cloudEventJson)
+            .call(result -> holdForLagDemo("kafka-lag", result))
+            .map(this::toStructuredJson);
+    }
+
+    private Uni<CloudEvent> annotateKafkaLag(String cloudEventJson) {
         LOG.infof("🔥 KAFKA FLOW: Received message on genetic-lag-demo-raw, will publish to genetic-data-annotated");
         return processGeneticSequenceInternal(cloudEventJson, "kafka-lag")
             .onItem().invoke(result -> {
-                if (result != null && !result.isEmpty()) {
-                    LOG.infof("🎉 KAFKA FLOW: Successfully created result for genetic-data-annotated (size: %d chars)", result.length());
+                if (result != null) {
+                    LOG.infof("🎉 KAFKA FLOW: Successfully created result for genetic-data-annotated (%s)", result.getType());
 
                     // Log session ID for WebSocket compatibility
-                    try {
-                        if (result.contains("\"sessionId\"")) {
-                            String sessionId = extractSessionIdFromResult(result);
-                            LOG.infof("📋 WEBSOCKET COMPATIBILITY: Publishing result for session %s", sessionId);
-                        }
-                    } catch (Exception e) {
-                        LOG.warnf("Could not extract session ID for logging: %s", e.getMessage());
-                    }
+                    LOG.infof("📋 WEBSOCKET COMPATIBILITY: Publishing result for session %s", result.getExtension("sessionid"));
                 } else {
                     LOG.errorf("❌ KAFKA FLOW: Result is null or empty - will not publish to genetic-data-annotated!");
                 }
             })
-            .onItem().delayIt().by(java.time.Duration.ofSeconds(5))
-            .onItem().invoke(result -> {
-                LOG.infof("🔄 KAFKA LAG: Allowing 5 seconds for controlled lag demonstration");
-                LOG.infof("✅ KAFKA LAG: Lag simulation delay ensures KEDA scaling behavior");
-                LOG.infof("🎯 KAFKA LAG: Message should now be available for WebSocket service consumption");
-            })
             .onFailure().invoke(throwable -> {
                 LOG.errorf(throwable, "💥 KAFKA FLOW: Failed to process kafka-lag sequence - no message will be published");
             });
@@ -200,38 +450,53 @@ public class VepAnnotationService {
      *
      * @param cloudEventJson Raw genetic sequence data from Kafka
      * @param processingMode The processing mode (normal, big-data, node-scale, kafka-lag)
-     * @return Annotated genetic data for downstream processing
+     * @return Annotated CloudEvent; fails if the record cannot be annotated (VepRetryRouter)
      */
-    private Uni<String> processGeneticSequenceInternal(String cloudEventJson, String processingMode) {
+    private Uni<CloudEvent> processGeneticSequenceInternal(String cloudEventJson, String processingMode) {
         // Reactive approach with actual VEP processing on worker thread
         LOG.infof("Processing genetic sequence in %s mode on thread: %s", processingMode, Thread.currentThread().getName());
 
         // Extract sessionId and genetic sequence using proper CloudEvent deserialization
-        // FAIL FAST: If we can't extract session ID, don't waste processing time
-        GeneticSequenceData sequenceData;
-        try {
-            sequenceData = parseCloudEventData(cloudEventJson);
-        } catch (Exception e) {
-            LOG.errorf("❌ FAIL FAST: Cannot parse CloudEvent, returning immediate failure: %s", e.getMessage());
-            return Uni.createFrom().item(createInstantFailureResponse(cloudEventJson, "CloudEvent parsing failed"));
+        Uni<GeneticSequenceData> parsed = Uni.createFrom().item(() -> parseCloudEventData(cloudEventJson));
+        if (sequenceClaimCheck.hasReference(cloudEventJson)) {
+            // Claim-checked sequences are fetched from the blob store: blocking file IO, off the event loop
+            parsed = parsed.runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
         }
 
+        return parsed.onItemOrFailure().transformToUni((sequenceData, failure) -> {
+            // FAIL FAST: If we can't extract session ID, don't waste processing time
+            if (failure != null) {
+                LOG.errorf("❌ FAIL FAST: Cannot parse CloudEvent: %s", failure.getMessage());
+                if (sequenceClaimCheck.hasReference(cloudEventJson)) {
+                    // The blob may still become readable (shared volume) - worth a retry
+                    return Uni.createFrom().failure(failure);
+                }
+                return Uni.createFrom().failure(new VepRetryRouter.PermanentFailureException("CloudEvent parsing failed: " + failure.getMessage()));
+            }
+            return annotateSequence(sequenceData, cloudEventJson, processingMode);
+        });
+    }
+
+    /**
+     * Validates the parsed sequence and annotates it
+     */
+    private Uni<CloudEvent> annotateSequence(GeneticSequenceData sequenceData, String cloudEventJson, String processingMode) {
         String sessionId = sequenceData.getSequenceId();
         String geneticSequence = sequenceData.getSequence();
 
         // FAIL FAST: If session ID is missing or invalid, don't process
         if (sessionId == null || sessionId.isEmpty() || sessionId.equals("unknown") || sessionId.startsWith("reactive-session-")) {
-            LOG.errorf("❌ FAIL FAST: Invalid session ID '%s', returning immediate failure", sessionId);
-            return Uni.createFrom().item(createInstantFailureResponse(cloudEventJson, "Invalid or missing session ID"));
+            LOG.errorf("❌ FAIL FAST: Invalid session ID '%s', sending record to the DLQ", sessionId);
+            return Uni.createFrom().failure(new VepRetryRouter.PermanentFailureException("Invalid or missing session ID"));
         }
 
         LOG.infof("✅ SESSION VALIDATION: Valid session ID '%s' extracted, proceeding with processing", sessionId);
 
         // FAIL FAST: If genetic sequence is missing or invalid, don't process
         if (geneticSequence == null || geneticSequence.isEmpty() || geneticSequence.length() < 4) {
-            LOG.errorf("❌ FAIL FAST: Invalid genetic sequence (length: %d), returning immediate failure",
+            LOG.errorf("❌ FAIL FAST: Invalid genetic sequence (length: %d), sending record to the DLQ",
                       geneticSequence != null ? geneticSequence.length() : 0);
-            return Uni.createFrom().item(createInstantFailureResponse(cloudEventJson, "Invalid or missing genetic sequence"));
+            return Uni.createFrom().failure(new VepRetryRouter.PermanentFailureException("Invalid or missing genetic sequence"));
         }
 
         LOG.infof("✅ SEQUENCE VALIDATION: Valid genetic sequence (%d chars) extracted, proceeding with processing", geneticSequence.length());
@@ -240,36 +505,24 @@ public class VepAnnotationService {
         // Update processing mode in sequence data (already has correct sessionId and sequence)
         sequenceData.setProcessingMode(processingMode);
 
-        // Run VEP processing on worker thread to avoid blocking event loop
-        return Uni.createFrom().item(() -> {
-            LOG.infof("Running VEP processing on worker thread: %s", Thread.currentThread().getName());
-
-            // Call actual VEP processing (this will handle intensive processing for large sequences)
-            VepAnnotationResult vepResult = annotateWithVep(sequenceData);
-            LOG.infof("VEP processing completed for session %s", sessionId);
-
-            return vepResult;
-        })
-        .runSubscriptionOn(Infrastructure.getDefaultExecutor())
+        // Non-blocking VEP processing: no thread is parked while the VEP API call is in flight.
+        // A failed VEP call fails the record, so it is retried instead of published empty
+        return annotateVariants(sequenceData)
+        .invoke(vepResult -> LOG.infof("VEP processing completed for session %s", sessionId))
+        // VEP responses complete on the REST client's event loop - map (CPU-bound JSON work) on a worker
+        .emitOn(Infrastructure.getDefaultExecutor())
         .map(vepResult -> {
             LOG.infof("Mapping VEP result for session %s (mode: %s, variants: %d)",
                      sessionId, processingMode, vepResult.getVariantCount());
 
-            try {
-                // Use unified result mapper for consistent CloudEvent creation
-                String resultCloudEvent = resultMapper.mapVepResultToCloudEvent(
-                    vepResult, sessionId, geneticSequence, processingMode
-                );
-
-                LOG.infof("Successfully mapped VEP result to CloudEvent for session %s (size: %d chars)",
-                         sessionId, resultCloudEvent.length());
+            // Use unified result mapper for consistent CloudEvent creation
+            // Chunks are published as partial results, in order (VepKeyOrderedScheduler).
+            // A mapping failure is permanent: the record goes to the DLQ (VepRetryRouter)
+            CloudEvent resultCloudEvent = resultMapper.mapVepResult(vepResult, sequenceData, processingMode);
 
-                return resultCloudEvent;
+            LOG.infof("Successfully mapped VEP result to CloudEvent for session %s", sessionId);
 
-            } catch (Exception e) {
-                LOG.errorf(e, "Failed to map VEP result for session %s: %s", sessionId, e.getMessage());
-                return createThreadingErrorCloudEvent(cloudEventJson, "VEP result mapping failed: " + e.getMessage());
-            }
+            return resultCloudEvent;
         });
     }
 
@@ -331,137 +584,70 @@ public class VepAnnotationService {
     }
 
     /**
-     * Extracts session ID from result CloudEvent for logging compatibility with WebSocket service
+     * Safely extracts session ID from CloudEvent without blocking operations
      */
-    private String extractSessionIdFromResult(String resultCloudEvent) {
+    String extractSessionIdSafely(String cloudEventJson) {
         try {
-            if (resultCloudEvent.contains("\"sessionId\":")) {
-                int start = resultCloudEvent.indexOf("\"sessionId\":");
-                if (start != -1) {
-                    start = resultCloudEvent.indexOf("\"", start + 12);
-                    int end = resultCloudEvent.indexOf("\"", start + 1);
-                    if (start != -1 && end != -1) {
-                        return resultCloudEvent.substring(start + 1, end);
-                    }
-                }
+            String sessionId = findSessionId(cloudEventJson);
+
+            // Return extracted sessionId or generate fallback
+            if (sessionId != null && !sessionId.isEmpty()) {
+                LOG.debugf("Extracted sessionId: %s", sessionId);
+                return sessionId;
+            } else {
+                String fallbackId = "reactive-session-" + System.currentTimeMillis();
+                LOG.debugf("No sessionId found, using fallback: %s", fallbackId);
+                return fallbackId;
             }
-            return "unknown-session";
+
         } catch (Exception e) {
-            return "extraction-failed";
+            String fallbackId = "reactive-session-" + System.currentTimeMillis();
+            LOG.debugf("Could not extract sessionId, using fallback %s: %s", fallbackId, e.getMessage());
+            return fallbackId;
         }
     }
 
     /**
-     * Creates an instant failure response when session ID extraction fails.
-     * This prevents wasted processing and provides immediate feedback.
+     * Key that orders the records of one session (VepKeyOrderedScheduler): the record's own
+     * sessionId, or null for a record without one, which is not ordered against any other
      */
-    private String createInstantFailureResponse(String originalCloudEvent, String failureReason) {
+    static String orderingKey(String cloudEventJson) {
         try {
-            LOG.infof("🚨 INSTANT FAILURE: Creating immediate failure response: %s", failureReason);
-
-            // Try to extract any session ID for error reporting
-            String sessionId = "session-extraction-failed";
-            try {
-                if (originalCloudEvent.contains("\"sessionId\":")) {
-                    int start = originalCloudEvent.indexOf("\"sessionId\":") + 13;
-                    int end = originalCloudEvent.indexOf("\"", start);
-                    if (start > 12 && end > start) {
-                        sessionId = originalCloudEvent.substring(start, end);
-                    }
-                }
-            } catch (Exception e) {
-                LOG.debugf("Could not extract session ID for error response: %s", e.getMessage());
-            }
-
-            // Create immediate failure CloudEvent
-            ObjectNode errorData = objectMapper.createObjectNode();
-            errorData.put("sessionId", sessionId);
-            errorData.put("status", "instant_failure");
-            errorData.put("error_type", "SESSION_EXTRACTION_FAILURE");
-            errorData.put("error_message", failureReason);
-            errorData.put("processing_mode", "failed");
-            errorData.put("timestamp", System.currentTimeMillis());
-            errorData.put("annotation_source", "vep-annotation-service");
-            errorData.put("fail_fast", true);
-
-            CloudEvent errorEvent = CloudEventBuilder.v1()
-                    .withId(UUID.randomUUID().toString())
-                    .withSource(URI.create("/vep-annotation-service"))
-                    .withType("com.redhat.healthcare.genetic.error.instant")
-                    .withSubject("VEP Instant Failure - Session Extraction")
-                    .withExtension("sessionid", sessionId)
-                    .withExtension("errortype", "instant_failure")
-                    .withData("application/json", objectMapper.writeValueAsBytes(errorData))
-                    .build();
-
-            EventFormat format = EventFormatProvider.getInstance().resolveFormat(JsonFormat.CONTENT_TYPE);
-            byte[] cloudEventBytes = format.serialize(errorEvent);
-            String result = new String(cloudEventBytes);
-
-            LOG.infof("✅ INSTANT FAILURE: Created failure response for session %s", sessionId);
-            return result;
-
+            return findSessionId(cloudEventJson);
         } catch (Exception e) {
-            LOG.errorf(e, "Failed to create instant failure response, using simple error");
-            return String.format("""
-                {
-                    "sessionId": "error-response-failed",
-                    "status": "critical_failure",
-                    "error_message": "%s",
-                    "timestamp": %d,
-                    "fail_fast": true
-                }
-                """, failureReason.replace("\"", "\\\""), System.currentTimeMillis());
+            return null;
         }
     }
 
-    /**
-     * Safely extracts session ID from CloudEvent without blocking operations
-     */
-    private String extractSessionIdSafely(String cloudEventJson) {
-        try {
-            // Try multiple patterns to extract sessionId from CloudEvent
-            String sessionId = null;
-
-            // Pattern 1: Look for sessionId in data payload
-            if (cloudEventJson.contains("\"sessionId\":")) {
-                int start = cloudEventJson.indexOf("\"sessionId\":");
-                if (start != -1) {
-                    start = cloudEventJson.indexOf("\"", start + 12);
-                    int end = cloudEventJson.indexOf("\"", start + 1);
-                    if (start != -1 && end != -1) {
-                        sessionId = cloudEventJson.substring(start + 1, end);
-                    }
+    private static String findSessionId(String cloudEventJson) {
+        // Try multiple patterns to extract sessionId from CloudEvent
+        String sessionId = null;
+
+        // Pattern 1: Look for sessionId in data payload
+        if (cloudEventJson.contains("\"sessionId\":")) {
+            int start = cloudEventJson.indexOf("\"sessionId\":");
+            if (start != -1) {
+                start = cloudEventJson.indexOf("\"", start + 12);
+                int end = cloudEventJson.indexOf("\"", start + 1);
+                if (start != -1 && end != -1) {
+                    sessionId = cloudEventJson.substring(start + 1, end);
                 }
             }
+        }
 
-            // Pattern 2: Look for sessionid extension in CloudEvent
-            if (sessionId == null && cloudEventJson.contains("\"sessionid\":")) {
-                int start = cloudEventJson.indexOf("\"sessionid\":");
-                if (start != -1) {
-                    start = cloudEventJson.indexOf("\"", start + 12);
-                    int end = cloudEventJson.indexOf("\"", start + 1);
-                    if (start != -1 && end != -1) {
-                        sessionId = cloudEventJson.substring(start + 1, end);
-                    }
+        // Pattern 2: Look for sessionid extension in CloudEvent
+        if (sessionId == null && cloudEventJson.contains("\"sessionid\":")) {
+            int start = cloudEventJson.indexOf("\"sessionid\":");
+            if (start != -1) {
+                start = cloudEventJson.indexOf("\"", start + 12);
+                int end = cloudEventJson.indexOf("\"", start + 1);
+                if (start != -1 && end != -1) {
+                    sessionId = cloudEventJson.substring(start + 1, end);
                 }
             }
-
-            // Return extracted sessionId or generate fallback
-            if (sessionId != null && !sessionId.isEmpty()) {
-                LOG.debugf("Extracted sessionId: %s", sessionId);
-                return sessionId;
-            } else {
-                String fallbackId = "reactive-session-" + System.currentTimeMillis();
-                LOG.debugf("No sessionId found, using fallback: %s", fallbackId);
-                return fallbackId;
-            }
-
-        } catch (Exception e) {
-            String fallbackId = "reactive-session-" + System.currentTimeMillis();
-            LOG.debugf("Could not extract sessionId, using fallback %s: %s", fallbackId, e.getMessage());
-            return fallbackId;
         }
+
+        return sessionId != null && !sessionId.isEmpty() ? sessionId : null;
     }
 
     /**
@@ -518,65 +704,148 @@ public class VepAnnotationService {
     }
 
     /**
-     * Annotates genetic sequence using VEP API (Worker Thread safe)
-     * RQ1.1 Solution: Can safely block on dedicated worker threads
+     * Annotates genetic sequence using VEP API (blocking convenience wrapper)
+     *
+     * Waits for annotateWithVepAsync - must only be called from worker or test threads,
+     * never from a Vert.x event loop.
+     */
+    public VepAnnotationResult annotateWithVep(GeneticSequenceData sequenceData) {
+        return annotateWithVepAsync(sequenceData).await().indefinitely();
+    }
+
+    /**
+     * Annotates genetic sequence using VEP API as a non-blocking Mutiny pipeline
+     *
+     * convert (HGVS) → cache lookup → single-flight → AnnotationBackend (remote, local or hybrid) → result
      *
      * REMOVED @CacheResult annotation to fix threading issues
      * Cache was causing blocking operations on event loop threads
+     * (VepAnnotationCache now provides a non-blocking two-tier cache instead)
+     *
+     * A failed VEP call yields an empty annotation result (graceful degradation); the Kafka
+     * channels use annotateVariants, which fails instead so the record can be retried.
      */
-    public VepAnnotationResult annotateWithVep(GeneticSequenceData sequenceData) {
-        try {
-            LOG.debugf("Calling VEP API for sequence: %s on worker thread: %s",
-                      sequenceData.getSequenceId(), Thread.currentThread().getName());
+    public Uni<VepAnnotationResult> annotateWithVepAsync(GeneticSequenceData sequenceData) {
+        return annotateVariants(sequenceData)
+            .onFailure().recoverWithItem(e -> {
+                LOG.warnf(e, "VEP API call failed for sequence %s: %s",
+                         sequenceData.getSequenceId(), e.getMessage());
 
-            // For large sequences (>50KB), simulate intensive processing to trigger node scaling
-            if (sequenceData.getSequence().length() > 50000) {
-                LOG.infof("Large sequence detected (%d chars) - simulating intensive processing for node scaling",
-                         sequenceData.getSequence().length());
+                // Return empty annotation result for graceful degradation
+                return VepAnnotationResult.empty(sequenceData);
+            });
+    }
+
+    private Uni<VepAnnotationResult> annotateVariants(GeneticSequenceData sequenceData) {
+        LOG.debugf("Calling VEP API for sequence: %s on thread: %s",
+                  sequenceData.getSequenceId(), Thread.currentThread().getName());
+
+        // For large sequences (>50KB), simulate intensive processing to trigger node scaling.
+        // Chunks of a chunked sequence are annotated for real, one at a time as they arrive; both
+        // producers (WebSocket endpoint, ScalingTestController) chunk, so only a producer with
+        // healthcare.ml.chunking.enabled=false still sends unchunked sequences this large
+        if (!sequenceData.isChunk() && sequenceData.getSequence().length() > 50000) {
+            LOG.infof("Large sequence detected (%d chars) - simulating intensive processing for node scaling",
+                     sequenceData.getSequence().length());
 
-                // Simulate intensive processing that keeps pods running longer
+            // The simulation deliberately occupies a worker thread to keep pods busy
+            return Uni.createFrom().item(() -> {
                 simulateIntensiveProcessing(sequenceData.getSequence().length());
 
                 // Return simulated VEP result for large sequences
                 return createSimulatedVepResult(sequenceData);
-            }
+            }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+        }
 
-            // Convert raw sequence to HGVS notations
-            List<String> hgvsNotations = hgvsConverter.convertSequenceToHgvs(
+        // Convert raw sequence to HGVS notations; the overlap of a chunk only gives context,
+        // its variants were called by the previous chunk
+        List<String> hgvsNotations;
+        try {
+            hgvsNotations = hgvsConverter.convertSequenceToHgvs(
                 sequenceData.getSequence(),
+                sequenceData.getChunkOverlap(),
                 sequenceData.getSequenceId()
             );
+        } catch (Exception e) {
+            LOG.warnf(e, "HGVS conversion failed for sequence %s: %s", sequenceData.getSequenceId(), e.getMessage());
+            return Uni.createFrom().item(VepAnnotationResult.empty(sequenceData));
+        }
 
-            if (hgvsNotations.isEmpty()) {
-                LOG.warnf("No HGVS notations generated for sequence %s", sequenceData.getSequenceId());
-                return VepAnnotationResult.empty(sequenceData);
-            }
+        if (hgvsNotations.isEmpty()) {
+            LOG.warnf("No HGVS notations generated for sequence %s", sequenceData.getSequenceId());
+            return Uni.createFrom().item(VepAnnotationResult.empty(sequenceData));
+        }
 
-            // Create VEP request with HGVS notations
-            VepHgvsRequest vepRequest = VepHgvsRequest.fromMultiple(hgvsNotations);
-            LOG.infof("Calling VEP API with %d HGVS notations for sequence %s",
-                     hgvsNotations.size(), sequenceData.getSequenceId());
-
-            // Call VEP API with proper HGVS format (blocking operation now safe on worker thread)
-            // API: POST https://rest.ensembl.org/vep/human/hgvs
-            // Documentation: https://rest.ensembl.org/documentation/info/vep_hgvs_post
-            // CRITICAL: Returns List<VepApiResponse> (Array), not single VepApiResponse
-            // This fixes the "Cannot deserialize from Array value" error we were seeing
-            List<VepApiResponse> responses = vepApiClient.annotateVariants(
-                vepRequest,
-                sequenceData.getSpecies()
-            );
+        String species = sequenceData.getSpecies();
 
-            // Convert API response list to internal format
-            return VepAnnotationResult.fromApiResponseList(responses, sequenceData);
+        // Serve repeated variants from the two-tier annotation cache first
+        return annotationCache.lookup(hgvsNotations, species)
+            .chain(cached -> {
+                List<String> uncachedNotations = hgvsNotations.stream()
+                    .filter(notation -> !cached.containsKey(notation))
+                    .toList();
 
-        } catch (Exception e) {
-            LOG.warnf(e, "VEP API call failed for sequence %s: %s",
-                     sequenceData.getSequenceId(), e.getMessage());
+                if (uncachedNotations.isEmpty()) {
+                    return Uni.createFrom().item(
+                        VepAnnotationResult.fromApiResponseList(new ArrayList<>(cached.values()), sequenceData));
+                }
 
-            // Return empty annotation result for graceful degradation
-            return VepAnnotationResult.empty(sequenceData);
-        }
+                LOG.infof("Submitting %d HGVS notations for sequence %s to the %s annotation backend (%d served from cache)",
+                         uncachedNotations.size(), sequenceData.getSequenceId(), annotationBackend.name(), cached.size());
+
+                // The remote backend calls POST https://rest.ensembl.org/vep/human/hgvs
+                // Documentation: https://rest.ensembl.org/documentation/info/vep_hgvs_post
+                // Notations from concurrent sessions share one POST of up to 1000 notations;
+                // every backend sets each VepApiResponse's input field to its notation.
+                // Notations already in flight for another message join that lookup (single-flight).
+                // The call's latency drives the channel's adaptive concurrency limit
+                long callStartNanos = System.nanoTime();
+                return singleFlight.annotate(uncachedNotations, species, annotationBackend)
+                    .invoke(() -> adaptiveConcurrency.recordLatency(
+                        sequenceData.getProcessingMode(), System.nanoTime() - callStartNanos))
+                    .map(fetched -> {
+                        // Local predictions (local / hybrid backend) are not cached, see VepAnnotationCache
+                        annotationCache.put(fetched, species);
+
+                        List<VepApiResponse> responses = new ArrayList<>(cached.values());
+                        responses.addAll(fetched);
+
+                        // Convert API response list to internal format
+                        return VepAnnotationResult.fromApiResponseList(responses, sequenceData);
+                    })
+                    // VEP API circuit open: answer now from cache + fallback backend instead of waiting
+                    .onFailure(VepCircuitBreaker.CircuitOpenException.class)
+                    .recoverWithUni(() -> annotateDegraded(cached, uncachedNotations, sequenceData));
+            });
+    }
+
+    /**
+     * Degraded-mode annotation while the VEP API circuit breaker is open
+     *
+     * Cached annotations are kept, the remaining notations go to the fallback backend
+     * (healthcare.ml.vep.circuit-breaker.fallback-backend). Fallback results are not cached
+     * so they never replace real VEP annotations. The result is flagged as degraded.
+     */
+    private Uni<VepAnnotationResult> annotateDegraded(Map<String, VepApiResponse> cached,
+                                                      List<String> uncachedNotations,
+                                                      GeneticSequenceData sequenceData) {
+        Uni<List<VepApiResponse>> fallback = fallbackBackend != null
+            ? fallbackBackend.annotate(uncachedNotations, sequenceData.getSpecies())
+            : Uni.createFrom().item(List.of());
+
+        return fallback
+            .onFailure().recoverWithItem(List.of())
+            .map(fallbackResponses -> {
+                LOG.infof("⚡ VEP circuit open - degraded annotation for sequence %s (%d cached, %d from %s fallback)",
+                         sequenceData.getSequenceId(), cached.size(), fallbackResponses.size(),
+                         fallbackBackend != null ? fallbackBackend.name() : "no");
+
+                List<VepApiResponse> responses = new ArrayList<>(cached.values());
+                responses.addAll(fallbackResponses);
+                VepAnnotationResult result = VepAnnotationResult.fromApiResponseList(responses, sequenceData);
+                result.setDegraded(true);
+                return result;
+            });
     }
 
     /**
@@ -584,31 +853,21 @@ public class VepAnnotationService {
      */
     private GeneticSequenceData parseCloudEventData(String cloudEventJson) {
         try {
-            // Parse CloudEvent
-            EventFormat format = EventFormatProvider.getInstance().resolveFormat(JsonFormat.CONTENT_TYPE);
-            CloudEvent cloudEvent = format.deserialize(cloudEventJson.getBytes());
+            // One streaming pass over the record value (binary-mode data or structured CloudEvent):
+            // claim-checked, packed (2bit-v1) or plain text sequence, without an intermediate tree
+            GeneticSequenceData sequenceData = recordReader.read(cloudEventJson);
 
-            // Extract data payload
-            byte[] data = cloudEvent.getData().toBytes();
-            JsonNode dataNode = objectMapper.readTree(data);
-
-            // Extract genetic sequence information
-            String sequence = dataNode.get("genetic_sequence").asText();
-            String sessionId = dataNode.has("sessionId") ? dataNode.get("sessionId").asText() : "unknown";
-            String processingMode = dataNode.has("processing_mode") ? dataNode.get("processing_mode").asText() : "normal";
-
-            // Create GeneticSequenceData object
-            GeneticSequenceData sequenceData = GeneticSequenceData.fromPlainSequence(sequence);
-            sequenceData.setSequenceId(sessionId);
-            sequenceData.setProcessingMode(processingMode);
-            sequenceData.setSource("cloudevent");
-
-            LOG.infof("Parsed CloudEvent: sessionId=%s, sequence length=%d, mode=%s",
-                     sessionId, sequence.length(), processingMode);
+            LOG.infof("Parsed CloudEvent: sessionId=%s, sequence length=%d, mode=%s%s",
+                     sequenceData.getSequenceId(), sequenceData.getSequence().length(), sequenceData.getProcessingMode(),
+                     sequenceData.isChunk() ? String.format(", chunk %d/%d", sequenceData.getChunkIndex() + 1, sequenceData.getChunkCount()) : "");
 
             return sequenceData;
 
         } catch (Exception e) {
+            if (sequenceClaimCheck.hasReference(cloudEventJson)) {
+                // The record is only a reference - there is nothing to fall back to
+                throw new IllegalStateException("Claim-checked sequence unavailable: " + e.getMessage(), e);
+            }
             LOG.warnf(e, "Failed to parse CloudEvent, attempting fallback parsing: %s", e.getMessage());
             // Fallback to old parsing method
             return parseGeneticDataFallback(cloudEventJson);
@@ -641,7 +900,7 @@ public class VepAnnotationService {
             // Create data payload
             ObjectNode data = objectMapper.createObjectNode();
             data.put("sessionId", originalData.getSequenceId());
-            data.put("genetic_sequence", originalData.getSequence());
+            sequenceClaimCheck.writeSequence(data, originalData.getSequence());
             data.put("processing_mode", originalData.getProcessingMode());
             data.put("annotation_timestamp", System.currentTimeMillis());
             data.put("annotation_source", "vep-annotation-service");
@@ -675,86 +934,6 @@ public class VepAnnotationService {
         }
     }
 
-    /**
-     * Creates threading error CloudEvent to maintain Kafka flow for KEDA scaling
-     * This ensures messages continue flowing even when threading issues occur
-     */
-    private String createThreadingErrorCloudEvent(String originalEvent, String errorMessage) {
-        try {
-            // Create error data payload
-            ObjectNode data = objectMapper.createObjectNode();
-            data.put("error", true);
-            data.put("errorType", "THREADING_ERROR");
-            data.put("errorMessage", errorMessage);
-            data.put("processingStatus", "failed");
-            data.put("retryable", false);
-            data.put("timestamp", System.currentTimeMillis());
-            data.put("threadName", Thread.currentThread().getName());
-
-            // Try to extract session ID from original event
-            String sessionId = "error-" + System.currentTimeMillis();
-            try {
-                if (originalEvent.contains("sessionId")) {
-                    JsonNode originalNode = objectMapper.readTree(originalEvent);
-                    if (originalNode.has("data") && originalNode.get("data").has("sessionId")) {
-                        sessionId = originalNode.get("data").get("sessionId").asText();
-                    }
-                }
-            } catch (Exception e) {
-                LOG.debugf("Could not extract sessionId from original event: %s", e.getMessage());
-            }
-            data.put("sessionId", sessionId);
-
-            // Create CloudEvent for threading error
-            CloudEvent event = CloudEventBuilder.v1()
-                    .withId(UUID.randomUUID().toString())
-                    .withSource(URI.create("/vep-annotation-service"))
-                    .withType("com.redhat.healthcare.genetic.error.threading")
-                    .withSubject("Threading Error - Kafka Flow Maintained")
-                    .withExtension("errortype", "threading")
-                    .withExtension("sessionid", sessionId)
-                    .withExtension("retryable", "false")
-                    .withData("application/json", objectMapper.writeValueAsBytes(data))
-                    .build();
-
-            // Serialize CloudEvent
-            EventFormat format = EventFormatProvider.getInstance().resolveFormat(JsonFormat.CONTENT_TYPE);
-            byte[] cloudEventBytes = format.serialize(event);
-            String result = new String(cloudEventBytes);
-
-            LOG.infof("Created threading error CloudEvent for session %s - Kafka flow maintained", sessionId);
-            return result;
-
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to create threading error CloudEvent, using simple error format");
-            return createSimpleThreadingError(originalEvent, errorMessage);
-        }
-    }
-
-    /**
-     * Creates simple threading error response as fallback
-     */
-    private String createSimpleThreadingError(String originalEvent, String errorMessage) {
-        return String.format("""
-            {
-                "error": true,
-                "errorType": "THREADING_ERROR",
-                "errorMessage": "%s",
-                "processingStatus": "failed",
-                "retryable": false,
-                "timestamp": "%s",
-                "threadName": "%s",
-                "sessionId": "error-%d",
-                "source": "vep-annotation-service"
-            }
-            """,
-            errorMessage.replace("\"", "\\\""),
-            Instant.now().toString(),
-            Thread.currentThread().getName(),
-            System.currentTimeMillis()
-        );
-    }
-
     /**
      * Creates error result for failed processing
      */
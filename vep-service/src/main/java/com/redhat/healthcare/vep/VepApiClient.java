@@ -86,6 +86,21 @@ public interface VepApiClient {
         @PathParam("species") @DefaultValue("human") String species
     );
 
+    /**
+     * Asynchronous variant annotation returning the raw JSON body
+     *
+     * Used with VepResponseReader, which streams the array and keeps only the fields
+     * used downstream instead of binding every transcript consequence.
+     */
+    @POST
+    @Path("/vep/{species}/hgvs")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    CompletionStage<byte[]> annotateVariantsRawAsync(
+        VepHgvsRequest request,
+        @PathParam("species") @DefaultValue("human") String species
+    );
+
     /**
      * Get VEP service information
      */
@@ -1,5 +1,6 @@
 package com.redhat.healthcare.vep;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -48,6 +49,10 @@ public class VepApiResponse {
     @JsonProperty("allele_string")
     private String alleleString;
 
+    // Predicted by the local consequence engine, not answered by Ensembl VEP: never cached
+    @JsonIgnore
+    private boolean localPrediction;
+
     // Constructors
     public VepApiResponse() {}
 
@@ -164,4 +169,12 @@ public class VepApiResponse {
         return String.format("VepApiResponse{input='%s', consequences=%d, mostSevere='%s'}", 
                            input, getTotalConsequences(), mostSevereConsequence);
     }
+
+    public boolean isLocalPrediction() {
+        return localPrediction;
+    }
+
+    public void setLocalPrediction(boolean localPrediction) {
+        this.localPrediction = localPrediction;
+    }
 }
@@ -0,0 +1,235 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Circuit breaker around the Ensembl VEP API
+ *
+ * WHY THIS BREAKER:
+ * - When Ensembl is down every message still waits for a timeout and then ends up as
+ *   VepAnnotationResult.empty, holding in-flight slots and building Kafka lag for nothing
+ * - KEDA scales out on that lag, adding pods that only wait on the same dead dependency
+ *
+ * STATES:
+ * - CLOSED: calls go through; outcomes of the last window-size POSTs are recorded
+ * - OPEN: entered when the failure rate of the window reaches failure-rate-threshold;
+ *   calls are rejected immediately (CircuitOpenException) for open-duration
+ * - HALF_OPEN: up to probe-requests calls are let through; all succeeding closes the
+ *   breaker, any failure opens it again
+ *
+ * While the breaker is not CLOSED, VepAnnotationService serves messages from the cache and
+ * the fallback backend and flags the output CloudEvent as degraded.
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.circuit.state: 0 = closed, 1 = half-open, 2 = open
+ * - vep.circuit.transitions{from,to}: state transitions
+ * - vep.circuit.rejected: calls rejected while open
+ */
+@ApplicationScoped
+public class VepCircuitBreaker {
+
+    private static final Logger LOG = Logger.getLogger(VepCircuitBreaker.class);
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.vep.circuit-breaker.enabled", defaultValue = "true")
+    boolean breakerEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.circuit-breaker.window-size", defaultValue = "20")
+    int windowSize;
+
+    @ConfigProperty(name = "healthcare.ml.vep.circuit-breaker.minimum-calls", defaultValue = "10")
+    int minimumCalls;
+
+    @ConfigProperty(name = "healthcare.ml.vep.circuit-breaker.failure-rate-threshold", defaultValue = "0.5")
+    double failureRateThreshold;
+
+    @ConfigProperty(name = "healthcare.ml.vep.circuit-breaker.open-duration-ms", defaultValue = "30000")
+    long openDurationMs;
+
+    @ConfigProperty(name = "healthcare.ml.vep.circuit-breaker.probe-requests", defaultValue = "3")
+    int probeRequests;
+
+    private OutcomeWindow outcomes;
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int probesPermitted;
+    private int probesSucceeded;
+
+    private Counter rejectedCalls;
+
+    @PostConstruct
+    void init() {
+        outcomes = new OutcomeWindow(windowSize);
+
+        Gauge.builder("vep.circuit.state", this, breaker -> breaker.currentState().ordinal())
+                .description("VEP API circuit breaker state (0 = closed, 1 = half-open, 2 = open)")
+                .register(meterRegistry);
+        rejectedCalls = Counter.builder("vep.circuit.rejected")
+                .description("VEP API calls rejected because the circuit breaker was open")
+                .register(meterRegistry);
+
+        LOG.infof("VEP circuit breaker initialized (enabled: %s, threshold: %.0f%% of %d calls, open for %dms, %d probes)",
+                 breakerEnabled, failureRateThreshold * 100, windowSize, openDurationMs, probeRequests);
+    }
+
+    /**
+     * Whether calls are currently short-circuited (open and not yet due for probing)
+     */
+    public synchronized boolean isOpen() {
+        return breakerEnabled && currentState() == State.OPEN;
+    }
+
+    /**
+     * Takes permission for one VEP call. Rejected calls are counted.
+     *
+     * @return true if the call may be sent
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (!breakerEnabled) {
+            return true;
+        }
+
+        switch (currentState()) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (probesPermitted < probeRequests) {
+                    probesPermitted++;
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        if (!breakerEnabled) {
+            return;
+        }
+        if (currentState() == State.HALF_OPEN) {
+            if (++probesSucceeded >= probeRequests) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        outcomes.record(false);
+    }
+
+    public synchronized void onFailure(Throwable failure) {
+        if (!breakerEnabled) {
+            return;
+        }
+        State current = currentState();
+        if (current == State.HALF_OPEN) {
+            LOG.warnf("VEP API probe failed (%s) - reopening circuit breaker", failure.getMessage());
+            transitionTo(State.OPEN);
+            return;
+        }
+        if (current == State.OPEN) {
+            return;
+        }
+        outcomes.record(true);
+        if (outcomes.calls() >= minimumCalls && outcomes.failureRate() >= failureRateThreshold) {
+            LOG.warnf("VEP API failure rate %.0f%% over the last %d calls - opening circuit breaker for %dms",
+                     outcomes.failureRate() * 100, outcomes.calls(), openDurationMs);
+            transitionTo(State.OPEN);
+        }
+    }
+
+    public synchronized State currentState() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= Duration.ofMillis(openDurationMs).toNanos()) {
+            transitionTo(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+    private void transitionTo(State next) {
+        if (state == next) {
+            return;
+        }
+        Counter.builder("vep.circuit.transitions")
+                .tag("from", state.name().toLowerCase())
+                .tag("to", next.name().toLowerCase())
+                .description("VEP API circuit breaker state transitions")
+                .register(meterRegistry)
+                .increment();
+        LOG.infof("VEP circuit breaker %s → %s", state, next);
+
+        state = next;
+        probesPermitted = 0;
+        probesSucceeded = 0;
+        if (next == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        }
+        if (next == State.CLOSED) {
+            outcomes.reset();
+        }
+    }
+
+    /**
+     * Thrown instead of calling the VEP API while the breaker is open
+     */
+    public static class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException() {
+            super("VEP API circuit breaker is open");
+        }
+    }
+
+    /**
+     * Count-based sliding window of call outcomes
+     */
+    static final class OutcomeWindow {
+        private final boolean[] failures;
+        private int next;
+        private int calls;
+        private int failureCount;
+
+        OutcomeWindow(int size) {
+            this.failures = new boolean[Math.max(1, size)];
+        }
+
+        void record(boolean failure) {
+            if (calls == failures.length && failures[next]) {
+                failureCount--;
+            }
+            failures[next] = failure;
+            if (failure) {
+                failureCount++;
+            }
+            next = (next + 1) % failures.length;
+            calls = Math.min(calls + 1, failures.length);
+        }
+
+        int calls() {
+            return calls;
+        }
+
+        double failureRate() {
+            return calls == 0 ? 0.0 : (double) failureCount / calls;
+        }
+
+        void reset() {
+            Arrays.fill(failures, false);
+            next = 0;
+            calls = 0;
+            failureCount = 0;
+        }
+    }
+}
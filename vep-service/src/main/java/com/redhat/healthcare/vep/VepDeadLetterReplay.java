@@ -0,0 +1,129 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controlled replay of the dead-letter queue (genetic-data-dlq)
+ *
+ * WHY ON DEMAND:
+ * - DLQ records failed every retry tier (or could never succeed); replaying them blindly would
+ *   just loop them back, so an operator replays them once the cause is fixed
+ * - A DLQ built up during an Ensembl outage can hold thousands of records: replaying them at
+ *   full speed would flood the raw topics and the VEP rate limit
+ *
+ * HOW IT WORKS:
+ * The DLQ consumer takes one record at a time, and only while replay budget is left:
+ * POST /api/vep/dlq/replay?records=N adds N records to the budget, DELETE cancels the rest.
+ * Each record is republished to its origin topic (VepRetryRouter.replay) at most
+ * healthcare.ml.vep.retry.dlq-replay.rate-per-second, and committed once it is on the broker.
+ * Without budget the consumer waits and the connector pauses the DLQ partitions.
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.dlq.replayed: DLQ records republished to their origin topic
+ * - vep.dlq.replay.pending: replay budget left
+ */
+@ApplicationScoped
+@Path("/api/vep/dlq")
+public class VepDeadLetterReplay {
+
+    private static final Logger LOG = Logger.getLogger(VepDeadLetterReplay.class);
+
+    @Inject
+    VepRetryRouter retryRouter;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.vep.retry.dlq-replay.rate-per-second", defaultValue = "5")
+    double ratePerSecond;
+
+    private final AtomicLong budget = new AtomicLong();
+    private CompletableFuture<Void> budgetAdded = new CompletableFuture<>();
+    private Duration interval;
+    private Counter replayed;
+
+    @PostConstruct
+    void init() {
+        interval = Duration.ofNanos((long) (1_000_000_000L / Math.max(0.001, ratePerSecond)));
+        replayed = Counter.builder("vep.dlq.replayed")
+                .description("Dead-letter records republished to their origin topic")
+                .register(meterRegistry);
+        Gauge.builder("vep.dlq.replay.pending", budget, AtomicLong::get)
+                .description("Dead-letter records left to replay")
+                .register(meterRegistry);
+
+        LOG.infof("VEP DLQ replay initialized (rate: %.1f records/s)", ratePerSecond);
+    }
+
+    /**
+     * Replays one DLQ record once replay budget is available, paced to the configured rate
+     */
+    @Incoming("genetic-data-dlq")
+    public Uni<Void> replayDeadLetter(Message<String> deadLetter) {
+        return nextPermit()
+            .chain(() -> retryRouter.replay(deadLetter))
+            .invoke(() -> replayed.increment());
+    }
+
+    @POST
+    @Path("/replay")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> replay(@QueryParam("records") @DefaultValue("100") long records) {
+        long pending = budget.addAndGet(Math.max(0, records));
+        synchronized (this) {
+            budgetAdded.complete(null);
+        }
+        LOG.infof("☠️ DLQ replay requested: %d records (%d pending, %.1f records/s)", records, pending, ratePerSecond);
+        return Map.of("requested", records, "pending", pending, "ratePerSecond", ratePerSecond);
+    }
+
+    @DELETE
+    @Path("/replay")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> cancel() {
+        long cancelled = budget.getAndSet(0);
+        LOG.infof("☠️ DLQ replay cancelled (%d records not replayed)", cancelled);
+        return Map.of("cancelled", cancelled, "pending", 0);
+    }
+
+    private Uni<Void> nextPermit() {
+        return Uni.createFrom().deferred(() -> {
+            if (budget.getAndUpdate(left -> left > 0 ? left - 1 : 0) > 0) {
+                return Uni.createFrom().voidItem().onItem().delayIt().by(interval);
+            }
+            return Uni.createFrom().completionStage(budgetAvailable()).chain(this::nextPermit);
+        });
+    }
+
+    private synchronized CompletableFuture<Void> budgetAvailable() {
+        if (budget.get() > 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (budgetAdded.isDone()) {
+            budgetAdded = new CompletableFuture<>();
+        }
+        return budgetAdded;
+    }
+}
@@ -0,0 +1,307 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Weighted fair scheduling of the four processing modes over shared dispatch slots
+ *
+ * WHY THIS SCHEDULER:
+ * - The normal, big-data, node-scale and kafka-lag channels are independent consumers that
+ *   share the worker pool and the VEP budget (rate limiter and batcher) first come, first served
+ * - A burst of big-data records filled the VEP queues, so interactive normal-mode users waited
+ *   minutes behind it
+ *
+ * HOW IT WORKS:
+ * A record that holds its channel's permit (VepAdaptiveConcurrency) is queued in its mode's
+ * queue and waits for one of capacity shared dispatch slots. When a slot is free:
+ * - a queued record whose deadline-ms.<mode> has passed is dispatched first (earliest deadline)
+ * - otherwise the modes take turns in proportion to weight.<mode> (stride scheduling: each
+ *   dispatch advances the mode's pass by 1/weight, the mode with the lowest pass goes next)
+ * - reserved.<mode> slots are kept free for that mode: other modes only take a slot while enough
+ *   remain for every reservation not yet in use, so a slow big-data burst can never hold every
+ *   slot that normal-mode records need
+ * Idle capacity is always used: a mode alone gets every slot outside other reservations.
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.fair.queued{mode}, vep.fair.running{mode}: records waiting for / holding a slot
+ * - vep.fair.wait{mode}: time from queueing to dispatch
+ * - vep.fair.deadline.missed{mode}: records dispatched after their deadline
+ */
+@ApplicationScoped
+public class VepFairScheduler {
+
+    private static final Logger LOG = Logger.getLogger(VepFairScheduler.class);
+
+    static final List<String> MODES = List.of("normal", "big-data", "node-scale", "kafka-lag");
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.vep.fair-scheduling.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.fair-scheduling.capacity", defaultValue = "64")
+    int capacity;
+
+    // Per-mode settings (weight.<mode>, deadline-ms.<mode>, reserved.<mode>); modes not listed
+    // get weight 1, a 60s deadline and no reserved slots
+    @ConfigProperty(name = "healthcare.ml.vep.fair-scheduling.weight", defaultValue = "normal=1")
+    Map<String, Double> weights;
+
+    @ConfigProperty(name = "healthcare.ml.vep.fair-scheduling.deadline-ms", defaultValue = "normal=60000")
+    Map<String, Long> deadlinesMs;
+
+    @ConfigProperty(name = "healthcare.ml.vep.fair-scheduling.reserved", defaultValue = "normal=0")
+    Map<String, Integer> reserved;
+
+    private FairQueue queue;
+    private final Map<String, Timer> waitTimers = new HashMap<>();
+    private final Map<String, Counter> deadlinesMissed = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        Map<String, ModeSettings> modes = new LinkedHashMap<>();
+        for (String mode : MODES) {
+            modes.put(mode, new ModeSettings(
+                weights.getOrDefault(mode, 1.0),
+                deadlinesMs.getOrDefault(mode, 60_000L),
+                reserved.getOrDefault(mode, 0)));
+        }
+        queue = new FairQueue(capacity, modes);
+
+        for (String mode : MODES) {
+            waitTimers.put(mode, Timer.builder("vep.fair.wait")
+                    .tag("mode", mode)
+                    .description("Time a record waited for a shared dispatch slot")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+            deadlinesMissed.put(mode, Counter.builder("vep.fair.deadline.missed")
+                    .tag("mode", mode)
+                    .description("Records dispatched after their scheduling deadline")
+                    .register(meterRegistry));
+            Gauge.builder("vep.fair.queued", queue, q -> q.queued(mode))
+                    .tag("mode", mode)
+                    .description("Records waiting for a shared dispatch slot")
+                    .register(meterRegistry);
+            Gauge.builder("vep.fair.running", queue, q -> q.running(mode))
+                    .tag("mode", mode)
+                    .description("Records holding a shared dispatch slot")
+                    .register(meterRegistry);
+        }
+
+        LOG.infof("VEP fair scheduler initialized (enabled: %s, capacity: %d, modes: %s)", enabled, capacity, modes);
+    }
+
+    /**
+     * Runs the work once the fair scheduler dispatches it; the slot is released when the work
+     * terminates. Unknown modes are scheduled as normal.
+     */
+    public <T> Uni<T> schedule(String mode, Supplier<Uni<T>> work) {
+        if (!enabled) {
+            return Uni.createFrom().deferred(work::get);
+        }
+        String queueMode = MODES.contains(mode) ? mode : "normal";
+        return Uni.createFrom().deferred(() -> {
+            Dispatch dispatch = queue.enqueue(queueMode, System.nanoTime());
+            return Uni.createFrom().completionStage(dispatch.slot())
+                .invoke(() -> recordDispatch(queueMode, dispatch))
+                .chain(() -> Uni.createFrom().deferred(work::get))
+                .onTermination().invoke((item, failure, cancelled) -> {
+                    // A cancelled record may still be queued: withdraw it instead of holding a slot
+                    if (!dispatch.slot().isDone() && queue.withdraw(queueMode, dispatch)) {
+                        return;
+                    }
+                    queue.release(queueMode, System.nanoTime());
+                });
+        });
+    }
+
+    private void recordDispatch(String mode, Dispatch dispatch) {
+        long waitedNanos = dispatch.dispatchedNanos() - dispatch.enqueuedNanos();
+        waitTimers.get(mode).record(waitedNanos, TimeUnit.NANOSECONDS);
+        if (dispatch.dispatchedNanos() > dispatch.deadlineNanos()) {
+            deadlinesMissed.get(mode).increment();
+        }
+    }
+
+    record ModeSettings(double weight, long deadlineMs, int reserved) {
+        @Override
+        public String toString() {
+            return String.format("weight %.1f, deadline %dms, reserved %d", weight, deadlineMs, reserved);
+        }
+    }
+
+    /**
+     * A queued record; the slot completes when it is dispatched
+     */
+    static final class Dispatch {
+        private final CompletableFuture<Void> slot = new CompletableFuture<>();
+        private final long enqueuedNanos;
+        private final long deadlineNanos;
+        private volatile long dispatchedNanos;
+
+        Dispatch(long enqueuedNanos, long deadlineNanos) {
+            this.enqueuedNanos = enqueuedNanos;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        CompletableFuture<Void> slot() {
+            return slot;
+        }
+
+        long enqueuedNanos() {
+            return enqueuedNanos;
+        }
+
+        long deadlineNanos() {
+            return deadlineNanos;
+        }
+
+        long dispatchedNanos() {
+            return dispatchedNanos;
+        }
+    }
+
+    /**
+     * Per-mode queues and the dispatch rule; records are dispatched outside the lock
+     */
+    static final class FairQueue {
+
+        private final int capacity;
+        private final Map<String, ModeState> modes = new LinkedHashMap<>();
+        private int running;
+        private double virtualTime;
+
+        FairQueue(int capacity, Map<String, ModeSettings> settings) {
+            this.capacity = Math.max(1, capacity);
+            settings.forEach((mode, modeSettings) -> modes.put(mode, new ModeState(modeSettings)));
+        }
+
+        Dispatch enqueue(String mode, long nowNanos) {
+            List<Dispatch> dispatched;
+            Dispatch dispatch;
+            synchronized (this) {
+                ModeState state = modes.get(mode);
+                dispatch = new Dispatch(nowNanos, nowNanos + TimeUnit.MILLISECONDS.toNanos(state.settings.deadlineMs()));
+                if (state.queue.isEmpty()) {
+                    // A mode returning from idle starts at the current virtual time, without saved-up credit
+                    state.pass = Math.max(state.pass, virtualTime);
+                }
+                state.queue.add(dispatch);
+                dispatched = dispatch(nowNanos);
+            }
+            complete(dispatched);
+            return dispatch;
+        }
+
+        void release(String mode, long nowNanos) {
+            List<Dispatch> dispatched;
+            synchronized (this) {
+                modes.get(mode).running--;
+                running--;
+                dispatched = dispatch(nowNanos);
+            }
+            complete(dispatched);
+        }
+
+        synchronized boolean withdraw(String mode, Dispatch dispatch) {
+            return modes.get(mode).queue.remove(dispatch);
+        }
+
+        private List<Dispatch> dispatch(long nowNanos) {
+            List<Dispatch> dispatched = new ArrayList<>();
+            while (running < capacity) {
+                ModeState next = next(nowNanos);
+                if (next == null) {
+                    break;
+                }
+                Dispatch dispatch = next.queue.poll();
+                dispatch.dispatchedNanos = nowNanos;
+                next.running++;
+                running++;
+                virtualTime = next.pass;
+                next.pass += 1.0 / Math.max(0.001, next.settings.weight());
+                dispatched.add(dispatch);
+            }
+            return dispatched;
+        }
+
+        private ModeState next(long nowNanos) {
+            ModeState overdue = null;
+            ModeState fairest = null;
+            for (ModeState state : modes.values()) {
+                if (state.queue.isEmpty() || !mayTakeSlot(state)) {
+                    continue;
+                }
+                long deadline = state.queue.peek().deadlineNanos();
+                if (deadline <= nowNanos && (overdue == null || deadline < overdue.queue.peek().deadlineNanos())) {
+                    overdue = state;
+                }
+                if (fairest == null || state.pass < fairest.pass) {
+                    fairest = state;
+                }
+            }
+            return overdue != null ? overdue : fairest;
+        }
+
+        /**
+         * A mode within its own reservation always may; any other slot must leave enough free
+         * slots for the unused reservations of the other modes
+         */
+        private boolean mayTakeSlot(ModeState state) {
+            if (state.running < state.settings.reserved()) {
+                return true;
+            }
+            int unusedReservations = 0;
+            for (ModeState other : modes.values()) {
+                if (other != state) {
+                    unusedReservations += Math.max(0, other.settings.reserved() - other.running);
+                }
+            }
+            return capacity - running > unusedReservations;
+        }
+
+        private static void complete(List<Dispatch> dispatched) {
+            dispatched.forEach(dispatch -> dispatch.slot.complete(null));
+        }
+
+        synchronized int queued(String mode) {
+            return modes.get(mode).queue.size();
+        }
+
+        synchronized int running(String mode) {
+            return modes.get(mode).running;
+        }
+
+        private static final class ModeState {
+            final ModeSettings settings;
+            final Queue<Dispatch> queue = new ArrayDeque<>();
+            int running;
+            double pass;
+
+            ModeState(ModeSettings settings) {
+                this.settings = settings;
+            }
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.redhat.healthcare.vep;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.health.HealthCheck;
 import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
 import org.eclipse.microprofile.health.Liveness;
 import org.eclipse.microprofile.health.Readiness;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Health checks for VEP annotation service
  */
@@ -16,8 +20,13 @@ import jakarta.inject.Inject;
 public class VepHealthCheck {
 
     @Inject
-    @RestClient
-    VepApiClient vepApiClient;
+    VepReadinessMonitor readinessMonitor;
+
+    @Inject
+    VepCircuitBreaker circuitBreaker;
+
+    @ConfigProperty(name = "healthcare.ml.vep.readiness.require-vep-api", defaultValue = "false")
+    boolean requireVepApi;
 
     @Liveness
     public HealthCheck livenessCheck() {
@@ -28,28 +37,40 @@ public class VepHealthCheck {
                 .build();
     }
 
+    /**
+     * Reads the state kept by VepReadinessMonitor - never calls the VEP API itself.
+     *
+     * An unavailable VEP API only makes the pod unready when
+     * healthcare.ml.vep.readiness.require-vep-api is set: otherwise the circuit breaker and the
+     * fallback backend keep the pipeline working, and taking every pod out of rotation at once
+     * would not help.
+     */
     @Readiness
     public HealthCheck readinessCheck() {
         return () -> {
-            try {
-                // Try to ping the VEP API
-                String response = vepApiClient.ping();
-                boolean isReady = response != null && response.contains("release");
-
-                return HealthCheckResponse.named("vep-api-readiness")
-                        .status(isReady)
-                        .withData("vep_api_status", isReady ? "available" : "unavailable")
-                        .withData("vep_api_response_length", response != null ? response.length() : 0)
-                        .withData("contains_release", response != null && response.contains("release"))
-                        .build();
-
-            } catch (Exception e) {
-                return HealthCheckResponse.named("vep-api-readiness")
-                        .status(false)
-                        .withData("vep_api_status", "error")
-                        .withData("error_message", e.getMessage())
-                        .build();
+            VepReadinessMonitor.ApiStatus apiStatus = readinessMonitor.apiStatus();
+            List<String> stalledChannels = readinessMonitor.stalledChannels();
+            boolean eventLoopBlocked = readinessMonitor.isEventLoopBlocked();
+            boolean apiReady = !requireVepApi || (apiStatus.available() && !readinessMonitor.isApiStatusStale());
+            boolean isReady = apiReady && stalledChannels.isEmpty() && !eventLoopBlocked;
+
+            HealthCheckResponseBuilder response = HealthCheckResponse.named("vep-api-readiness")
+                    .status(isReady)
+                    .withData("vep_api_status", !apiStatus.checked() ? "unknown"
+                            : apiStatus.available() ? "available" : "unavailable")
+                    .withData("vep_api_checked_ms_ago", apiStatus.checked()
+                            ? System.currentTimeMillis() - apiStatus.checkedAtMillis() : -1)
+                    .withData("vep_api_latency_ms", apiStatus.latencyMs())
+                    .withData("vep_api_consecutive_failures", apiStatus.consecutiveFailures())
+                    .withData("circuit_breaker_state", circuitBreaker.currentState().name())
+                    .withData("in_flight_messages", readinessMonitor.inFlightMessages())
+                    .withData("stalled_channels", String.join(",", stalledChannels))
+                    .withData("event_loop_lag_ms", TimeUnit.NANOSECONDS.toMillis(readinessMonitor.eventLoopLagNanos()))
+                    .withData("event_loop_blocked", eventLoopBlocked);
+            if (apiStatus.lastError() != null) {
+                response.withData("error_message", apiStatus.lastError());
             }
+            return response.build();
         };
     }
 }
@@ -0,0 +1,317 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.logging.Logger;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency-adaptive timeouts and hedged requests for VepApiClient
+ *
+ * WHY THIS CLIENT:
+ * - quarkus.rest-client.vep-api.timeout is a fixed 30s, so one slow Ensembl response holds
+ *   its Kafka message (and every session batched with it) for the full 30s
+ * - Ensembl tail latency is dominated by occasional slow requests, not by a slow service
+ *
+ * HOW IT WORKS:
+ * 1. The latency of every successful VEP call goes into a rolling window; a call that hits the
+ *    timeout goes in as a censored sample at the timeout (its latency is at least that)
+ * 2. The timeout is a configurable percentile of that window times a multiplier,
+ *    clamped between min-ms and the REST client timeout. Censored samples make consecutive
+ *    timeouts raise it (x multiplier each time), so a latency step-up above the current
+ *    timeout is learned instead of timing out every call until restart
+ * 3. If a call has not answered after the hedge percentile (p95 by default), one duplicate
+ *    request is sent and whichever answer arrives first wins. The losing answer is ignored:
+ *    cancelling its future does not abort the HTTP request, which still runs to completion
+ *    (bounded by the REST client timeout)
+ * 4. Hedges are only sent when the rate limiter has a spare token and the hedge budget
+ *    (max-ratio of all calls) is not used up, so hedging never causes HTTP 429
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.client.latency: latency of successful VEP calls
+ * - vep.client.timeout: timeout currently in effect (ms)
+ * - vep.client.timeouts: calls that hit the adaptive timeout (each one is a censored sample)
+ * - vep.hedge.sent: hedged duplicate requests sent (hedge rate = vep.hedge.sent / vep.batch.requests)
+ * - vep.hedge.wins: hedged requests that answered before the original
+ */
+@ApplicationScoped
+public class VepHedgingClient {
+
+    private static final Logger LOG = Logger.getLogger(VepHedgingClient.class);
+
+    @Inject
+    @RestClient
+    VepApiClient vepApiClient;
+
+    @Inject
+    VepRateLimiter rateLimiter;
+
+    @Inject
+    VepResponseReader responseReader;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.vep.projected-parsing.enabled", defaultValue = "true")
+    boolean projectedParsingEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-timeout.enabled", defaultValue = "true")
+    boolean adaptiveTimeoutEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-timeout.percentile", defaultValue = "0.99")
+    double timeoutPercentile;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-timeout.multiplier", defaultValue = "3.0")
+    double timeoutMultiplier;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-timeout.min-ms", defaultValue = "2000")
+    long minTimeoutMs;
+
+    @ConfigProperty(name = "quarkus.rest-client.vep-api.timeout", defaultValue = "30000")
+    long maxTimeoutMs;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-timeout.window-size", defaultValue = "512")
+    int windowSize;
+
+    @ConfigProperty(name = "healthcare.ml.vep.adaptive-timeout.min-samples", defaultValue = "20")
+    int minSamples;
+
+    @ConfigProperty(name = "healthcare.ml.vep.hedging.enabled", defaultValue = "true")
+    boolean hedgingEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.hedging.percentile", defaultValue = "0.95")
+    double hedgePercentile;
+
+    @ConfigProperty(name = "healthcare.ml.vep.hedging.min-delay-ms", defaultValue = "100")
+    long minHedgeDelayMs;
+
+    @ConfigProperty(name = "healthcare.ml.vep.hedging.max-ratio", defaultValue = "0.1")
+    double maxHedgeRatio;
+
+    private LatencyWindow latencyWindow;
+
+    // Hedge budget: every call earns maxHedgeRatio of a hedge, a hedge spends 1
+    private final Object hedgeBudgetLock = new Object();
+    private double hedgeBudget;
+
+    private Timer latencyTimer;
+    private Counter timeouts;
+    private Counter hedgesSent;
+    private Counter hedgeWins;
+
+    @PostConstruct
+    void init() {
+        latencyWindow = new LatencyWindow(windowSize);
+
+        latencyTimer = Timer.builder("vep.client.latency")
+                .description("Latency of successful VEP API calls")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("vep.client.timeout", this, client -> client.currentTimeoutMs())
+                .description("Adaptive VEP API timeout currently in effect (ms)")
+                .register(meterRegistry);
+        timeouts = Counter.builder("vep.client.timeouts")
+                .description("VEP API calls that exceeded the adaptive timeout")
+                .register(meterRegistry);
+        hedgesSent = Counter.builder("vep.hedge.sent")
+                .description("Hedged duplicate VEP API requests sent")
+                .register(meterRegistry);
+        hedgeWins = Counter.builder("vep.hedge.wins")
+                .description("Hedged VEP API requests that answered before the original request")
+                .register(meterRegistry);
+
+        LOG.infof("VEP hedging client initialized (adaptive timeout: %s p%.0f x%.1f, hedging: %s p%.0f, max hedge ratio: %.2f)",
+                 adaptiveTimeoutEnabled, timeoutPercentile * 100, timeoutMultiplier,
+                 hedgingEnabled, hedgePercentile * 100, maxHedgeRatio);
+    }
+
+    /**
+     * Calls annotateVariantsAsync with an adaptive timeout and at most one hedged duplicate
+     *
+     * The caller must already hold a rate limiter token for the first request.
+     *
+     * @return first successful response; fails with TimeoutException after the adaptive timeout
+     */
+    public CompletableFuture<List<VepApiResponse>> annotateVariants(VepHgvsRequest request, String species) {
+        long timeoutMs = currentTimeoutMs();
+        long hedgeDelayMs = currentHedgeDelayMs();
+        earnHedgeBudget();
+
+        CompletableFuture<List<VepApiResponse>> result = new CompletableFuture<>();
+        AtomicInteger pendingCalls = new AtomicInteger(1);
+        AtomicBoolean hedged = new AtomicBoolean();
+
+        CompletableFuture<List<VepApiResponse>> primary =
+            call(request, species, result, pendingCalls, false);
+
+        if (hedgeDelayMs > 0 && hedgeDelayMs < timeoutMs) {
+            CompletableFuture.delayedExecutor(hedgeDelayMs, TimeUnit.MILLISECONDS).execute(() -> {
+                if (result.isDone() || !spendHedgeBudget()) {
+                    return;
+                }
+                if (!rateLimiter.tryAcquire()) {
+                    refundHedgeBudget();
+                    return;
+                }
+                hedged.set(true);
+                hedgesSent.increment();
+                pendingCalls.incrementAndGet();
+                LOG.debugf("VEP call exceeded %dms - sending hedged request (%d notations)",
+                          hedgeDelayMs, request.size());
+                CompletableFuture<List<VepApiResponse>> hedge = call(request, species, result, pendingCalls, true);
+                // Only detaches the callbacks - the HTTP request itself is not aborted
+                result.whenComplete((responses, failure) -> {
+                    primary.cancel(true);
+                    hedge.cancel(true);
+                });
+            });
+        }
+
+        result.whenComplete((responses, failure) -> primary.cancel(true));
+
+        return result
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .whenComplete((responses, failure) -> {
+                if (failure instanceof TimeoutException) {
+                    timeouts.increment();
+                    // Censored sample: the answer (if any) is ignored, but it took at least the timeout
+                    latencyWindow.record(TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+                    LOG.warnf("VEP call timed out after %dms (adaptive timeout, hedged: %s)", timeoutMs, hedged.get());
+                }
+            });
+    }
+
+    /**
+     * Timeout currently in effect: percentile x multiplier, clamped to [min-ms, REST client timeout]
+     */
+    long currentTimeoutMs() {
+        if (!adaptiveTimeoutEnabled) {
+            return maxTimeoutMs;
+        }
+        long percentileNanos = latencyWindow.percentileNanos(timeoutPercentile, minSamples);
+        if (percentileNanos < 0) {
+            return maxTimeoutMs;
+        }
+        long adaptive = (long) (TimeUnit.NANOSECONDS.toMillis(percentileNanos) * timeoutMultiplier);
+        return Math.max(minTimeoutMs, Math.min(maxTimeoutMs, adaptive));
+    }
+
+    /**
+     * Delay after which a duplicate request is sent, or 0 if hedging is off or there is no history yet
+     */
+    long currentHedgeDelayMs() {
+        if (!hedgingEnabled) {
+            return 0;
+        }
+        long percentileNanos = latencyWindow.percentileNanos(hedgePercentile, minSamples);
+        if (percentileNanos < 0) {
+            return 0;
+        }
+        return Math.max(minHedgeDelayMs, TimeUnit.NANOSECONDS.toMillis(percentileNanos));
+    }
+
+    private CompletableFuture<List<VepApiResponse>> call(VepHgvsRequest request, String species,
+                                                         CompletableFuture<List<VepApiResponse>> result,
+                                                         AtomicInteger pendingCalls, boolean hedge) {
+        long startNanos = System.nanoTime();
+        // Projected parsing streams the body and keeps only the fields used downstream
+        CompletionStage<List<VepApiResponse>> stage = projectedParsingEnabled
+            ? vepApiClient.annotateVariantsRawAsync(request, species).thenApply(responseReader::read)
+            : vepApiClient.annotateVariantsAsync(request, species);
+        CompletableFuture<List<VepApiResponse>> future = stage.toCompletableFuture();
+
+        future.whenComplete((responses, failure) -> {
+            if (failure == null) {
+                long latency = System.nanoTime() - startNanos;
+                latencyWindow.record(latency);
+                latencyTimer.record(latency, TimeUnit.NANOSECONDS);
+                if (result.complete(responses) && hedge) {
+                    hedgeWins.increment();
+                }
+            } else if (pendingCalls.decrementAndGet() == 0) {
+                // Only fail once neither the original nor the hedge can still answer
+                result.completeExceptionally(failure);
+            }
+        });
+        return future;
+    }
+
+    private void earnHedgeBudget() {
+        synchronized (hedgeBudgetLock) {
+            // Cap the budget so an idle period cannot build up a burst of hedges
+            hedgeBudget = Math.min(hedgeBudget + maxHedgeRatio, 10.0);
+        }
+    }
+
+    private boolean spendHedgeBudget() {
+        synchronized (hedgeBudgetLock) {
+            if (hedgeBudget < 1.0) {
+                return false;
+            }
+            hedgeBudget -= 1.0;
+            return true;
+        }
+    }
+
+    private void refundHedgeBudget() {
+        synchronized (hedgeBudgetLock) {
+            hedgeBudget += 1.0;
+        }
+    }
+
+    /**
+     * Rolling window of the most recent call latencies.
+     * Percentiles are recomputed from a sorted snapshot at most every REFRESH_INTERVAL samples.
+     */
+    static final class LatencyWindow {
+        private static final int REFRESH_INTERVAL = 16;
+
+        private final long[] samples;
+        private int next;
+        private int count;
+        private int recordedSinceSnapshot;
+        private long[] sortedSnapshot = new long[0];
+
+        LatencyWindow(int size) {
+            this.samples = new long[Math.max(1, size)];
+        }
+
+        synchronized void record(long latencyNanos) {
+            samples[next] = latencyNanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            recordedSinceSnapshot++;
+        }
+
+        /**
+         * @return latency at the percentile (0-1), or -1 if fewer than minSamples were recorded
+         */
+        synchronized long percentileNanos(double percentile, int minSamples) {
+            if (count < Math.max(1, minSamples)) {
+                return -1;
+            }
+            if (recordedSinceSnapshot >= REFRESH_INTERVAL || sortedSnapshot.length != count) {
+                sortedSnapshot = Arrays.copyOf(samples, count);
+                Arrays.sort(sortedSnapshot);
+                recordedSinceSnapshot = 0;
+            }
+            int index = (int) Math.ceil(Math.min(1.0, Math.max(0.0, percentile)) * count) - 1;
+            return sortedSnapshot[Math.max(0, index)];
+        }
+    }
+}
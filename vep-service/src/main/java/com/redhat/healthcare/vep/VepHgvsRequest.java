@@ -94,4 +94,21 @@ public class VepHgvsRequest {
     public static VepHgvsRequest fromMultiple(List<String> hgvsNotations) {
         return new VepHgvsRequest(hgvsNotations);
     }
+
+    /**
+     * Normalizes an HGVS notation for use as a lookup key
+     *
+     * "chr17:g.43094692G>A", " 17:g.43094692G>A" and "17:g.43094692G>A" all describe
+     * the same variant, so whitespace and the "chr" prefix are removed.
+     */
+    public static String normalizeNotation(String hgvsNotation) {
+        if (hgvsNotation == null) {
+            return "";
+        }
+        String normalized = hgvsNotation.replaceAll("\\s+", "");
+        if (normalized.regionMatches(true, 0, "chr", 0, 3)) {
+            normalized = normalized.substring(3);
+        }
+        return normalized;
+    }
 }
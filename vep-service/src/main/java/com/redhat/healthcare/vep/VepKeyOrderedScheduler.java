@@ -0,0 +1,283 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.operators.multi.processors.UnicastProcessor;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Per-session ordering for records processed concurrently from one partition
+ *
+ * WHY THIS SCHEDULER:
+ * - Records of a batch are annotated concurrently, so without it two sequences of the same
+ *   WebSocket session could be annotated and published in either order
+ * - Serializing a whole partition to keep that order would cap a pod at one record per
+ *   partition at a time, far below its cores and its VEP budget
+ *
+ * HOW IT WORKS:
+ * Each record is registered under its key (sessionId) in arrival order and queued behind the
+ * previous record of the same key. A record starts once its predecessor is released: when the
+ * predecessor's result is acked or nacked by the broker, or when it was dropped. Records of
+ * different keys never wait for each other. Keys are forgotten as soon as their last record
+ * is released.
+ *
+ * process() keeps waiting records out of the processing window: a record whose key is busy is
+ * parked in its key's queue and frees its slot, and it is dispatched (its result emitted on a
+ * side stream) when the key is released. So one chunked sequence - many records of one session
+ * in a row - cannot fill the window and stall the other sessions of the partition. At most
+ * max-waiting records are parked per stream; beyond that a waiting record keeps its slot, which
+ * stops the stream from pulling more records until the backlog drains.
+ *
+ * Offsets are not committed per record: a batch is acked once all its records are done
+ * (VepRecordBatch) and the throttled commit strategy commits the contiguous prefix of
+ * completed batches per partition, so a slow session never lets later offsets be committed
+ * ahead of it.
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.ordering.waiting: records waiting for an earlier record of the same session
+ * - vep.ordering.keys: sessions with records in flight
+ */
+@ApplicationScoped
+public class VepKeyOrderedScheduler {
+
+    private static final Logger LOG = Logger.getLogger(VepKeyOrderedScheduler.class);
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.vep.ordering.enabled", defaultValue = "true")
+    boolean orderingEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.ordering.max-waiting", defaultValue = "1024")
+    int maxWaiting;
+
+    // Keys with a record in flight, and the records queued behind it; mutated under this
+    private final Map<String, Queue<Runnable>> keys = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("vep.ordering.waiting", waiting, AtomicInteger::get)
+                .description("Records waiting for an earlier record of the same session")
+                .register(meterRegistry);
+        Gauge.builder("vep.ordering.keys", keys, Map::size)
+                .description("Sessions with records in flight")
+                .register(meterRegistry);
+
+        LOG.infof("VEP key-ordered scheduler initialized (enabled: %s, max waiting: %d)", orderingEnabled, maxWaiting);
+    }
+
+    /**
+     * Processes records up to maxRunning at a time, keeping the order of records with the same key.
+     * Records waiting for their key do not count against maxRunning (up to max-waiting of them).
+     *
+     * @param work processing of a record; emits the result message, or null if the record was dropped
+     */
+    public <T> Multi<Message<T>> process(Multi<Message<String>> records,
+                                         Function<Message<String>, String> keyOf,
+                                         Function<Message<String>, Uni<Message<T>>> work,
+                                         int maxRunning) {
+        if (!orderingEnabled) {
+            return records.onItem().<Message<T>>transformToUni(work::apply).merge(Math.max(1, maxRunning));
+        }
+
+        ParkedRecords<T> parked = new ParkedRecords<>();
+        Multi<Message<T>> running = records
+            .onItem().transformToUni(record -> {
+                String key = keyOf.apply(record);
+                if (key == null) {
+                    return Uni.createFrom().deferred(() -> work.apply(record));
+                }
+                if (parked.pending.get() >= maxWaiting) {
+                    // Backlog full: wait in the window, which stops pulling more records
+                    return inOrder(key, () -> work.apply(record));
+                }
+                Release release = new Release(key);
+                parked.pending.incrementAndGet();
+                if (acquire(key, () -> parked.dispatch(withRelease(() -> work.apply(record), release)))) {
+                    // Key was free: runs in the window like any other record
+                    parked.pending.decrementAndGet();
+                    return withRelease(() -> work.apply(record), release);
+                }
+                // Parked: frees its slot now (null items are dropped by merge)
+                return Uni.createFrom().<Message<T>>nullItem();
+            })
+            .merge(Math.max(1, maxRunning))
+            .onCompletion().invoke(parked::upstreamCompleted);
+
+        return Multi.createBy().merging().streams(running, parked.results);
+    }
+
+    /**
+     * Runs the work after every earlier record of the key has been released.
+     * Must be called in record order; the returned Uni may be subscribed later.
+     *
+     * @param work processing of the record; emits the result message, or null if the record was dropped
+     */
+    public <T> Uni<Message<T>> inOrder(String key, Supplier<Uni<Message<T>>> work) {
+        if (!orderingEnabled || key == null) {
+            return Uni.createFrom().deferred(work::get);
+        }
+
+        Release release = new Release(key);
+        CompletableFuture<Void> turn = new CompletableFuture<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Runnable start = () -> {
+            turn.complete(null);
+            if (cancelled.get()) {
+                release.run();
+            }
+        };
+        if (acquire(key, start)) {
+            turn.complete(null);
+        }
+
+        return Uni.createFrom().completionStage(turn)
+            .onCancellation().invoke(() -> {
+                cancelled.set(true);
+                if (turn.isDone()) {
+                    release.run();
+                }
+            })
+            .chain(ignored -> withRelease(work, release));
+    }
+
+    /**
+     * Takes the key, or queues start to run when the key is handed over
+     *
+     * @return true if the key was free and is now held by the caller
+     */
+    private synchronized boolean acquire(String key, Runnable start) {
+        Queue<Runnable> queue = keys.get(key);
+        if (queue == null) {
+            keys.put(key, new ArrayDeque<>());
+            return true;
+        }
+        queue.add(start);
+        waiting.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Hands the key to the next queued record, or forgets it
+     */
+    private void release(String key) {
+        Runnable next;
+        synchronized (this) {
+            Queue<Runnable> queue = keys.get(key);
+            next = queue != null ? queue.poll() : null;
+            if (next == null) {
+                keys.remove(key);
+                return;
+            }
+        }
+        waiting.decrementAndGet();
+        next.run();
+    }
+
+    /**
+     * Runs work holding the key; the key is released when the result is acked or nacked,
+     * or when the work fails, is cancelled or drops the record
+     */
+    private static <T> Uni<Message<T>> withRelease(Supplier<Uni<Message<T>>> work, Release release) {
+        return Uni.createFrom().deferred(work::get)
+            .onFailure().invoke(failure -> release.run())
+            .onCancellation().invoke(release)
+            .onItem().transform(result -> {
+                if (result == null) {
+                    release.run();
+                    return null;
+                }
+                return result
+                    .withAck(() -> {
+                        release.run();
+                        return result.ack();
+                    })
+                    .withNack(nackFailure -> {
+                        release.run();
+                        return result.nack(nackFailure);
+                    });
+            });
+    }
+
+    /**
+     * Releases a key at most once
+     */
+    private final class Release implements Runnable {
+        private final String key;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Release(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            if (released.compareAndSet(false, true)) {
+                release(key);
+            }
+        }
+    }
+
+    /**
+     * Results of the records of one stream that were parked outside its processing window
+     */
+    private static final class ParkedRecords<T> {
+        final Flow.Processor<Message<T>, Message<T>> processor = UnicastProcessor.<Message<T>>create().serialized();
+        final Multi<Message<T>> results = Multi.createFrom().publisher(processor);
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicBoolean upstreamCompleted = new AtomicBoolean();
+        final AtomicBoolean completed = new AtomicBoolean();
+
+        void dispatch(Uni<Message<T>> work) {
+            work.subscribe().with(
+                result -> {
+                    if (result != null) {
+                        processor.onNext(result);
+                    }
+                    finished();
+                },
+                failure -> {
+                    LOG.warnf("Parked record failed: %s", failure.getMessage());
+                    finished();
+                });
+        }
+
+        void upstreamCompleted() {
+            upstreamCompleted.set(true);
+            if (pending.get() == 0) {
+                complete();
+            }
+        }
+
+        private void finished() {
+            if (pending.decrementAndGet() == 0 && upstreamCompleted.get()) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            if (completed.compareAndSet(false, true)) {
+                processor.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.jboss.logging.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-channel publish latency and failures of annotated results
+ *
+ * WHY THIS TRACKER:
+ * - Results used to be held for a fixed 30s "so the producer could flush" before being
+ *   emitted; delivery is now signalled by the Kafka producer acknowledgement instead
+ * - The outgoing message carries the incoming message's ack, so the raw message only counts
+ *   as processed once its result is on the broker
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.publish.latency{channel}: time from emitting a result to the broker ack
+ * - vep.publish.failures{channel}: results the producer could not deliver (nacked)
+ */
+@ApplicationScoped
+public class VepPublishTracker {
+
+    private static final Logger LOG = Logger.getLogger(VepPublishTracker.class);
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> publishLatency = new ConcurrentHashMap<>();
+    private final Map<String, Counter> publishFailures = new ConcurrentHashMap<>();
+
+    /**
+     * Wraps the outgoing message so its broker ack / nack is measured for the channel
+     * before being passed on to the incoming message
+     */
+    public <T> Message<T> track(String channel, Message<T> outgoing) {
+        long emittedNanos = System.nanoTime();
+        return outgoing
+            .withAck(() -> {
+                latencyTimer(channel).record(System.nanoTime() - emittedNanos, TimeUnit.NANOSECONDS);
+                return outgoing.ack();
+            })
+            .withNack(failure -> {
+                failureCounter(channel).increment();
+                LOG.errorf(failure, "Failed to publish %s result to genetic-data-annotated", channel);
+                return outgoing.nack(failure);
+            });
+    }
+
+    private Timer latencyTimer(String channel) {
+        return publishLatency.computeIfAbsent(channel, name -> Timer.builder("vep.publish.latency")
+                .tag("channel", name)
+                .description("Time from emitting an annotated result to the Kafka broker ack")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+    }
+
+    private Counter failureCounter(String channel) {
+        return publishFailures.computeIfAbsent(channel, name -> Counter.builder("vep.publish.failures")
+                .tag("channel", name)
+                .description("Annotated results the Kafka producer failed to deliver")
+                .register(meterRegistry));
+    }
+}
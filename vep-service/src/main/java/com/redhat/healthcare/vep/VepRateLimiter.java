@@ -0,0 +1,221 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared token-bucket rate limiter for the Ensembl VEP API
+ *
+ * ENSEMBL RATE LIMITS (per IP):
+ * - 15 requests per second
+ * - 55,000 requests per hour
+ *
+ * WHY THIS LIMITER:
+ * - All four @Incoming channels share the same outbound IP and therefore the same budget
+ * - Exceeding the budget returns HTTP 429, which used to end up as VepAnnotationResult.empty
+ * - Waiting for a token instead delays the message, which backpressures Kafka consumption
+ *
+ * Callers reserve a token from both buckets and receive a CompletionStage that completes
+ * once the reservation is due. No thread is parked while waiting. When Ensembl still answers
+ * 429, pauseFor() drains the buckets so every caller honours the Retry-After period.
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.ratelimit.tokens.used: tokens consumed by VEP requests
+ * - vep.ratelimit.wait: time a request waited for its token
+ * - vep.ratelimit.throttled: HTTP 429 responses received from Ensembl
+ */
+@ApplicationScoped
+public class VepRateLimiter {
+
+    private static final Logger LOG = Logger.getLogger(VepRateLimiter.class);
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.vep.rate-limit.enabled", defaultValue = "true")
+    boolean rateLimitEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.rate-limit.requests-per-second", defaultValue = "15")
+    int requestsPerSecond;
+
+    @ConfigProperty(name = "healthcare.ml.vep.rate-limit.requests-per-hour", defaultValue = "55000")
+    int requestsPerHour;
+
+    private TokenBucket perSecondBucket;
+    private TokenBucket perHourBucket;
+
+    private Counter tokensUsed;
+    private Timer waitTimer;
+    private Counter throttledResponses;
+
+    @PostConstruct
+    void init() {
+        long now = System.nanoTime();
+        perSecondBucket = new TokenBucket(requestsPerSecond, Duration.ofSeconds(1), now);
+        perHourBucket = new TokenBucket(requestsPerHour, Duration.ofHours(1), now);
+
+        tokensUsed = Counter.builder("vep.ratelimit.tokens.used")
+                .description("Rate limiter tokens consumed by VEP API requests")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("vep.ratelimit.wait")
+                .description("Time VEP API requests waited for a rate limiter token")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        throttledResponses = Counter.builder("vep.ratelimit.throttled")
+                .description("HTTP 429 responses received from the VEP API")
+                .register(meterRegistry);
+
+        LOG.infof("VEP rate limiter initialized (enabled: %s, %d req/s, %d req/h)",
+                 rateLimitEnabled, requestsPerSecond, requestsPerHour);
+    }
+
+    /**
+     * Reserves one request from both budgets
+     *
+     * @return completes when the request may be sent; never completes exceptionally
+     */
+    public CompletionStage<Void> acquire() {
+        if (!rateLimitEnabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            waitNanos = Math.max(perSecondBucket.reserve(now), perHourBucket.reserve(now));
+        }
+
+        tokensUsed.increment();
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+
+        if (waitNanos <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        LOG.debugf("VEP rate limit budget exhausted, delaying request by %dms", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        return CompletableFuture.runAsync(() -> { },
+            CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Takes one token only if both budgets have one available right now
+     * Used for optional requests (hedges) that must never queue behind regular traffic.
+     *
+     * @return true if a token was taken
+     */
+    public boolean tryAcquire() {
+        if (!rateLimitEnabled) {
+            return true;
+        }
+
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (!perSecondBucket.hasToken(now) || !perHourBucket.hasToken(now)) {
+                return false;
+            }
+            perSecondBucket.reserve(now);
+            perHourBucket.reserve(now);
+        }
+        tokensUsed.increment();
+        return true;
+    }
+
+    /**
+     * Pauses all callers after Ensembl answered 429, honouring its Retry-After period
+     */
+    public void pauseFor(Duration retryAfter) {
+        throttledResponses.increment();
+        synchronized (this) {
+            long now = System.nanoTime();
+            perSecondBucket.pauseUntil(now + retryAfter.toNanos(), now);
+        }
+        LOG.warnf("VEP API returned 429 - pausing all VEP requests for %dms", retryAfter.toMillis());
+    }
+
+    /**
+     * Returns the Retry-After period if the failure is an HTTP 429 from the VEP API
+     *
+     * @return Retry-After duration, or null if the failure is not a 429
+     */
+    public static Duration retryAfterOf(Throwable failure) {
+        Throwable current = failure;
+        while (current != null) {
+            if (current instanceof WebApplicationException webException
+                    && webException.getResponse() != null
+                    && webException.getResponse().getStatus() == 429) {
+                String retryAfter = webException.getResponse().getHeaderString("Retry-After");
+                try {
+                    double seconds = retryAfter != null ? Double.parseDouble(retryAfter.trim()) : 1.0;
+                    return Duration.ofMillis((long) Math.ceil(Math.max(seconds, 0.0) * 1000));
+                } catch (NumberFormatException e) {
+                    return Duration.ofSeconds(1);
+                }
+            }
+            current = current.getCause();
+        }
+        return null;
+    }
+
+    /**
+     * Token bucket that allows reservations beyond its balance so that callers queue
+     * instead of failing. A negative balance is the backlog of already queued requests.
+     */
+    static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(int capacity, Duration period, long nowNanos) {
+            this.capacity = Math.max(1, capacity);
+            this.tokensPerNano = this.capacity / period.toNanos();
+            this.tokens = this.capacity;
+            this.lastRefillNanos = nowNanos;
+        }
+
+        /**
+         * Takes one token and returns how long the caller must wait for it
+         */
+        long reserve(long nowNanos) {
+            refill(nowNanos);
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+        }
+
+        /**
+         * Whether a token can be taken without waiting
+         */
+        boolean hasToken(long nowNanos) {
+            refill(nowNanos);
+            return tokens >= 1;
+        }
+
+        /**
+         * Empties the bucket so that the next token is only available at the given time
+         */
+        void pauseUntil(long untilNanos, long nowNanos) {
+            refill(nowNanos);
+            tokens = Math.min(tokens, -(untilNanos - nowNanos) * tokensPerNano);
+        }
+
+        private void refill(long nowNanos) {
+            long elapsed = nowNanos - lastRefillNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+                lastRefillNanos = nowNanos;
+            }
+        }
+    }
+}
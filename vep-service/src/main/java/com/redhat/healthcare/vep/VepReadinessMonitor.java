@@ -0,0 +1,296 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background readiness state for VepHealthCheck
+ *
+ * WHY THIS MONITOR:
+ * - The readiness probe used to call vepApiClient.ping() on every probe, so 20 KEDA-scaled
+ *   pods probing every few seconds spent the Ensembl rate budget on health checks
+ * - A slow Ensembl made every probe slow, flapping readiness for the whole fleet at once
+ *
+ * HOW IT WORKS:
+ * - The VEP API is pinged on a dedicated thread every refresh-interval-ms and the outcome is
+ *   kept as a snapshot; the probe only reads that snapshot and never performs network I/O
+ * - Local pipeline health is tracked as messages flow:
+ *   - in-flight messages and last progress per processing channel; a channel with messages
+ *     in flight but no progress for its stall timeout counts as a stalled consumer. The timeout
+ *     is stall-timeout-ms.<channel> if set, else stall-timeout-ms; it must exceed the longest
+ *     legitimate processing time of one message on that channel (big-data and node-scale
+ *     sequences run the intensive processing simulation for up to 300s)
+ *   - event loop lag: a no-op task is scheduled on the Vert.x event loop and the delay
+ *     until it runs is measured; a pending task keeps growing the lag, so a blocked loop
+ *     is reported even though the measurement itself cannot complete
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.readiness.api.up: 1 if the last background ping succeeded
+ * - vep.pipeline.inflight: messages currently being processed across all channels
+ * - vep.eventloop.lag: current Vert.x event loop scheduling delay (ms)
+ */
+@ApplicationScoped
+public class VepReadinessMonitor {
+
+    private static final Logger LOG = Logger.getLogger(VepReadinessMonitor.class);
+
+    @Inject
+    @RestClient
+    VepApiClient vepApiClient;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.vep.readiness.refresh-interval-ms", defaultValue = "15000")
+    long refreshIntervalMs;
+
+    @ConfigProperty(name = "healthcare.ml.vep.readiness.stall-timeout-ms", defaultValue = "120000")
+    long stallTimeoutMs;
+
+    @ConfigProperty(name = "healthcare.ml.vep.readiness.event-loop-probe-interval-ms", defaultValue = "1000")
+    long eventLoopProbeIntervalMs;
+
+    @ConfigProperty(name = "healthcare.ml.vep.readiness.max-event-loop-lag-ms", defaultValue = "2000")
+    long maxEventLoopLagMs;
+
+    private final Map<String, ChannelActivity> channels = new ConcurrentHashMap<>();
+    private final Map<String, Long> stallTimeoutsNanos = new ConcurrentHashMap<>();
+    private final EventLoopLag eventLoopLag = new EventLoopLag();
+
+    private volatile ApiStatus apiStatus = ApiStatus.unknown();
+
+    private ScheduledExecutorService monitorScheduler;
+
+    @PostConstruct
+    void init() {
+        monitorScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vep-readiness-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        monitorScheduler.scheduleWithFixedDelay(this::refreshApiStatus, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        monitorScheduler.scheduleWithFixedDelay(this::probeEventLoop, eventLoopProbeIntervalMs,
+                                                eventLoopProbeIntervalMs, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("vep.readiness.api.up", this, monitor -> monitor.apiStatus().available() ? 1 : 0)
+                .description("1 if the last background VEP API ping succeeded")
+                .register(meterRegistry);
+        Gauge.builder("vep.pipeline.inflight", this, VepReadinessMonitor::inFlightMessages)
+                .description("Messages currently being processed across all channels")
+                .register(meterRegistry);
+        Gauge.builder("vep.eventloop.lag", this, monitor -> TimeUnit.NANOSECONDS.toMillis(monitor.eventLoopLagNanos()))
+                .description("Vert.x event loop scheduling delay (ms)")
+                .register(meterRegistry);
+
+        LOG.infof("VEP readiness monitor initialized (API refresh: %dms, stall timeout: %dms, max event loop lag: %dms)",
+                 refreshIntervalMs, stallTimeoutMs, maxEventLoopLagMs);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (monitorScheduler != null) {
+            monitorScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Records that a message of the channel started processing
+     */
+    public void onMessageStarted(String channel) {
+        channels.computeIfAbsent(channel, name -> new ChannelActivity()).started(System.nanoTime());
+    }
+
+    /**
+     * Records that a message of the channel finished processing (successfully or not)
+     */
+    public void onMessageFinished(String channel) {
+        channels.computeIfAbsent(channel, name -> new ChannelActivity()).finished(System.nanoTime());
+    }
+
+    /**
+     * Latest result of the background VEP API ping
+     */
+    public ApiStatus apiStatus() {
+        return apiStatus;
+    }
+
+    public int inFlightMessages() {
+        int total = 0;
+        for (ChannelActivity activity : channels.values()) {
+            total += activity.inFlight();
+        }
+        return total;
+    }
+
+    /**
+     * Channels with messages in flight but no progress within their stall timeout
+     */
+    public List<String> stalledChannels() {
+        long now = System.nanoTime();
+        List<String> stalled = new ArrayList<>();
+        channels.forEach((channel, activity) -> {
+            if (activity.isStalled(now, stallTimeoutNanos(channel))) {
+                stalled.add(channel);
+            }
+        });
+        return stalled;
+    }
+
+    /**
+     * stall-timeout-ms.<channel>, falling back to stall-timeout-ms
+     */
+    long stallTimeoutNanos(String channel) {
+        return stallTimeoutsNanos.computeIfAbsent(channel, name -> TimeUnit.MILLISECONDS.toNanos(
+            ConfigProvider.getConfig()
+                .getOptionalValue("healthcare.ml.vep.readiness.stall-timeout-ms." + name, Long.class)
+                .orElse(stallTimeoutMs)));
+    }
+
+    public long eventLoopLagNanos() {
+        return eventLoopLag.lagNanos(System.nanoTime());
+    }
+
+    public boolean isEventLoopBlocked() {
+        return eventLoopLagNanos() > TimeUnit.MILLISECONDS.toNanos(maxEventLoopLagMs);
+    }
+
+    /**
+     * Whether the last ping is older than the refresh schedule allows (the monitor itself is stuck)
+     */
+    public boolean isApiStatusStale() {
+        ApiStatus status = apiStatus;
+        return status.checkedAtMillis() > 0
+            && System.currentTimeMillis() - status.checkedAtMillis() > 3 * refreshIntervalMs;
+    }
+
+    private void refreshApiStatus() {
+        long startNanos = System.nanoTime();
+        ApiStatus previous = apiStatus;
+        try {
+            String response = vepApiClient.ping();
+            boolean available = response != null && response.contains("release");
+            apiStatus = new ApiStatus(available, System.currentTimeMillis(),
+                                      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                                      available ? 0 : previous.consecutiveFailures() + 1,
+                                      available ? null : "Unexpected ping response");
+        } catch (Exception e) {
+            apiStatus = new ApiStatus(false, System.currentTimeMillis(),
+                                      TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                                      previous.consecutiveFailures() + 1, e.getMessage());
+        }
+        if (previous.available() != apiStatus.available()) {
+            LOG.infof("VEP API %s (background ping)", apiStatus.available() ? "available" : "unavailable");
+        }
+    }
+
+    private void probeEventLoop() {
+        if (!eventLoopLag.startProbe(System.nanoTime())) {
+            return;
+        }
+        try {
+            vertx.runOnContext(ignored -> eventLoopLag.completeProbe(System.nanoTime()));
+        } catch (Exception e) {
+            eventLoopLag.cancelProbe();
+            LOG.debugf("Could not schedule event loop probe: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Outcome of one background VEP API ping
+     */
+    public record ApiStatus(boolean available, long checkedAtMillis, long latencyMs,
+                            int consecutiveFailures, String lastError) {
+
+        static ApiStatus unknown() {
+            return new ApiStatus(false, 0, 0, 0, null);
+        }
+
+        public boolean checked() {
+            return checkedAtMillis > 0;
+        }
+    }
+
+    /**
+     * In-flight count and last progress of one processing channel
+     */
+    static final class ChannelActivity {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong lastProgressNanos = new AtomicLong(System.nanoTime());
+
+        void started(long nowNanos) {
+            // Only an idle channel starts a new stall clock; a busy one must keep completing messages
+            if (inFlight.getAndIncrement() == 0) {
+                lastProgressNanos.set(nowNanos);
+            }
+        }
+
+        void finished(long nowNanos) {
+            inFlight.decrementAndGet();
+            lastProgressNanos.set(nowNanos);
+        }
+
+        int inFlight() {
+            return Math.max(0, inFlight.get());
+        }
+
+        boolean isStalled(long nowNanos, long stallTimeoutNanos) {
+            return inFlight() > 0 && nowNanos - lastProgressNanos.get() > stallTimeoutNanos;
+        }
+    }
+
+    /**
+     * Event loop scheduling delay, measured by at most one pending probe at a time
+     */
+    static final class EventLoopLag {
+        private static final long NO_PROBE = Long.MIN_VALUE;
+
+        private final AtomicLong probeStartedNanos = new AtomicLong(NO_PROBE);
+        private volatile long lastLagNanos;
+
+        /**
+         * @return false if the previous probe has not run yet
+         */
+        boolean startProbe(long nowNanos) {
+            return probeStartedNanos.compareAndSet(NO_PROBE, nowNanos);
+        }
+
+        void completeProbe(long nowNanos) {
+            long started = probeStartedNanos.getAndSet(NO_PROBE);
+            if (started != NO_PROBE) {
+                lastLagNanos = nowNanos - started;
+            }
+        }
+
+        void cancelProbe() {
+            probeStartedNanos.set(NO_PROBE);
+        }
+
+        long lagNanos(long nowNanos) {
+            long started = probeStartedNanos.get();
+            long pendingNanos = started == NO_PROBE ? 0 : nowNanos - started;
+            return Math.max(lastLagNanos, pendingNanos);
+        }
+    }
+}
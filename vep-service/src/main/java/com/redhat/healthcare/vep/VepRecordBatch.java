@@ -0,0 +1,101 @@
+package com.redhat.healthcare.vep;
+
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordBatchMetadata;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.Metadata;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits a Kafka record batch into per-record messages that share the batch acknowledgement
+ *
+ * WHY THIS CLASS:
+ * - With batch=true the connector delivers one Message per poll, and acking it commits the
+ *   offsets of every record in it (commit-strategy=throttled, auto commit off)
+ * - The records of a batch are annotated concurrently and their results published
+ *   independently, so the batch may only be acked once every record is done
+ *
+ * HOW IT WORKS:
+ * Each record message counts down a shared counter when it is acked; the last ack acks the
+ * batch. The first nack nacks the batch (the remaining acks are then ignored), so offsets
+ * are never committed past a record whose result was not delivered.
+ *
+ * Each record message keeps its own IncomingKafkaRecordMetadata (key, headers, topic), taken
+ * from the batch metadata, so the retry router can carry the record's CloudEvent headers.
+ */
+final class VepRecordBatch {
+
+    private final Message<List<String>> batch;
+    private final AtomicInteger pending;
+    private final AtomicBoolean nacked = new AtomicBoolean();
+
+    private VepRecordBatch(Message<List<String>> batch, int records) {
+        this.batch = batch;
+        this.pending = new AtomicInteger(records);
+    }
+
+    /**
+     * @return one message per record; an empty batch is acked immediately
+     */
+    static List<Message<String>> split(Message<List<String>> batch) {
+        List<Message<String>> records = records(batch);
+        if (records.isEmpty()) {
+            batch.ack();
+            return List.of();
+        }
+        VepRecordBatch shared = new VepRecordBatch(batch, records.size());
+        List<Message<String>> messages = new ArrayList<>(records.size());
+        for (Message<String> record : records) {
+            messages.add(Message.of(record.getPayload(), record.getMetadata(), shared::ackRecord, shared::nackRecord));
+        }
+        return messages;
+    }
+
+    /**
+     * @return one message per record with its Kafka metadata, without acknowledgement: for
+     *         consumers that acknowledge the batch as a whole (VepTransactionalPipeline)
+     */
+    static List<Message<String>> records(Message<List<String>> batch) {
+        List<String> records = batch.getPayload();
+        if (records == null || records.isEmpty()) {
+            return List.of();
+        }
+        IncomingKafkaRecordBatchMetadata<?, ?> kafka = batch.getMetadata(IncomingKafkaRecordBatchMetadata.class)
+            .filter(metadata -> metadata.getRecords() != null && metadata.getRecords().count() == records.size())
+            .orElse(null);
+        Iterator<? extends ConsumerRecord<?, ?>> consumerRecords = kafka != null ? kafka.getRecords().iterator() : null;
+        List<Message<String>> messages = new ArrayList<>(records.size());
+        for (String record : records) {
+            ConsumerRecord<?, ?> consumerRecord = consumerRecords != null ? consumerRecords.next() : null;
+            // The payloads are the values of the batch's consumer records, in the same order
+            Metadata metadata = consumerRecord != null && Objects.equals(consumerRecord.value(), record)
+                ? Metadata.of(new IncomingKafkaRecordMetadata<>(consumerRecord, kafka.getChannel()))
+                : Metadata.empty();
+            messages.add(Message.of(record, metadata));
+        }
+        return messages;
+    }
+
+    private CompletionStage<Void> ackRecord() {
+        if (pending.decrementAndGet() == 0 && !nacked.get()) {
+            return batch.ack();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletionStage<Void> nackRecord(Throwable failure) {
+        if (nacked.compareAndSet(false, true)) {
+            return batch.nack(failure);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+}
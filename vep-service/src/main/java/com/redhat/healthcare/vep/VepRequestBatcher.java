@@ -0,0 +1,324 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cross-session micro-batching of HGVS notations into shared Ensembl VEP POSTs
+ *
+ * WHY THIS BATCHER:
+ * - Each Kafka message only produces 1-20 HGVS notations (see SequenceToHgvsConverter)
+ * - Ensembl accepts up to 1000 notations per POST but only 15 requests per second
+ * - Sending one POST per message exhausts the request budget long before the notation budget
+ *
+ * HOW IT WORKS:
+ * 1. Callers from any session submit their notations and receive a CompletionStage
+ * 2. Notations are queued per species for a short configurable window
+ * 3. When the window closes (or 1000 notations are pending) one VepHgvsRequest is sent
+ * 4. Each VepApiResponse is routed back to the submitting session(s) by its "input" field
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.batch.fill.ratio: distinct notations per POST / max notations per POST
+ * - vep.batch.queue.delay: time a lookup waited in the queue before its POST was sent
+ * - vep.batch.requests: number of VEP POSTs sent by the batcher
+ *
+ * Every POST first takes a token from the shared VepRateLimiter and is sent through
+ * VepHedgingClient (adaptive timeout, hedged duplicates).
+ */
+@ApplicationScoped
+public class VepRequestBatcher {
+
+    private static final Logger LOG = Logger.getLogger(VepRequestBatcher.class);
+
+    /**
+     * Ensembl VEP limit: POST requests are limited to 1000 variants per request
+     */
+    static final int MAX_NOTATIONS_PER_REQUEST = 1000;
+
+    @Inject
+    VepHedgingClient vepClient;
+
+    @Inject
+    VepRateLimiter rateLimiter;
+
+    @Inject
+    VepCircuitBreaker circuitBreaker;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.vep.batching.enabled", defaultValue = "true")
+    boolean batchingEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.batching.window-ms", defaultValue = "50")
+    long windowMs;
+
+    @ConfigProperty(name = "healthcare.ml.vep.batching.max-notations", defaultValue = "1000")
+    int maxNotations;
+
+    @ConfigProperty(name = "healthcare.ml.vep.rate-limit.max-throttled-retries", defaultValue = "5")
+    int maxThrottledRetries;
+
+    // One queue per species - notations for different species cannot share a POST
+    private final Map<String, SpeciesQueue> queues = new ConcurrentHashMap<>();
+
+    // Single thread so that draining a queue never races with another drain
+    private ScheduledExecutorService flushScheduler;
+
+    private DistributionSummary fillRatio;
+    private Timer queueDelay;
+    private Counter batchRequests;
+
+    @PostConstruct
+    void init() {
+        maxNotations = Math.max(1, Math.min(maxNotations, MAX_NOTATIONS_PER_REQUEST));
+
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vep-batch-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        fillRatio = DistributionSummary.builder("vep.batch.fill.ratio")
+                .description("Distinct HGVS notations per VEP POST divided by the max notations per POST")
+                .register(meterRegistry);
+        queueDelay = Timer.builder("vep.batch.queue.delay")
+                .description("Time a lookup waited for its batch to be sent to the VEP API")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        batchRequests = Counter.builder("vep.batch.requests")
+                .description("VEP POST requests sent by the batcher")
+                .register(meterRegistry);
+
+        LOG.infof("VEP request batcher initialized (enabled: %s, window: %dms, max notations: %d)",
+                 batchingEnabled, windowMs, maxNotations);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (flushScheduler != null) {
+            flushScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits HGVS notations for annotation as part of a shared VEP POST
+     *
+     * @param notations HGVS notations for a single session
+     * @param species Species for the VEP endpoint (default: human)
+     * @return responses for the submitted notations, in submission order
+     */
+    public CompletionStage<List<VepApiResponse>> submit(List<String> notations, String species) {
+        if (notations == null || notations.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        if (!batchingEnabled) {
+            return callVepApi(VepHgvsRequest.fromMultiple(notations), species);
+        }
+
+        // A single lookup larger than one POST is split so every part can join a batch
+        if (notations.size() > maxNotations) {
+            List<CompletableFuture<List<VepApiResponse>>> parts = new ArrayList<>();
+            for (int i = 0; i < notations.size(); i += maxNotations) {
+                List<String> part = notations.subList(i, Math.min(i + maxNotations, notations.size()));
+                parts.add(submit(part, species).toCompletableFuture());
+            }
+            return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<VepApiResponse> combined = new ArrayList<>();
+                    parts.forEach(part -> combined.addAll(part.join()));
+                    return combined;
+                });
+        }
+
+        SpeciesQueue queue = queues.computeIfAbsent(species, SpeciesQueue::new);
+        PendingLookup lookup = new PendingLookup(List.copyOf(notations));
+        queue.lookups.add(lookup);
+        int pending = queue.pendingNotations.addAndGet(lookup.notations.size());
+
+        if (pending >= maxNotations) {
+            // Batch is full - no reason to wait for the window to close
+            flushScheduler.execute(() -> flush(queue));
+        } else if (queue.flushScheduled.compareAndSet(false, true)) {
+            flushScheduler.schedule(() -> flush(queue), windowMs, TimeUnit.MILLISECONDS);
+        }
+
+        return lookup.result;
+    }
+
+    /**
+     * Drains a species queue into as many full POSTs as possible (runs on the flusher thread)
+     */
+    private void flush(SpeciesQueue queue) {
+        queue.flushScheduled.set(false);
+
+        while (true) {
+            List<PendingLookup> batch = new ArrayList<>();
+            LinkedHashSet<String> distinctNotations = new LinkedHashSet<>();
+            int drainedNotations = 0;
+
+            PendingLookup next;
+            while ((next = queue.lookups.peek()) != null) {
+                LinkedHashSet<String> candidate = new LinkedHashSet<>(distinctNotations);
+                candidate.addAll(next.notations);
+                if (candidate.size() > maxNotations && !batch.isEmpty()) {
+                    break;
+                }
+                queue.lookups.poll();
+                batch.add(next);
+                distinctNotations = candidate;
+                drainedNotations += next.notations.size();
+            }
+
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            queue.pendingNotations.addAndGet(-drainedNotations);
+            send(batch, distinctNotations, queue.species);
+
+            if (queue.pendingNotations.get() < maxNotations) {
+                break;
+            }
+        }
+
+        // Lookups that arrived while draining get their own window
+        if (queue.pendingNotations.get() > 0 && queue.flushScheduled.compareAndSet(false, true)) {
+            flushScheduler.schedule(() -> flush(queue), windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends one VEP POST for a batch and routes the responses back by their input notation
+     */
+    private void send(List<PendingLookup> batch, LinkedHashSet<String> distinctNotations, String species) {
+        long now = System.nanoTime();
+        batch.forEach(lookup -> queueDelay.record(now - lookup.enqueuedNanos, TimeUnit.NANOSECONDS));
+        fillRatio.record((double) distinctNotations.size() / maxNotations);
+        batchRequests.increment();
+
+        LOG.infof("Sending batched VEP request: %d notations from %d lookups (species: %s)",
+                 distinctNotations.size(), batch.size(), species);
+
+        VepHgvsRequest request = VepHgvsRequest.fromMultiple(new ArrayList<>(distinctNotations));
+
+        callVepApi(request, species)
+            .whenComplete((responses, failure) -> {
+                if (failure != null) {
+                    LOG.warnf("Batched VEP request failed for %d lookups: %s", batch.size(), failure.getMessage());
+                    batch.forEach(lookup -> lookup.result.completeExceptionally(failure));
+                    return;
+                }
+
+                Map<String, VepApiResponse> responsesByInput = new HashMap<>();
+                if (responses != null) {
+                    for (VepApiResponse response : responses) {
+                        if (response != null && response.getInput() != null) {
+                            responsesByInput.putIfAbsent(response.getInput(), response);
+                        }
+                    }
+                }
+
+                for (PendingLookup lookup : batch) {
+                    List<VepApiResponse> routed = new ArrayList<>();
+                    for (String notation : lookup.notations) {
+                        VepApiResponse response = responsesByInput.get(notation);
+                        if (response != null) {
+                            routed.add(response);
+                        }
+                    }
+                    lookup.result.complete(routed);
+                }
+            });
+    }
+
+    /**
+     * Calls the VEP API if the circuit breaker permits it and records the final outcome.
+     * Throttled retries count as one call; a rejected call fails with CircuitOpenException.
+     */
+    private CompletableFuture<List<VepApiResponse>> callVepApi(VepHgvsRequest request, String species) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(new VepCircuitBreaker.CircuitOpenException());
+        }
+        return callVepApi(request, species, 0)
+            .whenComplete((responses, failure) -> {
+                if (failure == null) {
+                    circuitBreaker.onSuccess();
+                } else {
+                    circuitBreaker.onFailure(failure);
+                }
+            });
+    }
+
+    /**
+     * Calls the VEP API once a rate limiter token is available.
+     * Uses annotateVariantsAsync (via VepHedgingClient, which adds the adaptive timeout and
+     * hedging) so no thread is parked while the POST is in flight.
+     * HTTP 429 responses pause the shared limiter and the request is queued again
+     * instead of surfacing as an empty annotation.
+     */
+    private CompletableFuture<List<VepApiResponse>> callVepApi(VepHgvsRequest request, String species, int attempt) {
+        return rateLimiter.acquire()
+            .thenCompose(ignored -> vepClient.annotateVariants(request, species))
+            .handle((responses, failure) -> {
+                if (failure == null) {
+                    return CompletableFuture.completedFuture(responses);
+                }
+                Duration retryAfter = VepRateLimiter.retryAfterOf(failure);
+                if (retryAfter != null && attempt < maxThrottledRetries) {
+                    rateLimiter.pauseFor(retryAfter);
+                    return callVepApi(request, species, attempt + 1);
+                }
+                return CompletableFuture.<List<VepApiResponse>>failedFuture(failure);
+            })
+            .thenCompose(result -> result)
+            .toCompletableFuture();
+    }
+
+    private static final class SpeciesQueue {
+        final String species;
+        final Queue<PendingLookup> lookups = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pendingNotations = new AtomicInteger();
+        final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+        SpeciesQueue(String species) {
+            this.species = species;
+        }
+    }
+
+    private static final class PendingLookup {
+        final List<String> notations;
+        final CompletableFuture<List<VepApiResponse>> result = new CompletableFuture<>();
+        final long enqueuedNanos = System.nanoTime();
+
+        PendingLookup(List<String> notations) {
+            this.notations = notations;
+        }
+    }
+}
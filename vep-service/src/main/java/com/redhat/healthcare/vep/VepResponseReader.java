@@ -0,0 +1,228 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Streaming, field-projected reader for Ensembl VEP API responses
+ *
+ * WHY THIS READER:
+ * - Ensembl returns every transcript of a variant with dozens of fields each
+ *   (protein positions, codons, HGVS strings, domains, ...)
+ * - Binding the array to the full model and converting it back with valueToTree allocated
+ *   megabytes per message for fields nothing downstream reads
+ *
+ * KEPT FIELDS (everything else is skipped token by token, never materialized):
+ * - input, most_severe_consequence
+ * - transcript_consequences[]: gene_symbol, impact, sift_prediction, sift_score,
+ *   polyphen_prediction, polyphen_score
+ * - regulatory_feature_consequences[] / intergenic_consequences[]: impact only, so that
+ *   VepApiResponse.getTotalConsequences() still counts every consequence
+ *
+ * Benchmark: VepResponseParsingBenchmark (mvn -Pbenchmark test)
+ */
+@ApplicationScoped
+public class VepResponseReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Values of impact, sift_prediction and polyphen_prediction - reused instead of
+     * allocating a new String for every transcript
+     */
+    private static final String[] VOCABULARY = {
+        "HIGH", "MODERATE", "LOW", "MODIFIER",
+        "deleterious", "tolerated", "deleterious_low_confidence", "tolerated_low_confidence",
+        "probably_damaging", "possibly_damaging", "benign", "unknown"
+    };
+
+    /**
+     * Reads a VEP response array (one object per input notation)
+     */
+    public List<VepApiResponse> read(byte[] json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return readResponses(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed VEP API response", e);
+        }
+    }
+
+    public List<VepApiResponse> read(InputStream json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return readResponses(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed VEP API response", e);
+        }
+    }
+
+    private List<VepApiResponse> readResponses(JsonParser parser) throws IOException {
+        List<VepApiResponse> responses = new ArrayList<>();
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expected a JSON array of VEP responses");
+        }
+        while (nextObjectInArray(parser)) {
+            responses.add(readResponse(parser));
+        }
+        return responses;
+    }
+
+    private VepApiResponse readResponse(JsonParser parser) throws IOException {
+        VepApiResponse response = new VepApiResponse();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "input" -> response.setInput(textOrNull(parser, value));
+                case "most_severe_consequence" -> response.setMostSevereConsequence(textOrNull(parser, value));
+                case "transcript_consequences" -> response.setTranscriptConsequences(readTranscriptConsequences(parser, value));
+                case "regulatory_feature_consequences" -> response.setRegulatoryFeatureConsequences(
+                    readImpacts(parser, value, impact -> {
+                        RegulatoryFeatureConsequence consequence = new RegulatoryFeatureConsequence();
+                        consequence.setImpact(impact);
+                        return consequence;
+                    }));
+                case "intergenic_consequences" -> response.setIntergenicConsequences(
+                    readImpacts(parser, value, impact -> {
+                        IntergenicConsequence consequence = new IntergenicConsequence();
+                        consequence.setImpact(impact);
+                        return consequence;
+                    }));
+                default -> parser.skipChildren();
+            }
+        }
+        return response;
+    }
+
+    private List<TranscriptConsequence> readTranscriptConsequences(JsonParser parser, JsonToken value) throws IOException {
+        List<TranscriptConsequence> consequences = new ArrayList<>();
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return consequences;
+        }
+        String previousGeneSymbol = null;
+        while (nextObjectInArray(parser)) {
+            TranscriptConsequence consequence = new TranscriptConsequence();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken fieldValue = parser.nextToken();
+                switch (field) {
+                    case "gene_symbol" -> {
+                        // Transcripts of one variant usually share the gene symbol
+                        previousGeneSymbol = reuseOrText(parser, fieldValue, previousGeneSymbol);
+                        consequence.setGeneSymbol(previousGeneSymbol);
+                    }
+                    case "impact" -> consequence.setImpact(vocabularyOrText(parser, fieldValue));
+                    case "sift_prediction" -> consequence.setSiftPrediction(vocabularyOrText(parser, fieldValue));
+                    case "sift_score" -> consequence.setSiftScore(numberOrNull(parser, fieldValue));
+                    case "polyphen_prediction" -> consequence.setPolyphenPrediction(vocabularyOrText(parser, fieldValue));
+                    case "polyphen_score" -> consequence.setPolyphenScore(numberOrNull(parser, fieldValue));
+                    default -> parser.skipChildren();
+                }
+            }
+            consequences.add(consequence);
+        }
+        return consequences;
+    }
+
+    private <T> List<T> readImpacts(JsonParser parser, JsonToken value, Function<String, T> mapper) throws IOException {
+        List<T> consequences = new ArrayList<>();
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return consequences;
+        }
+        while (nextObjectInArray(parser)) {
+            String impact = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken fieldValue = parser.nextToken();
+                if ("impact".equals(field)) {
+                    impact = vocabularyOrText(parser, fieldValue);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            consequences.add(mapper.apply(impact));
+        }
+        return consequences;
+    }
+
+    /**
+     * Advances to the next object element of the current array, skipping non-object elements
+     *
+     * @return false at the end of the array
+     */
+    private static boolean nextObjectInArray(JsonParser parser) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            if (token == JsonToken.START_OBJECT) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static String textOrNull(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static String vocabularyOrText(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            for (String known : VOCABULARY) {
+                if (textEquals(parser, known)) {
+                    return known;
+                }
+            }
+        }
+        return textOrNull(parser, value);
+    }
+
+    private static String reuseOrText(JsonParser parser, JsonToken value, String previous) throws IOException {
+        if (previous != null && value == JsonToken.VALUE_STRING && textEquals(parser, previous)) {
+            return previous;
+        }
+        return textOrNull(parser, value);
+    }
+
+    /**
+     * Compares the current string token without materializing it as a String
+     */
+    private static boolean textEquals(JsonParser parser, String candidate) throws IOException {
+        int length = parser.getTextLength();
+        if (length != candidate.length()) {
+            return false;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != candidate.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Double numberOrNull(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
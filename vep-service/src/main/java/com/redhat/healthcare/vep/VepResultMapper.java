@@ -11,9 +11,14 @@ import io.cloudevents.core.provider.EventFormatProvider;
 import io.cloudevents.jackson.JsonFormat;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.UUID;
 
 /**
@@ -32,6 +37,11 @@ import java.util.UUID;
  * 
  * OUTPUT FORMAT:
  * All processing modes produce identical CloudEvent structure for WebSocket consumption
+ *
+ * SEQUENCE PROJECTION (healthcare.ml.vep.output.sequence-projection):
+ * - summary (default): sequence_sha256, sequence_length and the first sequence-preview-length
+ *   bases as sequence_preview, so a result stays small whatever the size of its input
+ * - full: the input sequence is echoed back (inline or as a claim-check reference)
  */
 @ApplicationScoped
 public class VepResultMapper {
@@ -41,6 +51,15 @@ public class VepResultMapper {
     @Inject
     ObjectMapper objectMapper;
 
+    @Inject
+    SequenceClaimCheck sequenceClaimCheck;
+
+    @ConfigProperty(name = "healthcare.ml.vep.output.sequence-projection", defaultValue = "summary")
+    String sequenceProjection;
+
+    @ConfigProperty(name = "healthcare.ml.vep.output.sequence-preview-length", defaultValue = "32")
+    int sequencePreviewLength;
+
     /**
      * Maps VEP processing result to standardized CloudEvent for Kafka publishing
      * 
@@ -51,11 +70,48 @@ public class VepResultMapper {
      * @return CloudEvent JSON string for Kafka publishing
      */
     public String mapVepResultToCloudEvent(VepAnnotationResult vepResult, String sessionId, String geneticSequence, String processingMode) {
+        CloudEvent event = mapVepResult(vepResult, sessionId, geneticSequence, processingMode);
+        try {
+            if (event != null) {
+                return serializeCloudEvent(event);
+            }
+        } catch (Exception e) {
+            LOG.errorf(e, "Failed to serialize CloudEvent for session %s", sessionId);
+        }
+        return createSimpleMappingError(sessionId, processingMode, "CloudEvent serialization failed");
+    }
+
+    /**
+     * Maps VEP processing result to a standardized CloudEvent; the Kafka encoding
+     * (binary or structured) is left to KafkaCloudEventCodec
+     *
+     * @return the annotated CloudEvent
+     * @throws VepRetryRouter.PermanentFailureException if the result cannot be mapped; mapping is
+     *         deterministic, so the record goes to the DLQ instead of being retried
+     */
+    public CloudEvent mapVepResult(VepAnnotationResult vepResult, String sessionId, String geneticSequence, String processingMode) {
+        return mapVepResult(vepResult, sessionId, geneticSequence, processingMode, null);
+    }
+
+    /**
+     * Maps the VEP result of a parsed record; a chunk of a chunked sequence becomes a partial
+     * result carrying its position in the whole sequence
+     */
+    public CloudEvent mapVepResult(VepAnnotationResult vepResult, GeneticSequenceData sequenceData, String processingMode) {
+        return mapVepResult(vepResult, sequenceData.getSequenceId(), sequenceData.getSequence(), processingMode,
+                            sequenceData.isChunk() ? sequenceData : null);
+    }
+
+    private CloudEvent mapVepResult(VepAnnotationResult vepResult, String sessionId, String geneticSequence,
+                                    String processingMode, GeneticSequenceData chunk) {
         LOG.infof("Mapping VEP result to CloudEvent for session %s (mode: %s)", sessionId, processingMode);
 
         try {
             // Create standardized data payload
             ObjectNode data = createStandardDataPayload(vepResult, sessionId, geneticSequence, processingMode);
+            if (chunk != null) {
+                addChunkProgress(data, chunk);
+            }
 
             // Add VEP annotations in consistent format
             ArrayNode vepAnnotations = createVepAnnotationsArray(vepResult, processingMode, geneticSequence);
@@ -67,7 +123,7 @@ public class VepResultMapper {
             // WEBSOCKET SERVICE COMPATIBILITY: Log expected fields
             LOG.infof("📋 WEBSOCKET COMPATIBILITY: Created CloudEvent with required fields:");
             LOG.infof("  - sessionId: %s (PRESERVED from input)", sessionId);
-            LOG.infof("  - genetic_sequence: %d chars", geneticSequence.length());
+            LOG.infof("  - sequence: %d chars (%s projection)", geneticSequence.length(), sequenceProjection);
             LOG.infof("  - vep_annotations: %d annotations", vepAnnotations.size());
             LOG.infof("  - processing_mode: %s", processingMode);
             LOG.infof("🔗 SESSION MATCHING: WebSocket service should find session '%s' in activeSessions", sessionId);
@@ -75,16 +131,12 @@ public class VepResultMapper {
             // Create CloudEvent with consistent structure
             CloudEvent event = createStandardCloudEvent(data, sessionId, processingMode, vepResult);
 
-            // Serialize CloudEvent
-            String cloudEventJson = serializeCloudEvent(event);
-
-            LOG.infof("Successfully created CloudEvent for session %s (size: %d chars)", sessionId, cloudEventJson.length());
-            LOG.infof("📤 WEBSOCKET SERVICE: CloudEvent ready for genetic-data-annotated topic consumption");
-            return cloudEventJson;
+            LOG.infof("📤 WEBSOCKET SERVICE: CloudEvent ready for genetic-data-annotated topic consumption (session %s)", sessionId);
+            return event;
             
         } catch (Exception e) {
             LOG.errorf(e, "Failed to map VEP result to CloudEvent for session %s", sessionId);
-            return createErrorCloudEvent(sessionId, processingMode, e.getMessage());
+            throw new VepRetryRouter.PermanentFailureException("VEP result mapping failed: " + e.getMessage(), e);
         }
     }
 
@@ -100,12 +152,20 @@ public class VepResultMapper {
         data.put("status", "success");
         
         // Sequence information
-        data.put("genetic_sequence", geneticSequence);
+        if ("full".equalsIgnoreCase(sequenceProjection)) {
+            // Inline (packed) or, for big sequences, a claim-check reference to the input's blob
+            sequenceClaimCheck.writeSequence(data, geneticSequence);
+        } else {
+            writeSequenceSummary(data, geneticSequence);
+        }
         data.put("sequence_length", geneticSequence.length());
         
         // VEP processing results
         data.put("variant_count", vepResult.getVariantCount());
         data.put("most_severe_consequence", vepResult.getMostSevereConsequence());
+
+        // Degraded mode: VEP API circuit open, annotations from cache/fallback backend only
+        data.put("degraded", vepResult.isDegraded());
         
         // Timestamps and source
         data.put("annotation_timestamp", System.currentTimeMillis());
@@ -117,6 +177,26 @@ public class VepResultMapper {
         return data;
     }
 
+    /**
+     * Identifies the input sequence without echoing it: its SHA-256 (hex, of the bases as
+     * UTF-8) and, unless sequence-preview-length is 0, its first bases
+     */
+    void writeSequenceSummary(ObjectNode data, String geneticSequence) {
+        data.put("sequence_sha256", sha256Hex(geneticSequence));
+        if (sequencePreviewLength > 0) {
+            data.put("sequence_preview", geneticSequence.substring(0, Math.min(sequencePreviewLength, geneticSequence.length())));
+        }
+    }
+
+    private static String sha256Hex(String sequence) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sequence.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     /**
      * Creates VEP annotations array in consistent format
      */
@@ -132,9 +212,9 @@ public class VepResultMapper {
                     if (annotation instanceof ObjectNode) {
                         vepAnnotations.add((ObjectNode) annotation);
                     } else {
-                        // Convert to ObjectNode if needed
-                        ObjectNode annotationNode = objectMapper.valueToTree(annotation);
-                        vepAnnotations.add(annotationNode);
+                        // Serialized straight from the (projected) model when the CloudEvent is written,
+                        // instead of building an intermediate tree with valueToTree
+                        vepAnnotations.addPOJO(annotation);
                     }
                 } catch (Exception e) {
                     LOG.warnf("Failed to convert annotation to ObjectNode: %s", e.getMessage());
@@ -192,6 +272,20 @@ public class VepResultMapper {
         return annotation;
     }
 
+    /**
+     * Adds the position of a chunk's partial result: chunk_start / chunk_end are the bases
+     * (0-based, end exclusive) of the whole sequence whose variants this result reports
+     */
+    private void addChunkProgress(ObjectNode data, GeneticSequenceData chunk) {
+        long chunkStart = chunk.getChunkOffset() + chunk.getChunkOverlap();
+        data.put("chunk_index", chunk.getChunkIndex());
+        data.put("chunk_count", chunk.getChunkCount());
+        data.put("chunk_start", chunkStart);
+        data.put("chunk_end", chunk.getChunkOffset() + chunk.getSequence().length());
+        data.put("total_sequence_length", chunk.getTotalSequenceLength());
+        data.put("partial", !chunk.isLastChunk());
+    }
+
     /**
      * Adds processing metadata for debugging and monitoring
      */
@@ -233,6 +327,7 @@ public class VepResultMapper {
                 .withExtension("processingmode", processingMode)
                 .withExtension("variantcount", String.valueOf(vepResult.getVariantCount()))
                 .withExtension("sequencelength", String.valueOf(data.get("sequence_length").asInt()))
+                .withExtension("degraded", vepResult.isDegraded())
                 .withData("application/json", objectMapper.writeValueAsBytes(data))
                 .build();
     }
@@ -247,38 +342,10 @@ public class VepResultMapper {
     }
 
     /**
-     * Creates error CloudEvent when mapping fails
+     * Simple JSON error as last resort when no CloudEvent could be serialized
      */
-    private String createErrorCloudEvent(String sessionId, String processingMode, String errorMessage) {
-        try {
-            LOG.warnf("Creating error CloudEvent for session %s due to: %s", sessionId, errorMessage);
-            
-            ObjectNode errorData = objectMapper.createObjectNode();
-            errorData.put("sessionId", sessionId);
-            errorData.put("processing_mode", processingMode);
-            errorData.put("status", "error");
-            errorData.put("error_message", errorMessage);
-            errorData.put("error_type", "MAPPING_ERROR");
-            errorData.put("timestamp", System.currentTimeMillis());
-            errorData.put("annotation_source", "vep-annotation-service");
-            
-            CloudEvent errorEvent = CloudEventBuilder.v1()
-                    .withId(UUID.randomUUID().toString())
-                    .withSource(URI.create("/vep-annotation-service"))
-                    .withType("com.redhat.healthcare.genetic.error.mapping")
-                    .withSubject("VEP Mapping Error - " + processingMode + " mode")
-                    .withExtension("sessionid", sessionId)
-                    .withExtension("processingmode", processingMode)
-                    .withExtension("errortype", "mapping")
-                    .withData("application/json", objectMapper.writeValueAsBytes(errorData))
-                    .build();
-            
-            return serializeCloudEvent(errorEvent);
-            
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to create error CloudEvent for session %s", sessionId);
-            // Return simple JSON as last resort
-            return String.format("""
+    private String createSimpleMappingError(String sessionId, String processingMode, String errorMessage) {
+        return String.format("""
                 {
                     "sessionId": "%s",
                     "processing_mode": "%s",
@@ -288,6 +355,5 @@ public class VepResultMapper {
                     "timestamp": %d
                 }
                 """, sessionId, processingMode, errorMessage.replace("\"", "\\\""), System.currentTimeMillis());
-        }
     }
 }
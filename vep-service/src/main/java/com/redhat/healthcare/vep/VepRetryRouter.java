@@ -0,0 +1,306 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.Metadata;
+import org.jboss.logging.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tiered retry topics and a dead-letter queue for records whose annotation failed
+ *
+ * WHY RETRY TOPICS:
+ * - A failed record used to be answered with an error CloudEvent on genetic-data-annotated,
+ *   and a failed VEP call (Ensembl down, timeouts) with an empty annotation result, so a
+ *   transient outage became a permanent, wrong answer for the session
+ * - Retrying in place would hold the record's partition and in-flight slot for minutes
+ *
+ * HOW IT WORKS:
+ * A failed record is republished unchanged to the next retry tier (genetic-data-retry-10s,
+ * -1m and -10m by default), keyed by session, with headers:
+ * - retry-count: failed attempts so far
+ * - retry-cause: exception of the last attempt
+ * - retry-mode / retry-origin-topic: processing mode and raw topic the record came from
+ * - retry-due-at: epoch millis before which the tier consumer must not process it
+ * The record's own ce_* headers (binary-mode CloudEvent attributes) are copied as well, on
+ * retry, DLQ and replayed records alike.
+ * The tier consumers (VepAnnotationService) wait until the record is due and process it again
+ * in its original mode. After the last tier, or at once for a PermanentFailureException
+ * (unparseable record, missing session or sequence), the record goes to the DLQ. The failed
+ * record is only acked once the retry or DLQ record is on the broker. Only final results are
+ * published to genetic-data-annotated.
+ *
+ * A retried record leaves its session's order: later records of the session are not held back.
+ * DLQ records are republished to their origin topic on demand, at a bounded rate
+ * (VepDeadLetterReplay).
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.retry.routed{topic}: failed records sent to a retry tier or the DLQ
+ */
+@ApplicationScoped
+public class VepRetryRouter {
+
+    private static final Logger LOG = Logger.getLogger(VepRetryRouter.class);
+
+    static final String RETRY_COUNT_HEADER = "retry-count";
+    static final String RETRY_CAUSE_HEADER = "retry-cause";
+    static final String RETRY_MODE_HEADER = "retry-mode";
+    static final String RETRY_ORIGIN_TOPIC_HEADER = "retry-origin-topic";
+    static final String RETRY_DUE_AT_HEADER = "retry-due-at";
+    static final String CLOUD_EVENT_HEADER_PREFIX = "ce_";
+
+    private static final int MAX_CAUSE_LENGTH = 512;
+
+    // Raw topic of each processing mode, where DLQ records are replayed
+    private static final Map<String, String> ORIGIN_TOPICS = Map.of(
+        "normal", "genetic-data-raw",
+        "big-data", "genetic-bigdata-raw",
+        "node-scale", "genetic-nodescale-raw",
+        "kafka-lag", "genetic-lag-demo-raw");
+
+    /**
+     * A failure that retrying cannot fix: the record goes to the DLQ without retry tiers
+     */
+    public static class PermanentFailureException extends RuntimeException {
+        public PermanentFailureException(String message) {
+            super(message);
+        }
+
+        public PermanentFailureException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    @Channel("genetic-data-retry")
+    Emitter<String> retryEmitter;
+
+    @ConfigProperty(name = "healthcare.ml.vep.retry.enabled", defaultValue = "true")
+    boolean retryEnabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.retry.topics",
+                    defaultValue = "genetic-data-retry-10s,genetic-data-retry-1m,genetic-data-retry-10m")
+    List<String> tierTopics;
+
+    @ConfigProperty(name = "healthcare.ml.vep.retry.delays-ms", defaultValue = "10000,60000,600000")
+    List<Long> tierDelaysMs;
+
+    @ConfigProperty(name = "healthcare.ml.vep.retry.dlq-topic", defaultValue = "genetic-data-dlq")
+    String dlqTopic;
+
+    private final Map<String, Counter> routed = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        if (tierTopics.size() != tierDelaysMs.size()) {
+            throw new IllegalStateException("healthcare.ml.vep.retry.topics and delays-ms must have the same number of tiers");
+        }
+        LOG.infof("VEP retry router initialized (enabled: %s, tiers: %s, delays: %s ms, dlq: %s)",
+                 retryEnabled, tierTopics, tierDelaysMs, dlqTopic);
+    }
+
+    /**
+     * Sends a record whose processing failed to its next retry tier or the DLQ.
+     * The record is acked when the retry record is on the broker and nacked if it could not be
+     * written. With retries disabled the record is dropped (acked).
+     *
+     * @param mode processing mode of the record (normal, big-data, node-scale, kafka-lag)
+     * @param key record key of the retry record (the sessionId)
+     */
+    public void reroute(String mode, Message<String> record, String key, Throwable failure) {
+        if (!retryEnabled) {
+            LOG.errorf(failure, "💥 %s record of session %s failed - retries disabled, dropping it", mode, key);
+            record.ack();
+            return;
+        }
+
+        Message<String> retry = retryRecord(mode, record, key, failure, System.currentTimeMillis());
+        retryEmitter.send(retry
+            .withAck(record::ack)
+            .withNack(nackFailure -> {
+                LOG.errorf(nackFailure, "Failed to publish %s record of session %s for retry", mode, key);
+                return record.nack(nackFailure);
+            }));
+    }
+
+    /**
+     * The retry or DLQ record for a failed attempt of the record
+     */
+    Message<String> retryRecord(String mode, Message<String> record, String key, Throwable failure, long nowMillis) {
+        int attempt = retryCount(record) + 1;
+        boolean toDlq = failure instanceof PermanentFailureException || attempt > tierTopics.size();
+        String topic = toDlq ? dlqTopic : tierTopics.get(attempt - 1);
+
+        String originTopic = header(record, RETRY_ORIGIN_TOPIC_HEADER);
+        if (originTopic == null) {
+            originTopic = ORIGIN_TOPICS.getOrDefault(mode, ORIGIN_TOPICS.get("normal"));
+        }
+
+        RecordHeaders headers = cloudEventHeaders(record);
+        headers.add(RETRY_COUNT_HEADER, bytes(String.valueOf(attempt)));
+        headers.add(RETRY_CAUSE_HEADER, bytes(cause(failure)));
+        headers.add(RETRY_MODE_HEADER, bytes(mode));
+        headers.add(RETRY_ORIGIN_TOPIC_HEADER, bytes(originTopic));
+        if (!toDlq) {
+            headers.add(RETRY_DUE_AT_HEADER, bytes(String.valueOf(nowMillis + tierDelaysMs.get(attempt - 1))));
+        }
+
+        routedCounter(topic).increment();
+        if (toDlq) {
+            LOG.errorf("☠️ DLQ: %s record of session %s failed after %d attempt(s) (%s) - sent to %s",
+                      mode, key, attempt, cause(failure), topic);
+        } else {
+            LOG.warnf("🔁 RETRY: %s record of session %s failed (%s) - attempt %d sent to %s",
+                     mode, key, cause(failure), attempt, topic);
+        }
+
+        OutgoingKafkaRecordMetadata<String> metadata = OutgoingKafkaRecordMetadata.<String>builder()
+            .withKey(key)
+            .withTopic(topic)
+            .withHeaders(headers)
+            .build();
+        return Message.of(record.getPayload(), Metadata.of(metadata));
+    }
+
+    /**
+     * Completes when the retry record is due (immediately for records without retry-due-at)
+     */
+    public Uni<Void> awaitDue(Message<?> record) {
+        long remainingMs = dueAtMillis(record) - System.currentTimeMillis();
+        if (remainingMs <= 0) {
+            return Uni.createFrom().voidItem();
+        }
+        return Uni.createFrom().voidItem().onItem().delayIt().by(Duration.ofMillis(remainingMs));
+    }
+
+    /**
+     * Republishes a DLQ record to its origin topic as a new record (retry headers removed,
+     * CloudEvent headers kept).
+     * The DLQ record is acked once the replayed record is on the broker.
+     */
+    public Uni<Void> replay(Message<String> deadLetter) {
+        String originTopic = header(deadLetter, RETRY_ORIGIN_TOPIC_HEADER);
+        if (originTopic == null) {
+            LOG.warnf("DLQ record without %s header cannot be replayed - skipping it", RETRY_ORIGIN_TOPIC_HEADER);
+            return Uni.createFrom().completionStage(deadLetter.ack());
+        }
+
+        OutgoingKafkaRecordMetadata.Builder<String> metadata = OutgoingKafkaRecordMetadata.<String>builder()
+            .withTopic(originTopic)
+            .withHeaders(cloudEventHeaders(deadLetter));
+        Object key = deadLetter.getMetadata(IncomingKafkaRecordMetadata.class)
+            .map(IncomingKafkaRecordMetadata::getKey)
+            .orElse(null);
+        if (key != null) {
+            metadata.withKey(key.toString());
+        }
+
+        CompletableFuture<Void> replayed = new CompletableFuture<>();
+        retryEmitter.send(Message.of(deadLetter.getPayload(), Metadata.of(metadata.build()))
+            .withAck(() -> deadLetter.ack().thenRun(() -> replayed.complete(null)))
+            .withNack(failure -> {
+                replayed.completeExceptionally(failure);
+                return deadLetter.nack(failure);
+            }));
+        return Uni.createFrom().completionStage(replayed);
+    }
+
+    /**
+     * Processing mode a retry record was first consumed in
+     */
+    public String processingMode(Message<?> record) {
+        String mode = header(record, RETRY_MODE_HEADER);
+        return mode != null ? mode : "normal";
+    }
+
+    static int retryCount(Message<?> record) {
+        String count = header(record, RETRY_COUNT_HEADER);
+        try {
+            return count != null ? Integer.parseInt(count) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static long dueAtMillis(Message<?> record) {
+        String dueAt = header(record, RETRY_DUE_AT_HEADER);
+        try {
+            return dueAt != null ? Long.parseLong(dueAt) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Last value of a header of an incoming Kafka record, or null
+     */
+    static String header(Message<?> record, String name) {
+        Headers headers = record.getMetadata(IncomingKafkaRecordMetadata.class)
+            .map(IncomingKafkaRecordMetadata::getHeaders)
+            .orElse(null);
+        if (headers == null) {
+            return null;
+        }
+        Header header = headers.lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Copy of the ce_* headers of an incoming Kafka record (empty for other messages)
+     */
+    static RecordHeaders cloudEventHeaders(Message<?> record) {
+        RecordHeaders copy = new RecordHeaders();
+        record.getMetadata(IncomingKafkaRecordMetadata.class)
+            .map(IncomingKafkaRecordMetadata::getHeaders)
+            .ifPresent(headers -> {
+                for (Header header : headers) {
+                    if (header.key().startsWith(CLOUD_EVENT_HEADER_PREFIX)) {
+                        copy.add(header.key(), header.value());
+                    }
+                }
+            });
+        return copy;
+    }
+
+    private static String cause(Throwable failure) {
+        Throwable root = failure;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        String cause = root.getClass().getSimpleName() + (root.getMessage() != null ? ": " + root.getMessage() : "");
+        return cause.length() > MAX_CAUSE_LENGTH ? cause.substring(0, MAX_CAUSE_LENGTH) : cause;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Counter routedCounter(String topic) {
+        return routed.computeIfAbsent(topic, name -> Counter.builder("vep.retry.routed")
+                .tag("topic", name)
+                .description("Failed records sent to a retry tier or the dead-letter queue")
+                .register(meterRegistry));
+    }
+}
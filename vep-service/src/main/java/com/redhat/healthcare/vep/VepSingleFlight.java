@@ -0,0 +1,149 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-flight de-duplication of in-flight VEP lookups
+ *
+ * WHY SINGLE-FLIGHT:
+ * - ScalingTestController.triggerScalingDemo sends many sequences at once and
+ *   SequenceToHgvsConverter often produces the same notations (e.g. the fallback variants)
+ * - The annotation cache only helps once a lookup has completed; until then every message
+ *   sent its own copy of the same notation to Ensembl
+ *
+ * HOW IT WORKS:
+ * The first lookup of a normalized notation becomes the leader and is sent to the annotation
+ * backend. Concurrent lookups of the same notation join the leader's future instead of
+ * calling the backend, and all of them receive its result (or its failure).
+ * The entry is removed as soon as the leader completes, so results are never cached here.
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.singleflight.saved: notation lookups served by joining an in-flight lookup
+ * - vep.singleflight.inflight: distinct notations currently in flight
+ */
+@ApplicationScoped
+public class VepSingleFlight {
+
+    private static final Logger LOG = Logger.getLogger(VepSingleFlight.class);
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "healthcare.ml.vep.single-flight.enabled", defaultValue = "true")
+    boolean singleFlightEnabled;
+
+    private final Map<String, CompletableFuture<VepApiResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private Counter savedCalls;
+
+    @PostConstruct
+    void init() {
+        savedCalls = Counter.builder("vep.singleflight.saved")
+                .description("VEP notation lookups served by joining an identical in-flight lookup")
+                .register(meterRegistry);
+        Gauge.builder("vep.singleflight.inflight", inFlight, Map::size)
+                .description("Distinct VEP notations currently being looked up")
+                .register(meterRegistry);
+
+        LOG.infof("VEP single-flight initialized (enabled: %s)", singleFlightEnabled);
+    }
+
+    /**
+     * Annotates notations through the backend, sharing lookups that are already in flight
+     *
+     * @return responses for the notations (notations without a response are absent)
+     */
+    public Uni<List<VepApiResponse>> annotate(List<String> notations, String species, AnnotationBackend backend) {
+        if (!singleFlightEnabled) {
+            return backend.annotate(notations, species);
+        }
+
+        Map<String, CompletableFuture<VepApiResponse>> lookups = new LinkedHashMap<>();
+        Map<String, CompletableFuture<VepApiResponse>> led = new HashMap<>();
+        List<String> leaderNotations = new ArrayList<>();
+        int joined = 0;
+
+        for (String notation : notations) {
+            String key = keyOf(notation, species);
+            if (lookups.containsKey(key)) {
+                continue;
+            }
+            CompletableFuture<VepApiResponse> lookup = new CompletableFuture<>();
+            CompletableFuture<VepApiResponse> existing = inFlight.putIfAbsent(key, lookup);
+            if (existing != null) {
+                lookups.put(key, existing);
+                joined++;
+            } else {
+                lookups.put(key, lookup);
+                led.put(key, lookup);
+                leaderNotations.add(notation);
+            }
+        }
+
+        if (joined > 0) {
+            savedCalls.increment(joined);
+            LOG.debugf("Joined %d in-flight VEP lookups, sending %d new notations", joined, leaderNotations.size());
+        }
+
+        if (!leaderNotations.isEmpty()) {
+            // Subscribed eagerly: followers depend on this call even if this caller goes away
+            backend.annotate(leaderNotations, species).subscribe().with(
+                responses -> completeLeaders(led, responses, species),
+                failure -> failLeaders(led, failure));
+        }
+
+        List<CompletableFuture<VepApiResponse>> pending = new ArrayList<>(lookups.values());
+        return Uni.createFrom().completionStage(() -> CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])))
+            .map(ignored -> {
+                List<VepApiResponse> responses = new ArrayList<>(pending.size());
+                for (CompletableFuture<VepApiResponse> lookup : pending) {
+                    VepApiResponse response = lookup.join();
+                    if (response != null) {
+                        responses.add(response);
+                    }
+                }
+                return responses;
+            });
+    }
+
+    private void completeLeaders(Map<String, CompletableFuture<VepApiResponse>> led,
+                                 List<VepApiResponse> responses, String species) {
+        Map<String, VepApiResponse> responsesByKey = new HashMap<>();
+        for (VepApiResponse response : responses) {
+            if (response != null && response.getInput() != null) {
+                responsesByKey.putIfAbsent(keyOf(response.getInput(), species), response);
+            }
+        }
+        led.forEach((key, lookup) -> {
+            lookup.complete(responsesByKey.get(key));
+            inFlight.remove(key, lookup);
+        });
+    }
+
+    private void failLeaders(Map<String, CompletableFuture<VepApiResponse>> led, Throwable failure) {
+        led.forEach((key, lookup) -> {
+            lookup.completeExceptionally(failure);
+            inFlight.remove(key, lookup);
+        });
+    }
+
+    private static String keyOf(String notation, String species) {
+        return species + "|" + VepHgvsRequest.normalizeNotation(notation);
+    }
+}
@@ -0,0 +1,192 @@
+package com.redhat.healthcare.vep;
+
+import io.cloudevents.CloudEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.transactions.KafkaTransactions;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.jboss.logging.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Exactly-once consume-annotate-produce for normal mode: genetic-data-raw → genetic-data-annotated
+ *
+ * WHY TRANSACTIONS:
+ * - The at-least-once channel commits input offsets after the results are acked: a KEDA
+ *   scale-in or rebalance between the two re-delivers records whose results were already
+ *   published (duplicates), and a result lost after its offset was committed is never retried
+ * - The WebSocket service cannot tell a duplicate from a new result
+ *
+ * HOW IT WORKS:
+ * Enabled with the exactly-once profile (QUARKUS_PROFILE=prod,exactly-once), which disables the
+ * genetic-data-raw channel and enables genetic-data-raw-tx on the same topic and group.
+ * Each polled batch (at most transaction-batch-size records, or what arrived within
+ * transaction-max-wait-ms) is annotated concurrently, like the at-least-once channel, except that
+ * the records of one session are annotated one after the other within the batch (their results
+ * are only acked when the transaction commits, so VepKeyOrderedScheduler cannot order them).
+ * Then one Kafka transaction publishes the results, moves failed records to their retry tier or
+ * the DLQ, and commits the batch offsets. An aborted transaction publishes nothing and the consumer is
+ * rewound to the last committed offsets, so the batch is processed again.
+ * Larger batches amortize the commit (fewer transactions per record) at the cost of latency:
+ * results only become visible to read_committed consumers when their transaction commits.
+ *
+ * METRICS (exposed at /q/metrics):
+ * - vep.transaction.commits / vep.transaction.aborts: committed and aborted batches
+ * - vep.transaction.records: records per transaction
+ * - vep.transaction.latency: from receiving the batch to the commit
+ */
+@ApplicationScoped
+public class VepTransactionalPipeline {
+
+    private static final Logger LOG = Logger.getLogger(VepTransactionalPipeline.class);
+
+    private static final String CHANNEL = "normal";
+
+    @Inject
+    VepAnnotationService annotationService;
+
+    @Inject
+    VepAdaptiveConcurrency adaptiveConcurrency;
+
+    @Inject
+    VepRetryRouter retryRouter;
+
+    @Inject
+    KafkaCloudEventCodec cloudEventCodec;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    @Channel("genetic-data-annotated-tx")
+    KafkaTransactions<byte[]> transactions;
+
+    @ConfigProperty(name = "healthcare.ml.vep.exactly-once.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "healthcare.ml.vep.exactly-once.transaction-batch-size", defaultValue = "100")
+    int transactionBatchSize;
+
+    @ConfigProperty(name = "healthcare.ml.vep.concurrency.normal", defaultValue = "64")
+    int normalMaxInFlight;
+
+    private int maxInFlight;
+    private Counter commits;
+    private Counter aborts;
+    private DistributionSummary recordsPerTransaction;
+    private Timer transactionLatency;
+
+    @PostConstruct
+    void init() {
+        commits = Counter.builder("vep.transaction.commits")
+                .description("Record batches whose results and offsets were committed in one transaction")
+                .register(meterRegistry);
+        aborts = Counter.builder("vep.transaction.aborts")
+                .description("Record batches whose transaction was aborted and will be processed again")
+                .register(meterRegistry);
+        recordsPerTransaction = DistributionSummary.builder("vep.transaction.records")
+                .description("Records per transaction")
+                .register(meterRegistry);
+        transactionLatency = Timer.builder("vep.transaction.latency")
+                .description("Time from receiving a record batch to committing its transaction")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        if (enabled) {
+            // Replaces the at-least-once normal channel, so the normal limiter follows this consumer's lag
+            maxInFlight = adaptiveConcurrency.register(CHANNEL, "genetic-data-raw-tx", normalMaxInFlight);
+            LOG.infof("🔒 Exactly-once normal mode enabled (transaction batch size: %d)", transactionBatchSize);
+        }
+    }
+
+    /**
+     * Annotates one polled batch and commits its results together with its offsets
+     */
+    @Incoming("genetic-data-raw-tx")
+    public Uni<Void> annotateInTransaction(Message<List<String>> batch) {
+        // Per-record messages keep each record's Kafka headers (CloudEvent ce_* headers) for the retry router
+        List<Message<String>> records = VepRecordBatch.records(batch);
+        long receivedNanos = System.nanoTime();
+
+        return outgoingRecords(records, this::outgoingRecord)
+            .chain(outgoing -> transactions.withTransactionAndAck(batch, emitter -> {
+                outgoing.forEach(emitter::send);
+                return Uni.createFrom().voidItem();
+            }))
+            .onItemOrFailure().invoke((ignored, failure) -> {
+                if (failure != null) {
+                    aborts.increment();
+                    LOG.warnf("🔒 Transaction of %d normal-mode records aborted, batch will be processed again: %s",
+                             records.size(), failure.getMessage());
+                    return;
+                }
+                commits.increment();
+                recordsPerTransaction.record(records.size());
+                transactionLatency.record(System.nanoTime() - receivedNanos, TimeUnit.NANOSECONDS);
+            });
+    }
+
+    /**
+     * Annotates the records of a batch: sessions concurrently, up to maxInFlight at a time, and
+     * the records of one session in order, so their results keep that order in the transaction.
+     * Records without a sessionId are not ordered against any other record.
+     * Batches are processed one at a time, so there is no order to keep across batches.
+     */
+    Uni<List<Message<byte[]>>> outgoingRecords(List<Message<String>> records,
+                                               Function<Message<String>, Uni<Message<byte[]>>> outgoing) {
+        Map<String, List<Message<String>>> sessions = new LinkedHashMap<>();
+        List<List<Message<String>>> unordered = new ArrayList<>();
+        for (Message<String> record : records) {
+            String key = VepAnnotationService.orderingKey(record.getPayload());
+            if (key != null) {
+                sessions.computeIfAbsent(key, ignored -> new ArrayList<>()).add(record);
+            } else {
+                unordered.add(List.of(record));
+            }
+        }
+        List<List<Message<String>>> groups = new ArrayList<>(sessions.values());
+        groups.addAll(unordered);
+
+        return Multi.createFrom().iterable(groups)
+            .onItem().transformToMulti(group -> Multi.createFrom().iterable(group)
+                .onItem().<Message<byte[]>>transformToUniAndConcatenate(outgoing::apply))
+            .merge(Math.max(1, maxInFlight))
+            .collect().asList();
+    }
+
+    /**
+     * The record to publish in the batch transaction: the annotated result, or for a failed record
+     * its retry tier / DLQ record (so it is rerouted exactly once as well); null when there is
+     * nothing to publish
+     */
+    private Uni<Message<byte[]>> outgoingRecord(Message<String> record) {
+        return annotationService.annotate(CHANNEL, record.getPayload())
+            .onItemOrFailure().transform((event, failure) -> outgoingRecord(record, event, failure));
+    }
+
+    Message<byte[]> outgoingRecord(Message<String> record, CloudEvent event, Throwable failure) {
+        if (failure != null) {
+            Message<String> retry = retryRouter.retryRecord(CHANNEL, record,
+                annotationService.extractSessionIdSafely(record.getPayload()), failure, System.currentTimeMillis());
+            return retry.withPayload(retry.getPayload().getBytes(StandardCharsets.UTF_8));
+        }
+        return event != null ? cloudEventCodec.encode(record, event) : null;
+    }
+}
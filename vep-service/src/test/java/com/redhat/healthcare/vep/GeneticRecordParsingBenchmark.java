@@ -0,0 +1,117 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing cost of incoming genetic records: JsonNode tree vs GeneticRecordReader
+ *
+ * Each operation reads one structured CloudEvent (the envelope the WebSocket service used to send)
+ * from the record value String into the sequence, sessionId and processing_mode, before and after
+ * the change. sequenceKb is the sequence length in thousands of bases (1 KB to 50 MB); the
+ * sequence is plain text or 2bit-v1 packed.
+ * The tree baseline uses the same raised string limit as the reader: with Jackson's default
+ * (20M chars) it cannot read plain-text sequences above 20 MB at all.
+ *
+ * RUN:
+ *   mvn -Pbenchmark test -Dbenchmark.include=GeneticRecordParsingBenchmark
+ *
+ * The gc profiler reports gc.alloc.rate.norm = bytes allocated per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class GeneticRecordParsingBenchmark {
+
+    @Param({"1", "64", "1024", "10240", "51200"})
+    int sequenceKb;
+
+    @Param({"text", "packed"})
+    String encoding;
+
+    private final ObjectMapper objectMapper = new ObjectMapper(JsonFactory.builder()
+        .streamReadConstraints(StreamReadConstraints.builder().maxStringLength(GeneticRecordReader.MAX_STRING_LENGTH).build())
+        .build());
+    private final KafkaCloudEventCodec cloudEventCodec = new KafkaCloudEventCodec();
+    private final PackedSequenceCodec sequenceCodec = new PackedSequenceCodec();
+    private final GeneticRecordReader recordReader = new GeneticRecordReader();
+    private String recordValue;
+
+    @Setup
+    public void setUp() throws Exception {
+        cloudEventCodec.objectMapper = objectMapper;
+        recordReader.objectMapper = objectMapper;
+        recordValue = structuredRecord(objectMapper, sequence(sequenceKb * 1024), "packed".equals(encoding));
+    }
+
+    /**
+     * Before: parse the whole record into a tree, then read the fields from the data node
+     */
+    @Benchmark
+    public void treeParse(Blackhole blackhole) throws Exception {
+        JsonNode data = cloudEventCodec.readData(recordValue);
+        blackhole.consume(sequenceCodec.readSequence(data));
+        blackhole.consume(data.path("sessionId").asText("unknown"));
+        blackhole.consume(data.path("processing_mode").asText("normal"));
+    }
+
+    /**
+     * After: one streaming pass keeping only the used fields
+     */
+    @Benchmark
+    public void streamingRead(Blackhole blackhole) throws Exception {
+        blackhole.consume(recordReader.read(recordValue));
+    }
+
+    static String structuredRecord(ObjectMapper objectMapper, String sequence, boolean packed) throws Exception {
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("sessionId", "benchmark-session");
+        data.put("processing_mode", "big-data");
+        data.put("timestamp", System.currentTimeMillis());
+        if (packed) {
+            data.put(PackedSequenceCodec.ENCODING_FIELD, PackedSequenceCodec.ENCODING);
+            data.put(PackedSequenceCodec.PACKED_FIELD, PackedSequenceCodec.pack(sequence));
+        } else {
+            data.put(PackedSequenceCodec.TEXT_FIELD, sequence);
+        }
+
+        ObjectNode event = objectMapper.createObjectNode();
+        event.put("specversion", "1.0");
+        event.put("id", "benchmark-event");
+        event.put("source", "/genetic-simulator/websocket");
+        event.put("type", "com.redhat.healthcare.genetic.sequence.raw");
+        event.put("datacontenttype", "application/json");
+        event.set("data", data);
+        return objectMapper.writeValueAsString(event);
+    }
+
+    private static String sequence(int length) {
+        StringBuilder sequence = new StringBuilder(length);
+        String bases = "ATCG";
+        for (int i = 0; i < length; i++) {
+            // Deterministic, non-repeating enough that packing sees realistic input
+            sequence.append(bases.charAt((i * 7 + i / 13) & 3));
+        }
+        return sequence.toString();
+    }
+}
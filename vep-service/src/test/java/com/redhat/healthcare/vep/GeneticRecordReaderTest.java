@@ -0,0 +1,91 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the single-pass read of incoming genetic records in both CloudEvents encodings
+ */
+@QuarkusTest
+public class GeneticRecordReaderTest {
+
+    @Inject
+    GeneticRecordReader recordReader;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Test
+    void testBinaryModeValue() throws Exception {
+        GeneticSequenceData data = recordReader.read(
+            "{\"sessionId\":\"s1\",\"processing_mode\":\"big-data\",\"genetic_sequence\":\"ATCGATCG\",\"extra\":{\"nested\":[1,2]}}");
+
+        assertEquals("s1", data.getSequenceId());
+        assertEquals("big-data", data.getProcessingMode());
+        assertEquals("ATCGATCG", data.getSequence());
+        assertEquals("cloudevent", data.getSource());
+        assertFalse(data.isChunk());
+    }
+
+    @Test
+    void testStructuredEnvelopeIgnoresEnvelopeAttributes() throws Exception {
+        String structured = "{\"specversion\":\"1.0\",\"id\":\"1\",\"sessionId\":\"envelope\","
+            + "\"type\":\"com.redhat.healthcare.genetic.sequence.raw\","
+            + "\"data\":{\"sessionId\":\"s2\",\"genetic_sequence\":\"GATTACA\"}}";
+
+        GeneticSequenceData data = recordReader.read(structured);
+
+        assertEquals("s2", data.getSequenceId());
+        assertEquals("normal", data.getProcessingMode());
+        assertEquals("GATTACA", data.getSequence());
+    }
+
+    @Test
+    void testPackedSequenceInBase64Data() throws Exception {
+        String sequence = "ATCGNNNNGATTACARY";
+        ObjectNode eventData = objectMapper.createObjectNode();
+        eventData.put("sessionId", "s3");
+        eventData.put(PackedSequenceCodec.ENCODING_FIELD, PackedSequenceCodec.ENCODING);
+        eventData.put(PackedSequenceCodec.PACKED_FIELD, PackedSequenceCodec.pack(sequence));
+        String structured = "{\"specversion\":\"1.0\",\"data_base64\":\""
+            + Base64.getEncoder().encodeToString(objectMapper.writeValueAsString(eventData).getBytes(StandardCharsets.UTF_8))
+            + "\"}";
+
+        GeneticSequenceData data = recordReader.read(structured);
+
+        assertEquals("s3", data.getSequenceId());
+        assertEquals(sequence, data.getSequence());
+    }
+
+    @Test
+    void testChunkFields() throws Exception {
+        GeneticSequenceData data = recordReader.read("{\"sessionId\":\"s4\",\"genetic_sequence\":\"ATCG\","
+            + "\"chunk_index\":2,\"chunk_count\":5,\"chunk_offset\":2000000,\"chunk_overlap\":100,"
+            + "\"total_sequence_length\":5000000}");
+
+        assertTrue(data.isChunk());
+        assertEquals(2, data.getChunkIndex());
+        assertEquals(5, data.getChunkCount());
+        assertEquals(2_000_000L, data.getChunkOffset());
+        assertEquals(4, data.getChunkOverlap(), "Overlap is capped at the chunk length");
+        assertEquals(5_000_000L, data.getTotalSequenceLength());
+    }
+
+    @Test
+    void testRecordsWithoutSequenceAreRejected() {
+        assertThrows(IOException.class, () -> recordReader.read("ATCGATCG"));
+        assertThrows(IOException.class, () -> recordReader.read("{\"sessionId\":\"s5\"}"));
+        assertThrows(IOException.class, () -> recordReader.read("{\"specversion\":\"1.0\",\"id\":\"1\"}"));
+        assertThrows(IOException.class, () -> recordReader.read(
+            "{\"sequence_encoding\":\"4bit\",\"genetic_sequence_packed\":\"AAAA\"}"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that record values are read in both CloudEvents content modes during a rolling migration
+ */
+@QuarkusTest
+public class KafkaCloudEventCodecTest {
+
+    private static final String DATA = "{\"sessionId\":\"session-1\",\"genetic_sequence\":\"ATCGATCG\"}";
+
+    @Inject
+    KafkaCloudEventCodec codec;
+
+    @Test
+    void testBinaryModeValueIsTheData() throws Exception {
+        JsonNode data = codec.readData(DATA);
+
+        assertEquals("session-1", data.get("sessionId").asText());
+        assertEquals("ATCGATCG", data.get("genetic_sequence").asText());
+    }
+
+    @Test
+    void testStructuredModeEnvelopeIsUnwrapped() throws Exception {
+        String structured = "{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"/healthcare-ml/frontend\","
+            + "\"type\":\"com.redhat.healthcare.genetic.sequence.raw\",\"datacontenttype\":\"application/json\","
+            + "\"sessionid\":\"ignored\",\"data\":" + DATA + "}";
+
+        JsonNode data = codec.readData(structured);
+
+        assertEquals("session-1", data.get("sessionId").asText());
+        assertFalse(data.has("specversion"));
+    }
+
+    @Test
+    void testStructuredModeBase64DataIsDecoded() throws Exception {
+        String encoded = Base64.getEncoder().encodeToString(DATA.getBytes(StandardCharsets.UTF_8));
+        String structured = "{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"/test\",\"type\":\"test\","
+            + "\"data_base64\":\"" + encoded + "\"}";
+
+        assertEquals("ATCGATCG", codec.readData(structured).get("genetic_sequence").asText());
+    }
+}
@@ -0,0 +1,224 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publish benchmark for the Kafka producer profiles (KafkaProducerProfiles)
+ *
+ * Each trial publishes one kind of record value with one profile from application.properties,
+ * from 8 concurrent publishers that do not wait for acks (like the reactive messaging emitters),
+ * so linger and batching take effect. Payloads:
+ * - sequence: raw record data of a 50,000-base chunk, sequence packed as the WebSocket service sends it
+ * - big-sequence: raw record data of a 1,000,000-base sequence
+ * - annotation: VEP JSON of 20 variants with 5 transcripts each
+ *
+ * REPORTED PER PROFILE:
+ * - publish (ops/s) and valueBytes (bytes/s): records and uncompressed value bytes acked per second
+ * - per measurement iteration, printed: p50/p99 publish latency (send until broker ack), network
+ *   bytes/sec sent by the producer and its average compression rate
+ *
+ * RUN (needs a broker):
+ *   podman-compose -f podman-compose.test.yml up -d zookeeper kafka
+ *   mvn -Pbenchmark test -Dbenchmark.include=KafkaProducerProfileBenchmark [-Dkafka.bootstrap.servers=localhost:9092]
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(1)
+public class KafkaProducerProfileBenchmark {
+
+    static final String TOPIC = "producer-profile-benchmark";
+
+    @Param({"latency", "throughput", "big-data"})
+    String profile;
+
+    @Param({"sequence", "big-sequence", "annotation"})
+    String payload;
+
+    private KafkaProducer<byte[], byte[]> producer;
+    private byte[] value;
+
+    // Publish latencies of the current iteration (nanoseconds), appended from the producer's I/O thread
+    private long[] latencies = new long[1 << 16];
+    private int latencyCount;
+    private long iterationStart;
+    private double networkBytesAtStart;
+
+    /**
+     * Value bytes acked, reported by JMH as a rate next to the records per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class PublishedBytes {
+        public long valueBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Map<String, Object> config = new HashMap<>(KafkaProducerProfiles.profile(profile, applicationProperties()));
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, System.getProperty("kafka.bootstrap.servers", "localhost:9092"));
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        producer = new KafkaProducer<>(config);
+        value = recordValue(payload);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        producer.flush();
+        synchronized (this) {
+            latencyCount = 0;
+        }
+        networkBytesAtStart = producerMetric("outgoing-byte-total");
+        iterationStart = System.nanoTime();
+    }
+
+    @Benchmark
+    public void publish(PublishedBytes published) {
+        long sent = System.nanoTime();
+        producer.send(new ProducerRecord<>(TOPIC, value), (metadata, failure) -> {
+            if (failure == null) {
+                recordLatency(System.nanoTime() - sent);
+            }
+        });
+        published.valueBytes += value.length;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportIteration() {
+        producer.flush();
+        double seconds = (System.nanoTime() - iterationStart) / 1e9;
+        double networkBytesPerSecond = (producerMetric("outgoing-byte-total") - networkBytesAtStart) / seconds;
+
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(sorted);
+        System.out.printf("%n[%s/%s] %d acked, p50 %.2f ms, p99 %.2f ms, network %.1f MB/s, compression rate %.3f%n",
+            profile, payload, sorted.length, percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99),
+            networkBytesPerSecond / (1024 * 1024), producerMetric("compression-rate-avg"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        producer.close();
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[latencyCount++] = nanos;
+    }
+
+    private double producerMetric(String name) {
+        for (Map.Entry<MetricName, ? extends Metric> metric : producer.metrics().entrySet()) {
+            if (metric.getKey().name().equals(name) && metric.getKey().group().equals("producer-metrics")) {
+                Object metricValue = metric.getValue().metricValue();
+                return metricValue instanceof Number ? ((Number) metricValue).doubleValue() : 0;
+            }
+        }
+        return 0;
+    }
+
+    static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * The service configuration, so the benchmark measures the profiles that are deployed
+     * (src/main/resources, with src/test/resources on top as in the test classpath)
+     */
+    static Map<String, String> applicationProperties() throws IOException {
+        List<URL> resources = Collections.list(
+            KafkaProducerProfileBenchmark.class.getClassLoader().getResources("application.properties"));
+        Collections.reverse(resources);
+
+        Map<String, String> values = new HashMap<>();
+        for (URL resource : resources) {
+            Properties properties = new Properties();
+            try (InputStream in = resource.openStream()) {
+                properties.load(in);
+            }
+            properties.stringPropertyNames().forEach(name -> values.put(name, properties.getProperty(name)));
+        }
+        return values;
+    }
+
+    static byte[] recordValue(String payload) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        switch (payload) {
+            case "sequence":
+                return sequenceRecord(objectMapper, 50_000);
+            case "big-sequence":
+                return sequenceRecord(objectMapper, 1_000_000);
+            case "annotation":
+                return VepResponseParsingBenchmark.ensemblResponse(20, 5).getBytes(StandardCharsets.UTF_8);
+            default:
+                throw new IllegalArgumentException("Unknown payload " + payload);
+        }
+    }
+
+    private static byte[] sequenceRecord(ObjectMapper objectMapper, int bases) throws IOException {
+        Random random = new Random(42);
+        char[] symbols = {'A', 'C', 'G', 'T'};
+        StringBuilder sequence = new StringBuilder(bases);
+        for (int i = 0; i < bases; i++) {
+            sequence.append(symbols[random.nextInt(symbols.length)]);
+        }
+
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("sessionId", "api-session-benchmark");
+        data.put("userId", "demo-user-benchmark");
+        data.put("processing_mode", "big-data");
+        data.put("resource_profile", "high-memory");
+        data.put("timestamp", System.currentTimeMillis());
+        data.put(PackedSequenceCodec.ENCODING_FIELD, PackedSequenceCodec.ENCODING);
+        data.put(PackedSequenceCodec.PACKED_FIELD, PackedSequenceCodec.pack(sequence));
+        data.put("sequence_length", bases);
+        return objectMapper.writeValueAsBytes(data);
+    }
+}
@@ -0,0 +1,90 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the offline consequence engine against the bundled GTF subset
+ */
+@QuarkusTest
+public class LocalConsequenceBackendTest {
+
+    private LocalConsequenceBackend backend;
+
+    @BeforeEach
+    void loadTable() throws Exception {
+        backend = new LocalConsequenceBackend();
+        try (InputStream gtf = getClass().getClassLoader()
+                .getResourceAsStream(LocalConsequenceBackend.DEFAULT_GTF_RESOURCE)) {
+            assertNotNull(gtf, "Bundled GTF subset should be on the classpath");
+            backend.loadTable(gtf);
+        }
+    }
+
+    @Test
+    void testCodingSnvInKnownGene() {
+        // BRAF V600E hotspot (fallback notation of SequenceToHgvsConverter)
+        VepApiResponse response = backend.predict("7:g.140753336A>T");
+
+        assertNotNull(response);
+        assertEquals("7:g.140753336A>T", response.getInput());
+        assertEquals("coding_sequence_variant", response.getMostSevereConsequence());
+        assertEquals("SNV", response.getVariantClass());
+        TranscriptConsequence consequence = response.getTranscriptConsequences().get(0);
+        assertEquals("BRAF", consequence.getGeneSymbol());
+        assertEquals("ENST00000288602", consequence.getTranscriptId());
+        // BRAF is on the reverse strand
+        assertEquals("A", consequence.getVariantAllele());
+    }
+
+    @Test
+    void testCodingIndelsAreFrameshiftOrInframe() {
+        assertEquals("frameshift_variant", backend.predict("17:g.43094692_43094693del").getMostSevereConsequence());
+        assertEquals("inframe_deletion", backend.predict("13:g.32339832_32339834del").getMostSevereConsequence());
+        assertEquals("frameshift_variant", backend.predict("13:g.32339832_32339833insA").getMostSevereConsequence());
+        assertEquals("HIGH", backend.predict("17:g.43094692_43094693del")
+            .getTranscriptConsequences().get(0).getImpact());
+    }
+
+    @Test
+    void testSpliceIntronAndFlankingTerms() {
+        // BRAF exon 15 spans 140753275-140753393 on the reverse strand
+        assertEquals("splice_donor_variant", backend.predict("7:g.140753273G>A").getMostSevereConsequence());
+        assertEquals("splice_acceptor_variant", backend.predict("7:g.140753395G>A").getMostSevereConsequence());
+        assertEquals("splice_region_variant", backend.predict("7:g.140753400G>A").getMostSevereConsequence());
+        assertEquals("intron_variant", backend.predict("7:g.140760000G>A").getMostSevereConsequence());
+        // 1kb beyond the 3' end of BRCA2 (forward strand)
+        assertEquals("downstream_gene_variant", backend.predict("13:g.32401266G>A").getMostSevereConsequence());
+    }
+
+    @Test
+    void testTranscriptNotationIsMappedToGenome() {
+        VepApiResponse response = backend.predict("ENST00000357654:c.1A>G");
+
+        assertNotNull(response);
+        assertEquals("17", response.getSeqRegionName());
+        // BRCA1 CDS starts at 43124096 on the reverse strand
+        assertEquals(43124096, response.getStart());
+        assertEquals("T/C", response.getAlleleString());
+        assertEquals("coding_sequence_variant", response.getMostSevereConsequence());
+    }
+
+    @Test
+    void testUnknownPositionsAndTranscripts() {
+        VepApiResponse intergenic = backend.predict("2:g.50000000C>T");
+        assertEquals("intergenic_variant", intergenic.getMostSevereConsequence());
+        assertTrue(intergenic.getTranscriptConsequences() == null || intergenic.getTranscriptConsequences().isEmpty());
+
+        assertNull(backend.predict("ENST00000000001:c.100A>G"), "Unknown transcripts cannot be annotated locally");
+        assertNull(backend.predict("not-a-notation"));
+
+        List<VepApiResponse> mouse = backend.annotate(List.of("7:g.140753336A>T"), "mouse").await().indefinitely();
+        assertTrue(mouse.isEmpty(), "The bundled table only covers human GRCh38");
+    }
+}
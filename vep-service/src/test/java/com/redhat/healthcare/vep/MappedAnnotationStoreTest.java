@@ -0,0 +1,71 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the memory-mapped tier of the VEP annotation cache
+ */
+@QuarkusTest
+public class MappedAnnotationStoreTest {
+
+    private static final long ONE_HOUR = 3600_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEntriesSurviveReopen() throws Exception {
+        Path file = tempDir.resolve("annotations.db");
+        byte[] value = "{\"input\":\"17:g.43094692G>A\"}".getBytes(StandardCharsets.UTF_8);
+
+        try (MappedAnnotationStore store = MappedAnnotationStore.open(file, 128, 512)) {
+            assertEquals(MappedAnnotationStore.PutResult.STORED, store.put("human|17:g.43094692G>A", value));
+        }
+
+        // Simulates a pod restart with the cache file on a mounted volume
+        try (MappedAnnotationStore reopened = MappedAnnotationStore.open(file, 128, 512)) {
+            assertArrayEquals(value, reopened.get("human|17:g.43094692G>A", ONE_HOUR));
+            assertNull(reopened.get("human|13:g.32339832T>C", ONE_HOUR));
+        }
+    }
+
+    @Test
+    void testExpiredEntriesAreMisses() throws Exception {
+        try (MappedAnnotationStore store = MappedAnnotationStore.open(tempDir.resolve("ttl.db"), 128, 512)) {
+            store.put("human|7:g.140753336A>T", "{}".getBytes(StandardCharsets.UTF_8));
+            Thread.sleep(5);
+
+            assertNull(store.get("human|7:g.140753336A>T", 1));
+        }
+    }
+
+    @Test
+    void testOversizedValuesAreRejected() throws Exception {
+        try (MappedAnnotationStore store = MappedAnnotationStore.open(tempDir.resolve("small.db"), 16, 64)) {
+            byte[] largeValue = new byte[128];
+
+            assertEquals(MappedAnnotationStore.PutResult.TOO_LARGE, store.put("human|1:g.1A>T", largeValue));
+            assertNull(store.get("human|1:g.1A>T", ONE_HOUR));
+        }
+    }
+
+    @Test
+    void testCollidingKeysEvictEachOther() throws Exception {
+        // A single slot forces every key into the same place
+        try (MappedAnnotationStore store = MappedAnnotationStore.open(tempDir.resolve("one-slot.db"), 1, 512)) {
+            store.put("human|17:g.43094692G>A", "{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(MappedAnnotationStore.PutResult.EVICTED,
+                store.put("human|13:g.32339832T>C", "{\"b\":2}".getBytes(StandardCharsets.UTF_8)));
+            assertNull(store.get("human|17:g.43094692G>A", ONE_HOUR));
+            assertNotNull(store.get("human|13:g.32339832T>C", ONE_HOUR));
+        }
+    }
+}
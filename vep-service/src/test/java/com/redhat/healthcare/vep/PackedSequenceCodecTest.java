@@ -0,0 +1,81 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the 2-bit packed genetic_sequence encoding and its coexistence with plain text
+ */
+@QuarkusTest
+public class PackedSequenceCodecTest {
+
+    @Inject
+    PackedSequenceCodec codec;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Test
+    void testRoundTripWithExceptionRuns() {
+        // Length not a multiple of four, a run of N and isolated IUPAC / lowercase symbols
+        String sequence = "ATCGNNNNNNNNNNGATTACARYacgT";
+
+        byte[] packed = PackedSequenceCodec.pack(sequence);
+
+        assertEquals(sequence, PackedSequenceCodec.unpack(packed));
+        assertEquals("", PackedSequenceCodec.unpack(PackedSequenceCodec.pack("")));
+    }
+
+    @Test
+    void testPackedSequenceIsAQuarterOfTheText() throws Exception {
+        String sequence = "ATCG".repeat(250_000) + "N".repeat(1_000);
+
+        byte[] packed = PackedSequenceCodec.pack(sequence);
+        assertTrue(packed.length < sequence.length() / 4 + 32, "Packed size: " + packed.length);
+
+        ObjectNode data = objectMapper.createObjectNode();
+        codec.writeSequence(data, sequence);
+        String json = objectMapper.writeValueAsString(data);
+        assertTrue(json.length() < sequence.length() / 2, "JSON size: " + json.length());
+        assertEquals(sequence, codec.readSequence(objectMapper.readTree(json)));
+    }
+
+    @Test
+    void testSequencesThatDoNotPackSmallerStayText() throws Exception {
+        // Free text, scattered IUPAC codes (a 9-byte run each) and a symbol above U+00FF
+        for (String sequence : new String[]{"hello world, not a sequence", "ARCYGKTMASCWGBTD".repeat(100), "ATCG→ATCG", ""}) {
+            ObjectNode data = objectMapper.createObjectNode();
+            codec.writeSequence(data, sequence);
+
+            assertEquals(sequence, data.path(PackedSequenceCodec.TEXT_FIELD).asText(), "Written as text: " + sequence);
+            assertFalse(data.has(PackedSequenceCodec.PACKED_FIELD));
+            assertEquals(sequence, codec.readSequence(data));
+        }
+
+        assertEquals(-1, PackedSequenceCodec.packedSize("ATCG→"));
+        String mixed = "ATCGNNNNNNNNNNGATTACARYacgT";
+        assertEquals(PackedSequenceCodec.pack(mixed).length, PackedSequenceCodec.packedSize(mixed));
+    }
+
+    @Test
+    void testPlainTextSequenceIsStillRead() throws Exception {
+        JsonNode legacy = objectMapper.readTree("{\"sessionId\":\"s1\",\"genetic_sequence\":\"ATCGATCG\"}");
+
+        assertEquals("ATCGATCG", codec.readSequence(legacy));
+        assertNull(codec.readSequence(objectMapper.readTree("{\"sessionId\":\"s1\"}")));
+    }
+
+    @Test
+    void testCorruptPackedSequenceIsRejected() {
+        byte[] packed = PackedSequenceCodec.pack("ATCGATCG");
+        packed[0] = 2;
+
+        assertThrows(IllegalArgumentException.class, () -> PackedSequenceCodec.unpack(packed));
+    }
+}
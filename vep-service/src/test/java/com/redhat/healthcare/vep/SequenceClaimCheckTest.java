@@ -0,0 +1,74 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that big sequences travel as blob references and are verified when fetched
+ * (test threshold: 64 bases, see src/test/resources/application.properties)
+ */
+@QuarkusTest
+public class SequenceClaimCheckTest {
+
+    @Inject
+    SequenceClaimCheck claimCheck;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Test
+    void testBigSequenceTravelsAsReference() throws Exception {
+        String sequence = "ATCGNNNNGATTACA".repeat(100);
+
+        ObjectNode data = objectMapper.createObjectNode();
+        claimCheck.writeSequence(data, sequence);
+        String json = objectMapper.writeValueAsString(data);
+
+        assertTrue(json.length() < 300, "Only the reference must be in the payload: " + json);
+        assertFalse(data.has("genetic_sequence"));
+        assertFalse(data.has("genetic_sequence_packed"));
+
+        JsonNode received = objectMapper.readTree(json);
+        assertTrue(claimCheck.hasReference(json));
+        assertEquals(sequence, claimCheck.readSequence(received));
+    }
+
+    @Test
+    void testSmallSequenceStaysInline() throws Exception {
+        ObjectNode data = objectMapper.createObjectNode();
+        claimCheck.writeSequence(data, "ATCGATCG");
+
+        assertFalse(data.has(SequenceClaimCheck.REF_FIELD));
+        assertEquals("ATCGATCG", claimCheck.readSequence(data));
+    }
+
+    @Test
+    void testTamperedBlobIsRejected() throws Exception {
+        ObjectNode data = objectMapper.createObjectNode();
+        claimCheck.writeSequence(data, "GATTACA".repeat(50));
+
+        String sha256 = data.get(SequenceClaimCheck.REF_FIELD).get("sha256").asText();
+        Path blob = Paths.get(System.getProperty("java.io.tmpdir"), "vep-claim-check-test",
+                              sha256.substring(0, 2), sha256);
+        byte[] content = Files.readAllBytes(blob);
+        content[content.length - 1] ^= 0x55;
+        Files.write(blob, content);
+
+        try {
+            assertThrows(IOException.class, () -> claimCheck.readSequence(data));
+        } finally {
+            Files.delete(blob);
+        }
+    }
+}
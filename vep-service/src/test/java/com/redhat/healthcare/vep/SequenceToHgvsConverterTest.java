@@ -122,6 +122,21 @@ public class SequenceToHgvsConverterTest {
         System.out.println("Density ratio: " + (400.0 / variantCount) + " bp per variant");
     }
 
+    @Test
+    void testChunkOverlapIsNotCalledTwice() {
+        // A 20KB chunk whose first 19999 bases were covered by the previous chunk
+        String chunk = "ATCG".repeat(5000);
+
+        List<String> wholeChunk = converter.convertSequenceToHgvs(chunk, 0, sessionId);
+        List<String> afterOverlap = converter.convertSequenceToHgvs(chunk, chunk.length() - 1, sessionId);
+        List<String> onlyOverlap = converter.convertSequenceToHgvs(chunk, chunk.length(), sessionId);
+
+        // Variant density only counts the bases after the overlap
+        assertTrue(wholeChunk.size() >= 10, "20KB of new bases should yield ~20 variants");
+        assertEquals(1, afterOverlap.size(), "One new base should yield a single variant");
+        assertTrue(onlyOverlap.isEmpty(), "A chunk without new bases must not report variants");
+    }
+
     @Test
     void testSessionIdHandling() {
         // Test that session ID is properly handled
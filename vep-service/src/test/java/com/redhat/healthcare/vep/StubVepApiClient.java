@@ -0,0 +1,63 @@
+package com.redhat.healthcare.vep;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process VepApiClient for unit tests: answers every notation after latencyMs,
+ * in reverse order so that callers cannot rely on response position
+ */
+class StubVepApiClient implements VepApiClient {
+
+    final List<List<String>> calls = new CopyOnWriteArrayList<>();
+    final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    volatile long latencyMs;
+
+    @Override
+    public CompletionStage<List<VepApiResponse>> annotateVariantsAsync(VepHgvsRequest request, String species) {
+        calls.add(List.copyOf(request.getHgvsNotations()));
+        Throwable failure = failures.poll();
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        List<VepApiResponse> responses = new ArrayList<>();
+        for (String notation : request.getHgvsNotations()) {
+            VepApiResponse response = new VepApiResponse();
+            response.setInput(notation);
+            responses.add(response);
+        }
+        Collections.reverse(responses);
+        if (latencyMs <= 0) {
+            return CompletableFuture.completedFuture(responses);
+        }
+        return CompletableFuture.supplyAsync(() -> responses,
+            CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public List<VepApiResponse> annotateVariants(VepHgvsRequest request, String species) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletionStage<byte[]> annotateVariantsRawAsync(VepHgvsRequest request, String species) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public VepServiceInfo getServiceInfo(String species) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String ping() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,175 @@
+package com.redhat.healthcare.vep;
+
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the exactly-once profile (VepTransactionalPipeline) against at-least-once publishing
+ *
+ * Each invocation publishes one batch of annotated results (VEP JSON of 20 variants with
+ * 5 transcripts each) with the throughput producer profile, as the VEP service does per polled batch:
+ * - at-least-once: send the batch and wait for every broker ack (offsets are committed
+ *   asynchronously afterwards, off the critical path)
+ * - exactly-once: begin a transaction, send the batch, add the batch offsets of the input
+ *   partition to the transaction and commit it
+ * batchSize is healthcare.ml.vep.exactly-once.transaction-batch-size.
+ *
+ * REPORTED PER DELIVERY AND BATCH SIZE:
+ * - publishBatch (ops/s) and records (records/s)
+ * - per measurement iteration, printed: p50/p99 batch latency (first send until acked / committed),
+ *   which is how long results wait before read_committed consumers see them
+ *
+ * RUN (needs a broker with transactions, e.g. a single broker with
+ * transaction.state.log.replication.factor=1 and transaction.state.log.min.isr=1):
+ *   podman-compose -f podman-compose.test.yml up -d zookeeper kafka
+ *   mvn -Pbenchmark test -Dbenchmark.include=TransactionalPublishBenchmark [-Dkafka.bootstrap.servers=localhost:9092]
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(1)
+@Fork(1)
+public class TransactionalPublishBenchmark {
+
+    static final String TOPIC = "transactional-publish-benchmark";
+    static final String INPUT_TOPIC = "transactional-publish-benchmark-input";
+    static final String GROUP = "transactional-publish-benchmark-group";
+
+    @Param({"at-least-once", "exactly-once"})
+    String delivery;
+
+    @Param({"1", "10", "100", "500"})
+    int batchSize;
+
+    private KafkaProducer<byte[], byte[]> producer;
+    private byte[] value;
+    private boolean transactional;
+    private TopicPartition inputPartition;
+    private ConsumerGroupMetadata groupMetadata;
+    private long inputOffset;
+
+    // Batch latencies of the current iteration (nanoseconds)
+    private long[] latencies = new long[1 << 12];
+    private int latencyCount;
+
+    /**
+     * Published records, reported by JMH as a rate next to the batches per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class PublishedRecords {
+        public long records;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        transactional = "exactly-once".equals(delivery);
+
+        Map<String, Object> config = new HashMap<>(KafkaProducerProfiles.profile("throughput",
+            KafkaProducerProfileBenchmark.applicationProperties()));
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, System.getProperty("kafka.bootstrap.servers", "localhost:9092"));
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        if (transactional) {
+            config.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, "transactional-publish-benchmark-" + UUID.randomUUID());
+        }
+        producer = new KafkaProducer<>(config);
+        value = VepResponseParsingBenchmark.ensemblResponse(20, 5).getBytes(StandardCharsets.UTF_8);
+
+        if (transactional) {
+            producer.initTransactions();
+            // Creates the input topic whose offsets every transaction commits
+            producer.beginTransaction();
+            producer.send(new ProducerRecord<>(INPUT_TOPIC, value));
+            producer.commitTransaction();
+            inputPartition = new TopicPartition(INPUT_TOPIC, 0);
+            groupMetadata = new ConsumerGroupMetadata(GROUP);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        latencyCount = 0;
+    }
+
+    @Benchmark
+    public void publishBatch(PublishedRecords published) throws Exception {
+        long started = System.nanoTime();
+        if (transactional) {
+            producer.beginTransaction();
+            for (int i = 0; i < batchSize; i++) {
+                producer.send(new ProducerRecord<>(TOPIC, value));
+            }
+            inputOffset += batchSize;
+            producer.sendOffsetsToTransaction(Map.of(inputPartition, new OffsetAndMetadata(inputOffset)), groupMetadata);
+            producer.commitTransaction();
+        } else {
+            List<Future<RecordMetadata>> acks = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                acks.add(producer.send(new ProducerRecord<>(TOPIC, value)));
+            }
+            for (Future<RecordMetadata> ack : acks) {
+                ack.get();
+            }
+        }
+        recordLatency(System.nanoTime() - started);
+        published.records += batchSize;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportIteration() {
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        System.out.printf("%n[%s/%d] %d batches, p50 %.2f ms, p99 %.2f ms%n",
+            delivery, batchSize, sorted.length,
+            KafkaProducerProfileBenchmark.percentileMillis(sorted, 0.50),
+            KafkaProducerProfileBenchmark.percentileMillis(sorted, 0.99));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        producer.close();
+    }
+
+    private void recordLatency(long nanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[latencyCount++] = nanos;
+    }
+}
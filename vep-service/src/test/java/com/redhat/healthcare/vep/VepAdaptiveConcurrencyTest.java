@@ -0,0 +1,174 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the AIMD rule of the per-channel in-flight limit
+ */
+@QuarkusTest
+public class VepAdaptiveConcurrencyTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Inject
+    VepAdaptiveConcurrency settings;
+
+    @Test
+    void testPermitsBoundInFlightRecords() {
+        VepAdaptiveConcurrency.ChannelLimiter limiter = limiter(2);
+        assertTrue(limiter.acquire().isDone());
+        assertTrue(limiter.acquire().isDone());
+
+        CompletableFuture<Void> third = limiter.acquire();
+        assertFalse(third.isDone(), "A record beyond the limit must wait");
+        assertEquals(1, limiter.waiting());
+
+        limiter.release(null);
+        assertTrue(third.isDone());
+        assertEquals(2, limiter.inFlight());
+    }
+
+    @Test
+    void testCancelledWaiterDoesNotLeakPermit() {
+        VepAdaptiveConcurrency.ChannelLimiter limiter = limiter(1);
+        Cancellable running = limiter.withPermit(() -> Uni.createFrom().nothing())
+            .subscribe().with(item -> { });
+        Cancellable waiting = limiter.withPermit(() -> Uni.createFrom().item("annotated"))
+            .subscribe().with(item -> { });
+        assertEquals(1, limiter.waiting());
+
+        waiting.cancel();
+        assertEquals(0, limiter.waiting(), "A cancelled record must leave the queue");
+
+        running.cancel();
+        assertEquals(0, limiter.inFlight(), "No permit may stay taken once both records are gone");
+
+        AtomicReference<String> result = new AtomicReference<>();
+        limiter.withPermit(() -> Uni.createFrom().item("annotated")).subscribe().with(result::set);
+        assertEquals("annotated", result.get());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void testReleaseSkipsCancelledWaiters() {
+        VepAdaptiveConcurrency.ChannelLimiter limiter = limiter(1);
+        assertTrue(limiter.acquire().isDone());
+        CompletableFuture<Void> cancelled = limiter.acquire();
+        CompletableFuture<Void> next = limiter.acquire();
+        cancelled.cancel(false);
+
+        limiter.release(null);
+        assertTrue(next.isDone() && !next.isCancelled(), "The permit must go to the next live waiter");
+        assertEquals(1, limiter.inFlight());
+        assertEquals(0, limiter.waiting());
+    }
+
+    @Test
+    void testBacklogWithHealthyLatencyIncreasesLimit() {
+        VepAdaptiveConcurrency.ChannelLimiter limiter = limiter(4);
+        runInterval(limiter, 4, 10, FAST, 0);
+
+        VepAdaptiveConcurrency.Adjustment adjustment = limiter.adjust(100, settings);
+        assertNotNull(adjustment);
+        assertEquals(VepAdaptiveConcurrency.REASON_LAG, adjustment.reason());
+        assertEquals(5, limiter.limit());
+        assertEquals(VepAdaptiveConcurrency.REASON_LAG, limiter.lastReason());
+    }
+
+    @Test
+    void testNoBacklogKeepsLimit() {
+        VepAdaptiveConcurrency.ChannelLimiter limiter = limiter(4);
+        runInterval(limiter, 4, 10, FAST, 0);
+
+        assertNull(limiter.adjust(0, settings), "Without backlog there is no reason to push harder");
+        assertEquals(4, limiter.limit());
+    }
+
+    @Test
+    void testLatencyAboveBaselineDecreasesLimit() {
+        VepAdaptiveConcurrency.ChannelLimiter limiter = limiter(16);
+        runInterval(limiter, 16, 10, FAST, 0);
+        limiter.adjust(100, settings);
+        int limitBeforeSlowdown = limiter.limit();
+
+        runInterval(limiter, limitBeforeSlowdown, 10, SLOW, 0);
+        VepAdaptiveConcurrency.Adjustment adjustment = limiter.adjust(100, settings);
+
+        assertNotNull(adjustment);
+        assertEquals(VepAdaptiveConcurrency.REASON_LATENCY, adjustment.reason());
+        assertEquals((int) Math.floor(limitBeforeSlowdown * 0.75), limiter.limit());
+    }
+
+    @Test
+    void testErrorsDecreaseLimitDownToMinimum() {
+        VepAdaptiveConcurrency.ChannelLimiter limiter = limiter(2);
+        for (int interval = 0; interval < 5; interval++) {
+            runInterval(limiter, limiter.limit(), 10, FAST, 5);
+            limiter.adjust(100, settings);
+        }
+
+        assertEquals(1, limiter.limit(), "The limit never drops below min-limit");
+        assertEquals(VepAdaptiveConcurrency.REASON_ERRORS, limiter.lastReason());
+    }
+
+    @Test
+    void testPermanentFailuresAreNotErrors() {
+        VepAdaptiveConcurrency.ChannelLimiter limiter = limiter(4);
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < 10; i++) {
+            limiter.release(new VepRetryRouter.PermanentFailureException("Invalid or missing genetic sequence"));
+            limiter.acquire();
+        }
+
+        VepAdaptiveConcurrency.Adjustment adjustment = limiter.adjust(100, settings);
+        assertNotNull(adjustment);
+        assertEquals(VepAdaptiveConcurrency.REASON_LAG, adjustment.reason(), "Bad input says nothing about VEP health");
+    }
+
+    @Test
+    void testLimitNeverExceedsMaximum() {
+        VepAdaptiveConcurrency.ChannelLimiter limiter = new VepAdaptiveConcurrency.ChannelLimiter(
+            "test", "genetic-data-raw", 2, 1, 3);
+        for (int interval = 0; interval < 5; interval++) {
+            runInterval(limiter, limiter.limit(), 10, FAST, 0);
+            limiter.adjust(100, settings);
+        }
+        assertEquals(3, limiter.limit());
+    }
+
+    private static VepAdaptiveConcurrency.ChannelLimiter limiter(int initialLimit) {
+        return new VepAdaptiveConcurrency.ChannelLimiter("test", "genetic-data-raw", initialLimit, 1, initialLimit * 4);
+    }
+
+    /**
+     * Completes records with every permit in use, the first failures of them failed
+     */
+    private static void runInterval(VepAdaptiveConcurrency.ChannelLimiter limiter, int concurrent,
+                                    int records, long latencyNanos, int failures) {
+        for (int i = 0; i < concurrent; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < records; i++) {
+            limiter.recordLatency(latencyNanos);
+            limiter.release(i < failures ? new IllegalStateException("VEP API unavailable") : null);
+            limiter.acquire();
+        }
+        for (int i = 0; i < concurrent; i++) {
+            limiter.recordLatency(latencyNanos);
+            limiter.release(null);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that only Ensembl VEP answers reach the annotation cache
+ */
+@QuarkusTest
+public class VepAnnotationCacheTest {
+
+    @Inject
+    VepAnnotationCache annotationCache;
+
+    @Test
+    void testLocalPredictionsAreNeverServedFromCache() throws Exception {
+        LocalConsequenceBackend localBackend = new LocalConsequenceBackend();
+        try (InputStream gtf = getClass().getClassLoader().getResourceAsStream(LocalConsequenceBackend.DEFAULT_GTF_RESOURCE)) {
+            localBackend.loadTable(gtf);
+        }
+        // Annotated while healthcare.ml.vep.backend=local: a coding hit and an intergenic placeholder
+        List<VepApiResponse> local = localBackend.annotate(List.of("7:g.140753400G>A", "2:g.50000000C>T"), "human")
+            .await().atMost(Duration.ofSeconds(5));
+        assertEquals(2, local.size());
+        annotationCache.put(local, "human");
+
+        VepApiResponse remote = new VepApiResponse();
+        remote.setInput("17:g.43094692G>A");
+        remote.setMostSevereConsequence("missense_variant");
+        annotationCache.put(List.of(remote), "human");
+
+        // Back on the remote backend: only the VEP answer is served
+        Map<String, VepApiResponse> cached = annotationCache.lookup(
+                List.of("7:g.140753400G>A", "2:g.50000000C>T", "17:g.43094692G>A"), "human")
+            .await().atMost(Duration.ofSeconds(5));
+        assertEquals(List.of("17:g.43094692G>A"), List.copyOf(cached.keySet()));
+    }
+}
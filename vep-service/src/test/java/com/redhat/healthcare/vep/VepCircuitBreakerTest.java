@@ -0,0 +1,50 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the sliding outcome window that decides when the VEP circuit breaker opens
+ */
+@QuarkusTest
+public class VepCircuitBreakerTest {
+
+    @Test
+    void testFailureRateOverPartialWindow() {
+        VepCircuitBreaker.OutcomeWindow window = new VepCircuitBreaker.OutcomeWindow(20);
+        window.record(true);
+        window.record(false);
+        window.record(true);
+        window.record(true);
+
+        assertEquals(4, window.calls());
+        assertEquals(0.75, window.failureRate(), 0.0001);
+    }
+
+    @Test
+    void testOldOutcomesSlideOutOfWindow() {
+        VepCircuitBreaker.OutcomeWindow window = new VepCircuitBreaker.OutcomeWindow(10);
+        for (int i = 0; i < 10; i++) {
+            window.record(true);
+        }
+        assertEquals(1.0, window.failureRate(), 0.0001);
+
+        for (int i = 0; i < 10; i++) {
+            window.record(false);
+        }
+        assertEquals(10, window.calls());
+        assertEquals(0.0, window.failureRate(), 0.0001, "Recovered dependency should not keep the breaker open");
+    }
+
+    @Test
+    void testResetClearsHistory() {
+        VepCircuitBreaker.OutcomeWindow window = new VepCircuitBreaker.OutcomeWindow(10);
+        window.record(true);
+        window.reset();
+
+        assertEquals(0, window.calls());
+        assertEquals(0.0, window.failureRate(), 0.0001);
+    }
+}
@@ -0,0 +1,111 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the dispatch order of the weighted fair scheduler
+ */
+@QuarkusTest
+public class VepFairSchedulerTest {
+
+    private static final long NOW = TimeUnit.SECONDS.toNanos(1_000);
+
+    @Test
+    void testRecordsWithinCapacityAreDispatchedImmediately() {
+        VepFairScheduler.FairQueue queue = queue(2, 0);
+        assertTrue(queue.enqueue("big-data", NOW).slot().isDone());
+        assertTrue(queue.enqueue("normal", NOW).slot().isDone());
+
+        VepFairScheduler.Dispatch third = queue.enqueue("normal", NOW);
+        assertFalse(third.slot().isDone(), "A record beyond capacity must wait");
+        assertEquals(1, queue.queued("normal"));
+
+        queue.release("big-data", NOW);
+        assertTrue(third.slot().isDone());
+        assertEquals(2, queue.running("normal"));
+    }
+
+    @Test
+    void testSlotsAreSharedByWeight() {
+        VepFairScheduler.FairQueue queue = queue(1, 0);
+        queue.enqueue("big-data", NOW);
+        List<VepFairScheduler.Dispatch> waiting = new ArrayList<>();
+        List<String> waitingModes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            waiting.add(queue.enqueue("normal", NOW));
+            waitingModes.add("normal");
+            waiting.add(queue.enqueue("big-data", NOW));
+            waitingModes.add("big-data");
+        }
+
+        List<String> order = new ArrayList<>();
+        String running = "big-data";
+        for (int i = 0; i < 27; i++) {
+            queue.release(running, NOW);
+            int next = indexOfDispatched(waiting);
+            waiting.remove(next);
+            running = waitingModes.remove(next);
+            order.add(running);
+        }
+
+        long bigData = order.stream().filter("big-data"::equals).count();
+        assertTrue(bigData >= 2 && bigData <= 4,
+            "Big-data (weight 1) gets about one slot in nine next to normal mode (weight 8): " + order);
+        assertEquals("normal", order.get(0), "Big-data just had its turn");
+    }
+
+    @Test
+    void testOverdueRecordIsDispatchedFirst() {
+        VepFairScheduler.FairQueue queue = queue(1, 0);
+        queue.enqueue("normal", NOW);
+        VepFairScheduler.Dispatch bigData = queue.enqueue("big-data", NOW);
+        VepFairScheduler.Dispatch normal = queue.enqueue("normal", NOW + TimeUnit.SECONDS.toNanos(30));
+
+        // By the time a slot frees up the big-data record (deadline 10s) is overdue, normal (5s) is not
+        queue.enqueue("node-scale", NOW + TimeUnit.SECONDS.toNanos(31));
+        queue.release("normal", NOW + TimeUnit.SECONDS.toNanos(31));
+
+        assertTrue(bigData.slot().isDone(), "The overdue record goes before the higher weight");
+        assertFalse(normal.slot().isDone());
+    }
+
+    @Test
+    void testReservedSlotsStayFreeForTheirMode() {
+        VepFairScheduler.FairQueue queue = queue(4, 1);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.enqueue("big-data", NOW).slot().isDone());
+        }
+        VepFairScheduler.Dispatch overReservation = queue.enqueue("big-data", NOW);
+        assertFalse(overReservation.slot().isDone(), "Big-data must not take the slot reserved for normal mode");
+
+        assertTrue(queue.enqueue("normal", NOW).slot().isDone(), "Normal mode never waits behind a big-data burst");
+        assertEquals(3, queue.running("big-data"));
+    }
+
+    private static int indexOfDispatched(List<VepFairScheduler.Dispatch> waiting) {
+        for (int i = 0; i < waiting.size(); i++) {
+            if (waiting.get(i).slot().isDone()) {
+                return i;
+            }
+        }
+        throw new AssertionError("A released slot must dispatch a waiting record");
+    }
+
+    private static VepFairScheduler.FairQueue queue(int capacity, int reservedNormal) {
+        Map<String, VepFairScheduler.ModeSettings> modes = new LinkedHashMap<>();
+        modes.put("normal", new VepFairScheduler.ModeSettings(8, 5_000, reservedNormal));
+        modes.put("big-data", new VepFairScheduler.ModeSettings(1, 10_000, 0));
+        modes.put("node-scale", new VepFairScheduler.ModeSettings(2, 60_000, 0));
+        modes.put("kafka-lag", new VepFairScheduler.ModeSettings(1, 60_000, 0));
+        return new VepFairScheduler.FairQueue(capacity, modes);
+    }
+}
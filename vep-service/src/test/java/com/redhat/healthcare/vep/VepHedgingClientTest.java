@@ -0,0 +1,120 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the rolling latency window behind the adaptive VEP timeout and hedging
+ */
+@QuarkusTest
+public class VepHedgingClientTest {
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Test
+    void testNoPercentileBeforeMinSamples() {
+        VepHedgingClient.LatencyWindow window = new VepHedgingClient.LatencyWindow(100);
+        for (int i = 0; i < 19; i++) {
+            window.record(1_000_000);
+        }
+
+        assertEquals(-1, window.percentileNanos(0.95, 20), "Too few samples should disable adaptation");
+        window.record(1_000_000);
+        assertEquals(1_000_000, window.percentileNanos(0.95, 20));
+    }
+
+    @Test
+    void testPercentilesOfUniformLatencies() {
+        VepHedgingClient.LatencyWindow window = new VepHedgingClient.LatencyWindow(100);
+        for (int i = 1; i <= 100; i++) {
+            window.record(i);
+        }
+
+        assertEquals(50, window.percentileNanos(0.50, 1));
+        assertEquals(95, window.percentileNanos(0.95, 1));
+        assertEquals(99, window.percentileNanos(0.99, 1));
+        assertEquals(100, window.percentileNanos(1.0, 1));
+    }
+
+    @Test
+    void testWindowForgetsOldLatencies() {
+        VepHedgingClient.LatencyWindow window = new VepHedgingClient.LatencyWindow(50);
+        for (int i = 0; i < 50; i++) {
+            window.record(30_000);
+        }
+        for (int i = 0; i < 50; i++) {
+            window.record(200);
+        }
+
+        assertEquals(200, window.percentileNanos(0.99, 1), "Slow samples outside the window must not inflate the timeout");
+    }
+
+    @Test
+    void testTimeoutRisesAfterLatencyStepUp() throws Exception {
+        StubVepApiClient api = new StubVepApiClient();
+        VepHedgingClient client = hedgingClient(api);
+        VepHgvsRequest request = VepHgvsRequest.fromSingle("17:g.43094692G>A");
+
+        api.latencyMs = 5;
+        for (int i = 0; i < 20; i++) {
+            client.annotateVariants(request, "human").get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(50, client.currentTimeoutMs(), "Fast history keeps the timeout at its minimum");
+
+        // Ensembl slows down beyond the current timeout: each timeout is a censored sample
+        api.latencyMs = 300;
+        int timedOut = 0;
+        List<VepApiResponse> responses = null;
+        while (responses == null && timedOut < 5) {
+            try {
+                responses = client.annotateVariants(request, "human").get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertInstanceOf(TimeoutException.class, e.getCause());
+                timedOut++;
+            }
+        }
+
+        assertNotNull(responses, "The timeout must adapt instead of failing every call");
+        assertTrue(timedOut >= 1 && timedOut <= 3, "Timed out " + timedOut + " times");
+        assertTrue(client.currentTimeoutMs() > 300, "Timeout now above the new latency: " + client.currentTimeoutMs());
+    }
+
+    /**
+     * Client on the stubbed API with the adaptive timeout on (min 50ms, p99 x3) and hedging off
+     */
+    private VepHedgingClient hedgingClient(StubVepApiClient api) {
+        VepRateLimiter rateLimiter = new VepRateLimiter();
+        rateLimiter.meterRegistry = meterRegistry;
+        rateLimiter.rateLimitEnabled = false;
+        rateLimiter.requestsPerSecond = 15;
+        rateLimiter.requestsPerHour = 55_000;
+        rateLimiter.init();
+
+        VepHedgingClient client = new VepHedgingClient();
+        client.vepApiClient = api;
+        client.rateLimiter = rateLimiter;
+        client.responseReader = new VepResponseReader();
+        client.meterRegistry = meterRegistry;
+        client.projectedParsingEnabled = false;
+        client.adaptiveTimeoutEnabled = true;
+        client.timeoutPercentile = 0.99;
+        client.timeoutMultiplier = 3.0;
+        client.minTimeoutMs = 50;
+        client.maxTimeoutMs = 5_000;
+        client.windowSize = 64;
+        client.minSamples = 20;
+        client.hedgingEnabled = false;
+        client.init();
+        return client;
+    }
+}
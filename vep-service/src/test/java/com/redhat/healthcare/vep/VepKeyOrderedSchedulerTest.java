@@ -0,0 +1,93 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that records of one session run in order while other sessions run concurrently
+ */
+@QuarkusTest
+public class VepKeyOrderedSchedulerTest {
+
+    @Inject
+    VepKeyOrderedScheduler scheduler;
+
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    @Test
+    void testSameSessionWaitsForAck() {
+        Uni<Message<String>> first = scheduler.inOrder("session-a", () -> work("a1"));
+        Uni<Message<String>> second = scheduler.inOrder("session-a", () -> work("a2"));
+        Uni<Message<String>> other = scheduler.inOrder("session-b", () -> work("b1"));
+
+        Message<String> firstResult = first.await().atMost(Duration.ofSeconds(5));
+        second.subscribe().with(ignored -> { });
+        other.await().atMost(Duration.ofSeconds(5));
+
+        assertEquals(List.of("a1", "b1"), started, "a2 must not start before a1's result is acked");
+
+        firstResult.ack();
+        assertEquals(List.of("a1", "b1", "a2"), started);
+    }
+
+    @Test
+    void testDroppedRecordReleasesSession() {
+        scheduler.inOrder("session-c", () -> Uni.createFrom().nullItem()).await().atMost(Duration.ofSeconds(5));
+        Message<String> next = scheduler.inOrder("session-c", () -> work("c2")).await().atMost(Duration.ofSeconds(5));
+
+        assertEquals("c2", next.getPayload());
+    }
+
+    @Test
+    void testFailedRecordReleasesSession() {
+        Uni<Message<String>> failing = scheduler.inOrder("session-d",
+            () -> Uni.createFrom().failure(new IllegalStateException("VEP unavailable")));
+        assertThrows(IllegalStateException.class, () -> failing.await().atMost(Duration.ofSeconds(5)));
+
+        Message<String> next = scheduler.inOrder("session-d", () -> work("d2")).await().atMost(Duration.ofSeconds(5));
+        assertEquals("d2", next.getPayload());
+    }
+
+    @Test
+    void testWaitingRecordsDoNotFillTheWindow() {
+        List<Message<String>> records = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            records.add(Message.of("chunked:" + i));
+        }
+        records.add(Message.of("other:1"));
+        List<Message<String>> results = new CopyOnWriteArrayList<>();
+
+        scheduler.process(Multi.createFrom().iterable(records),
+                record -> record.getPayload().substring(0, record.getPayload().indexOf(':')),
+                record -> work(record.getPayload()), 2)
+            .subscribe().with(results::add);
+
+        assertEquals(List.of("chunked:1", "other:1"), started,
+            "The other session must run while chunked:2..5 wait for chunked:1's ack");
+
+        for (int i = 1; i < 5; i++) {
+            String payload = "chunked:" + i;
+            results.stream().filter(result -> result.getPayload().equals(payload)).findFirst().orElseThrow().ack();
+        }
+        assertEquals(List.of("chunked:1", "other:1", "chunked:2", "chunked:3", "chunked:4", "chunked:5"), started);
+        assertEquals(6, results.size(), "Parked records' results are emitted too");
+    }
+
+    private Uni<Message<String>> work(String record) {
+        return Uni.createFrom().item(() -> {
+            started.add(record);
+            return Message.of(record);
+        });
+    }
+}
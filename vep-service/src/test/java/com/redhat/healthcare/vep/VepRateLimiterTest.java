@@ -0,0 +1,64 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the VEP rate limiter token buckets
+ *
+ * Validates that requests beyond the Ensembl budget are queued (positive wait)
+ * instead of being rejected.
+ */
+@QuarkusTest
+public class VepRateLimiterTest {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testBurstWithinBudgetDoesNotWait() {
+        VepRateLimiter.TokenBucket bucket = new VepRateLimiter.TokenBucket(15, Duration.ofSeconds(1), 0);
+
+        for (int i = 0; i < 15; i++) {
+            assertEquals(0, bucket.reserve(0), "Request " + i + " should be within the per-second budget");
+        }
+    }
+
+    @Test
+    void testRequestsBeyondBudgetAreQueued() {
+        VepRateLimiter.TokenBucket bucket = new VepRateLimiter.TokenBucket(15, Duration.ofSeconds(1), 0);
+        for (int i = 0; i < 15; i++) {
+            bucket.reserve(0);
+        }
+
+        long firstWait = bucket.reserve(0);
+        long secondWait = bucket.reserve(0);
+
+        // One token refills every 1/15 s, and queued requests wait behind each other
+        assertEquals(ONE_SECOND / 15, firstWait, ONE_SECOND / 1000);
+        assertEquals(2 * ONE_SECOND / 15, secondWait, ONE_SECOND / 1000);
+    }
+
+    @Test
+    void testBucketRefillsOverTime() {
+        VepRateLimiter.TokenBucket bucket = new VepRateLimiter.TokenBucket(15, Duration.ofSeconds(1), 0);
+        for (int i = 0; i < 15; i++) {
+            bucket.reserve(0);
+        }
+
+        assertEquals(0, bucket.reserve(ONE_SECOND), "Bucket should be full again after one second");
+    }
+
+    @Test
+    void testPauseDelaysNextRequest() {
+        VepRateLimiter.TokenBucket bucket = new VepRateLimiter.TokenBucket(15, Duration.ofSeconds(1), 0);
+
+        bucket.pauseUntil(2 * ONE_SECOND, 0);
+
+        assertTrue(bucket.reserve(0) >= 2 * ONE_SECOND, "Retry-After pause should delay the next request");
+    }
+}
@@ -0,0 +1,76 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the local pipeline signals behind the readiness probe
+ */
+@QuarkusTest
+public class VepReadinessMonitorTest {
+
+    private static final long STALL_TIMEOUT = TimeUnit.SECONDS.toNanos(120);
+
+    @Inject
+    VepReadinessMonitor readinessMonitor;
+
+    @Test
+    void testBusyChannelWithoutProgressIsStalled() {
+        VepReadinessMonitor.ChannelActivity activity = new VepReadinessMonitor.ChannelActivity();
+        long start = 1_000_000_000L;
+        activity.started(start);
+        activity.started(start + TimeUnit.SECONDS.toNanos(60));
+
+        assertEquals(2, activity.inFlight());
+        assertFalse(activity.isStalled(start + TimeUnit.SECONDS.toNanos(100), STALL_TIMEOUT));
+        assertTrue(activity.isStalled(start + TimeUnit.SECONDS.toNanos(121), STALL_TIMEOUT),
+                  "New messages arriving must not hide a channel that stopped completing messages");
+
+        activity.finished(start + TimeUnit.SECONDS.toNanos(122));
+        assertFalse(activity.isStalled(start + TimeUnit.SECONDS.toNanos(130), STALL_TIMEOUT));
+    }
+
+    @Test
+    void testLongRunningChannelsHaveTheirOwnStallTimeout() {
+        long bigDataTimeout = readinessMonitor.stallTimeoutNanos("big-data");
+        assertEquals(TimeUnit.SECONDS.toNanos(600), bigDataTimeout);
+        assertEquals(TimeUnit.SECONDS.toNanos(600), readinessMonitor.stallTimeoutNanos("node-scale"));
+        assertEquals(STALL_TIMEOUT, readinessMonitor.stallTimeoutNanos("normal"));
+
+        // One unchunked big-data sequence in the 300s intensive processing simulation
+        VepReadinessMonitor.ChannelActivity activity = new VepReadinessMonitor.ChannelActivity();
+        activity.started(0);
+        assertFalse(activity.isStalled(TimeUnit.SECONDS.toNanos(300), bigDataTimeout),
+                   "A big-data message still within its processing time is not a stall");
+        assertTrue(activity.isStalled(TimeUnit.SECONDS.toNanos(601), bigDataTimeout));
+    }
+
+    @Test
+    void testIdleChannelIsNeverStalled() {
+        VepReadinessMonitor.ChannelActivity activity = new VepReadinessMonitor.ChannelActivity();
+        activity.started(0);
+        activity.finished(TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, activity.inFlight());
+        assertFalse(activity.isStalled(TimeUnit.HOURS.toNanos(1), STALL_TIMEOUT));
+    }
+
+    @Test
+    void testPendingEventLoopProbeReportsGrowingLag() {
+        VepReadinessMonitor.EventLoopLag lag = new VepReadinessMonitor.EventLoopLag();
+        assertTrue(lag.startProbe(0));
+        lag.completeProbe(TimeUnit.MILLISECONDS.toNanos(3));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3), lag.lagNanos(TimeUnit.SECONDS.toNanos(1)));
+
+        long probeStart = TimeUnit.SECONDS.toNanos(1);
+        assertTrue(lag.startProbe(probeStart));
+        assertFalse(lag.startProbe(probeStart + 1), "Only one probe may be pending");
+        assertEquals(TimeUnit.SECONDS.toNanos(5), lag.lagNanos(probeStart + TimeUnit.SECONDS.toNanos(5)),
+                    "A blocked event loop must show up before the probe completes");
+    }
+}
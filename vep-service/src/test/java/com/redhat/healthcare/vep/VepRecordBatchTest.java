@@ -0,0 +1,94 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordBatchMetadata;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.Metadata;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that a record batch is only acknowledged (committed) once every record's result is acked
+ */
+@QuarkusTest
+public class VepRecordBatchTest {
+
+    private final AtomicInteger batchAcks = new AtomicInteger();
+    private final AtomicInteger batchNacks = new AtomicInteger();
+
+    @Test
+    void testBatchAckedAfterLastRecord() {
+        List<Message<String>> records = VepRecordBatch.split(batch(List.of("a", "b", "c")));
+        assertEquals(3, records.size());
+        assertEquals("b", records.get(1).getPayload());
+
+        records.get(2).ack();
+        records.get(0).ack();
+        assertEquals(0, batchAcks.get(), "Offsets must not be committed while a record is still in flight");
+
+        records.get(1).ack();
+        assertEquals(1, batchAcks.get());
+    }
+
+    @Test
+    void testNackedRecordNacksBatchOnce() {
+        List<Message<String>> records = VepRecordBatch.split(batch(List.of("a", "b", "c")));
+        records.get(0).nack(new IllegalStateException("broker unavailable"));
+        records.get(1).nack(new IllegalStateException("broker unavailable"));
+        records.get(2).ack();
+
+        assertEquals(1, batchNacks.get());
+        assertEquals(0, batchAcks.get(), "A batch with an undelivered result must not be committed");
+    }
+
+    @Test
+    void testEmptyBatchAckedImmediately() {
+        assertTrue(VepRecordBatch.split(batch(List.of())).isEmpty());
+        assertEquals(1, batchAcks.get());
+    }
+
+    @Test
+    void testRecordsKeepTheirKafkaMetadata() {
+        ConsumerRecord<String, String> first = new ConsumerRecord<>("genetic-data-raw", 0, 10L, "session-1", "a");
+        first.headers().add("ce_type", "com.redhat.healthcare.genetic.sequence.raw".getBytes(StandardCharsets.UTF_8));
+        ConsumerRecord<String, String> second = new ConsumerRecord<>("genetic-data-raw", 0, 11L, "session-2", "b");
+        ConsumerRecords<String, String> consumerRecords =
+            new ConsumerRecords<>(Map.of(new TopicPartition("genetic-data-raw", 0), List.of(first, second)));
+
+        List<Message<String>> records = VepRecordBatch.split(batch(List.of("a", "b")).withMetadata(Metadata.of(
+            new IncomingKafkaRecordBatchMetadata<>(consumerRecords, "genetic-data-raw", -1, Map.of(), -1))));
+
+        IncomingKafkaRecordMetadata<?, ?> firstMetadata = records.get(0).getMetadata(IncomingKafkaRecordMetadata.class).orElseThrow();
+        IncomingKafkaRecordMetadata<?, ?> secondMetadata = records.get(1).getMetadata(IncomingKafkaRecordMetadata.class).orElseThrow();
+        assertEquals("session-1", firstMetadata.getKey());
+        assertNotNull(firstMetadata.getHeaders().lastHeader("ce_type"), "The record's CloudEvent headers are kept");
+        assertEquals("session-2", secondMetadata.getKey());
+
+        records.get(0).ack();
+        records.get(1).ack();
+        assertEquals(1, batchAcks.get(), "Records with metadata still share the batch ack");
+    }
+
+    private Message<List<String>> batch(List<String> records) {
+        return Message.of(records,
+            () -> {
+                batchAcks.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            },
+            failure -> {
+                batchNacks.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            });
+    }
+}
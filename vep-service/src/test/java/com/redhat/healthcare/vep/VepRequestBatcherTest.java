@@ -0,0 +1,175 @@
+package com.redhat.healthcare.vep;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests cross-session batching of HGVS notations against a stubbed VEP API
+ */
+@QuarkusTest
+public class VepRequestBatcherTest {
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private VepRequestBatcher batcher;
+
+    @AfterEach
+    void shutdownBatcher() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    void testResponsesAreRoutedBackByInput() throws Exception {
+        StubVepApiClient api = new StubVepApiClient();
+        batcher = batcher(api, 200);
+
+        CompletableFuture<List<VepApiResponse>> first =
+            batcher.submit(List.of("17:g.43094692G>A", "13:g.32339832T>C"), "human").toCompletableFuture();
+        CompletableFuture<List<VepApiResponse>> second =
+            batcher.submit(List.of("13:g.32339832T>C", "7:g.140753336A>T"), "human").toCompletableFuture();
+
+        assertEquals(List.of("17:g.43094692G>A", "13:g.32339832T>C"), inputs(first.get(5, TimeUnit.SECONDS)));
+        assertEquals(List.of("13:g.32339832T>C", "7:g.140753336A>T"), inputs(second.get(5, TimeUnit.SECONDS)));
+        assertEquals(1, api.calls.size(), "Both sessions should share one POST");
+        assertEquals(List.of("17:g.43094692G>A", "13:g.32339832T>C", "7:g.140753336A>T"), api.calls.get(0),
+            "A notation submitted twice is sent once");
+    }
+
+    @Test
+    void testLookupsAreSplitAtTheNotationLimit() throws Exception {
+        StubVepApiClient api = new StubVepApiClient();
+        batcher = batcher(api, 200);
+
+        List<String> notations = notations("1", 1500);
+        List<VepApiResponse> responses = batcher.submit(notations, "human").toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals(notations, inputs(responses), "Parts are recombined in submission order");
+        assertEquals(2, api.calls.size());
+        assertEquals(VepRequestBatcher.MAX_NOTATIONS_PER_REQUEST, api.calls.get(0).size());
+        assertEquals(500, api.calls.get(1).size());
+    }
+
+    @Test
+    void testLookupsThatDoNotFitTogetherGetSeparatePosts() throws Exception {
+        StubVepApiClient api = new StubVepApiClient();
+        batcher = batcher(api, 200);
+
+        CompletableFuture<List<VepApiResponse>> first = batcher.submit(notations("1", 600), "human").toCompletableFuture();
+        CompletableFuture<List<VepApiResponse>> second = batcher.submit(notations("2", 600), "human").toCompletableFuture();
+
+        assertEquals(600, first.get(5, TimeUnit.SECONDS).size());
+        assertEquals(600, second.get(5, TimeUnit.SECONDS).size());
+        assertEquals(2, api.calls.size());
+        api.calls.forEach(call -> assertTrue(call.size() <= VepRequestBatcher.MAX_NOTATIONS_PER_REQUEST));
+    }
+
+    @Test
+    void testBatchIsSentWhenTheWindowCloses() throws Exception {
+        StubVepApiClient api = new StubVepApiClient();
+        batcher = batcher(api, 300);
+
+        long started = System.nanoTime();
+        CompletableFuture<List<VepApiResponse>> result = batcher.submit(List.of("12:g.25245350C>T"), "human").toCompletableFuture();
+        assertTrue(api.calls.isEmpty(), "A partial batch waits for the window");
+
+        assertEquals(1, result.get(5, TimeUnit.SECONDS).size());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) >= 250, "Sent before the window closed");
+        assertEquals(1, api.calls.size());
+    }
+
+    @Test
+    void testThrottledRequestIsRetried() throws Exception {
+        StubVepApiClient api = new StubVepApiClient();
+        api.failures.add(new WebApplicationException(Response.status(429).header("Retry-After", "0").build()));
+        batcher = batcher(api, 50);
+
+        List<VepApiResponse> responses =
+            batcher.submit(List.of("17:g.7675088C>T"), "human").toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("17:g.7675088C>T"), inputs(responses), "A 429 must not surface as an empty annotation");
+        assertEquals(2, api.calls.size());
+    }
+
+    @Test
+    void testFailureReachesEveryLookupOfTheBatch() {
+        StubVepApiClient api = new StubVepApiClient();
+        api.failures.add(new IllegalStateException("VEP API unavailable"));
+        batcher = batcher(api, 200);
+
+        CompletableFuture<List<VepApiResponse>> first = batcher.submit(List.of("1:g.100A>T"), "human").toCompletableFuture();
+        CompletableFuture<List<VepApiResponse>> second = batcher.submit(List.of("2:g.200C>G"), "human").toCompletableFuture();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, api.calls.size());
+    }
+
+    /**
+     * Batcher wired to the stubbed API: rate limit, adaptive timeout, hedging and circuit breaker off
+     */
+    private VepRequestBatcher batcher(StubVepApiClient api, long windowMs) {
+        VepRateLimiter rateLimiter = new VepRateLimiter();
+        rateLimiter.meterRegistry = meterRegistry;
+        rateLimiter.rateLimitEnabled = false;
+        rateLimiter.requestsPerSecond = 15;
+        rateLimiter.requestsPerHour = 55_000;
+        rateLimiter.init();
+
+        VepHedgingClient client = new VepHedgingClient();
+        client.vepApiClient = api;
+        client.rateLimiter = rateLimiter;
+        client.responseReader = new VepResponseReader();
+        client.meterRegistry = meterRegistry;
+        client.projectedParsingEnabled = false;
+        client.adaptiveTimeoutEnabled = false;
+        client.maxTimeoutMs = 5_000;
+        client.hedgingEnabled = false;
+        client.windowSize = 64;
+        client.minSamples = 20;
+        client.init();
+
+        VepCircuitBreaker circuitBreaker = new VepCircuitBreaker();
+        circuitBreaker.breakerEnabled = false;
+
+        VepRequestBatcher requestBatcher = new VepRequestBatcher();
+        requestBatcher.vepClient = client;
+        requestBatcher.rateLimiter = rateLimiter;
+        requestBatcher.circuitBreaker = circuitBreaker;
+        requestBatcher.meterRegistry = meterRegistry;
+        requestBatcher.batchingEnabled = true;
+        requestBatcher.windowMs = windowMs;
+        requestBatcher.maxNotations = VepRequestBatcher.MAX_NOTATIONS_PER_REQUEST;
+        requestBatcher.maxThrottledRetries = 5;
+        requestBatcher.init();
+        return requestBatcher;
+    }
+
+    private static List<String> notations(String chromosome, int count) {
+        List<String> notations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            notations.add(chromosome + ":g." + (1000 + i) + "A>T");
+        }
+        return notations;
+    }
+
+    private static List<String> inputs(List<VepApiResponse> responses) {
+        return responses.stream().map(VepApiResponse::getInput).toList();
+    }
+}
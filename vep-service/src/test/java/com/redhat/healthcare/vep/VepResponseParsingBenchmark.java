@@ -0,0 +1,132 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation benchmark for VEP response parsing: full databind model vs VepResponseReader
+ *
+ * Both benchmarks run the whole path from HTTP body to the serialized vep_annotations array
+ * of the output CloudEvent, the way VepResultMapper builds it before and after the change.
+ *
+ * RUN:
+ *   mvn -Pbenchmark test -Dbenchmark.include=VepResponseParsingBenchmark
+ *
+ * The gc profiler reports gc.alloc.rate.norm = bytes allocated per VEP response
+ * (one operation = one variant of the synthetic Ensembl array).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VepResponseParsingBenchmark {
+
+    static final int VARIANTS = 20;
+
+    @Param({"5", "40"})
+    int transcriptsPerVariant;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final VepResponseReader responseReader = new VepResponseReader();
+    private byte[] responseBody;
+
+    @Setup
+    public void setUp() {
+        responseBody = ensemblResponse(VARIANTS, transcriptsPerVariant).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Before: bind every field of the array, then valueToTree each response into the CloudEvent data
+     */
+    @Benchmark
+    @OperationsPerInvocation(VARIANTS)
+    public void fullModelDatabind(Blackhole blackhole) throws Exception {
+        List<VepApiResponse> responses = objectMapper.readValue(responseBody, new TypeReference<List<VepApiResponse>>() { });
+        ArrayNode annotations = objectMapper.createArrayNode();
+        for (VepApiResponse response : responses) {
+            annotations.add(objectMapper.<JsonNode>valueToTree(response));
+        }
+        blackhole.consume(objectMapper.writeValueAsBytes(annotations));
+    }
+
+    /**
+     * After: stream the array keeping only the projected fields, serialize the model directly
+     */
+    @Benchmark
+    @OperationsPerInvocation(VARIANTS)
+    public void streamingProjection(Blackhole blackhole) throws Exception {
+        List<VepApiResponse> responses = responseReader.read(responseBody);
+        ArrayNode annotations = objectMapper.createArrayNode();
+        for (VepApiResponse response : responses) {
+            annotations.addPOJO(response);
+        }
+        blackhole.consume(objectMapper.writeValueAsBytes(annotations));
+    }
+
+    /**
+     * Builds an Ensembl-shaped /vep/human/hgvs response with the fields VEP returns by default
+     */
+    static String ensemblResponse(int variants, int transcriptsPerVariant) {
+        StringBuilder json = new StringBuilder("[");
+        for (int v = 0; v < variants; v++) {
+            if (v > 0) {
+                json.append(',');
+            }
+            json.append("{\"input\":\"17:g.").append(43094692 + v).append("G>A\",")
+                .append("\"id\":\"17:g.").append(43094692 + v).append("G>A\",")
+                .append("\"assembly_name\":\"GRCh38\",\"seq_region_name\":\"17\",")
+                .append("\"start\":").append(43094692 + v).append(",\"end\":").append(43094692 + v)
+                .append(",\"strand\":1,\"allele_string\":\"G/A\",\"variant_class\":\"SNV\",")
+                .append("\"most_severe_consequence\":\"missense_variant\",")
+                .append("\"colocated_variants\":[{\"id\":\"rs80357").append(v)
+                .append("\",\"allele_string\":\"G/A\",\"start\":").append(43094692 + v)
+                .append(",\"end\":").append(43094692 + v)
+                .append(",\"strand\":1,\"frequencies\":{\"A\":{\"af\":0.0002,\"gnomade\":0.00015,\"gnomadg\":0.0001}}}],")
+                .append("\"transcript_consequences\":[");
+            for (int t = 0; t < transcriptsPerVariant; t++) {
+                if (t > 0) {
+                    json.append(',');
+                }
+                json.append("{\"gene_id\":\"ENSG00000012048\",\"gene_symbol\":\"BRCA1\",\"gene_symbol_source\":\"HGNC\",")
+                    .append("\"hgnc_id\":\"HGNC:1100\",\"transcript_id\":\"ENST0000035").append(String.format("%04d", t)).append("\",")
+                    .append("\"biotype\":\"protein_coding\",\"strand\":-1,\"impact\":\"MODERATE\",")
+                    .append("\"consequence_terms\":[\"missense_variant\",\"splice_region_variant\"],")
+                    .append("\"variant_allele\":\"A\",\"amino_acids\":\"S/F\",\"codons\":\"tCt/tTt\",")
+                    .append("\"protein_start\":").append(1000 + t).append(",\"protein_end\":").append(1000 + t).append(',')
+                    .append("\"cds_start\":").append(3000 + t).append(",\"cds_end\":").append(3000 + t).append(',')
+                    .append("\"cdna_start\":").append(3100 + t).append(",\"cdna_end\":").append(3100 + t).append(',')
+                    .append("\"sift_prediction\":\"deleterious\",\"sift_score\":0.01,")
+                    .append("\"polyphen_prediction\":\"probably_damaging\",\"polyphen_score\":0.998,")
+                    .append("\"hgvsc\":\"ENST0000035").append(String.format("%04d", t)).append(".8:c.3000C>T\",")
+                    .append("\"hgvsp\":\"ENSP0000035").append(String.format("%04d", t)).append(".4:p.Ser1000Phe\",")
+                    .append("\"domains\":[{\"db\":\"PANTHER\",\"name\":\"PTHR13763\"},{\"db\":\"MobiDB_lite\",\"name\":\"mobidb-lite\"}],")
+                    .append("\"flags\":[\"cds_start_NF\"],\"canonical\":").append(t == 0 ? 1 : 0).append('}');
+            }
+            json.append("],\"regulatory_feature_consequences\":[{\"regulatory_feature_id\":\"ENSR00000551")
+                .append(v).append("\",\"biotype\":\"promoter\",\"impact\":\"MODIFIER\",")
+                .append("\"consequence_terms\":[\"regulatory_region_variant\"],\"variant_allele\":\"A\"}]}");
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the streaming, field-projected VEP response reader
+ */
+@QuarkusTest
+public class VepResponseReaderTest {
+
+    private final VepResponseReader reader = new VepResponseReader();
+
+    @Test
+    void testKeepsProjectedFields() {
+        byte[] body = VepResponseParsingBenchmark.ensemblResponse(2, 3).getBytes(StandardCharsets.UTF_8);
+
+        List<VepApiResponse> responses = reader.read(body);
+
+        assertEquals(2, responses.size());
+        VepApiResponse first = responses.get(0);
+        assertEquals("17:g.43094692G>A", first.getInput());
+        assertEquals("missense_variant", first.getMostSevereConsequence());
+
+        TranscriptConsequence transcript = first.getTranscriptConsequences().get(0);
+        assertEquals("BRCA1", transcript.getGeneSymbol());
+        assertEquals("MODERATE", transcript.getImpact());
+        assertEquals("deleterious", transcript.getSiftPrediction());
+        assertEquals(0.01, transcript.getSiftScore(), 0.0001);
+        assertEquals("probably_damaging", transcript.getPolyphenPrediction());
+        assertEquals(0.998, transcript.getPolyphenScore(), 0.0001);
+
+        // Skipped fields are never materialized
+        assertNull(transcript.getTranscriptId());
+        assertNull(transcript.getConsequenceTerms());
+        assertNull(first.getAlleleString());
+    }
+
+    @Test
+    void testConsequenceCountsMatchFullModel() throws Exception {
+        byte[] body = VepResponseParsingBenchmark.ensemblResponse(3, 7).getBytes(StandardCharsets.UTF_8);
+
+        List<VepApiResponse> projected = reader.read(body);
+        List<VepApiResponse> full = new ObjectMapper().readValue(body, new TypeReference<List<VepApiResponse>>() { });
+
+        assertEquals(full.size(), projected.size());
+        for (int i = 0; i < full.size(); i++) {
+            assertEquals(full.get(i).getInput(), projected.get(i).getInput());
+            assertEquals(full.get(i).getTotalConsequences(), projected.get(i).getTotalConsequences());
+        }
+    }
+
+    @Test
+    void testRejectsNonArrayBody() {
+        assertThrows(UncheckedIOException.class,
+            () -> reader.read("{\"error\":\"Rate limit exceeded\"}".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(reader.read("[]".getBytes(StandardCharsets.UTF_8)).isEmpty());
+    }
+}
@@ -0,0 +1,61 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.cloudevents.CloudEvent;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the sequence projection of annotated results
+ */
+@QuarkusTest
+public class VepResultMapperTest {
+
+    private static final String SEQUENCE = "ATCGATCGATCGATCGATCGATCGATCGATCGATCGATCGATCGATCG";
+
+    @Inject
+    VepResultMapper resultMapper;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Test
+    void testSummaryProjectionReplacesSequence() throws Exception {
+        GeneticSequenceData sequenceData = GeneticSequenceData.fromPlainSequence(SEQUENCE);
+        CloudEvent event = resultMapper.mapVepResult(VepAnnotationResult.empty(sequenceData), sequenceData, "normal");
+
+        JsonNode data = objectMapper.readTree(event.getData().toBytes());
+        assertFalse(data.has("genetic_sequence"), "The input sequence is not echoed");
+        assertFalse(data.has("genetic_sequence_packed"));
+        assertFalse(data.has("genetic_sequence_ref"));
+        assertEquals(SEQUENCE.length(), data.get("sequence_length").asInt());
+        assertEquals(SEQUENCE.substring(0, 32), data.get("sequence_preview").asText());
+        assertTrue(data.get("sequence_sha256").asText().matches("[0-9a-f]{64}"));
+    }
+
+    @Test
+    void testSummaryOfSequenceShorterThanPreview() {
+        ObjectNode data = objectMapper.createObjectNode();
+        resultMapper.writeSequenceSummary(data, "ATCG");
+
+        assertEquals("ATCG", data.get("sequence_preview").asText());
+        // echo -n ATCG | sha256sum
+        assertEquals("8bbb9746434159bee76cc1510c01a83746785fe3ad54d46fbb9b5d6bd9497e61",
+            data.get("sequence_sha256").asText());
+    }
+
+    @Test
+    void testMappingFailureIsPermanent() {
+        GeneticSequenceData sequenceData = GeneticSequenceData.fromPlainSequence(SEQUENCE);
+
+        // No error CloudEvent is published: the failure reaches VepRetryRouter, which sends it to the DLQ
+        VepRetryRouter.PermanentFailureException failure = assertThrows(VepRetryRouter.PermanentFailureException.class,
+            () -> resultMapper.mapVepResult(VepAnnotationResult.empty(sequenceData), "s1", null, "normal"));
+        assertNotNull(failure.getCause());
+    }
+}
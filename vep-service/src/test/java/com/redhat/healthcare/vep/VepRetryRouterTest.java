@@ -0,0 +1,134 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordMetadata;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.Metadata;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that failed records move through the retry tiers to the DLQ with their retry headers
+ */
+@QuarkusTest
+public class VepRetryRouterTest {
+
+    private static final String RECORD = "{\"sessionId\":\"retry-session\",\"genetic_sequence\":\"ATCGATCG\"}";
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Inject
+    VepRetryRouter retryRouter;
+
+    @Test
+    void testFirstFailureGoesToFirstTier() {
+        Message<String> retry = retryRouter.retryRecord("big-data", Message.of(RECORD), "retry-session",
+            new IllegalStateException("VEP API unavailable", new SocketTimeoutException("Read timed out")), NOW);
+
+        OutgoingKafkaRecordMetadata<?> metadata = outgoing(retry);
+        assertEquals("genetic-data-retry-10s", metadata.getTopic());
+        assertEquals("retry-session", metadata.getKey());
+        assertEquals(RECORD, retry.getPayload(), "The record is retried unchanged");
+
+        Headers headers = metadata.getHeaders();
+        assertEquals("1", header(headers, VepRetryRouter.RETRY_COUNT_HEADER));
+        assertEquals("SocketTimeoutException: Read timed out", header(headers, VepRetryRouter.RETRY_CAUSE_HEADER));
+        assertEquals("big-data", header(headers, VepRetryRouter.RETRY_MODE_HEADER));
+        assertEquals("genetic-bigdata-raw", header(headers, VepRetryRouter.RETRY_ORIGIN_TOPIC_HEADER));
+        assertEquals(String.valueOf(NOW + 10_000), header(headers, VepRetryRouter.RETRY_DUE_AT_HEADER));
+    }
+
+    @Test
+    void testRetriedRecordMovesToNextTier() {
+        Message<String> retry = retryRouter.retryRecord("normal", retried(1, "genetic-data-raw"), "retry-session",
+            new IllegalStateException("VEP API unavailable"), NOW);
+
+        OutgoingKafkaRecordMetadata<?> metadata = outgoing(retry);
+        assertEquals("genetic-data-retry-1m", metadata.getTopic());
+        assertEquals("2", header(metadata.getHeaders(), VepRetryRouter.RETRY_COUNT_HEADER));
+        assertEquals(String.valueOf(NOW + 60_000), header(metadata.getHeaders(), VepRetryRouter.RETRY_DUE_AT_HEADER));
+    }
+
+    @Test
+    void testLastTierFailureGoesToDlq() {
+        Message<String> retry = retryRouter.retryRecord("normal", retried(3, "genetic-data-raw"), "retry-session",
+            new IllegalStateException("VEP API unavailable"), NOW);
+
+        OutgoingKafkaRecordMetadata<?> metadata = outgoing(retry);
+        assertEquals("genetic-data-dlq", metadata.getTopic());
+        assertEquals("4", header(metadata.getHeaders(), VepRetryRouter.RETRY_COUNT_HEADER));
+        assertEquals("genetic-data-raw", header(metadata.getHeaders(), VepRetryRouter.RETRY_ORIGIN_TOPIC_HEADER));
+        assertNull(header(metadata.getHeaders(), VepRetryRouter.RETRY_DUE_AT_HEADER), "DLQ records are not due for retry");
+    }
+
+    @Test
+    void testPermanentFailureSkipsRetryTiers() {
+        Message<String> retry = retryRouter.retryRecord("normal", Message.of(RECORD), "retry-session",
+            new VepRetryRouter.PermanentFailureException("Invalid or missing session ID"), NOW);
+
+        assertEquals("genetic-data-dlq", outgoing(retry).getTopic());
+        assertEquals("1", header(outgoing(retry).getHeaders(), VepRetryRouter.RETRY_COUNT_HEADER));
+    }
+
+    @Test
+    void testRetryHeadersOfIncomingRecord() {
+        Message<String> record = retried(2, "genetic-lag-demo-raw");
+
+        assertEquals(2, VepRetryRouter.retryCount(record));
+        assertEquals("kafka-lag", retryRouter.processingMode(record));
+        assertEquals(NOW, VepRetryRouter.dueAtMillis(record));
+        assertEquals(0, VepRetryRouter.retryCount(Message.of(RECORD)), "A raw record has not been retried");
+    }
+
+    @Test
+    void testCloudEventHeadersAreCarriedOver() {
+        ConsumerRecord<String, String> raw = new ConsumerRecord<>("genetic-data-raw", 0, 7L, "retry-session", RECORD);
+        raw.headers().add("ce_id", bytes("event-1"));
+        raw.headers().add("ce_type", bytes("com.redhat.healthcare.genetic.sequence.raw"));
+        raw.headers().add("traceparent", bytes("00-trace-span-01"));
+        Message<String> record = Message.of(RECORD, Metadata.of(new IncomingKafkaRecordMetadata<>(raw, "genetic-data-raw")));
+
+        Headers retryHeaders = outgoing(retryRouter.retryRecord("normal", record, "retry-session",
+            new IllegalStateException("VEP API unavailable"), NOW)).getHeaders();
+        Headers dlqHeaders = outgoing(retryRouter.retryRecord("normal", record, "retry-session",
+            new VepRetryRouter.PermanentFailureException("VEP result mapping failed"), NOW)).getHeaders();
+
+        for (Headers headers : List.of(retryHeaders, dlqHeaders)) {
+            assertEquals("event-1", header(headers, "ce_id"));
+            assertEquals("com.redhat.healthcare.genetic.sequence.raw", header(headers, "ce_type"));
+            assertNull(header(headers, "traceparent"), "Only CloudEvent headers are copied");
+            assertEquals("1", header(headers, VepRetryRouter.RETRY_COUNT_HEADER));
+        }
+    }
+
+    private static Message<String> retried(int retryCount, String originTopic) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("genetic-data-retry-10s", 0, 42L, "retry-session", RECORD);
+        record.headers().add(VepRetryRouter.RETRY_COUNT_HEADER, bytes(String.valueOf(retryCount)));
+        record.headers().add(VepRetryRouter.RETRY_MODE_HEADER, bytes("genetic-lag-demo-raw".equals(originTopic) ? "kafka-lag" : "normal"));
+        record.headers().add(VepRetryRouter.RETRY_ORIGIN_TOPIC_HEADER, bytes(originTopic));
+        record.headers().add(VepRetryRouter.RETRY_DUE_AT_HEADER, bytes(String.valueOf(NOW)));
+        return Message.of(RECORD, Metadata.of(new IncomingKafkaRecordMetadata<>(record, "genetic-data-retry-10s")));
+    }
+
+    private static OutgoingKafkaRecordMetadata<?> outgoing(Message<String> message) {
+        return message.getMetadata(OutgoingKafkaRecordMetadata.class).orElseThrow();
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
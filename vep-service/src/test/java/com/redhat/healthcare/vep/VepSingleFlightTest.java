@@ -0,0 +1,105 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that concurrent lookups of the same notation share one backend call
+ */
+@QuarkusTest
+public class VepSingleFlightTest {
+
+    @Inject
+    VepSingleFlight singleFlight;
+
+    @Test
+    void testConcurrentLookupsShareOneCall() {
+        ControlledBackend backend = new ControlledBackend();
+
+        Uni<List<VepApiResponse>> first = singleFlight.annotate(List.of("17:g.43094692G>A", "13:g.32339832T>C"), "human", backend);
+        // Same notation in a different spelling, plus one new notation
+        Uni<List<VepApiResponse>> second = singleFlight.annotate(List.of("chr17:g.43094692G>A", "7:g.140753336A>T"), "human", backend);
+
+        assertEquals(2, backend.calls.size(), "Only the new notation should trigger a second backend call");
+        assertEquals(List.of("7:g.140753336A>T"), backend.calls.get(1));
+
+        backend.completeAll();
+
+        assertEquals(2, first.await().atMost(Duration.ofSeconds(5)).size());
+        List<VepApiResponse> secondResponses = second.await().atMost(Duration.ofSeconds(5));
+        assertEquals(2, secondResponses.size());
+        assertEquals("17:g.43094692G>A", secondResponses.get(0).getInput(), "Follower receives the leader's response");
+    }
+
+    @Test
+    void testCompletedLookupsAreNotReused() {
+        ControlledBackend backend = new ControlledBackend();
+
+        Uni<List<VepApiResponse>> first = singleFlight.annotate(List.of("12:g.25245350C>T"), "human", backend);
+        backend.completeAll();
+        first.await().atMost(Duration.ofSeconds(5));
+
+        singleFlight.annotate(List.of("12:g.25245350C>T"), "human", backend);
+        assertEquals(2, backend.calls.size(), "Single-flight must not act as a cache");
+        backend.completeAll();
+    }
+
+    @Test
+    void testFollowersReceiveLeaderFailure() {
+        ControlledBackend backend = new ControlledBackend();
+
+        Uni<List<VepApiResponse>> leader = singleFlight.annotate(List.of("17:g.7675088C>T"), "human", backend);
+        Uni<List<VepApiResponse>> follower = singleFlight.annotate(List.of("17:g.7675088C>T"), "human", backend);
+        assertEquals(1, backend.calls.size());
+
+        backend.failAll(new VepCircuitBreaker.CircuitOpenException());
+
+        assertThrows(VepCircuitBreaker.CircuitOpenException.class, () -> leader.await().atMost(Duration.ofSeconds(5)));
+        assertThrows(VepCircuitBreaker.CircuitOpenException.class, () -> follower.await().atMost(Duration.ofSeconds(5)));
+    }
+
+    /**
+     * Backend whose calls complete only when the test says so
+     */
+    private static class ControlledBackend implements AnnotationBackend {
+        final List<List<String>> calls = new CopyOnWriteArrayList<>();
+        final List<CompletableFuture<List<VepApiResponse>>> results = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String name() {
+            return "controlled";
+        }
+
+        @Override
+        public Uni<List<VepApiResponse>> annotate(List<String> notations, String species) {
+            calls.add(List.copyOf(notations));
+            CompletableFuture<List<VepApiResponse>> result = new CompletableFuture<>();
+            results.add(result);
+            List<VepApiResponse> responses = new ArrayList<>();
+            for (String notation : notations) {
+                VepApiResponse response = new VepApiResponse();
+                response.setInput(notation);
+                responses.add(response);
+            }
+            return Uni.createFrom().completionStage(result.thenApply(ignored -> responses));
+        }
+
+        void completeAll() {
+            results.forEach(result -> result.complete(List.of()));
+        }
+
+        void failAll(Throwable failure) {
+            results.forEach(result -> result.completeExceptionally(failure));
+        }
+    }
+}
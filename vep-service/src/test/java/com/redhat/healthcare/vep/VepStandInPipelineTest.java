@@ -0,0 +1,39 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.ResourceArg;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the annotation pipeline (batcher, rate limiter, hedging client, parser) against the
+ * VEP stand-in instead of rest.ensembl.org
+ */
+@QuarkusTest
+@QuarkusTestResource(value = VepStandInResource.class, restrictToAnnotatedClass = true, initArgs = {
+    @ResourceArg(name = "vep-standin.median-latency-ms", value = "50"),
+    @ResourceArg(name = "vep-standin.throttle-rate", value = "0"),
+    @ResourceArg(name = "vep-standin.error-rate", value = "0")
+})
+public class VepStandInPipelineTest {
+
+    @Inject
+    VepAnnotationService vepAnnotationService;
+
+    @Test
+    void testAnnotatesThroughStandIn() {
+        GeneticSequenceData sequenceData = GeneticSequenceData.fromPlainSequence("ATCGATCGATCGATCGATCGATCGATCGATCG");
+
+        VepAnnotationResult result = vepAnnotationService.annotateWithVepAsync(sequenceData)
+            .await().atMost(Duration.ofSeconds(30));
+
+        assertNotNull(result);
+        assertFalse(result.getAnnotations().isEmpty(), "Stand-in should annotate every generated notation");
+        assertFalse(result.isDegraded());
+    }
+}
@@ -0,0 +1,52 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starts a VepStandInServer for a @QuarkusTest and points the VEP REST client at it
+ *
+ * Usage:
+ * <pre>
+ * &#64;QuarkusTestResource(value = VepStandInResource.class, restrictToAnnotatedClass = true,
+ *     initArgs = &#64;ResourceArg(name = "vep-standin.median-latency-ms", value = "200"))
+ * </pre>
+ * vep-standin.* init args (see VepStandInServer.Profile.fromProperties) override the
+ * ENSEMBL_LIKE profile; system properties with the same keys override init args.
+ */
+public class VepStandInResource implements QuarkusTestResourceLifecycleManager {
+
+    private final Map<String, String> profileProperties = new HashMap<>();
+    private VepStandInServer server;
+
+    @Override
+    public void init(Map<String, String> initArgs) {
+        profileProperties.putAll(initArgs);
+        System.getProperties().forEach((key, value) -> {
+            if (key.toString().startsWith("vep-standin.")) {
+                profileProperties.put(key.toString(), value.toString());
+            }
+        });
+    }
+
+    @Override
+    public Map<String, String> start() {
+        try {
+            server = new VepStandInServer(VepStandInServer.Profile.fromProperties(profileProperties)).start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start VEP stand-in server", e);
+        }
+        return Map.of("quarkus.rest-client.vep-api.url", server.url());
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.redhat.healthcare.vep;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded stand-in for the Ensembl VEP REST API, for load tests and benchmarks
+ *
+ * WHY THIS SERVER:
+ * - Tests either called rest.ensembl.org (rate limited, not reproducible) or mocked
+ *   VepApiClient away, hiding the batcher, rate limiter, hedging and parsing behaviour
+ *
+ * ENDPOINTS:
+ * - POST /vep/{species}/hgvs: one Ensembl-shaped response per input notation, with
+ *   transcript, regulatory and colocated-variant sections
+ * - GET /info/software: {"release":113}
+ *
+ * PROFILE (see Profile.fromProperties for the keys):
+ * - response time: log-normal around median-latency-ms with latency-sigma, capped at max-latency-ms
+ * - throttle-rate: share of POSTs answered with 429 and Retry-After
+ * - error-rate: share of POSTs answered with 503
+ * - transcripts-per-variant: payload size
+ *
+ * Point the service at it with quarkus.rest-client.vep-api.url=url() (VepStandInResource does this
+ * for @QuarkusTest classes), or run main() to use it from a locally started service.
+ */
+public class VepStandInServer implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Pattern HGVS_POSITION = Pattern.compile("^(?:chr)?([0-9XYMT]+):g\\.(\\d+)(.*)$");
+
+    private static final String[][] GENES_BY_CHROMOSOME = {
+        {"1", "AGT", "ENSG00000135744"}, {"7", "BRAF", "ENSG00000157764"},
+        {"12", "KRAS", "ENSG00000133703"}, {"13", "BRCA2", "ENSG00000139618"},
+        {"17", "BRCA1", "ENSG00000012048"}, {"21", "APP", "ENSG00000142192"}
+    };
+
+    private static final String[][] CONSEQUENCES = {
+        {"missense_variant", "MODERATE"}, {"synonymous_variant", "LOW"},
+        {"intron_variant", "MODIFIER"}, {"splice_region_variant", "LOW"},
+        {"stop_gained", "HIGH"}, {"3_prime_UTR_variant", "MODIFIER"}
+    };
+
+    private final Profile profile;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong notations = new AtomicLong();
+
+    public VepStandInServer(Profile profile) throws IOException {
+        this(profile, 0);
+    }
+
+    public VepStandInServer(Profile profile, int port) throws IOException {
+        this.profile = profile;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        // One thread per request, so simulated latency never queues requests behind each other
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "vep-standin");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/vep/", this::handleAnnotate);
+        server.createContext("/info/software", exchange ->
+            respond(exchange, 200, "{\"release\":113}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public VepStandInServer start() {
+        server.start();
+        return this;
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long throttled() {
+        return throttled.get();
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+
+    public long notations() {
+        return notations.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleAnnotate(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith("/hgvs")) {
+            respond(exchange, 404, "{\"error\":\"Not found\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        requests.incrementAndGet();
+
+        JsonNode request;
+        try (InputStream body = exchange.getRequestBody()) {
+            request = MAPPER.readTree(body);
+        }
+        List<String> inputs = new ArrayList<>();
+        request.path("hgvs_notations").forEach(notation -> inputs.add(notation.asText()));
+
+        sleepQuietly(profile.sampleLatencyMs(ThreadLocalRandom.current()));
+
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < profile.throttleRate()) {
+            throttled.incrementAndGet();
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            respond(exchange, 429, "{\"error\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        if (roll < profile.throttleRate() + profile.errorRate()) {
+            errors.incrementAndGet();
+            respond(exchange, 503, "{\"error\":\"Service temporarily unavailable\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        notations.addAndGet(inputs.size());
+        respond(exchange, 200, annotations(inputs, profile.transcriptsPerVariant()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Ensembl-shaped VEP response array for the input notations (deterministic per notation)
+     */
+    static String annotations(List<String> inputs, int transcriptsPerVariant) {
+        StringBuilder json = new StringBuilder(inputs.size() * (600 + 700 * transcriptsPerVariant)).append('[');
+        for (int i = 0; i < inputs.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendAnnotation(json, inputs.get(i), transcriptsPerVariant);
+        }
+        return json.append(']').toString();
+    }
+
+    private static void appendAnnotation(StringBuilder json, String input, int transcriptsPerVariant) {
+        Matcher matcher = HGVS_POSITION.matcher(input);
+        String chromosome = matcher.matches() ? matcher.group(1) : "1";
+        long position = matcher.matches() ? Long.parseLong(matcher.group(2)) : 1;
+        String[] gene = geneFor(chromosome);
+        Random random = new Random(input.hashCode());
+        String[] mostSevere = CONSEQUENCES[random.nextInt(CONSEQUENCES.length)];
+        String escapedInput = input.replace("\\", "\\\\").replace("\"", "\\\"");
+
+        json.append("{\"input\":\"").append(escapedInput).append("\",\"id\":\"").append(escapedInput).append("\",")
+            .append("\"assembly_name\":\"GRCh38\",\"seq_region_name\":\"").append(chromosome).append("\",")
+            .append("\"start\":").append(position).append(",\"end\":").append(position)
+            .append(",\"strand\":1,\"allele_string\":\"G/A\",\"variant_class\":\"SNV\",")
+            .append("\"most_severe_consequence\":\"").append(mostSevere[0]).append("\",")
+            .append("\"colocated_variants\":[{\"id\":\"rs").append(100000 + random.nextInt(900000))
+            .append("\",\"allele_string\":\"G/A\",\"start\":").append(position).append(",\"end\":").append(position)
+            .append(",\"strand\":1,\"frequencies\":{\"A\":{\"af\":0.0002,\"gnomade\":0.00015,\"gnomadg\":0.0001}}}],")
+            .append("\"transcript_consequences\":[");
+        for (int t = 0; t < transcriptsPerVariant; t++) {
+            String[] consequence = t == 0 ? mostSevere : CONSEQUENCES[random.nextInt(CONSEQUENCES.length)];
+            boolean missense = "missense_variant".equals(consequence[0]);
+            if (t > 0) {
+                json.append(',');
+            }
+            json.append("{\"gene_id\":\"").append(gene[2]).append("\",\"gene_symbol\":\"").append(gene[1])
+                .append("\",\"gene_symbol_source\":\"HGNC\",\"transcript_id\":\"ENST00000")
+                .append(String.format("%06d", 350000 + t)).append("\",\"biotype\":\"protein_coding\",\"strand\":1,")
+                .append("\"impact\":\"").append(consequence[1]).append("\",")
+                .append("\"consequence_terms\":[\"").append(consequence[0]).append("\"],\"variant_allele\":\"A\",")
+                .append("\"cdna_start\":").append(1000 + t).append(",\"cdna_end\":").append(1000 + t).append(',');
+            if (missense) {
+                json.append("\"amino_acids\":\"S/F\",\"codons\":\"tCt/tTt\",")
+                    .append("\"protein_start\":").append(300 + t).append(",\"protein_end\":").append(300 + t).append(',')
+                    .append("\"sift_prediction\":\"deleterious\",\"sift_score\":0.01,")
+                    .append("\"polyphen_prediction\":\"probably_damaging\",\"polyphen_score\":0.998,");
+            }
+            json.append("\"domains\":[{\"db\":\"PANTHER\",\"name\":\"PTHR13763\"}],")
+                .append("\"canonical\":").append(t == 0 ? 1 : 0).append('}');
+        }
+        json.append("],\"regulatory_feature_consequences\":[{\"regulatory_feature_id\":\"ENSR00000")
+            .append(String.format("%06d", Math.floorMod(position, 1_000_000)))
+            .append("\",\"biotype\":\"promoter\",\"impact\":\"MODIFIER\",")
+            .append("\"consequence_terms\":[\"regulatory_region_variant\"],\"variant_allele\":\"A\"}]}");
+    }
+
+    private static String[] geneFor(String chromosome) {
+        for (String[] gene : GENES_BY_CHROMOSOME) {
+            if (gene[0].equals(chromosome)) {
+                return gene;
+            }
+        }
+        return new String[] {chromosome, "GENE" + chromosome, "ENSG00000000000"};
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Latency, error and payload profile of the stand-in
+     */
+    public record Profile(long medianLatencyMs, double latencySigma, long maxLatencyMs,
+                          double throttleRate, double errorRate, int transcriptsPerVariant) {
+
+        /** No latency, no errors - for functional tests */
+        public static final Profile FAST = new Profile(0, 0.0, 0, 0.0, 0.0, 3);
+
+        /** Roughly what rest.ensembl.org looks like from a cluster: heavy tail, rare 429/503 */
+        public static final Profile ENSEMBL_LIKE = new Profile(350, 0.6, 10_000, 0.01, 0.005, 8);
+
+        /**
+         * Reads vep-standin.* keys (median-latency-ms, latency-sigma, max-latency-ms, throttle-rate,
+         * error-rate, transcripts-per-variant); missing keys keep the ENSEMBL_LIKE values
+         */
+        public static Profile fromProperties(Map<String, String> properties) {
+            Profile defaults = ENSEMBL_LIKE;
+            return new Profile(
+                Long.parseLong(properties.getOrDefault("vep-standin.median-latency-ms", String.valueOf(defaults.medianLatencyMs()))),
+                Double.parseDouble(properties.getOrDefault("vep-standin.latency-sigma", String.valueOf(defaults.latencySigma()))),
+                Long.parseLong(properties.getOrDefault("vep-standin.max-latency-ms", String.valueOf(defaults.maxLatencyMs()))),
+                Double.parseDouble(properties.getOrDefault("vep-standin.throttle-rate", String.valueOf(defaults.throttleRate()))),
+                Double.parseDouble(properties.getOrDefault("vep-standin.error-rate", String.valueOf(defaults.errorRate()))),
+                Integer.parseInt(properties.getOrDefault("vep-standin.transcripts-per-variant",
+                                                         String.valueOf(defaults.transcriptsPerVariant()))));
+        }
+
+        long sampleLatencyMs(Random random) {
+            if (medianLatencyMs <= 0) {
+                return 0;
+            }
+            long latency = (long) (medianLatencyMs * Math.exp(latencySigma * random.nextGaussian()));
+            return maxLatencyMs > 0 ? Math.min(latency, maxLatencyMs) : latency;
+        }
+    }
+
+    /**
+     * Runs the stand-in standalone: port followed by optional vep-standin.*=value arguments
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        Map<String, String> properties = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String[] pair = args[i].split("=", 2);
+            if (pair.length == 2) {
+                properties.put(pair[0], pair[1]);
+            }
+        }
+        VepStandInServer server = new VepStandInServer(Profile.fromProperties(properties), port).start();
+        System.out.println("VEP stand-in listening on " + server.url() + " with " + server.profile);
+        Thread.currentThread().join();
+    }
+}
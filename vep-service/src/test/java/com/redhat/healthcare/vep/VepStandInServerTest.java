@@ -0,0 +1,77 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the VEP stand-in answers like the Ensembl VEP API and honours its profile
+ */
+@QuarkusTest
+public class VepStandInServerTest {
+
+    private static final String REQUEST_BODY =
+        "{\"hgvs_notations\":[\"17:g.43094692G>A\",\"7:g.140753336A>T\",\"12:g.25245350C>T\"]}";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void testReturnsOneResponsePerNotation() throws Exception {
+        try (VepStandInServer server = new VepStandInServer(VepStandInServer.Profile.FAST).start()) {
+            HttpResponse<byte[]> response = post(server);
+
+            assertEquals(200, response.statusCode());
+            List<VepApiResponse> responses = new VepResponseReader().read(response.body());
+            assertEquals(3, responses.size());
+            assertEquals("17:g.43094692G>A", responses.get(0).getInput());
+            assertEquals("BRCA1", responses.get(0).getTranscriptConsequences().get(0).getGeneSymbol());
+            assertEquals(3, responses.get(1).getTranscriptConsequences().size());
+            assertEquals(3, server.notations());
+        }
+    }
+
+    @Test
+    void testThrottleAndErrorProfile() throws Exception {
+        VepStandInServer.Profile alwaysThrottled = new VepStandInServer.Profile(0, 0.0, 0, 1.0, 0.0, 1);
+        try (VepStandInServer server = new VepStandInServer(alwaysThrottled).start()) {
+            HttpResponse<byte[]> response = post(server);
+            assertEquals(429, response.statusCode());
+            assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+            assertEquals(1, server.throttled());
+        }
+
+        VepStandInServer.Profile alwaysFailing = new VepStandInServer.Profile(0, 0.0, 0, 0.0, 1.0, 1);
+        try (VepStandInServer server = new VepStandInServer(alwaysFailing).start()) {
+            assertEquals(503, post(server).statusCode());
+            assertEquals(1, server.errors());
+        }
+    }
+
+    @Test
+    void testInfoSoftwareAnswersPing() throws Exception {
+        try (VepStandInServer server = new VepStandInServer(VepStandInServer.Profile.FAST).start()) {
+            HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(server.url() + "/info/software")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("release"), "VepHealthCheck ping expects a release field");
+        }
+    }
+
+    private HttpResponse<byte[]> post(VepStandInServer server) throws Exception {
+        return httpClient.send(
+            HttpRequest.newBuilder(URI.create(server.url() + "/vep/human/hgvs"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(REQUEST_BODY))
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,91 @@
+package com.redhat.healthcare.vep;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.api.IncomingKafkaRecordBatchMetadata;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.Metadata;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that a transaction batch holding several records of one session completes, in session order,
+ * and that records moved to a retry tier keep their CloudEvent headers
+ */
+@QuarkusTest
+public class VepTransactionalPipelineTest {
+
+    @Inject
+    VepTransactionalPipeline pipeline;
+
+    @Test
+    void testRecordsOfOneSessionInOneBatch() {
+        List<String> records = List.of(
+            record("session-a", "ATCG"),
+            record("session-a", "GATTACA"),
+            record("session-b", "TTGA"),
+            "{\"genetic_sequence\":\"CCGG\"}",
+            "{\"genetic_sequence\":\"AATT\"}");
+
+        // Results are only acked when the transaction commits: the batch must not wait for an ack
+        List<String> outgoing = pipeline.outgoingRecords(records.stream().map(Message::of).toList(), record -> Uni.createFrom()
+                .item(Message.of(record.getPayload().getBytes(StandardCharsets.UTF_8)))
+                .onItem().delayIt().by(Duration.ofMillis(record.getPayload().contains("ATCG") ? 50 : 5)))
+            .await().atMost(Duration.ofSeconds(5))
+            .stream().map(message -> new String(message.getPayload(), StandardCharsets.UTF_8)).toList();
+
+        assertEquals(records.size(), outgoing.size());
+        assertTrue(outgoing.indexOf(records.get(0)) < outgoing.indexOf(records.get(1)),
+            "The slower first record of the session must still be published first");
+        assertTrue(outgoing.containsAll(records.subList(2, 5)), "Records without a session are published too");
+    }
+
+    @Test
+    void testRetryRecordsKeepCloudEventHeaders() {
+        String payload = record("session-c", "ATCG");
+        ConsumerRecord<String, String> consumerRecord = new ConsumerRecord<>("genetic-data-raw", 0, 42L, "session-c", payload);
+        consumerRecord.headers().add("ce_type", bytes("com.redhat.healthcare.genetic.sequence.raw"));
+        consumerRecord.headers().add("ce_id", bytes("event-42"));
+        ConsumerRecords<String, String> consumerRecords =
+            new ConsumerRecords<>(Map.of(new TopicPartition("genetic-data-raw", 0), List.of(consumerRecord)));
+        Message<List<String>> batch = Message.of(List.of(payload), Metadata.of(
+            new IncomingKafkaRecordBatchMetadata<>(consumerRecords, "genetic-data-raw-tx", -1, Map.of(), -1)));
+
+        List<Message<byte[]>> outgoing = pipeline.outgoingRecords(VepRecordBatch.records(batch), record -> Uni.createFrom()
+                .item(pipeline.outgoingRecord(record, null, new IllegalStateException("VEP API unavailable"))))
+            .await().atMost(Duration.ofSeconds(5));
+
+        assertEquals(1, outgoing.size());
+        Headers headers = outgoing.get(0).getMetadata(OutgoingKafkaRecordMetadata.class).orElseThrow().getHeaders();
+        assertEquals("com.redhat.healthcare.genetic.sequence.raw", header(headers, "ce_type"),
+            "The retry record keeps the record's CloudEvent headers");
+        assertEquals("event-42", header(headers, "ce_id"));
+        assertEquals("1", header(headers, VepRetryRouter.RETRY_COUNT_HEADER));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String header(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static String record(String sessionId, String sequence) {
+        return "{\"sessionId\":\"" + sessionId + "\",\"genetic_sequence\":\"" + sequence + "\"}";
+    }
+}